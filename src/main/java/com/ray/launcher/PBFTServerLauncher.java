@@ -8,7 +8,6 @@ import com.ray.mcu.utils.KeyUtilities;
 import com.ray.mcu.utils.ViewLoader;
 import com.ray.mcu.views.GlobalView;
 import com.ray.pbft.server.PbftServer;
-import sun.security.rsa.RSAKeyPairGenerator;
 
 /**
  * Class to launch one server instance per server in the view.
@@ -106,15 +105,13 @@ public class PBFTServerLauncher
         Log.getLogger().error("----------------------------------------------------------");
 
         */
-        final RSAKeyPairGenerator gen = new RSAKeyPairGenerator();
-
         for (int i = 0; i < 20; i++)
         {
-            Client.createClient(0, gen, "localhost", 6000 + i);
+            Client.createClient(0, "localhost", 6000 + i);
         }
 
-        //Client.createClient(1, gen, "localhost", 6001);
-        //Client.createClient(2, gen, "localhost", 6002);
-        //Client.createClient(3, gen, "localhost", 6003);
+        //Client.createClient(1, "localhost", 6001);
+        //Client.createClient(2, "localhost", 6002);
+        //Client.createClient(3, "localhost", 6003);
     }
 }
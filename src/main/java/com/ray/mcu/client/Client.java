@@ -1,5 +1,6 @@
 package com.ray.mcu.client;
 
+import com.ray.mcu.nettyhandlers.NettyTransport;
 import com.ray.mcu.nettyhandlers.SizedMessageDecoder;
 import com.ray.mcu.nettyhandlers.SizedMessageEncoder;
 import com.ray.mcu.proto.MessageProto;
@@ -12,12 +13,7 @@ import com.google.protobuf.ByteString;
 import com.ray.mcu.utils.Constants;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import sun.security.rsa.RSAKeyPairGenerator;
 
 import java.security.KeyPair;
 import java.security.PrivateKey;
@@ -66,15 +62,14 @@ public class Client extends Thread
     /**
      * Instantiate the client process and load the view.
      * @param serverId the server id to connect to.
-     * @param gen the key generator.
      * @param ip the ip.
      * @param port the port.
      */
-    public Client(final int serverId, final RSAKeyPairGenerator gen, final String ip, final int port)
+    public Client(final int serverId, final String ip, final int port)
     {
         this.serverId = serverId;
         this.view = ViewLoader.loadView(Constants.CONFIG_LOCATION, "view.json");
-        final KeyPair keyPair = gen.generateKeyPair();
+        final KeyPair keyPair = KeyUtilities.generateKeyPair();
         this.publicKey = keyPair.getPublic();
         this.privateKey = keyPair.getPrivate();
 
@@ -86,12 +81,7 @@ public class Client extends Thread
      */
     public void connect()
     {
-        final Bootstrap b = new Bootstrap();
-        final EventLoopGroup workerGroup = new NioEventLoopGroup();
-        b.group(workerGroup);
-        b.channel(NioSocketChannel.class);
-        b.option(ChannelOption.SO_KEEPALIVE, true);
-        b.option(ChannelOption.TCP_NODELAY, true);
+        final Bootstrap b = NettyTransport.newBootstrap();
 
         final ServerData data = view.getServer(serverId);
 
@@ -154,13 +144,12 @@ public class Client extends Thread
     /**
      * Create a client thread, connect and start it.
      * @param serverId the server id to connect to.
-     * @param gen key gen to generate keypair.
      * @param ip the ip.
      * @param port the port.
      */
-    public static void createClient(final int serverId, final RSAKeyPairGenerator gen, final String ip, final int port)
+    public static void createClient(final int serverId, final String ip, final int port)
     {
-        final Client client = new Client(serverId, gen, ip, port);
+        final Client client = new Client(serverId, ip, port);
         client.connect();
         client.setupReceiver();
         client.start();
@@ -199,13 +188,11 @@ public class Client extends Thread
             return;
         }
 
-        final RSAKeyPairGenerator gen = new RSAKeyPairGenerator();
-
         if (args.length == 3)
         {
             try
             {
-                createClient(Integer.parseInt(args[0]), gen, args[1], Integer.parseInt(args[2]));
+                createClient(Integer.parseInt(args[0]), args[1], Integer.parseInt(args[2]));
             }
             catch (final NumberFormatException ex)
             {
@@ -221,7 +208,7 @@ public class Client extends Thread
 
                 for (int i = 0; i < numberOfServers; i++)
                 {
-                    createClient(serverId, gen, args[2], Integer.parseInt(args[3]));
+                    createClient(serverId, args[2], Integer.parseInt(args[3]));
                 }
             }
             catch (final NumberFormatException ex)
@@ -1,5 +1,6 @@
 package com.ray.mcu.client;
 
+import com.ray.mcu.communication.SignedEnvelope;
 import com.ray.mcu.nettyhandlers.SizedMessage;
 import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.utils.KeyUtilities;
@@ -32,11 +33,11 @@ public class ClientNettyReceiverHandler extends SimpleChannelInboundHandler<Size
     {
         try
         {
-            //Read input
-            final MessageProto.Message message = MessageProto.Message.parseFrom(msg.buffer);
-            if (message.hasSig())
+            //Verify on the received bytes of the inner message before parsing it
+            final SignedEnvelope envelope = SignedEnvelope.read(msg.content().nioBuffer());
+            if (envelope.getSig() != null)
             {
-                if (!KeyUtilities.verifyKey(msg.buffer, message.getSig().toByteArray(), client.view.getServer(msg.id).getPublicKey()))
+                if (!KeyUtilities.verifyKey(envelope.getPayload(), envelope.getSig(), client.view.getServer(msg.id).getPublicKey()))
                 {
                     Log.getLogger().error("----------------------------------------------------------");
                     Log.getLogger().error("Received invalid signature supposedly from client: ");
@@ -46,6 +47,7 @@ public class ClientNettyReceiverHandler extends SimpleChannelInboundHandler<Size
                 }
             }
 
+            final MessageProto.Message message = msg.parse(MessageProto.Message.parser());
             Log.getLogger().warn("Received a message on client with result: " + (message.getResponse().getResponse() ? "Success" : "Failure"));
         }
         catch (final InvalidProtocolBufferException e)
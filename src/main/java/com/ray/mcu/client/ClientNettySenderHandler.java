@@ -3,10 +3,14 @@ package com.ray.mcu.client;
 import com.ray.mcu.nettyhandlers.SizedMessage;
 import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.server.ServerData;
+import com.ray.mcu.utils.Constants;
+import com.ray.mcu.utils.Log;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Handles a server side sending channel.
  */
@@ -43,6 +47,20 @@ public class ClientNettySenderHandler extends SimpleChannelInboundHandler<SizedM
     {
         super.channelInactive(ctx);
         this.ctx = null;
+        synchronized (this)
+        {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception
+    {
+        synchronized (this)
+        {
+            notifyAll();
+        }
+        super.channelWritabilityChanged(ctx);
     }
 
     @Override
@@ -68,11 +86,50 @@ public class ClientNettySenderHandler extends SimpleChannelInboundHandler<SizedM
 
     /**
      * Write a proto message and send it.
+     * Waits while the channel is above its write buffer high watermark, which happens once the server stops reading,
+     * for at most Constants.WRITE_STALL_MILLIS.
      * @param msg the msg to send.
+     * @return false if the message was dropped because the channel is closed or stayed unwritable.
      */
-    public void write(final MessageProto.Message msg)
+    public boolean write(final MessageProto.Message msg)
     {
-        this.ctx.writeAndFlush(new SizedMessage(msg.toByteArray(), 0));
+        final ChannelHandlerContext context = this.ctx;
+        if (context == null)
+        {
+            return false;
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.WRITE_STALL_MILLIS);
+        synchronized (this)
+        {
+            long remaining = deadline - System.nanoTime();
+            while (this.ctx == context && !context.channel().isWritable())
+            {
+                if (remaining <= 0)
+                {
+                    Log.getLogger().warn("Server " + serverData.getId() + " doesn't read, dropping the request");
+                    return false;
+                }
+
+                try
+                {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+        }
+
+        if (this.ctx != context)
+        {
+            return false;
+        }
+        context.writeAndFlush(SizedMessage.serialize(msg, 0));
+        return true;
     }
 
     /**
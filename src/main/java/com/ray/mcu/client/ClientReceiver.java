@@ -1,14 +1,13 @@
 package com.ray.mcu.client;
 
+import com.ray.mcu.nettyhandlers.NettyTransport;
 import com.ray.mcu.nettyhandlers.SizedMessageDecoder;
 import com.ray.mcu.nettyhandlers.SizedMessageEncoder;
 import com.ray.mcu.utils.Log;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 import java.net.InetSocketAddress;
 
@@ -34,15 +33,10 @@ public class ClientReceiver extends Thread
     @Override
     public void run()
     {
-        final NioEventLoopGroup acceptGroup = new NioEventLoopGroup();
-        final NioEventLoopGroup connectGroup = new NioEventLoopGroup();
-
         final ClientData clientData = client.getClientData();
         try
         {
-            final ServerBootstrap serverBootstrap = new ServerBootstrap();
-            serverBootstrap.group(acceptGroup, connectGroup);
-            serverBootstrap.channel(NioServerSocketChannel.class);
+            final ServerBootstrap serverBootstrap = NettyTransport.newServerBootstrap();
             serverBootstrap.localAddress(new InetSocketAddress(clientData.getIp(), clientData.getPort()));
 
             serverBootstrap.childHandler(new ChannelInitializer<SocketChannel>()
@@ -67,10 +61,5 @@ public class ClientReceiver extends Thread
         {
             e.printStackTrace();
         }
-        finally
-        {
-            acceptGroup.shutdownGracefully();
-            connectGroup.shutdownGracefully();
-        }
     }
 }
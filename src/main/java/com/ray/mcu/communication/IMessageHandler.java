@@ -28,11 +28,10 @@ public interface IMessageHandler
     public void handle(final IMessageWrapper message, final Server server);
 
     /**
-     * Check if this message handler can handle this specific message.
-     * @param message the message to check.
-     * @return true if so.
+     * Get the type of message this handler handles, it is registered for it.
+     * @return the oneof case of the message.
      */
-    public boolean canHandle(final MessageProto.Message message);
+    public MessageProto.Message.MessagesCase getType();
 
     /**
      * Get the sent message of a proto message.
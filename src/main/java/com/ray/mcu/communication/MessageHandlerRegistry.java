@@ -9,14 +9,12 @@ import com.ray.mcu.server.Server;
 import com.ray.mcu.server.ServerData;
 import com.ray.mcu.utils.KeyUtilities;
 import com.ray.mcu.utils.Log;
+import com.ray.mcu.utils.ValidationUtils;
 import com.google.protobuf.GeneratedMessageV3;
 import io.netty.channel.ChannelHandlerContext;
-import sun.security.rsa.RSAPublicKeyImpl;
 
-import java.security.InvalidKeyException;
-import java.security.PublicKey;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * The Message handler registry.
@@ -24,20 +22,20 @@ import java.util.List;
 public final class MessageHandlerRegistry
 {
     /**
-     * List of handlers to handle incoming messages.
+     * The handlers to handle incoming messages by message type.
      */
-    public static final List<IMessageHandler> handlers = new ArrayList<>();
+    private static final Map<MessageProto.Message.MessagesCase, IMessageHandler> handlers = new EnumMap<>(MessageProto.Message.MessagesCase.class);
 
     static
     {
-        handlers.add(new TextMessageHandler());
-        handlers.add(new IntMessageHandler());
-        handlers.add(new RegisterRequestMessage());
-        handlers.add(new RegisterMessage());
-        handlers.add(new UnregisterMessage());
-        handlers.add(new UnregisterRequestMessage());
-        handlers.add(new ClientMessage());
-        handlers.add(new PersistClientMessage());
+        register(new TextMessageHandler());
+        register(new IntMessageHandler());
+        register(new RegisterRequestMessage());
+        register(new RegisterMessage());
+        register(new UnregisterMessage());
+        register(new UnregisterRequestMessage());
+        register(new ClientMessage());
+        register(new PersistClientMessage());
     }
 
     /**
@@ -50,9 +48,29 @@ public final class MessageHandlerRegistry
          */
     }
 
+    /**
+     * Register a handler for its message type.
+     * Protocols (PBFT, ...) register their handlers on startup and replace an existing handler of the same type.
+     * @param handler the handler to register.
+     * @return the handler it replaced or null.
+     */
+    public static synchronized IMessageHandler register(final IMessageHandler handler)
+    {
+        return handlers.put(handler.getType(), handler);
+    }
+
+    /**
+     * Get the handler of a message.
+     * @param message the message.
+     * @return the handler or null if no handler is registered for its type.
+     */
+    private static IMessageHandler getHandler(final MessageProto.Message message)
+    {
+        return handlers.get(message.getMessagesCase());
+    }
+
     /**
      * Method to wrap an incoming message.
-     * Loops through all existing message wrappers.
      * @param message the incoming message.
      * @param ctx the message context.
      * @param server the receiving server.
@@ -60,47 +78,37 @@ public final class MessageHandlerRegistry
      */
     public static void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
     {
-        for (final IMessageHandler handler : handlers)
+        final IMessageHandler handler = getHandler(message);
+        if (handler != null)
         {
-            if (handler.canHandle(message))
-            {
-                handler.wrap(message, ctx, server, sender);
-                return;
-            }
+            handler.wrap(message, ctx, server, sender);
         }
     }
 
     /**
      * Method to handle an incoming message.
-     * Loops through all existing message handlers.
      * @param message the incoming message.
      * @param server the handling server.
      */
     public static void handle(final IMessageWrapper message, final Server server)
     {
-        for (final IMessageHandler handler : handlers)
+        final IMessageHandler handler = getHandler(message.getMessage());
+        if (handler != null)
         {
-            if (handler.canHandle(message.getMessage()))
-            {
-                handler.handle(message, server);
-                return;
-            }
+            handler.handle(message, server);
         }
     }
 
     /**
      * Method to get the inner message of an incoming message.
-     * Loops through all existing message handlers.
      * @param message the incoming message.
      */
     public static byte[] getMsg(final MessageProto.Message message)
     {
-        for (final IMessageHandler handler : handlers)
+        final IMessageHandler handler = getHandler(message);
+        if (handler != null)
         {
-            if (handler.canHandle(message))
-            {
-                return handler.getMessage(message).toByteArray();
-            }
+            return handler.getMessage(message).toByteArray();
         }
         return new byte[0];
     }
@@ -125,9 +133,9 @@ public final class MessageHandlerRegistry
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasTextMsg();
+            return MessageProto.Message.MessagesCase.TEXTMSG;
         }
 
         @Override
@@ -146,7 +154,7 @@ public final class MessageHandlerRegistry
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
             Log.getLogger().warn("ServerReceiver: " + server.getServerData().getId() + " received Int: " + message.getIntMsg().getI());
-            ctx.write(new IntMessageWrapper(sender, message.toBuilder()));
+            ctx.write(new IntMessageWrapper(sender, message));
         }
 
         @Override
@@ -158,9 +166,9 @@ public final class MessageHandlerRegistry
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasIntMsg();
+            return MessageProto.Message.MessagesCase.INTMSG;
         }
 
         @Override
@@ -179,7 +187,7 @@ public final class MessageHandlerRegistry
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
             Log.getLogger().warn("ServerReceiver received join request: " + server.getServerData().getId() + " ");
-            server.addToInputQueue(new JoinRequestMessageWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new JoinRequestMessageWrapper(sender, message));
         }
 
         @Override
@@ -196,9 +204,9 @@ public final class MessageHandlerRegistry
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasReqRegMsg();
+            return MessageProto.Message.MessagesCase.REQREGMSG;
         }
 
         @Override
@@ -216,7 +224,7 @@ public final class MessageHandlerRegistry
         @Override
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
-            server.addToInputQueue(new RegisterMessageWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new RegisterMessageWrapper(sender, message));
         }
 
         @Override
@@ -234,9 +242,9 @@ public final class MessageHandlerRegistry
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasRegMsg();
+            return MessageProto.Message.MessagesCase.REGMSG;
         }
 
         @Override
@@ -256,7 +264,7 @@ public final class MessageHandlerRegistry
         {
 
 
-            server.clientInputQueue.add(new ClientMessageWrapper(sender, message.toBuilder()));
+            server.clientInputQueue.add(new ClientMessageWrapper(sender, message));
         }
 
         @Override
@@ -268,16 +276,16 @@ public final class MessageHandlerRegistry
             {
                 server.handleClientMessage(message.getMessage());
             }
-            else
+            else if (server.markForwarded(message.getMessage()))
             {
                 server.outputQueue.add(new UnicastOperation(message, server.view.getCoordinator()));
             }
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasClientMsg();
+            return MessageProto.Message.MessagesCase.CLIENTMSG;
         }
 
         @Override
@@ -296,36 +304,24 @@ public final class MessageHandlerRegistry
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
             Log.getLogger().warn("ServerReceiver received leave request: " + server.getServerData().getId() + " ");
-            server.addToInputQueue(new PersistClientMessageWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new PersistClientMessageWrapper(sender, message));
         }
 
         @Override
         public void handle(final IMessageWrapper message, final Server server)
         {
-            final MessageProto.ClientMessage msg = message.getMessage().getPersClientMsg().getMsg();
-
-            try
+            if (!ValidationUtils.isClientSignatureValid(message.getMessage().getPersClientMsg()))
             {
-                final PublicKey key = new RSAPublicKeyImpl(msg.getPkey().toByteArray());
-                if (!KeyUtilities.verifyKey(msg.toByteArray(), message.getMessage().getPersClientMsg().getSig().toByteArray(),key ))
-                {
-                    Log.getLogger().warn("Invalid signature from client!");
-                    return;
-                }
-
-                server.persist(msg);
-            }
-            catch (InvalidKeyException e)
-            {
-                Log.getLogger().warn("Invalid signature from client!");
                 return;
             }
+
+            server.persist(message.getMessage().getPersClientMsg().getMsg());
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasPersClientMsg();
+            return MessageProto.Message.MessagesCase.PERSCLIENTMSG;
         }
 
         @Override
@@ -344,7 +340,7 @@ public final class MessageHandlerRegistry
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
             Log.getLogger().warn("ServerReceiver received leave request: " + server.getServerData().getId() + " ");
-            server.addToInputQueue(new UnregisterRequestMessageWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new UnregisterRequestMessageWrapper(sender, message));
         }
 
         @Override
@@ -352,7 +348,7 @@ public final class MessageHandlerRegistry
         {
             if (server.view.getCoordinator() == server.getServerData().getId())
             {
-                server.outputQueue.add(new BroadcastOperation(new UnregisterMessageWrapper(server, message.getMessage().toBuilder())));
+                server.outputQueue.add(new BroadcastOperation(new UnregisterMessageWrapper(server, message.getMessage())));
             }
             else
             {
@@ -361,9 +357,9 @@ public final class MessageHandlerRegistry
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasReqUnregMsg();
+            return MessageProto.Message.MessagesCase.REQUNREGMSG;
         }
 
         @Override
@@ -382,7 +378,7 @@ public final class MessageHandlerRegistry
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
             Log.getLogger().warn("ServerReceiver received leave request: " + server.getServerData().getId() + " ");
-            server.addToInputQueue(new UnregisterMessageWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new UnregisterMessageWrapper(sender, message));
         }
 
         @Override
@@ -409,9 +405,9 @@ public final class MessageHandlerRegistry
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasUnregMsg();
+            return MessageProto.Message.MessagesCase.UNREGMSG;
         }
 
         @Override
@@ -0,0 +1,152 @@
+package com.ray.mcu.communication;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import com.ray.mcu.proto.MessageProto;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The signed parts of a received message, located in the raw bytes without parsing the message.
+ * The signature of a message covers the serialized inner message, which is exactly the payload of the
+ * set oneof field on the wire. Verifying over that slice avoids serializing the inner message again,
+ * and the message only has to be parsed once the signature checks out.
+ * Frames are only accepted with at most one inner message and one signature and no other fields,
+ * as parsing the whole frame would merge further occurrences into the verified inner message.
+ */
+public final class SignedEnvelope
+{
+    /**
+     * The type of the inner message.
+     */
+    private final MessageProto.Message.MessagesCase type;
+
+    /**
+     * The read only slice of the inner message.
+     */
+    private final ByteBuffer payload;
+
+    /**
+     * The signature or authenticator, null if missing.
+     */
+    private final byte[] sig;
+
+    /**
+     * Create the envelope.
+     * @param type the type of the inner message.
+     * @param payload the slice of the inner message.
+     * @param sig the signature.
+     */
+    private SignedEnvelope(final MessageProto.Message.MessagesCase type, final ByteBuffer payload, final byte[] sig)
+    {
+        this.type = type;
+        this.payload = payload;
+        this.sig = sig;
+    }
+
+    /**
+     * Locate inner message and signature in a serialized message.
+     * @param frame the serialized message, its position is not modified.
+     * @return the envelope, its payload shares the memory of the frame.
+     * @throws InvalidProtocolBufferException if the bytes are no valid message, or hold more than one inner message,
+     *                                        more than one signature or any other field.
+     */
+    @NotNull
+    public static SignedEnvelope read(@NotNull final ByteBuffer frame) throws InvalidProtocolBufferException
+    {
+        final ByteBuffer input = frame.asReadOnlyBuffer();
+        final CodedInputStream in = CodedInputStream.newInstance(input.duplicate());
+
+        MessageProto.Message.MessagesCase type = MessageProto.Message.MessagesCase.MESSAGES_NOT_SET;
+        ByteBuffer payload = null;
+        byte[] sig = null;
+        try
+        {
+            while (true)
+            {
+                final int tag = in.readTag();
+                if (tag == 0)
+                {
+                    break;
+                }
+
+                final int field = WireFormat.getTagFieldNumber(tag);
+                if (WireFormat.getTagWireType(tag) != WireFormat.WIRETYPE_LENGTH_DELIMITED)
+                {
+                    throw new InvalidProtocolBufferException("Unexpected field " + field + " in a signed message");
+                }
+
+                if (field == MessageProto.Message.SIG_FIELD_NUMBER)
+                {
+                    if (sig != null)
+                    {
+                        throw new InvalidProtocolBufferException("Second signature in a signed message");
+                    }
+                    sig = in.readBytes().toByteArray();
+                    continue;
+                }
+
+                final MessageProto.Message.MessagesCase fieldType = MessageProto.Message.MessagesCase.forNumber(field);
+                if (fieldType == null || fieldType == MessageProto.Message.MessagesCase.MESSAGES_NOT_SET)
+                {
+                    throw new InvalidProtocolBufferException("Unexpected field " + field + " in a signed message");
+                }
+                if (payload != null)
+                {
+                    throw new InvalidProtocolBufferException("Second inner message in a signed message");
+                }
+
+                final int length = in.readRawVarint32();
+                final int start = input.position() + in.getTotalBytesRead();
+                in.skipRawBytes(length);
+                type = fieldType;
+                payload = (ByteBuffer) input.duplicate().position(start).limit(start + length);
+                payload = payload.slice();
+            }
+        }
+        catch (final InvalidProtocolBufferException e)
+        {
+            throw e;
+        }
+        catch (final IOException e)
+        {
+            throw new InvalidProtocolBufferException(e.getMessage());
+        }
+
+        return new SignedEnvelope(type, payload == null ? ByteBuffer.allocate(0) : payload, sig);
+    }
+
+    /**
+     * Get the type of the inner message.
+     * @return the oneof case.
+     */
+    @NotNull
+    public MessageProto.Message.MessagesCase getType()
+    {
+        return type;
+    }
+
+    /**
+     * Get the bytes the signature was created over.
+     * @return a new read only view of the inner message.
+     */
+    @NotNull
+    public ByteBuffer getPayload()
+    {
+        return payload.duplicate();
+    }
+
+    /**
+     * Get the signature or authenticator of the message.
+     * @return the signature or null if the message has none.
+     */
+    @Nullable
+    public byte[] getSig()
+    {
+        return sig;
+    }
+}
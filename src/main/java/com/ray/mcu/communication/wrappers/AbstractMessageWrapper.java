@@ -1,9 +1,11 @@
 package com.ray.mcu.communication.wrappers;
 
 import com.google.protobuf.ByteString;
+import com.ray.mcu.nettyhandlers.SignedFrame;
 import com.ray.mcu.nettyhandlers.SizedMessage;
 import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.server.IServer;
+import com.ray.mcu.server.server.SessionKeys;
 
 /**
  * Abstract implementation of the message wrapper.
@@ -16,21 +18,27 @@ public abstract class AbstractMessageWrapper implements IMessageWrapper
     public final int sender;
 
     /**
-     * The incoming message.
+     * The wrapped message, built once on construction and never modified afterwards.
+     * Messages created locally are partial until signed and miss the signature.
      */
-    public final MessageProto.Message.Builder message;
+    protected final MessageProto.Message message;
+
+    /**
+     * The message with the signature of this server, set once on the first send.
+     */
+    private volatile MessageProto.Message signed = null;
 
     /**
      * If the message is already signed.
      */
-    public boolean alreadySigned = false;
+    protected boolean alreadySigned = false;
 
     /**
      * Create an instance of abstract wrapper.
      * @param sender the sender.
      * @param message the message.
      */
-    public AbstractMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public AbstractMessageWrapper(final int sender, final MessageProto.Message message)
     {
         this.sender = sender;
         this.message = message;
@@ -39,13 +47,35 @@ public abstract class AbstractMessageWrapper implements IMessageWrapper
     @Override
     public SizedMessage writeToSizedMessage(final IServer serverSender)
     {
-        return new SizedMessage(buildMessage(serverSender), this.sender);
+        return SizedMessage.serialize(buildMessage(serverSender), this.sender);
+    }
+
+    @Override
+    public SignedFrame writeToSignedFrame(final IServer serverSender)
+    {
+        if (!this.alreadySigned && SessionKeys.isEnabled() && !SessionKeys.isTransferable(message.getMessagesCase())
+              && serverSender.getSessionKeys().isEstablished(serverSender.getView().getServers().size()))
+        {
+            final byte[] authenticator = serverSender.getSessionKeys().authenticate(this.getPackagedMessage().toByteArray());
+            return new SignedFrame(message.toBuilder().setSig(ByteString.copyFrom(authenticator)).build(), this.sender);
+        }
+        return new SignedFrame(buildMessage(serverSender), this.sender);
     }
 
     @Override
     public MessageProto.Message getMessage()
     {
-        return message.build();
+        final MessageProto.Message current = signed;
+        return current == null ? message : current;
+    }
+
+    /**
+     * Get a copy of the message to derive a new one from, changes don't affect this wrapper.
+     * @return a new builder holding the message.
+     */
+    public MessageProto.Message.Builder toBuilder()
+    {
+        return getMessage().toBuilder();
     }
 
     /**
@@ -58,12 +88,26 @@ public abstract class AbstractMessageWrapper implements IMessageWrapper
     }
 
     @Override
-    public byte[] buildMessage(final IServer serverSender)
+    public MessageProto.Message buildMessage(final IServer serverSender)
     {
         if (this.alreadySigned)
         {
-            return this.message.build().toByteArray();
+            return this.message;
+        }
+
+        MessageProto.Message current = signed;
+        if (current == null)
+        {
+            synchronized (this)
+            {
+                current = signed;
+                if (current == null)
+                {
+                    current = message.toBuilder().setSig(ByteString.copyFrom(serverSender.signMessage(this.getPackagedMessage().toByteArray()))).build();
+                    signed = current;
+                }
+            }
         }
-        return message.setSig(ByteString.copyFrom(serverSender.signMessage(this.getPackagedMessage().toByteArray()))).build().toByteArray();
+        return current;
     }
 }
@@ -14,7 +14,7 @@ public class ClientMessageWrapper extends AbstractMessageWrapper
      * @param sender the sender.
      * @param message the join request resulting in the register.
      */
-    public ClientMessageWrapper(final IServer sender, final MessageProto.Message.Builder message)
+    public ClientMessageWrapper(final IServer sender, final MessageProto.Message message)
     {
         super(sender.getServerData().getId(), message);
         this.alreadySigned = true;
@@ -25,18 +25,12 @@ public class ClientMessageWrapper extends AbstractMessageWrapper
      * @param sender the sender.
      * @param message the join request resulting in the register.
      */
-    public ClientMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public ClientMessageWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
         this.alreadySigned = true;
     }
 
-    @Override
-    public byte[] buildMessage(final IServer serverSender)
-    {
-        return this.message.build().toByteArray();
-    }
-
     @Override
     public GeneratedMessageV3 getPackagedMessage()
     {
@@ -1,6 +1,7 @@
 package com.ray.mcu.communication.wrappers;
 
 import com.google.protobuf.GeneratedMessageV3;
+import com.ray.mcu.nettyhandlers.SignedFrame;
 import com.ray.mcu.nettyhandlers.SizedMessage;
 import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.server.IServer;
@@ -18,11 +19,19 @@ public interface IMessageWrapper
     public SizedMessage writeToSizedMessage(final IServer serverSender);
 
     /**
-     * Build the byte array for the message.
+     * Sign and serialize the IMessageWrapper once into a frame which can be written to several channels.
+     * Only used between replicas, in authenticator mode non transferable messages get MACs instead of a signature.
+     * @param serverSender the sending server reference.
+     * @return the ready SignedFrame.
+     */
+    public SignedFrame writeToSignedFrame(final IServer serverSender);
+
+    /**
+     * Build the signed message.
      * @param serverSender the server sender.
-     * @return the byte array to send it.
+     * @return the message to send.
      */
-    public byte[] buildMessage(final IServer serverSender);
+    public MessageProto.Message buildMessage(final IServer serverSender);
 
     /**
      * Get the message from the wrapper.
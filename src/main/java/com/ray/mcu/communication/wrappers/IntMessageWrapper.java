@@ -17,7 +17,7 @@ public class IntMessageWrapper extends AbstractMessageWrapper
      */
     public IntMessageWrapper(final IServer sender, final MessageProto.IntMessage message)
     {
-        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setIntMsg(message));
+        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setIntMsg(message).buildPartial());
     }
 
     /**
@@ -35,7 +35,7 @@ public class IntMessageWrapper extends AbstractMessageWrapper
      * @param sender the sender.
      * @param message the message.
      */
-    public IntMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public IntMessageWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -18,7 +18,7 @@ public class JoinRequestMessageWrapper extends AbstractMessageWrapper
      */
     public JoinRequestMessageWrapper(final IServer sender, final MessageProto.RequestRegisterMessage message)
     {
-        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setReqRegMsg(message));
+        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setReqRegMsg(message).buildPartial());
     }
 
     /**
@@ -36,7 +36,7 @@ public class JoinRequestMessageWrapper extends AbstractMessageWrapper
      * @param message the int to send.
      * @param sender the sender.
      */
-    public JoinRequestMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public JoinRequestMessageWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -17,7 +17,7 @@ public class PersistClientMessageWrapper extends AbstractMessageWrapper
      */
     public PersistClientMessageWrapper(final IServer sender, final MessageProto.PersistClientMessage message)
     {
-        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setPersClientMsg(message));
+        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setPersClientMsg(message).buildPartial());
     }
 
     /**
@@ -36,7 +36,7 @@ public class PersistClientMessageWrapper extends AbstractMessageWrapper
      * @param sender the sender.
      * @param message the join request resulting in the register.
      */
-    public PersistClientMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public PersistClientMessageWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -18,7 +18,7 @@ public class RegisterMessageWrapper extends AbstractMessageWrapper
      */
     public RegisterMessageWrapper(final IServer sender, final MessageProto.RegisterMessage message)
     {
-        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRegMsg(message));
+        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRegMsg(message).buildPartial());
     }
 
     /**
@@ -35,7 +35,7 @@ public class RegisterMessageWrapper extends AbstractMessageWrapper
      * @param message the message to extract it from.
      * @param sender the sender.
      */
-    public RegisterMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public RegisterMessageWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -17,7 +17,7 @@ public class TextMessageWrapper extends AbstractMessageWrapper
      */
     public TextMessageWrapper(final IServer sender, final MessageProto.TextMessage message)
     {
-        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setTextMsg(message));
+        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setTextMsg(message).buildPartial());
     }
 
     /**
@@ -19,7 +19,7 @@ public class UnregisterMessageWrapper extends AbstractMessageWrapper
      */
     public UnregisterMessageWrapper(final IServer sender, final MessageProto.UnregisterMessage message)
     {
-        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setUnregMsg(message));
+        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setUnregMsg(message).buildPartial());
     }
 
     /**
@@ -42,7 +42,7 @@ public class UnregisterMessageWrapper extends AbstractMessageWrapper
      * @param sender  the sender.
      * @param message the join request resulting in the register.
      */
-    public UnregisterMessageWrapper(final IServer sender, final MessageProto.Message.Builder message)
+    public UnregisterMessageWrapper(final IServer sender, final MessageProto.Message message)
     {
         this(sender,
           MessageProto.UnregisterMessage.newBuilder()
@@ -60,7 +60,7 @@ public class UnregisterMessageWrapper extends AbstractMessageWrapper
      * @param message the message to extract it from.
      * @param sender  the sender.
      */
-    public UnregisterMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public UnregisterMessageWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -18,7 +18,7 @@ public class UnregisterRequestMessageWrapper extends AbstractMessageWrapper
      */
     public UnregisterRequestMessageWrapper(final IServer sender, final MessageProto.RequestUnregisterMessage message)
     {
-        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setReqUnregMsg(message));
+        super(sender.getServerData().getId(), MessageProto.Message.newBuilder().setReqUnregMsg(message).buildPartial());
     }
 
     /**
@@ -35,7 +35,7 @@ public class UnregisterRequestMessageWrapper extends AbstractMessageWrapper
      * @param message the message to extract it from.
      * @param sender the sender.
      */
-    public UnregisterRequestMessageWrapper(final int sender, final MessageProto.Message.Builder message)
+    public UnregisterRequestMessageWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -0,0 +1,170 @@
+package com.ray.mcu.nettyhandlers;
+
+import com.ray.mcu.utils.Constants;
+import com.ray.mcu.utils.Log;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * The netty transport of the process.
+ * All senders and receivers (servers and clients) share one accept and one io event loop group,
+ * using native epoll on Linux if available and NIO otherwise.
+ */
+public final class NettyTransport
+{
+    /**
+     * If the native epoll transport is used.
+     */
+    private static final boolean EPOLL = Constants.USE_EPOLL && Epoll.isAvailable();
+
+    /**
+     * The group accepting new connections.
+     */
+    private static EventLoopGroup acceptGroup = null;
+
+    /**
+     * The group handling the io of all connections.
+     */
+    private static EventLoopGroup ioGroup = null;
+
+    static
+    {
+        if (Constants.USE_EPOLL && !EPOLL)
+        {
+            Log.getLogger().warn("Native epoll transport not available, falling back to NIO: " + Epoll.unavailabilityCause());
+        }
+    }
+
+    /**
+     * Private constructor to hide implicit one.
+     */
+    private NettyTransport()
+    {
+        /*
+         * Intentionally left empty.
+         */
+    }
+
+    /**
+     * Create a bootstrap for outgoing connections on the shared io group.
+     * @return the configured bootstrap, the handler is still missing.
+     */
+    public static Bootstrap newBootstrap()
+    {
+        final Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(getIoGroup());
+        bootstrap.channel(EPOLL ? EpollSocketChannel.class : NioSocketChannel.class);
+        bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK, newWriteBufferWaterMark());
+
+        if (Constants.SOCKET_BUFFER_SIZE > 0)
+        {
+            bootstrap.option(ChannelOption.SO_SNDBUF, Constants.SOCKET_BUFFER_SIZE);
+            bootstrap.option(ChannelOption.SO_RCVBUF, Constants.SOCKET_BUFFER_SIZE);
+        }
+
+        if (EPOLL)
+        {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+            bootstrap.option(EpollChannelOption.TCP_QUICKACK, Constants.TCP_QUICKACK);
+            if (Constants.BUSY_POLL_MICROS > 0)
+            {
+                bootstrap.option(EpollChannelOption.SO_BUSY_POLL, Constants.BUSY_POLL_MICROS);
+            }
+        }
+        return bootstrap;
+    }
+
+    /**
+     * Create a bootstrap accepting incoming connections on the shared groups.
+     * @return the configured bootstrap, address and child handler are still missing.
+     */
+    public static ServerBootstrap newServerBootstrap()
+    {
+        final ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(getAcceptGroup(), getIoGroup());
+        bootstrap.channel(EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class);
+        bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, true);
+        bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, newWriteBufferWaterMark());
+
+        if (Constants.SOCKET_BUFFER_SIZE > 0)
+        {
+            bootstrap.option(ChannelOption.SO_RCVBUF, Constants.SOCKET_BUFFER_SIZE);
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, Constants.SOCKET_BUFFER_SIZE);
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, Constants.SOCKET_BUFFER_SIZE);
+        }
+
+        if (EPOLL)
+        {
+            bootstrap.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+            bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, Constants.TCP_QUICKACK);
+            if (Constants.BUSY_POLL_MICROS > 0)
+            {
+                bootstrap.childOption(EpollChannelOption.SO_BUSY_POLL, Constants.BUSY_POLL_MICROS);
+            }
+        }
+        return bootstrap;
+    }
+
+    /**
+     * Create the configured write buffer watermarks, channels turn unwritable above the high one.
+     * @return the watermarks.
+     */
+    private static WriteBufferWaterMark newWriteBufferWaterMark()
+    {
+        return new WriteBufferWaterMark(Constants.WRITE_BUFFER_LOW_WATERMARK, Constants.WRITE_BUFFER_HIGH_WATERMARK);
+    }
+
+    /**
+     * Get the shared group accepting connections, created on first use.
+     * @return the group.
+     */
+    private static synchronized EventLoopGroup getAcceptGroup()
+    {
+        if (acceptGroup == null)
+        {
+            acceptGroup = newGroup(1, "netty-accept");
+        }
+        return acceptGroup;
+    }
+
+    /**
+     * Get the shared io group, created on first use.
+     * @return the group.
+     */
+    private static synchronized EventLoopGroup getIoGroup()
+    {
+        if (ioGroup == null)
+        {
+            ioGroup = newGroup(Constants.IO_THREADS, "netty-io");
+        }
+        return ioGroup;
+    }
+
+    /**
+     * Create an event loop group of the selected transport.
+     * @param threads the number of threads (0 for the netty default of twice the cores).
+     * @param name the name of the threads.
+     * @return the group.
+     */
+    private static EventLoopGroup newGroup(final int threads, final String name)
+    {
+        final DefaultThreadFactory factory = new DefaultThreadFactory(name);
+        return EPOLL ? new EpollEventLoopGroup(threads, factory) : new NioEventLoopGroup(threads, factory);
+    }
+}
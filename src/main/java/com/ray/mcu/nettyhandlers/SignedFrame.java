@@ -0,0 +1,51 @@
+package com.ray.mcu.nettyhandlers;
+
+import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A message which is already signed, serialized and framed like an encoded SizedMessage.
+ * The same frame can be written to several channels without signing or encoding it again.
+ */
+public class SignedFrame
+{
+    /**
+     * The size of the frame header (sender id and length).
+     */
+    public static final int HEADER_SIZE = 8;
+
+    /**
+     * The pooled buffer holding the whole frame, only read after construction.
+     */
+    private final ByteBuf buffer;
+
+    /**
+     * Constructor of the signed frame, serializes the message straight behind the header.
+     * @param message the signed message.
+     * @param id the id of the sender.
+     */
+    public SignedFrame(final MessageLite message, final int id)
+    {
+        this.buffer = SizedMessage.serializeToBuffer(message, HEADER_SIZE);
+        this.buffer.setInt(0, id);
+        this.buffer.setInt(4, this.buffer.readableBytes() - HEADER_SIZE);
+    }
+
+    /**
+     * Get a view of the frame to write to one channel.
+     * Every view holds its own reference, Netty releases it once it has been written.
+     * @return the retained view of the frame.
+     */
+    public ByteBuf retainedBuffer()
+    {
+        return buffer.retainedDuplicate();
+    }
+
+    /**
+     * Release the reference of the creator, call this once all channels got their view.
+     */
+    public void release()
+    {
+        buffer.release();
+    }
+}
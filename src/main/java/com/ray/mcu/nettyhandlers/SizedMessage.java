@@ -1,9 +1,23 @@
 package com.ray.mcu.nettyhandlers;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+
 /**
  * A generic handlers with a specific size and its buffer.
+ * The buffer is reference counted, received messages are released by the inbound handlers after reading them.
  */
-public class SizedMessage
+public class SizedMessage extends DefaultByteBufHolder
 {
     /**
      * The flag of this message.
@@ -16,18 +30,80 @@ public class SizedMessage
     public int id;
 
     /**
-     * The handlers data.
+     * Constructor of the sized handlers.
+     * @param buffer the bytebuffer to send.
+     * @param id the id of the sender.
      */
-    public byte[] buffer;
+    public SizedMessage(final ByteBuf buffer, final int id)
+    {
+        super(buffer);
+        this.id = id;
+    }
 
     /**
-     * Constructor of the sized handlers.
-     * @param buffer the bytebuffer to send.
+     * Constructor of the sized handlers, wraps the array without copying it.
+     * @param buffer the bytes to send.
      * @param id the id of the sender.
      */
     public SizedMessage(final byte[] buffer, final int id)
     {
-        this.buffer = buffer;
-        this.id = id;
+        this(Unpooled.wrappedBuffer(buffer), id);
+    }
+
+    /**
+     * Serialize a proto message straight into a pooled buffer.
+     * @param message the message.
+     * @param id the id of the sender.
+     * @return the sized message.
+     */
+    public static SizedMessage serialize(final MessageLite message, final int id)
+    {
+        return new SizedMessage(serializeToBuffer(message, 0), id);
+    }
+
+    /**
+     * Serialize a proto message into a new pooled buffer, leaving space for a header in front.
+     * @param message the message.
+     * @param headerSize the space to leave at the start of the buffer.
+     * @return the buffer, its writer index after the message.
+     */
+    static ByteBuf serializeToBuffer(final MessageLite message, final int headerSize)
+    {
+        final int size = message.getSerializedSize();
+        final ByteBuf buffer = PooledByteBufAllocator.DEFAULT.ioBuffer(headerSize + size);
+        try
+        {
+            final CodedOutputStream out = CodedOutputStream.newInstance(buffer.nioBuffer(headerSize, size));
+            message.writeTo(out);
+            out.checkNoSpaceLeft();
+        }
+        catch (final IOException e)
+        {
+            buffer.release();
+            throw new IllegalStateException("Unable to serialize message", e);
+        }
+        buffer.writerIndex(headerSize + size);
+        return buffer;
+    }
+
+    /**
+     * Parse the content straight from the buffer.
+     * @param parser the parser of the message type.
+     * @param <T> the message type.
+     * @return the parsed message.
+     * @throws InvalidProtocolBufferException if the content is no valid message.
+     */
+    public <T> T parse(final Parser<T> parser) throws InvalidProtocolBufferException
+    {
+        return parser.parseFrom(CodedInputStream.newInstance(content().nioBuffer()));
+    }
+
+    /**
+     * Copy the content into an array.
+     * @return the bytes.
+     */
+    public byte[] getBytes()
+    {
+        return ByteBufUtil.getBytes(content());
     }
 }
@@ -8,6 +8,7 @@ import java.util.List;
 
 /**
  * Message decoder for all netty messages for the direct access client/server communication.
+ * The messages are retained slices of the received buffer, nothing is copied.
  */
 public class SizedMessageDecoder extends ByteToMessageDecoder
 {
@@ -34,8 +35,6 @@ public class SizedMessageDecoder extends ByteToMessageDecoder
             return;
         }
 
-        final SizedMessage message = new SizedMessage(new byte[length], id);
-        in.readBytes(message.buffer);
-        out.add(message);
+        out.add(new SizedMessage(in.readRetainedSlice(length), id));
     }
 }
@@ -2,18 +2,23 @@ package com.ray.mcu.nettyhandlers;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
 
 /**
  * Message encoder for all netty messages for the direct access client/server communication.
+ * Only the header is written to a new buffer, the content is passed on as it is.
  */
-public class SizedMessageEncoder extends MessageToByteEncoder<SizedMessage>
+public class SizedMessageEncoder extends MessageToMessageEncoder<SizedMessage>
 {
     @Override
-    protected void encode(final ChannelHandlerContext ctx, final SizedMessage msg, final ByteBuf out)
+    protected void encode(final ChannelHandlerContext ctx, final SizedMessage msg, final List<Object> out)
     {
-        out.writeInt(msg.id);
-        out.writeInt(msg.buffer.length);
-        out.writeBytes(msg.buffer);
+        final ByteBuf header = ctx.alloc().ioBuffer(SignedFrame.HEADER_SIZE);
+        header.writeInt(msg.id);
+        header.writeInt(msg.content().readableBytes());
+        out.add(header);
+        out.add(msg.content().retain());
     }
 }
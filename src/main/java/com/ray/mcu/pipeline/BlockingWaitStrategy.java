@@ -0,0 +1,69 @@
+package com.ray.mcu.pipeline;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks waiting threads on a condition, lowest cpu usage at the cost of the wake up latency.
+ * The lock is only taken by signalling threads if somebody is waiting.
+ */
+public class BlockingWaitStrategy implements IWaitStrategy
+{
+    /**
+     * The lock of the condition.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The condition the threads wait on.
+     */
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * The number of threads waiting at the moment.
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    @Override
+    public void waitFor(final BooleanSupplier condition) throws InterruptedException
+    {
+        if (condition.getAsBoolean())
+        {
+            return;
+        }
+
+        waiters.incrementAndGet();
+        lock.lock();
+        try
+        {
+            while (!condition.getAsBoolean())
+            {
+                changed.await();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void signalAll()
+    {
+        if (waiters.get() > 0)
+        {
+            lock.lock();
+            try
+            {
+                changed.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ray.mcu.pipeline;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins on the condition, lowest latency but occupies a core per waiting thread.
+ * Only use it if there are enough cores for all stages.
+ */
+public class BusySpinWaitStrategy implements IWaitStrategy
+{
+    @Override
+    public void waitFor(final BooleanSupplier condition) throws InterruptedException
+    {
+        while (!condition.getAsBoolean())
+        {
+            if (Thread.interrupted())
+            {
+                throw new InterruptedException();
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void signalAll()
+    {
+        /*
+         * Intentionally left empty, waiting threads check by themselves.
+         */
+    }
+}
@@ -0,0 +1,21 @@
+package com.ray.mcu.pipeline;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Strategy of the threads waiting on a ring buffer, consumers for new entries and producers for free slots.
+ */
+public interface IWaitStrategy
+{
+    /**
+     * Wait until the condition holds.
+     * @param condition the condition, checked again after every wake up.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void waitFor(final BooleanSupplier condition) throws InterruptedException;
+
+    /**
+     * Wake up the waiting threads after the state of the ring buffer changed.
+     */
+    void signalAll();
+}
@@ -0,0 +1,96 @@
+package com.ray.mcu.pipeline;
+
+import io.netty.channel.Channel;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Stops reading from channels while the stages behind them are overloaded.
+ * Channels which deliver while the load is above the high watermark get autoRead switched off,
+ * the consumer switches it on again once it has worked the load down to the low watermark.
+ * The requests stay in the socket buffers then and TCP slows the senders down.
+ */
+public class ReadBackpressure
+{
+    /**
+     * The load above which reading stops.
+     */
+    private final int highWatermark;
+
+    /**
+     * The load at which reading resumes.
+     */
+    private final int lowWatermark;
+
+    /**
+     * The current load of the stages behind the channels.
+     */
+    private final IntSupplier load;
+
+    /**
+     * The channels which don't read at the moment.
+     */
+    private final Set<Channel> paused = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create the backpressure of a group of channels.
+     * @param load the current load (e.g. the number of waiting requests).
+     * @param highWatermark the load above which reading stops.
+     * @param lowWatermark the load at which reading resumes.
+     */
+    public ReadBackpressure(@NotNull final IntSupplier load, final int highWatermark, final int lowWatermark)
+    {
+        this.load = load;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = Math.min(lowWatermark, highWatermark);
+    }
+
+    /**
+     * Called by the channel after handing a message on, stops reading if overloaded.
+     * @param channel the channel.
+     */
+    public void onRead(@NotNull final Channel channel)
+    {
+        if (load.getAsInt() < highWatermark || !channel.config().isAutoRead())
+        {
+            return;
+        }
+
+        channel.config().setAutoRead(false);
+        paused.add(channel);
+
+        // The consumer might have drained everything in the meantime without seeing this channel.
+        onDrain();
+    }
+
+    /**
+     * Called by the consumer after it took work, resumes the channels once the load is low enough.
+     */
+    public void onDrain()
+    {
+        if (paused.isEmpty() || load.getAsInt() > lowWatermark)
+        {
+            return;
+        }
+
+        for (final Channel channel : paused)
+        {
+            if (paused.remove(channel))
+            {
+                channel.config().setAutoRead(true);
+            }
+        }
+    }
+
+    /**
+     * Check if any channel is paused at the moment.
+     * @return true if so.
+     */
+    public boolean isPaused()
+    {
+        return !paused.isEmpty();
+    }
+}
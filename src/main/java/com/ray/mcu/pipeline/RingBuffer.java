@@ -0,0 +1,314 @@
+package com.ray.mcu.pipeline;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue between two stages of the server on a pre-allocated ring of slots.
+ * Producers claim a sequence number, fill the slot and publish it; the single consumer reads
+ * all published slots in one go and frees them at once. No nodes are allocated per entry and
+ * no lock is taken unless the wait strategy parks a thread.
+ * The consumer of a buffer must never wait in {@link #put} or {@link #add} on a buffer upstream of it, whose consumer
+ * may in turn wait for room in this one: once both are full neither stage progresses. Such feedback, like the commit
+ * validator handing its checkpoints back to the message handler, goes through {@link #offer} with a fallback instead.
+ * @param <E> the type of the entries.
+ */
+public class RingBuffer<E>
+{
+    /**
+     * Who may publish to the buffer.
+     */
+    public enum ProducerType
+    {
+        /**
+         * Only one thread publishes, claims don't need to be atomic.
+         */
+        SINGLE,
+
+        /**
+         * Any thread may publish.
+         */
+        MULTI
+    }
+
+    /**
+     * The slots, the entry of sequence s is at s & mask.
+     */
+    private final Object[] entries;
+
+    /**
+     * The sequence last published into each slot, -1 if never.
+     */
+    private final AtomicLongArray published;
+
+    /**
+     * Mask to map sequences on slots.
+     */
+    private final int mask;
+
+    /**
+     * The last sequence claimed by a producer.
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    /**
+     * The last sequence read by the consumer, all slots up to it are free again.
+     */
+    private final AtomicLong consumed = new AtomicLong(-1);
+
+    /**
+     * Who may publish.
+     */
+    private final ProducerType producerType;
+
+    /**
+     * How producers and the consumer wait.
+     */
+    private final IWaitStrategy waitStrategy;
+
+    /**
+     * Create a new ring buffer.
+     * @param capacity the number of slots, rounded up to the next power of two.
+     * @param producerType who may publish.
+     * @param waitStrategy how to wait for entries or free slots.
+     */
+    public RingBuffer(final int capacity, @NotNull final ProducerType producerType, @NotNull final IWaitStrategy waitStrategy)
+    {
+        final int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new Object[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+        {
+            this.published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Publish an entry, waits while the buffer is full.
+     * @param entry the entry.
+     * @throws InterruptedException if interrupted while waiting for a free slot.
+     */
+    public void put(@NotNull final E entry) throws InterruptedException
+    {
+        publish(claim(), entry);
+    }
+
+    /**
+     * Publish an entry unless the buffer is full, never waits.
+     * @param entry the entry.
+     * @return false if the buffer is full, the entry is not published then.
+     */
+    public boolean offer(@NotNull final E entry)
+    {
+        final long sequence = tryClaim();
+        if (sequence < 0)
+        {
+            return false;
+        }
+        publish(sequence, entry);
+        return true;
+    }
+
+    /**
+     * Publish an entry, waits while the buffer is full.
+     * @param entry the entry.
+     * @return false if interrupted while waiting, the entry is dropped then.
+     */
+    public boolean add(@NotNull final E entry)
+    {
+        try
+        {
+            put(entry);
+            return true;
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Take the next entry, waits while the buffer is empty.
+     * Only to be called by the consumer thread.
+     * @return the entry.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @NotNull
+    public E take() throws InterruptedException
+    {
+        final long next = consumed.get() + 1;
+        waitStrategy.waitFor(() -> isPublished(next));
+        final E entry = read(next);
+        release(next);
+        return entry;
+    }
+
+    /**
+     * Move all available entries to the collection, waits until there is at least one.
+     * Only to be called by the consumer thread.
+     * @param target the collection to add the entries to.
+     * @param max the maximum number of entries to move.
+     * @return the number of entries moved.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public int drainTo(@NotNull final Collection<? super E> target, final int max) throws InterruptedException
+    {
+        final long first = consumed.get() + 1;
+        waitStrategy.waitFor(() -> isPublished(first));
+
+        long sequence = first;
+        while (sequence - first < max && isPublished(sequence))
+        {
+            target.add(read(sequence));
+            sequence++;
+        }
+        release(sequence - 1);
+        return (int) (sequence - first);
+    }
+
+    /**
+     * Get the number of entries waiting, a snapshot which may be outdated already.
+     * @return the number of claimed but not consumed slots.
+     */
+    public int size()
+    {
+        return (int) Math.max(0, claimed.get() - consumed.get());
+    }
+
+    /**
+     * Check if no entries are waiting.
+     * @return true if so.
+     */
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Get the number of slots.
+     * @return the capacity.
+     */
+    public int capacity()
+    {
+        return entries.length;
+    }
+
+    /**
+     * Claim the next sequence, waits until its slot has been consumed.
+     * @return the sequence.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private long claim() throws InterruptedException
+    {
+        if (producerType == ProducerType.SINGLE)
+        {
+            final long next = claimed.get() + 1;
+            waitStrategy.waitFor(() -> next - entries.length <= consumed.get());
+            claimed.lazySet(next);
+            return next;
+        }
+
+        while (true)
+        {
+            final long current = claimed.get();
+            final long next = current + 1;
+            if (next - entries.length > consumed.get())
+            {
+                waitStrategy.waitFor(() -> next - entries.length <= consumed.get());
+            }
+            else if (claimed.compareAndSet(current, next))
+            {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Claim the next sequence if its slot has been consumed.
+     * @return the sequence or -1 if the buffer is full.
+     */
+    private long tryClaim()
+    {
+        while (true)
+        {
+            final long current = claimed.get();
+            final long next = current + 1;
+            if (next - entries.length > consumed.get())
+            {
+                return -1;
+            }
+            if (producerType == ProducerType.SINGLE)
+            {
+                claimed.lazySet(next);
+                return next;
+            }
+            if (claimed.compareAndSet(current, next))
+            {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Publish an entry into its claimed slot and wake the consumer.
+     * @param sequence the claimed sequence.
+     * @param entry the entry.
+     */
+    private void publish(final long sequence, final E entry)
+    {
+        entries[index(sequence)] = entry;
+        published.set(index(sequence), sequence);
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Check if the entry of a sequence is published.
+     * @param sequence the sequence.
+     * @return true if so.
+     */
+    private boolean isPublished(final long sequence)
+    {
+        return published.get(index(sequence)) == sequence;
+    }
+
+    /**
+     * Read a published entry and clear its slot.
+     * @param sequence the sequence of the entry.
+     * @return the entry.
+     */
+    @SuppressWarnings("unchecked")
+    private E read(final long sequence)
+    {
+        final int index = index(sequence);
+        final E entry = (E) entries[index];
+        entries[index] = null;
+        return entry;
+    }
+
+    /**
+     * Free all slots up to a sequence for the producers.
+     * @param sequence the last consumed sequence.
+     */
+    private void release(final long sequence)
+    {
+        consumed.set(sequence);
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Map a sequence on its slot.
+     * @param sequence the sequence.
+     * @return the index of the slot.
+     */
+    private int index(final long sequence)
+    {
+        return (int) sequence & mask;
+    }
+}
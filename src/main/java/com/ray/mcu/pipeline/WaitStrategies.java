@@ -0,0 +1,57 @@
+package com.ray.mcu.pipeline;
+
+import com.ray.mcu.utils.Constants;
+import com.ray.mcu.utils.Log;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+
+/**
+ * Factory of the wait strategies and the ring buffers connecting the stages.
+ */
+public final class WaitStrategies
+{
+    /**
+     * Private constructor to hide implicit one.
+     */
+    private WaitStrategies()
+    {
+        /*
+         * Intentionally left empty.
+         */
+    }
+
+    /**
+     * Create the wait strategy matching a name.
+     * @param name the name of the strategy (BLOCKING, YIELDING or BUSY_SPIN).
+     * @return the strategy, blocking if unknown.
+     */
+    @NotNull
+    public static IWaitStrategy create(@NotNull final String name)
+    {
+        switch (name.toUpperCase(Locale.US))
+        {
+            case "YIELDING":
+                return new YieldingWaitStrategy();
+            case "BUSY_SPIN":
+                return new BusySpinWaitStrategy();
+            case "BLOCKING":
+                return new BlockingWaitStrategy();
+            default:
+                Log.getLogger().warn("Unknown wait strategy: " + name + ", falling back to BLOCKING");
+                return new BlockingWaitStrategy();
+        }
+    }
+
+    /**
+     * Create a ring buffer between two stages with the configured size and wait strategy.
+     * @param producerType who may publish to it.
+     * @param <E> the type of the entries.
+     * @return the new ring buffer.
+     */
+    @NotNull
+    public static <E> RingBuffer<E> newRingBuffer(@NotNull final RingBuffer.ProducerType producerType)
+    {
+        return new RingBuffer<>(Constants.RING_BUFFER_SIZE, producerType, create(Constants.WAIT_STRATEGY));
+    }
+}
@@ -0,0 +1,44 @@
+package com.ray.mcu.pipeline;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins for a while and then yields the cpu between checks, low latency without occupying a core when idle for long.
+ */
+public class YieldingWaitStrategy implements IWaitStrategy
+{
+    /**
+     * The number of checks before starting to yield.
+     */
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void waitFor(final BooleanSupplier condition) throws InterruptedException
+    {
+        int counter = SPIN_TRIES;
+        while (!condition.getAsBoolean())
+        {
+            if (Thread.interrupted())
+            {
+                throw new InterruptedException();
+            }
+
+            if (counter > 0)
+            {
+                --counter;
+            }
+            else
+            {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public void signalAll()
+    {
+        /*
+         * Intentionally left empty, waiting threads check by themselves.
+         */
+    }
+}
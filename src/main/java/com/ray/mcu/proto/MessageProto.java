@@ -212,6 +212,42 @@ public final class MessageProto {
      * <code>optional .proto.RequestRecoverCommit requestRecoverCommit = 15;</code>
      */
     com.ray.mcu.proto.MessageProto.RequestRecoverCommitOrBuilder getRequestRecoverCommitOrBuilder();
+    /**
+     * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+     */
+    boolean hasCheckpoint();
+    /**
+     * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+     */
+    com.ray.mcu.proto.MessageProto.Checkpoint getCheckpoint();
+    /**
+     * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+     */
+    com.ray.mcu.proto.MessageProto.CheckpointOrBuilder getCheckpointOrBuilder();
+    /**
+     * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+     */
+    boolean hasRequestStateTransfer();
+    /**
+     * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+     */
+    com.ray.mcu.proto.MessageProto.RequestStateTransfer getRequestStateTransfer();
+    /**
+     * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+     */
+    com.ray.mcu.proto.MessageProto.RequestStateTransferOrBuilder getRequestStateTransferOrBuilder();
+    /**
+     * <code>optional .proto.StateChunk stateChunk = 19;</code>
+     */
+    boolean hasStateChunk();
+    /**
+     * <code>optional .proto.StateChunk stateChunk = 19;</code>
+     */
+    com.ray.mcu.proto.MessageProto.StateChunk getStateChunk();
+    /**
+     * <code>optional .proto.StateChunk stateChunk = 19;</code>
+     */
+    com.ray.mcu.proto.MessageProto.StateChunkOrBuilder getStateChunkOrBuilder();
 
     /**
      * <code>required bytes sig = 16;</code>
@@ -475,10 +511,52 @@ public final class MessageProto {
               break;
             }
             case 130: {
-              bitField0_ |= 0x00008000;
+              bitField0_ |= 0x00040000;
               sig_ = input.readBytes();
               break;
             }
+            case 138: {
+              com.ray.mcu.proto.MessageProto.Checkpoint.Builder subBuilder = null;
+              if (messagesCase_ == 17) {
+                subBuilder = ((com.ray.mcu.proto.MessageProto.Checkpoint) messages_).toBuilder();
+              }
+              messages_ =
+                  input.readMessage(com.ray.mcu.proto.MessageProto.Checkpoint.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom((com.ray.mcu.proto.MessageProto.Checkpoint) messages_);
+                messages_ = subBuilder.buildPartial();
+              }
+              messagesCase_ = 17;
+              break;
+            }
+            case 146: {
+              com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder subBuilder = null;
+              if (messagesCase_ == 18) {
+                subBuilder = ((com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_).toBuilder();
+              }
+              messages_ =
+                  input.readMessage(com.ray.mcu.proto.MessageProto.RequestStateTransfer.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom((com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_);
+                messages_ = subBuilder.buildPartial();
+              }
+              messagesCase_ = 18;
+              break;
+            }
+            case 154: {
+              com.ray.mcu.proto.MessageProto.StateChunk.Builder subBuilder = null;
+              if (messagesCase_ == 19) {
+                subBuilder = ((com.ray.mcu.proto.MessageProto.StateChunk) messages_).toBuilder();
+              }
+              messages_ =
+                  input.readMessage(com.ray.mcu.proto.MessageProto.StateChunk.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom((com.ray.mcu.proto.MessageProto.StateChunk) messages_);
+                messages_ = subBuilder.buildPartial();
+              }
+              messagesCase_ = 19;
+              break;
+            }
             default: {
               if (!parseUnknownField(
                   input, unknownFields, extensionRegistry, tag)) {
@@ -531,6 +609,9 @@ public final class MessageProto {
       RECOVERCOMMIT(13),
       REQUESTRECOVERPREPREPARE(14),
       REQUESTRECOVERCOMMIT(15),
+      CHECKPOINT(17),
+      REQUESTSTATETRANSFER(18),
+      STATECHUNK(19),
       MESSAGES_NOT_SET(0);
       private final int value;
       private MessagesCase(int value) {
@@ -561,6 +642,9 @@ public final class MessageProto {
           case 13: return RECOVERCOMMIT;
           case 14: return REQUESTRECOVERPREPREPARE;
           case 15: return REQUESTRECOVERCOMMIT;
+          case 17: return CHECKPOINT;
+          case 18: return REQUESTSTATETRANSFER;
+          case 19: return STATECHUNK;
           case 0: return MESSAGES_NOT_SET;
           default: return null;
         }
@@ -966,13 +1050,91 @@ public final class MessageProto {
       return com.ray.mcu.proto.MessageProto.RequestRecoverCommit.getDefaultInstance();
     }
 
+    public static final int CHECKPOINT_FIELD_NUMBER = 17;
+    /**
+     * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+     */
+    public boolean hasCheckpoint() {
+      return messagesCase_ == 17;
+    }
+    /**
+     * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+     */
+    public com.ray.mcu.proto.MessageProto.Checkpoint getCheckpoint() {
+      if (messagesCase_ == 17) {
+         return (com.ray.mcu.proto.MessageProto.Checkpoint) messages_;
+      }
+      return com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance();
+    }
+    /**
+     * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+     */
+    public com.ray.mcu.proto.MessageProto.CheckpointOrBuilder getCheckpointOrBuilder() {
+      if (messagesCase_ == 17) {
+         return (com.ray.mcu.proto.MessageProto.Checkpoint) messages_;
+      }
+      return com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance();
+    }
+
+    public static final int REQUESTSTATETRANSFER_FIELD_NUMBER = 18;
+    /**
+     * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+     */
+    public boolean hasRequestStateTransfer() {
+      return messagesCase_ == 18;
+    }
+    /**
+     * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+     */
+    public com.ray.mcu.proto.MessageProto.RequestStateTransfer getRequestStateTransfer() {
+      if (messagesCase_ == 18) {
+         return (com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_;
+      }
+      return com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance();
+    }
+    /**
+     * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+     */
+    public com.ray.mcu.proto.MessageProto.RequestStateTransferOrBuilder getRequestStateTransferOrBuilder() {
+      if (messagesCase_ == 18) {
+         return (com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_;
+      }
+      return com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance();
+    }
+
+    public static final int STATECHUNK_FIELD_NUMBER = 19;
+    /**
+     * <code>optional .proto.StateChunk stateChunk = 19;</code>
+     */
+    public boolean hasStateChunk() {
+      return messagesCase_ == 19;
+    }
+    /**
+     * <code>optional .proto.StateChunk stateChunk = 19;</code>
+     */
+    public com.ray.mcu.proto.MessageProto.StateChunk getStateChunk() {
+      if (messagesCase_ == 19) {
+         return (com.ray.mcu.proto.MessageProto.StateChunk) messages_;
+      }
+      return com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance();
+    }
+    /**
+     * <code>optional .proto.StateChunk stateChunk = 19;</code>
+     */
+    public com.ray.mcu.proto.MessageProto.StateChunkOrBuilder getStateChunkOrBuilder() {
+      if (messagesCase_ == 19) {
+         return (com.ray.mcu.proto.MessageProto.StateChunk) messages_;
+      }
+      return com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance();
+    }
+
     public static final int SIG_FIELD_NUMBER = 16;
     private com.google.protobuf.ByteString sig_;
     /**
      * <code>required bytes sig = 16;</code>
      */
     public boolean hasSig() {
-      return ((bitField0_ & 0x00008000) != 0);
+      return ((bitField0_ & 0x00040000) != 0);
     }
     /**
      * <code>required bytes sig = 16;</code>
@@ -1082,6 +1244,24 @@ public final class MessageProto {
           return false;
         }
       }
+      if (hasCheckpoint()) {
+        if (!getCheckpoint().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasRequestStateTransfer()) {
+        if (!getRequestStateTransfer().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasStateChunk()) {
+        if (!getStateChunk().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
       memoizedIsInitialized = 1;
       return true;
     }
@@ -1134,9 +1314,18 @@ public final class MessageProto {
       if (messagesCase_ == 15) {
         output.writeMessage(15, (com.ray.mcu.proto.MessageProto.RequestRecoverCommit) messages_);
       }
-      if (((bitField0_ & 0x00008000) != 0)) {
+      if (((bitField0_ & 0x00040000) != 0)) {
         output.writeBytes(16, sig_);
       }
+      if (messagesCase_ == 17) {
+        output.writeMessage(17, (com.ray.mcu.proto.MessageProto.Checkpoint) messages_);
+      }
+      if (messagesCase_ == 18) {
+        output.writeMessage(18, (com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_);
+      }
+      if (messagesCase_ == 19) {
+        output.writeMessage(19, (com.ray.mcu.proto.MessageProto.StateChunk) messages_);
+      }
       unknownFields.writeTo(output);
     }
 
@@ -1206,10 +1395,22 @@ public final class MessageProto {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(15, (com.ray.mcu.proto.MessageProto.RequestRecoverCommit) messages_);
       }
-      if (((bitField0_ & 0x00008000) != 0)) {
+      if (((bitField0_ & 0x00040000) != 0)) {
         size += com.google.protobuf.CodedOutputStream
           .computeBytesSize(16, sig_);
       }
+      if (messagesCase_ == 17) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(17, (com.ray.mcu.proto.MessageProto.Checkpoint) messages_);
+      }
+      if (messagesCase_ == 18) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(18, (com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_);
+      }
+      if (messagesCase_ == 19) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(19, (com.ray.mcu.proto.MessageProto.StateChunk) messages_);
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
@@ -1292,6 +1493,18 @@ public final class MessageProto {
           if (!getRequestRecoverCommit()
               .equals(other.getRequestRecoverCommit())) return false;
           break;
+        case 17:
+          if (!getCheckpoint()
+              .equals(other.getCheckpoint())) return false;
+          break;
+        case 18:
+          if (!getRequestStateTransfer()
+              .equals(other.getRequestStateTransfer())) return false;
+          break;
+        case 19:
+          if (!getStateChunk()
+              .equals(other.getStateChunk())) return false;
+          break;
         case 0:
         default:
       }
@@ -1371,6 +1584,18 @@ public final class MessageProto {
           hash = (37 * hash) + REQUESTRECOVERCOMMIT_FIELD_NUMBER;
           hash = (53 * hash) + getRequestRecoverCommit().hashCode();
           break;
+        case 17:
+          hash = (37 * hash) + CHECKPOINT_FIELD_NUMBER;
+          hash = (53 * hash) + getCheckpoint().hashCode();
+          break;
+        case 18:
+          hash = (37 * hash) + REQUESTSTATETRANSFER_FIELD_NUMBER;
+          hash = (53 * hash) + getRequestStateTransfer().hashCode();
+          break;
+        case 19:
+          hash = (37 * hash) + STATECHUNK_FIELD_NUMBER;
+          hash = (53 * hash) + getStateChunk().hashCode();
+          break;
         case 0:
         default:
       }
@@ -1508,7 +1733,7 @@ public final class MessageProto {
       public Builder clear() {
         super.clear();
         sig_ = com.google.protobuf.ByteString.EMPTY;
-        bitField0_ = (bitField0_ & ~0x00008000);
+        bitField0_ = (bitField0_ & ~0x00040000);
         messagesCase_ = 0;
         messages_ = null;
         return this;
@@ -1644,8 +1869,29 @@ public final class MessageProto {
             result.messages_ = requestRecoverCommitBuilder_.build();
           }
         }
-        if (((from_bitField0_ & 0x00008000) != 0)) {
-          to_bitField0_ |= 0x00008000;
+        if (messagesCase_ == 17) {
+          if (checkpointBuilder_ == null) {
+            result.messages_ = messages_;
+          } else {
+            result.messages_ = checkpointBuilder_.build();
+          }
+        }
+        if (messagesCase_ == 18) {
+          if (requestStateTransferBuilder_ == null) {
+            result.messages_ = messages_;
+          } else {
+            result.messages_ = requestStateTransferBuilder_.build();
+          }
+        }
+        if (messagesCase_ == 19) {
+          if (stateChunkBuilder_ == null) {
+            result.messages_ = messages_;
+          } else {
+            result.messages_ = stateChunkBuilder_.build();
+          }
+        }
+        if (((from_bitField0_ & 0x00040000) != 0)) {
+          to_bitField0_ |= 0x00040000;
         }
         result.sig_ = sig_;
         result.bitField0_ = to_bitField0_;
@@ -1762,6 +2008,18 @@ public final class MessageProto {
             mergeRequestRecoverCommit(other.getRequestRecoverCommit());
             break;
           }
+          case CHECKPOINT: {
+            mergeCheckpoint(other.getCheckpoint());
+            break;
+          }
+          case REQUESTSTATETRANSFER: {
+            mergeRequestStateTransfer(other.getRequestStateTransfer());
+            break;
+          }
+          case STATECHUNK: {
+            mergeStateChunk(other.getStateChunk());
+            break;
+          }
           case MESSAGES_NOT_SET: {
             break;
           }
@@ -1851,6 +2109,21 @@ public final class MessageProto {
             return false;
           }
         }
+        if (hasCheckpoint()) {
+          if (!getCheckpoint().isInitialized()) {
+            return false;
+          }
+        }
+        if (hasRequestStateTransfer()) {
+          if (!getRequestStateTransfer().isInitialized()) {
+            return false;
+          }
+        }
+        if (hasStateChunk()) {
+          if (!getStateChunk().isInitialized()) {
+            return false;
+          }
+        }
         return true;
       }
 
@@ -3929,98 +4202,506 @@ public final class MessageProto {
         return requestRecoverCommitBuilder_;
       }
 
-      private com.google.protobuf.ByteString sig_ = com.google.protobuf.ByteString.EMPTY;
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.ray.mcu.proto.MessageProto.Checkpoint, com.ray.mcu.proto.MessageProto.Checkpoint.Builder, com.ray.mcu.proto.MessageProto.CheckpointOrBuilder> checkpointBuilder_;
       /**
-       * <code>required bytes sig = 16;</code>
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
        */
-      public boolean hasSig() {
-        return ((bitField0_ & 0x00008000) != 0);
+      public boolean hasCheckpoint() {
+        return messagesCase_ == 17;
       }
       /**
-       * <code>required bytes sig = 16;</code>
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
        */
-      public com.google.protobuf.ByteString getSig() {
-        return sig_;
+      public com.ray.mcu.proto.MessageProto.Checkpoint getCheckpoint() {
+        if (checkpointBuilder_ == null) {
+          if (messagesCase_ == 17) {
+            return (com.ray.mcu.proto.MessageProto.Checkpoint) messages_;
+          }
+          return com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance();
+        } else {
+          if (messagesCase_ == 17) {
+            return checkpointBuilder_.getMessage();
+          }
+          return com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance();
+        }
       }
       /**
-       * <code>required bytes sig = 16;</code>
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
        */
-      public Builder setSig(com.google.protobuf.ByteString value) {
-        if (value == null) {
-    throw new NullPointerException();
-  }
-  bitField0_ |= 0x00008000;
-        sig_ = value;
-        onChanged();
+      public Builder setCheckpoint(com.ray.mcu.proto.MessageProto.Checkpoint value) {
+        if (checkpointBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          messages_ = value;
+          onChanged();
+        } else {
+          checkpointBuilder_.setMessage(value);
+        }
+        messagesCase_ = 17;
         return this;
       }
       /**
-       * <code>required bytes sig = 16;</code>
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
        */
-      public Builder clearSig() {
-        bitField0_ = (bitField0_ & ~0x00008000);
-        sig_ = getDefaultInstance().getSig();
-        onChanged();
+      public Builder setCheckpoint(
+          com.ray.mcu.proto.MessageProto.Checkpoint.Builder builderForValue) {
+        if (checkpointBuilder_ == null) {
+          messages_ = builderForValue.build();
+          onChanged();
+        } else {
+          checkpointBuilder_.setMessage(builderForValue.build());
+        }
+        messagesCase_ = 17;
         return this;
       }
-      @java.lang.Override
-      public final Builder setUnknownFields(
-          final com.google.protobuf.UnknownFieldSet unknownFields) {
-        return super.setUnknownFields(unknownFields);
+      /**
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+       */
+      public Builder mergeCheckpoint(com.ray.mcu.proto.MessageProto.Checkpoint value) {
+        if (checkpointBuilder_ == null) {
+          if (messagesCase_ == 17 &&
+              messages_ != com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance()) {
+            messages_ = com.ray.mcu.proto.MessageProto.Checkpoint.newBuilder((com.ray.mcu.proto.MessageProto.Checkpoint) messages_)
+                .mergeFrom(value).buildPartial();
+          } else {
+            messages_ = value;
+          }
+          onChanged();
+        } else {
+          if (messagesCase_ == 17) {
+            checkpointBuilder_.mergeFrom(value);
+          }
+          checkpointBuilder_.setMessage(value);
+        }
+        messagesCase_ = 17;
+        return this;
       }
-
-      @java.lang.Override
-      public final Builder mergeUnknownFields(
-          final com.google.protobuf.UnknownFieldSet unknownFields) {
-        return super.mergeUnknownFields(unknownFields);
+      /**
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+       */
+      public Builder clearCheckpoint() {
+        if (checkpointBuilder_ == null) {
+          if (messagesCase_ == 17) {
+            messagesCase_ = 0;
+            messages_ = null;
+            onChanged();
+          }
+        } else {
+          if (messagesCase_ == 17) {
+            messagesCase_ = 0;
+            messages_ = null;
+          }
+          checkpointBuilder_.clear();
+        }
+        return this;
       }
-
-
-      // @@protoc_insertion_point(builder_scope:proto.Message)
-    }
-
-    // @@protoc_insertion_point(class_scope:proto.Message)
-    private static final com.ray.mcu.proto.MessageProto.Message DEFAULT_INSTANCE;
-    static {
-      DEFAULT_INSTANCE = new com.ray.mcu.proto.MessageProto.Message();
-    }
-
-    public static com.ray.mcu.proto.MessageProto.Message getDefaultInstance() {
-      return DEFAULT_INSTANCE;
-    }
-
-    @java.lang.Deprecated public static final com.google.protobuf.Parser<Message>
-        PARSER = new com.google.protobuf.AbstractParser<Message>() {
-      @java.lang.Override
-      public Message parsePartialFrom(
-          com.google.protobuf.CodedInputStream input,
-          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
-          throws com.google.protobuf.InvalidProtocolBufferException {
-        return new Message(input, extensionRegistry);
+      /**
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.Checkpoint.Builder getCheckpointBuilder() {
+        return getCheckpointFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.CheckpointOrBuilder getCheckpointOrBuilder() {
+        if ((messagesCase_ == 17) && (checkpointBuilder_ != null)) {
+          return checkpointBuilder_.getMessageOrBuilder();
+        } else {
+          if (messagesCase_ == 17) {
+            return (com.ray.mcu.proto.MessageProto.Checkpoint) messages_;
+          }
+          return com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance();
+        }
+      }
+      /**
+       * <code>optional .proto.Checkpoint checkpoint = 17;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.ray.mcu.proto.MessageProto.Checkpoint, com.ray.mcu.proto.MessageProto.Checkpoint.Builder, com.ray.mcu.proto.MessageProto.CheckpointOrBuilder> 
+          getCheckpointFieldBuilder() {
+        if (checkpointBuilder_ == null) {
+          if (!(messagesCase_ == 17)) {
+            messages_ = com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance();
+          }
+          checkpointBuilder_ = new com.google.protobuf.SingleFieldBuilderV3<
+              com.ray.mcu.proto.MessageProto.Checkpoint, com.ray.mcu.proto.MessageProto.Checkpoint.Builder, com.ray.mcu.proto.MessageProto.CheckpointOrBuilder>(
+                  (com.ray.mcu.proto.MessageProto.Checkpoint) messages_,
+                  getParentForChildren(),
+                  isClean());
+          messages_ = null;
+        }
+        messagesCase_ = 17;
+        onChanged();;
+        return checkpointBuilder_;
       }
-    };
-
-    public static com.google.protobuf.Parser<Message> parser() {
-      return PARSER;
-    }
-
-    @java.lang.Override
-    public com.google.protobuf.Parser<Message> getParserForType() {
-      return PARSER;
-    }
-
-    @java.lang.Override
-    public com.ray.mcu.proto.MessageProto.Message getDefaultInstanceForType() {
-      return DEFAULT_INSTANCE;
-    }
-
-  }
-
-  public interface TextMessageOrBuilder extends
-      // @@protoc_insertion_point(interface_extends:proto.TextMessage)
-      com.google.protobuf.MessageOrBuilder {
 
-    /**
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.ray.mcu.proto.MessageProto.RequestStateTransfer, com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder, com.ray.mcu.proto.MessageProto.RequestStateTransferOrBuilder> requestStateTransferBuilder_;
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public boolean hasRequestStateTransfer() {
+        return messagesCase_ == 18;
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.RequestStateTransfer getRequestStateTransfer() {
+        if (requestStateTransferBuilder_ == null) {
+          if (messagesCase_ == 18) {
+            return (com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_;
+          }
+          return com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance();
+        } else {
+          if (messagesCase_ == 18) {
+            return requestStateTransferBuilder_.getMessage();
+          }
+          return com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance();
+        }
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public Builder setRequestStateTransfer(com.ray.mcu.proto.MessageProto.RequestStateTransfer value) {
+        if (requestStateTransferBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          messages_ = value;
+          onChanged();
+        } else {
+          requestStateTransferBuilder_.setMessage(value);
+        }
+        messagesCase_ = 18;
+        return this;
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public Builder setRequestStateTransfer(
+          com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder builderForValue) {
+        if (requestStateTransferBuilder_ == null) {
+          messages_ = builderForValue.build();
+          onChanged();
+        } else {
+          requestStateTransferBuilder_.setMessage(builderForValue.build());
+        }
+        messagesCase_ = 18;
+        return this;
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public Builder mergeRequestStateTransfer(com.ray.mcu.proto.MessageProto.RequestStateTransfer value) {
+        if (requestStateTransferBuilder_ == null) {
+          if (messagesCase_ == 18 &&
+              messages_ != com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance()) {
+            messages_ = com.ray.mcu.proto.MessageProto.RequestStateTransfer.newBuilder((com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_)
+                .mergeFrom(value).buildPartial();
+          } else {
+            messages_ = value;
+          }
+          onChanged();
+        } else {
+          if (messagesCase_ == 18) {
+            requestStateTransferBuilder_.mergeFrom(value);
+          }
+          requestStateTransferBuilder_.setMessage(value);
+        }
+        messagesCase_ = 18;
+        return this;
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public Builder clearRequestStateTransfer() {
+        if (requestStateTransferBuilder_ == null) {
+          if (messagesCase_ == 18) {
+            messagesCase_ = 0;
+            messages_ = null;
+            onChanged();
+          }
+        } else {
+          if (messagesCase_ == 18) {
+            messagesCase_ = 0;
+            messages_ = null;
+          }
+          requestStateTransferBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder getRequestStateTransferBuilder() {
+        return getRequestStateTransferFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.RequestStateTransferOrBuilder getRequestStateTransferOrBuilder() {
+        if ((messagesCase_ == 18) && (requestStateTransferBuilder_ != null)) {
+          return requestStateTransferBuilder_.getMessageOrBuilder();
+        } else {
+          if (messagesCase_ == 18) {
+            return (com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_;
+          }
+          return com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance();
+        }
+      }
+      /**
+       * <code>optional .proto.RequestStateTransfer requestStateTransfer = 18;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.ray.mcu.proto.MessageProto.RequestStateTransfer, com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder, com.ray.mcu.proto.MessageProto.RequestStateTransferOrBuilder> 
+          getRequestStateTransferFieldBuilder() {
+        if (requestStateTransferBuilder_ == null) {
+          if (!(messagesCase_ == 18)) {
+            messages_ = com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance();
+          }
+          requestStateTransferBuilder_ = new com.google.protobuf.SingleFieldBuilderV3<
+              com.ray.mcu.proto.MessageProto.RequestStateTransfer, com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder, com.ray.mcu.proto.MessageProto.RequestStateTransferOrBuilder>(
+                  (com.ray.mcu.proto.MessageProto.RequestStateTransfer) messages_,
+                  getParentForChildren(),
+                  isClean());
+          messages_ = null;
+        }
+        messagesCase_ = 18;
+        onChanged();;
+        return requestStateTransferBuilder_;
+      }
+
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.ray.mcu.proto.MessageProto.StateChunk, com.ray.mcu.proto.MessageProto.StateChunk.Builder, com.ray.mcu.proto.MessageProto.StateChunkOrBuilder> stateChunkBuilder_;
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public boolean hasStateChunk() {
+        return messagesCase_ == 19;
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.StateChunk getStateChunk() {
+        if (stateChunkBuilder_ == null) {
+          if (messagesCase_ == 19) {
+            return (com.ray.mcu.proto.MessageProto.StateChunk) messages_;
+          }
+          return com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance();
+        } else {
+          if (messagesCase_ == 19) {
+            return stateChunkBuilder_.getMessage();
+          }
+          return com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance();
+        }
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public Builder setStateChunk(com.ray.mcu.proto.MessageProto.StateChunk value) {
+        if (stateChunkBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          messages_ = value;
+          onChanged();
+        } else {
+          stateChunkBuilder_.setMessage(value);
+        }
+        messagesCase_ = 19;
+        return this;
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public Builder setStateChunk(
+          com.ray.mcu.proto.MessageProto.StateChunk.Builder builderForValue) {
+        if (stateChunkBuilder_ == null) {
+          messages_ = builderForValue.build();
+          onChanged();
+        } else {
+          stateChunkBuilder_.setMessage(builderForValue.build());
+        }
+        messagesCase_ = 19;
+        return this;
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public Builder mergeStateChunk(com.ray.mcu.proto.MessageProto.StateChunk value) {
+        if (stateChunkBuilder_ == null) {
+          if (messagesCase_ == 19 &&
+              messages_ != com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance()) {
+            messages_ = com.ray.mcu.proto.MessageProto.StateChunk.newBuilder((com.ray.mcu.proto.MessageProto.StateChunk) messages_)
+                .mergeFrom(value).buildPartial();
+          } else {
+            messages_ = value;
+          }
+          onChanged();
+        } else {
+          if (messagesCase_ == 19) {
+            stateChunkBuilder_.mergeFrom(value);
+          }
+          stateChunkBuilder_.setMessage(value);
+        }
+        messagesCase_ = 19;
+        return this;
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public Builder clearStateChunk() {
+        if (stateChunkBuilder_ == null) {
+          if (messagesCase_ == 19) {
+            messagesCase_ = 0;
+            messages_ = null;
+            onChanged();
+          }
+        } else {
+          if (messagesCase_ == 19) {
+            messagesCase_ = 0;
+            messages_ = null;
+          }
+          stateChunkBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.StateChunk.Builder getStateChunkBuilder() {
+        return getStateChunkFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      public com.ray.mcu.proto.MessageProto.StateChunkOrBuilder getStateChunkOrBuilder() {
+        if ((messagesCase_ == 19) && (stateChunkBuilder_ != null)) {
+          return stateChunkBuilder_.getMessageOrBuilder();
+        } else {
+          if (messagesCase_ == 19) {
+            return (com.ray.mcu.proto.MessageProto.StateChunk) messages_;
+          }
+          return com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance();
+        }
+      }
+      /**
+       * <code>optional .proto.StateChunk stateChunk = 19;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.ray.mcu.proto.MessageProto.StateChunk, com.ray.mcu.proto.MessageProto.StateChunk.Builder, com.ray.mcu.proto.MessageProto.StateChunkOrBuilder> 
+          getStateChunkFieldBuilder() {
+        if (stateChunkBuilder_ == null) {
+          if (!(messagesCase_ == 19)) {
+            messages_ = com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance();
+          }
+          stateChunkBuilder_ = new com.google.protobuf.SingleFieldBuilderV3<
+              com.ray.mcu.proto.MessageProto.StateChunk, com.ray.mcu.proto.MessageProto.StateChunk.Builder, com.ray.mcu.proto.MessageProto.StateChunkOrBuilder>(
+                  (com.ray.mcu.proto.MessageProto.StateChunk) messages_,
+                  getParentForChildren(),
+                  isClean());
+          messages_ = null;
+        }
+        messagesCase_ = 19;
+        onChanged();;
+        return stateChunkBuilder_;
+      }
+
+      private com.google.protobuf.ByteString sig_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>required bytes sig = 16;</code>
+       */
+      public boolean hasSig() {
+        return ((bitField0_ & 0x00040000) != 0);
+      }
+      /**
+       * <code>required bytes sig = 16;</code>
+       */
+      public com.google.protobuf.ByteString getSig() {
+        return sig_;
+      }
+      /**
+       * <code>required bytes sig = 16;</code>
+       */
+      public Builder setSig(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00040000;
+        sig_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required bytes sig = 16;</code>
+       */
+      public Builder clearSig() {
+        bitField0_ = (bitField0_ & ~0x00040000);
+        sig_ = getDefaultInstance().getSig();
+        onChanged();
+        return this;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:proto.Message)
+    }
+
+    // @@protoc_insertion_point(class_scope:proto.Message)
+    private static final com.ray.mcu.proto.MessageProto.Message DEFAULT_INSTANCE;
+    static {
+      DEFAULT_INSTANCE = new com.ray.mcu.proto.MessageProto.Message();
+    }
+
+    public static com.ray.mcu.proto.MessageProto.Message getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    @java.lang.Deprecated public static final com.google.protobuf.Parser<Message>
+        PARSER = new com.google.protobuf.AbstractParser<Message>() {
+      @java.lang.Override
+      public Message parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new Message(input, extensionRegistry);
+      }
+    };
+
+    public static com.google.protobuf.Parser<Message> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<Message> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.ray.mcu.proto.MessageProto.Message getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+
+  }
+
+  public interface TextMessageOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:proto.TextMessage)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
      * <code>required string text = 1;</code>
      */
     boolean hasText();
@@ -18711,25 +19392,2056 @@ public final class MessageProto {
 
   }
 
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_proto_Message_descriptor;
-  private static final 
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-      internal_static_proto_Message_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_proto_TextMessage_descriptor;
-  private static final 
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-      internal_static_proto_TextMessage_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_proto_IntMessage_descriptor;
-  private static final 
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-      internal_static_proto_IntMessage_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_proto_RequestRegisterMessage_descriptor;
-  private static final 
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+  public interface CheckpointOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:proto.Checkpoint)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    boolean hasSequence();
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    int getSequence();
+
+    /**
+     * <code>required bytes stateDigest = 2;</code>
+     */
+    boolean hasStateDigest();
+    /**
+     * <code>required bytes stateDigest = 2;</code>
+     */
+    com.google.protobuf.ByteString getStateDigest();
+  }
+  /**
+   * <pre>
+   * Digest of the state of a replica after executing the instance with the sequence number.
+   * </pre>
+   *
+   * Protobuf type {@code proto.Checkpoint}
+   */
+  public  static final class Checkpoint extends
+      com.google.protobuf.GeneratedMessageV3 implements
+      // @@protoc_insertion_point(message_implements:proto.Checkpoint)
+      CheckpointOrBuilder {
+  private static final long serialVersionUID = 0L;
+    // Use Checkpoint.newBuilder() to construct.
+    private Checkpoint(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+    private Checkpoint() {
+      stateDigest_ = com.google.protobuf.ByteString.EMPTY;
+    }
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+    getUnknownFields() {
+      return this.unknownFields;
+    }
+    private Checkpoint(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 8: {
+              bitField0_ |= 0x00000001;
+              sequence_ = input.readInt32();
+              break;
+            }
+            case 18: {
+              bitField0_ |= 0x00000002;
+              stateDigest_ = input.readBytes();
+              break;
+            }
+            default: {
+              if (!parseUnknownField(
+                  input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.ray.mcu.proto.MessageProto.internal_static_proto_Checkpoint_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.ray.mcu.proto.MessageProto.internal_static_proto_Checkpoint_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.ray.mcu.proto.MessageProto.Checkpoint.class, com.ray.mcu.proto.MessageProto.Checkpoint.Builder.class);
+    }
+
+    private int bitField0_;
+    public static final int SEQUENCE_FIELD_NUMBER = 1;
+    private int sequence_;
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    public boolean hasSequence() {
+      return ((bitField0_ & 0x00000001) != 0);
+    }
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    public int getSequence() {
+      return sequence_;
+    }
+
+    public static final int STATEDIGEST_FIELD_NUMBER = 2;
+    private com.google.protobuf.ByteString stateDigest_;
+    /**
+     * <code>required bytes stateDigest = 2;</code>
+     */
+    public boolean hasStateDigest() {
+      return ((bitField0_ & 0x00000002) != 0);
+    }
+    /**
+     * <code>required bytes stateDigest = 2;</code>
+     */
+    public com.google.protobuf.ByteString getStateDigest() {
+      return stateDigest_;
+    }
+
+    private byte memoizedIsInitialized = -1;
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      if (!hasSequence()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasStateDigest()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      if (((bitField0_ & 0x00000001) != 0)) {
+        output.writeInt32(1, sequence_);
+      }
+      if (((bitField0_ & 0x00000002) != 0)) {
+        output.writeBytes(2, stateDigest_);
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(1, sequence_);
+      }
+      if (((bitField0_ & 0x00000002) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(2, stateDigest_);
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof com.ray.mcu.proto.MessageProto.Checkpoint)) {
+        return super.equals(obj);
+      }
+      com.ray.mcu.proto.MessageProto.Checkpoint other = (com.ray.mcu.proto.MessageProto.Checkpoint) obj;
+
+      if (hasSequence() != other.hasSequence()) return false;
+      if (hasSequence()) {
+        if (getSequence()
+            != other.getSequence()) return false;
+      }
+      if (hasStateDigest() != other.hasStateDigest()) return false;
+      if (hasStateDigest()) {
+        if (!getStateDigest()
+            .equals(other.getStateDigest())) return false;
+      }
+      if (!unknownFields.equals(other.unknownFields)) return false;
+      return true;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      if (hasSequence()) {
+        hash = (37 * hash) + SEQUENCE_FIELD_NUMBER;
+        hash = (53 * hash) + getSequence();
+      }
+      if (hasStateDigest()) {
+        hash = (37 * hash) + STATEDIGEST_FIELD_NUMBER;
+        hash = (53 * hash) + getStateDigest().hashCode();
+      }
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        java.nio.ByteBuffer data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.Checkpoint parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+    public static Builder newBuilder(com.ray.mcu.proto.MessageProto.Checkpoint prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE
+          ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * <pre>
+     * Digest of the state of a replica after executing the instance with the sequence number.
+     * </pre>
+     *
+     * Protobuf type {@code proto.Checkpoint}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:proto.Checkpoint)
+        com.ray.mcu.proto.MessageProto.CheckpointOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_Checkpoint_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_Checkpoint_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.ray.mcu.proto.MessageProto.Checkpoint.class, com.ray.mcu.proto.MessageProto.Checkpoint.Builder.class);
+      }
+
+      // Construct using com.ray.mcu.proto.MessageProto.Checkpoint.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3
+                .alwaysUseFieldBuilders) {
+        }
+      }
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        sequence_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        stateDigest_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_Checkpoint_descriptor;
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.Checkpoint getDefaultInstanceForType() {
+        return com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.Checkpoint build() {
+        com.ray.mcu.proto.MessageProto.Checkpoint result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.Checkpoint buildPartial() {
+        com.ray.mcu.proto.MessageProto.Checkpoint result = new com.ray.mcu.proto.MessageProto.Checkpoint(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) != 0)) {
+          result.sequence_ = sequence_;
+          to_bitField0_ |= 0x00000001;
+        }
+        if (((from_bitField0_ & 0x00000002) != 0)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.stateDigest_ = stateDigest_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return super.clone();
+      }
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.setField(field, value);
+      }
+      @java.lang.Override
+      public Builder clearField(
+          com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return super.clearField(field);
+      }
+      @java.lang.Override
+      public Builder clearOneof(
+          com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return super.clearOneof(oneof);
+      }
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index, java.lang.Object value) {
+        return super.setRepeatedField(field, index, value);
+      }
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.addRepeatedField(field, value);
+      }
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.ray.mcu.proto.MessageProto.Checkpoint) {
+          return mergeFrom((com.ray.mcu.proto.MessageProto.Checkpoint)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.ray.mcu.proto.MessageProto.Checkpoint other) {
+        if (other == com.ray.mcu.proto.MessageProto.Checkpoint.getDefaultInstance()) return this;
+        if (other.hasSequence()) {
+          setSequence(other.getSequence());
+        }
+        if (other.hasStateDigest()) {
+          setStateDigest(other.getStateDigest());
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        if (!hasSequence()) {
+          return false;
+        }
+        if (!hasStateDigest()) {
+          return false;
+        }
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.ray.mcu.proto.MessageProto.Checkpoint parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.ray.mcu.proto.MessageProto.Checkpoint) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private int sequence_ ;
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public boolean hasSequence() {
+        return ((bitField0_ & 0x00000001) != 0);
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public int getSequence() {
+        return sequence_;
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public Builder setSequence(int value) {
+        bitField0_ |= 0x00000001;
+        sequence_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public Builder clearSequence() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        sequence_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString stateDigest_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>required bytes stateDigest = 2;</code>
+       */
+      public boolean hasStateDigest() {
+        return ((bitField0_ & 0x00000002) != 0);
+      }
+      /**
+       * <code>required bytes stateDigest = 2;</code>
+       */
+      public com.google.protobuf.ByteString getStateDigest() {
+        return stateDigest_;
+      }
+      /**
+       * <code>required bytes stateDigest = 2;</code>
+       */
+      public Builder setStateDigest(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000002;
+        stateDigest_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required bytes stateDigest = 2;</code>
+       */
+      public Builder clearStateDigest() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        stateDigest_ = getDefaultInstance().getStateDigest();
+        onChanged();
+        return this;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:proto.Checkpoint)
+    }
+
+    // @@protoc_insertion_point(class_scope:proto.Checkpoint)
+    private static final com.ray.mcu.proto.MessageProto.Checkpoint DEFAULT_INSTANCE;
+    static {
+      DEFAULT_INSTANCE = new com.ray.mcu.proto.MessageProto.Checkpoint();
+    }
+
+    public static com.ray.mcu.proto.MessageProto.Checkpoint getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    @java.lang.Deprecated public static final com.google.protobuf.Parser<Checkpoint>
+        PARSER = new com.google.protobuf.AbstractParser<Checkpoint>() {
+      @java.lang.Override
+      public Checkpoint parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new Checkpoint(input, extensionRegistry);
+      }
+    };
+
+    public static com.google.protobuf.Parser<Checkpoint> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<Checkpoint> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.ray.mcu.proto.MessageProto.Checkpoint getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+
+  }
+
+  public interface RequestStateTransferOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:proto.RequestStateTransfer)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    boolean hasSequence();
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    int getSequence();
+
+    /**
+     * <code>required bytes buckets = 2;</code>
+     */
+    boolean hasBuckets();
+    /**
+     * <code>required bytes buckets = 2;</code>
+     */
+    com.google.protobuf.ByteString getBuckets();
+  }
+  /**
+   * <pre>
+   * Request of a lagging replica for the bucket hashes (empty bitmap) or the buckets set in the bitmap of the state snapshot at a stable checkpoint.
+   * </pre>
+   *
+   * Protobuf type {@code proto.RequestStateTransfer}
+   */
+  public  static final class RequestStateTransfer extends
+      com.google.protobuf.GeneratedMessageV3 implements
+      // @@protoc_insertion_point(message_implements:proto.RequestStateTransfer)
+      RequestStateTransferOrBuilder {
+  private static final long serialVersionUID = 0L;
+    // Use RequestStateTransfer.newBuilder() to construct.
+    private RequestStateTransfer(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+    private RequestStateTransfer() {
+      buckets_ = com.google.protobuf.ByteString.EMPTY;
+    }
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+    getUnknownFields() {
+      return this.unknownFields;
+    }
+    private RequestStateTransfer(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 8: {
+              bitField0_ |= 0x00000001;
+              sequence_ = input.readInt32();
+              break;
+            }
+            case 18: {
+              bitField0_ |= 0x00000002;
+              buckets_ = input.readBytes();
+              break;
+            }
+            default: {
+              if (!parseUnknownField(
+                  input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.ray.mcu.proto.MessageProto.internal_static_proto_RequestStateTransfer_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.ray.mcu.proto.MessageProto.internal_static_proto_RequestStateTransfer_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.ray.mcu.proto.MessageProto.RequestStateTransfer.class, com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder.class);
+    }
+
+    private int bitField0_;
+    public static final int SEQUENCE_FIELD_NUMBER = 1;
+    private int sequence_;
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    public boolean hasSequence() {
+      return ((bitField0_ & 0x00000001) != 0);
+    }
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    public int getSequence() {
+      return sequence_;
+    }
+
+    public static final int BUCKETS_FIELD_NUMBER = 2;
+    private com.google.protobuf.ByteString buckets_;
+    /**
+     * <code>required bytes buckets = 2;</code>
+     */
+    public boolean hasBuckets() {
+      return ((bitField0_ & 0x00000002) != 0);
+    }
+    /**
+     * <code>required bytes buckets = 2;</code>
+     */
+    public com.google.protobuf.ByteString getBuckets() {
+      return buckets_;
+    }
+
+    private byte memoizedIsInitialized = -1;
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      if (!hasSequence()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasBuckets()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      if (((bitField0_ & 0x00000001) != 0)) {
+        output.writeInt32(1, sequence_);
+      }
+      if (((bitField0_ & 0x00000002) != 0)) {
+        output.writeBytes(2, buckets_);
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(1, sequence_);
+      }
+      if (((bitField0_ & 0x00000002) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(2, buckets_);
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof com.ray.mcu.proto.MessageProto.RequestStateTransfer)) {
+        return super.equals(obj);
+      }
+      com.ray.mcu.proto.MessageProto.RequestStateTransfer other = (com.ray.mcu.proto.MessageProto.RequestStateTransfer) obj;
+
+      if (hasSequence() != other.hasSequence()) return false;
+      if (hasSequence()) {
+        if (getSequence()
+            != other.getSequence()) return false;
+      }
+      if (hasBuckets() != other.hasBuckets()) return false;
+      if (hasBuckets()) {
+        if (!getBuckets()
+            .equals(other.getBuckets())) return false;
+      }
+      if (!unknownFields.equals(other.unknownFields)) return false;
+      return true;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      if (hasSequence()) {
+        hash = (37 * hash) + SEQUENCE_FIELD_NUMBER;
+        hash = (53 * hash) + getSequence();
+      }
+      if (hasBuckets()) {
+        hash = (37 * hash) + BUCKETS_FIELD_NUMBER;
+        hash = (53 * hash) + getBuckets().hashCode();
+      }
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        java.nio.ByteBuffer data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+    public static Builder newBuilder(com.ray.mcu.proto.MessageProto.RequestStateTransfer prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE
+          ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * <pre>
+     * Request of a lagging replica for the bucket hashes (empty bitmap) or the buckets set in the bitmap of the state snapshot at a stable checkpoint.
+     * </pre>
+     *
+     * Protobuf type {@code proto.RequestStateTransfer}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:proto.RequestStateTransfer)
+        com.ray.mcu.proto.MessageProto.RequestStateTransferOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_RequestStateTransfer_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_RequestStateTransfer_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.ray.mcu.proto.MessageProto.RequestStateTransfer.class, com.ray.mcu.proto.MessageProto.RequestStateTransfer.Builder.class);
+      }
+
+      // Construct using com.ray.mcu.proto.MessageProto.RequestStateTransfer.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3
+                .alwaysUseFieldBuilders) {
+        }
+      }
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        sequence_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        buckets_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_RequestStateTransfer_descriptor;
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.RequestStateTransfer getDefaultInstanceForType() {
+        return com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.RequestStateTransfer build() {
+        com.ray.mcu.proto.MessageProto.RequestStateTransfer result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.RequestStateTransfer buildPartial() {
+        com.ray.mcu.proto.MessageProto.RequestStateTransfer result = new com.ray.mcu.proto.MessageProto.RequestStateTransfer(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) != 0)) {
+          result.sequence_ = sequence_;
+          to_bitField0_ |= 0x00000001;
+        }
+        if (((from_bitField0_ & 0x00000002) != 0)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.buckets_ = buckets_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return super.clone();
+      }
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.setField(field, value);
+      }
+      @java.lang.Override
+      public Builder clearField(
+          com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return super.clearField(field);
+      }
+      @java.lang.Override
+      public Builder clearOneof(
+          com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return super.clearOneof(oneof);
+      }
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index, java.lang.Object value) {
+        return super.setRepeatedField(field, index, value);
+      }
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.addRepeatedField(field, value);
+      }
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.ray.mcu.proto.MessageProto.RequestStateTransfer) {
+          return mergeFrom((com.ray.mcu.proto.MessageProto.RequestStateTransfer)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.ray.mcu.proto.MessageProto.RequestStateTransfer other) {
+        if (other == com.ray.mcu.proto.MessageProto.RequestStateTransfer.getDefaultInstance()) return this;
+        if (other.hasSequence()) {
+          setSequence(other.getSequence());
+        }
+        if (other.hasBuckets()) {
+          setBuckets(other.getBuckets());
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        if (!hasSequence()) {
+          return false;
+        }
+        if (!hasBuckets()) {
+          return false;
+        }
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.ray.mcu.proto.MessageProto.RequestStateTransfer parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.ray.mcu.proto.MessageProto.RequestStateTransfer) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private int sequence_ ;
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public boolean hasSequence() {
+        return ((bitField0_ & 0x00000001) != 0);
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public int getSequence() {
+        return sequence_;
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public Builder setSequence(int value) {
+        bitField0_ |= 0x00000001;
+        sequence_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public Builder clearSequence() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        sequence_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString buckets_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>required bytes buckets = 2;</code>
+       */
+      public boolean hasBuckets() {
+        return ((bitField0_ & 0x00000002) != 0);
+      }
+      /**
+       * <code>required bytes buckets = 2;</code>
+       */
+      public com.google.protobuf.ByteString getBuckets() {
+        return buckets_;
+      }
+      /**
+       * <code>required bytes buckets = 2;</code>
+       */
+      public Builder setBuckets(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000002;
+        buckets_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required bytes buckets = 2;</code>
+       */
+      public Builder clearBuckets() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        buckets_ = getDefaultInstance().getBuckets();
+        onChanged();
+        return this;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:proto.RequestStateTransfer)
+    }
+
+    // @@protoc_insertion_point(class_scope:proto.RequestStateTransfer)
+    private static final com.ray.mcu.proto.MessageProto.RequestStateTransfer DEFAULT_INSTANCE;
+    static {
+      DEFAULT_INSTANCE = new com.ray.mcu.proto.MessageProto.RequestStateTransfer();
+    }
+
+    public static com.ray.mcu.proto.MessageProto.RequestStateTransfer getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    @java.lang.Deprecated public static final com.google.protobuf.Parser<RequestStateTransfer>
+        PARSER = new com.google.protobuf.AbstractParser<RequestStateTransfer>() {
+      @java.lang.Override
+      public RequestStateTransfer parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new RequestStateTransfer(input, extensionRegistry);
+      }
+    };
+
+    public static com.google.protobuf.Parser<RequestStateTransfer> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<RequestStateTransfer> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.ray.mcu.proto.MessageProto.RequestStateTransfer getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+
+  }
+
+  public interface StateChunkOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:proto.StateChunk)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    boolean hasSequence();
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    int getSequence();
+
+    /**
+     * <code>required int32 chunk = 2;</code>
+     */
+    boolean hasChunk();
+    /**
+     * <code>required int32 chunk = 2;</code>
+     */
+    int getChunk();
+
+    /**
+     * <code>required int32 chunkCount = 3;</code>
+     */
+    boolean hasChunkCount();
+    /**
+     * <code>required int32 chunkCount = 3;</code>
+     */
+    int getChunkCount();
+
+    /**
+     * <code>required bytes data = 4;</code>
+     */
+    boolean hasData();
+    /**
+     * <code>required bytes data = 4;</code>
+     */
+    com.google.protobuf.ByteString getData();
+  }
+  /**
+   * <pre>
+   * A chunk of the response to a state transfer request, the bucket hashes or the requested buckets each as [int bucket][int length][bucket].
+   * </pre>
+   *
+   * Protobuf type {@code proto.StateChunk}
+   */
+  public  static final class StateChunk extends
+      com.google.protobuf.GeneratedMessageV3 implements
+      // @@protoc_insertion_point(message_implements:proto.StateChunk)
+      StateChunkOrBuilder {
+  private static final long serialVersionUID = 0L;
+    // Use StateChunk.newBuilder() to construct.
+    private StateChunk(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+    private StateChunk() {
+      data_ = com.google.protobuf.ByteString.EMPTY;
+    }
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+    getUnknownFields() {
+      return this.unknownFields;
+    }
+    private StateChunk(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 8: {
+              bitField0_ |= 0x00000001;
+              sequence_ = input.readInt32();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              chunk_ = input.readInt32();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              chunkCount_ = input.readInt32();
+              break;
+            }
+            case 34: {
+              bitField0_ |= 0x00000008;
+              data_ = input.readBytes();
+              break;
+            }
+            default: {
+              if (!parseUnknownField(
+                  input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.ray.mcu.proto.MessageProto.internal_static_proto_StateChunk_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.ray.mcu.proto.MessageProto.internal_static_proto_StateChunk_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.ray.mcu.proto.MessageProto.StateChunk.class, com.ray.mcu.proto.MessageProto.StateChunk.Builder.class);
+    }
+
+    private int bitField0_;
+    public static final int SEQUENCE_FIELD_NUMBER = 1;
+    private int sequence_;
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    public boolean hasSequence() {
+      return ((bitField0_ & 0x00000001) != 0);
+    }
+    /**
+     * <code>required int32 sequence = 1;</code>
+     */
+    public int getSequence() {
+      return sequence_;
+    }
+
+    public static final int CHUNK_FIELD_NUMBER = 2;
+    private int chunk_;
+    /**
+     * <code>required int32 chunk = 2;</code>
+     */
+    public boolean hasChunk() {
+      return ((bitField0_ & 0x00000002) != 0);
+    }
+    /**
+     * <code>required int32 chunk = 2;</code>
+     */
+    public int getChunk() {
+      return chunk_;
+    }
+
+    public static final int CHUNKCOUNT_FIELD_NUMBER = 3;
+    private int chunkCount_;
+    /**
+     * <code>required int32 chunkCount = 3;</code>
+     */
+    public boolean hasChunkCount() {
+      return ((bitField0_ & 0x00000004) != 0);
+    }
+    /**
+     * <code>required int32 chunkCount = 3;</code>
+     */
+    public int getChunkCount() {
+      return chunkCount_;
+    }
+
+    public static final int DATA_FIELD_NUMBER = 4;
+    private com.google.protobuf.ByteString data_;
+    /**
+     * <code>required bytes data = 4;</code>
+     */
+    public boolean hasData() {
+      return ((bitField0_ & 0x00000008) != 0);
+    }
+    /**
+     * <code>required bytes data = 4;</code>
+     */
+    public com.google.protobuf.ByteString getData() {
+      return data_;
+    }
+
+    private byte memoizedIsInitialized = -1;
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      if (!hasSequence()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasChunk()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasChunkCount()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasData()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      if (((bitField0_ & 0x00000001) != 0)) {
+        output.writeInt32(1, sequence_);
+      }
+      if (((bitField0_ & 0x00000002) != 0)) {
+        output.writeInt32(2, chunk_);
+      }
+      if (((bitField0_ & 0x00000004) != 0)) {
+        output.writeInt32(3, chunkCount_);
+      }
+      if (((bitField0_ & 0x00000008) != 0)) {
+        output.writeBytes(4, data_);
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(1, sequence_);
+      }
+      if (((bitField0_ & 0x00000002) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(2, chunk_);
+      }
+      if (((bitField0_ & 0x00000004) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(3, chunkCount_);
+      }
+      if (((bitField0_ & 0x00000008) != 0)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(4, data_);
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof com.ray.mcu.proto.MessageProto.StateChunk)) {
+        return super.equals(obj);
+      }
+      com.ray.mcu.proto.MessageProto.StateChunk other = (com.ray.mcu.proto.MessageProto.StateChunk) obj;
+
+      if (hasSequence() != other.hasSequence()) return false;
+      if (hasSequence()) {
+        if (getSequence()
+            != other.getSequence()) return false;
+      }
+      if (hasChunk() != other.hasChunk()) return false;
+      if (hasChunk()) {
+        if (getChunk()
+            != other.getChunk()) return false;
+      }
+      if (hasChunkCount() != other.hasChunkCount()) return false;
+      if (hasChunkCount()) {
+        if (getChunkCount()
+            != other.getChunkCount()) return false;
+      }
+      if (hasData() != other.hasData()) return false;
+      if (hasData()) {
+        if (!getData()
+            .equals(other.getData())) return false;
+      }
+      if (!unknownFields.equals(other.unknownFields)) return false;
+      return true;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      if (hasSequence()) {
+        hash = (37 * hash) + SEQUENCE_FIELD_NUMBER;
+        hash = (53 * hash) + getSequence();
+      }
+      if (hasChunk()) {
+        hash = (37 * hash) + CHUNK_FIELD_NUMBER;
+        hash = (53 * hash) + getChunk();
+      }
+      if (hasChunkCount()) {
+        hash = (37 * hash) + CHUNKCOUNT_FIELD_NUMBER;
+        hash = (53 * hash) + getChunkCount();
+      }
+      if (hasData()) {
+        hash = (37 * hash) + DATA_FIELD_NUMBER;
+        hash = (53 * hash) + getData().hashCode();
+      }
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        java.nio.ByteBuffer data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.ray.mcu.proto.MessageProto.StateChunk parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+    public static Builder newBuilder(com.ray.mcu.proto.MessageProto.StateChunk prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE
+          ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * <pre>
+     * A chunk of the response to a state transfer request, the bucket hashes or the requested buckets each as [int bucket][int length][bucket].
+     * </pre>
+     *
+     * Protobuf type {@code proto.StateChunk}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:proto.StateChunk)
+        com.ray.mcu.proto.MessageProto.StateChunkOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_StateChunk_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_StateChunk_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.ray.mcu.proto.MessageProto.StateChunk.class, com.ray.mcu.proto.MessageProto.StateChunk.Builder.class);
+      }
+
+      // Construct using com.ray.mcu.proto.MessageProto.StateChunk.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3
+                .alwaysUseFieldBuilders) {
+        }
+      }
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        sequence_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        chunk_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        chunkCount_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        data_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.ray.mcu.proto.MessageProto.internal_static_proto_StateChunk_descriptor;
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.StateChunk getDefaultInstanceForType() {
+        return com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.StateChunk build() {
+        com.ray.mcu.proto.MessageProto.StateChunk result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public com.ray.mcu.proto.MessageProto.StateChunk buildPartial() {
+        com.ray.mcu.proto.MessageProto.StateChunk result = new com.ray.mcu.proto.MessageProto.StateChunk(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) != 0)) {
+          result.sequence_ = sequence_;
+          to_bitField0_ |= 0x00000001;
+        }
+        if (((from_bitField0_ & 0x00000002) != 0)) {
+          result.chunk_ = chunk_;
+          to_bitField0_ |= 0x00000002;
+        }
+        if (((from_bitField0_ & 0x00000004) != 0)) {
+          result.chunkCount_ = chunkCount_;
+          to_bitField0_ |= 0x00000004;
+        }
+        if (((from_bitField0_ & 0x00000008) != 0)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.data_ = data_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return super.clone();
+      }
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.setField(field, value);
+      }
+      @java.lang.Override
+      public Builder clearField(
+          com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return super.clearField(field);
+      }
+      @java.lang.Override
+      public Builder clearOneof(
+          com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return super.clearOneof(oneof);
+      }
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index, java.lang.Object value) {
+        return super.setRepeatedField(field, index, value);
+      }
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.addRepeatedField(field, value);
+      }
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.ray.mcu.proto.MessageProto.StateChunk) {
+          return mergeFrom((com.ray.mcu.proto.MessageProto.StateChunk)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.ray.mcu.proto.MessageProto.StateChunk other) {
+        if (other == com.ray.mcu.proto.MessageProto.StateChunk.getDefaultInstance()) return this;
+        if (other.hasSequence()) {
+          setSequence(other.getSequence());
+        }
+        if (other.hasChunk()) {
+          setChunk(other.getChunk());
+        }
+        if (other.hasChunkCount()) {
+          setChunkCount(other.getChunkCount());
+        }
+        if (other.hasData()) {
+          setData(other.getData());
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        if (!hasSequence()) {
+          return false;
+        }
+        if (!hasChunk()) {
+          return false;
+        }
+        if (!hasChunkCount()) {
+          return false;
+        }
+        if (!hasData()) {
+          return false;
+        }
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.ray.mcu.proto.MessageProto.StateChunk parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.ray.mcu.proto.MessageProto.StateChunk) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private int sequence_ ;
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public boolean hasSequence() {
+        return ((bitField0_ & 0x00000001) != 0);
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public int getSequence() {
+        return sequence_;
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public Builder setSequence(int value) {
+        bitField0_ |= 0x00000001;
+        sequence_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int32 sequence = 1;</code>
+       */
+      public Builder clearSequence() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        sequence_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int chunk_ ;
+      /**
+       * <code>required int32 chunk = 2;</code>
+       */
+      public boolean hasChunk() {
+        return ((bitField0_ & 0x00000002) != 0);
+      }
+      /**
+       * <code>required int32 chunk = 2;</code>
+       */
+      public int getChunk() {
+        return chunk_;
+      }
+      /**
+       * <code>required int32 chunk = 2;</code>
+       */
+      public Builder setChunk(int value) {
+        bitField0_ |= 0x00000002;
+        chunk_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int32 chunk = 2;</code>
+       */
+      public Builder clearChunk() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        chunk_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int chunkCount_ ;
+      /**
+       * <code>required int32 chunkCount = 3;</code>
+       */
+      public boolean hasChunkCount() {
+        return ((bitField0_ & 0x00000004) != 0);
+      }
+      /**
+       * <code>required int32 chunkCount = 3;</code>
+       */
+      public int getChunkCount() {
+        return chunkCount_;
+      }
+      /**
+       * <code>required int32 chunkCount = 3;</code>
+       */
+      public Builder setChunkCount(int value) {
+        bitField0_ |= 0x00000004;
+        chunkCount_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int32 chunkCount = 3;</code>
+       */
+      public Builder clearChunkCount() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        chunkCount_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString data_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>required bytes data = 4;</code>
+       */
+      public boolean hasData() {
+        return ((bitField0_ & 0x00000008) != 0);
+      }
+      /**
+       * <code>required bytes data = 4;</code>
+       */
+      public com.google.protobuf.ByteString getData() {
+        return data_;
+      }
+      /**
+       * <code>required bytes data = 4;</code>
+       */
+      public Builder setData(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000008;
+        data_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required bytes data = 4;</code>
+       */
+      public Builder clearData() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        data_ = getDefaultInstance().getData();
+        onChanged();
+        return this;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:proto.StateChunk)
+    }
+
+    // @@protoc_insertion_point(class_scope:proto.StateChunk)
+    private static final com.ray.mcu.proto.MessageProto.StateChunk DEFAULT_INSTANCE;
+    static {
+      DEFAULT_INSTANCE = new com.ray.mcu.proto.MessageProto.StateChunk();
+    }
+
+    public static com.ray.mcu.proto.MessageProto.StateChunk getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    @java.lang.Deprecated public static final com.google.protobuf.Parser<StateChunk>
+        PARSER = new com.google.protobuf.AbstractParser<StateChunk>() {
+      @java.lang.Override
+      public StateChunk parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new StateChunk(input, extensionRegistry);
+      }
+    };
+
+    public static com.google.protobuf.Parser<StateChunk> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<StateChunk> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.ray.mcu.proto.MessageProto.StateChunk getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+
+  }
+
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_proto_Message_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_proto_Message_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_proto_TextMessage_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_proto_TextMessage_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_proto_IntMessage_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_proto_IntMessage_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_proto_RequestRegisterMessage_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
       internal_static_proto_RequestRegisterMessage_fieldAccessorTable;
   private static final com.google.protobuf.Descriptors.Descriptor
     internal_static_proto_RequestUnregisterMessage_descriptor;
@@ -18811,6 +21523,21 @@ public final class MessageProto {
   private static final 
     com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
       internal_static_proto_RecoverCommit_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_proto_Checkpoint_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_proto_Checkpoint_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_proto_RequestStateTransfer_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_proto_RequestStateTransfer_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_proto_StateChunk_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_proto_StateChunk_fieldAccessorTable;
 
   public static com.google.protobuf.Descriptors.FileDescriptor
       getDescriptor() {
@@ -18821,7 +21548,7 @@ public final class MessageProto {
   static {
     java.lang.String[] descriptorData = {
       "\n\037com/ray/mcu/proto/Message.proto\022\005proto" +
-      "\"\334\005\n\007Message\022%\n\007textMsg\030\001 \001(\0132\022.proto.Te" +
+      "\"\353\006\n\007Message\022%\n\007textMsg\030\001 \001(\0132\022.proto.Te" +
       "xtMessageH\000\022#\n\006intMsg\030\002 \001(\0132\021.proto.IntM" +
       "essageH\000\0222\n\treqRegMsg\030\003 \001(\0132\035.proto.Requ" +
       "estRegisterMessageH\000\022(\n\006regMsg\030\004 \001(\0132\026.p" +
@@ -18838,38 +21565,46 @@ public final class MessageProto {
       "roto.RecoverCommitH\000\022C\n\030requestRecoverPr" +
       "ePrepare\030\016 \001(\0132\037.proto.RequestRecoverPre" +
       "PrepareH\000\022;\n\024requestRecoverCommit\030\017 \001(\0132" +
-      "\033.proto.RequestRecoverCommitH\000\022\013\n\003sig\030\020 " +
-      "\002(\014B\n\n\010messages\"\033\n\013TextMessage\022\014\n\004text\030\001" +
-      " \002(\t\"\027\n\nIntMessage\022\t\n\001i\030\001 \002(\005\">\n\026Request" +
-      "RegisterMessage\022\n\n\002id\030\001 \002(\005\022\n\n\002ip\030\002 \002(\t\022" +
-      "\014\n\004port\030\003 \002(\005\"@\n\030RequestUnregisterMessag" +
+      "\033.proto.RequestRecoverCommitH\000\022\'\n\ncheckp" +
+      "oint\030\021 \001(\0132\021.proto.CheckpointH\000\022;\n\024reque" +
+      "stStateTransfer\030\022 \001(\0132\033.proto.RequestSta" +
+      "teTransferH\000\022\'\n\nstateChunk\030\023 \001(\0132\021.proto" +
+      ".StateChunkH\000\022\013\n\003sig\030\020 \002(\014B\n\n\010messages\"\033" +
+      "\n\013TextMessage\022\014\n\004text\030\001 \002(\t\"\027\n\nIntMessag" +
+      "e\022\t\n\001i\030\001 \002(\005\">\n\026RequestRegisterMessage\022\n" +
+      "\n\002id\030\001 \002(\005\022\n\n\002ip\030\002 \002(\t\022\014\n\004port\030\003 \002(\005\"@\n\030" +
+      "RequestUnregisterMessage\022\n\n\002id\030\001 \002(\005\022\n\n\002" +
+      "ip\030\002 \002(\t\022\014\n\004port\030\003 \002(\005\"7\n\017RegisterMessag" +
       "e\022\n\n\002id\030\001 \002(\005\022\n\n\002ip\030\002 \002(\t\022\014\n\004port\030\003 \002(\005\"" +
-      "7\n\017RegisterMessage\022\n\n\002id\030\001 \002(\005\022\n\n\002ip\030\002 \002" +
-      "(\t\022\014\n\004port\030\003 \002(\005\"L\n\021UnregisterMessage\022\n\n" +
-      "\002id\030\001 \002(\005\022\n\n\002ip\030\002 \002(\t\022\014\n\004port\030\003 \002(\005\022\021\n\ts" +
-      "ignature\030\007 \002(\014\"*\n\rClientMessage\022\013\n\003dif\030\001" +
-      " \002(\005\022\014\n\004pkey\030\002 \002(\014\"F\n\024PersistClientMessa" +
-      "ge\022!\n\003msg\030\001 \002(\0132\024.proto.ClientMessage\022\013\n" +
-      "\003sig\030\002 \002(\014\"\"\n\016ClientResponse\022\020\n\010response" +
-      "\030\001 \002(\010\".\n\006Server\022\n\n\002id\030\001 \002(\005\022\n\n\002ip\030\002 \002(\t" +
-      "\022\014\n\004port\030\003 \002(\005\"G\n\004View\022\n\n\002id\030\001 \002(\005\022\023\n\013co" +
-      "ordinator\030\002 \002(\005\022\036\n\007servers\030\003 \003(\0132\r.proto" +
-      ".Server\"$\n\tSignature\022\n\n\002id\030\001 \002(\005\022\013\n\003sig\030" +
-      "\002 \002(\014\"\217\001\n\rCommitStorage\022*\n\005input\030\001 \003(\0132\033" +
-      ".proto.PersistClientMessage\022\021\n\tinputHash" +
-      "\030\002 \002(\014\022\031\n\004view\030\003 \002(\0132\013.proto.View\022$\n\nsig" +
-      "natures\030\004 \003(\0132\020.proto.Signature\"S\n\nPrePr" +
-      "epare\022*\n\005input\030\001 \003(\0132\033.proto.PersistClie" +
-      "ntMessage\022\031\n\004view\030\002 \002(\0132\013.proto.View\"7\n\007" +
-      "Prepare\022\021\n\tinputHash\030\001 \002(\014\022\031\n\004view\030\002 \002(\013" +
-      "2\013.proto.View\"\\\n\006Commit\022\021\n\tinputHash\030\001 \002" +
-      "(\014\022\031\n\004view\030\002 \002(\0132\013.proto.View\022$\n\nsignatu" +
-      "res\030\003 \003(\0132\020.proto.Signature\"*\n\030RequestRe" +
-      "coverPrePrepare\022\016\n\006viewId\030\001 \002(\005\"&\n\024Reque" +
-      "stRecoverCommit\022\016\n\006viewId\030\001 \002(\005\"6\n\rRecov" +
-      "erCommit\022%\n\007commits\030\001 \003(\0132\024.proto.Commit" +
-      "StorageB!\n\021com.ray.mcu.protoB\014MessagePro" +
-      "to"
+      "L\n\021UnregisterMessage\022\n\n\002id\030\001 \002(\005\022\n\n\002ip\030\002" +
+      " \002(\t\022\014\n\004port\030\003 \002(\005\022\021\n\tsignature\030\007 \002(\014\"*\n" +
+      "\rClientMessage\022\013\n\003dif\030\001 \002(\005\022\014\n\004pkey\030\002 \002(" +
+      "\014\"F\n\024PersistClientMessage\022!\n\003msg\030\001 \002(\0132\024" +
+      ".proto.ClientMessage\022\013\n\003sig\030\002 \002(\014\"\"\n\016Cli" +
+      "entResponse\022\020\n\010response\030\001 \002(\010\".\n\006Server\022" +
+      "\n\n\002id\030\001 \002(\005\022\n\n\002ip\030\002 \002(\t\022\014\n\004port\030\003 \002(\005\"G\n" +
+      "\004View\022\n\n\002id\030\001 \002(\005\022\023\n\013coordinator\030\002 \002(\005\022\036" +
+      "\n\007servers\030\003 \003(\0132\r.proto.Server\"$\n\tSignat" +
+      "ure\022\n\n\002id\030\001 \002(\005\022\013\n\003sig\030\002 \002(\014\"\217\001\n\rCommitS" +
+      "torage\022*\n\005input\030\001 \003(\0132\033.proto.PersistCli" +
+      "entMessage\022\021\n\tinputHash\030\002 \002(\014\022\031\n\004view\030\003 " +
+      "\002(\0132\013.proto.View\022$\n\nsignatures\030\004 \003(\0132\020.p" +
+      "roto.Signature\"S\n\nPrePrepare\022*\n\005input\030\001 " +
+      "\003(\0132\033.proto.PersistClientMessage\022\031\n\004view" +
+      "\030\002 \002(\0132\013.proto.View\"7\n\007Prepare\022\021\n\tinputH" +
+      "ash\030\001 \002(\014\022\031\n\004view\030\002 \002(\0132\013.proto.View\"\\\n\006" +
+      "Commit\022\021\n\tinputHash\030\001 \002(\014\022\031\n\004view\030\002 \002(\0132" +
+      "\013.proto.View\022$\n\nsignatures\030\003 \003(\0132\020.proto" +
+      ".Signature\"*\n\030RequestRecoverPrePrepare\022\016" +
+      "\n\006viewId\030\001 \002(\005\"&\n\024RequestRecoverCommit\022\016" +
+      "\n\006viewId\030\001 \002(\005\"6\n\rRecoverCommit\022%\n\007commi" +
+      "ts\030\001 \003(\0132\024.proto.CommitStorage\"3\n\nCheckp" +
+      "oint\022\020\n\010sequence\030\001 \002(\005\022\023\n\013stateDigest\030\002 " +
+      "\002(\014\"9\n\024RequestStateTransfer\022\020\n\010sequence\030" +
+      "\001 \002(\005\022\017\n\007buckets\030\002 \002(\014\"O\n\nStateChunk\022\020\n\010" +
+      "sequence\030\001 \002(\005\022\r\n\005chunk\030\002 \002(\005\022\022\n\nchunkCo" +
+      "unt\030\003 \002(\005\022\014\n\004data\030\004 \002(\014B!\n\021com.ray.mcu.p" +
+      "rotoB\014MessageProto"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -18888,7 +21623,7 @@ public final class MessageProto {
     internal_static_proto_Message_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_proto_Message_descriptor,
-        new java.lang.String[] { "TextMsg", "IntMsg", "ReqRegMsg", "RegMsg", "ReqUnregMsg", "UnregMsg", "ClientMsg", "PersClientMsg", "Response", "PrePrepare", "Prepare", "Commit", "RecoverCommit", "RequestRecoverPrePrepare", "RequestRecoverCommit", "Sig", "Messages", });
+        new java.lang.String[] { "TextMsg", "IntMsg", "ReqRegMsg", "RegMsg", "ReqUnregMsg", "UnregMsg", "ClientMsg", "PersClientMsg", "Response", "PrePrepare", "Prepare", "Commit", "RecoverCommit", "RequestRecoverPrePrepare", "RequestRecoverCommit", "Checkpoint", "RequestStateTransfer", "StateChunk", "Sig", "Messages", });
     internal_static_proto_TextMessage_descriptor =
       getDescriptor().getMessageTypes().get(1);
     internal_static_proto_TextMessage_fieldAccessorTable = new
@@ -19003,6 +21738,24 @@ public final class MessageProto {
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_proto_RecoverCommit_descriptor,
         new java.lang.String[] { "Commits", });
+    internal_static_proto_Checkpoint_descriptor =
+      getDescriptor().getMessageTypes().get(20);
+    internal_static_proto_Checkpoint_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+        internal_static_proto_Checkpoint_descriptor,
+        new java.lang.String[] { "Sequence", "StateDigest", });
+    internal_static_proto_RequestStateTransfer_descriptor =
+      getDescriptor().getMessageTypes().get(21);
+    internal_static_proto_RequestStateTransfer_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+        internal_static_proto_RequestStateTransfer_descriptor,
+        new java.lang.String[] { "Sequence", "Buckets", });
+    internal_static_proto_StateChunk_descriptor =
+      getDescriptor().getMessageTypes().get(22);
+    internal_static_proto_StateChunk_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+        internal_static_proto_StateChunk_descriptor,
+        new java.lang.String[] { "Sequence", "Chunk", "ChunkCount", "Data", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
@@ -0,0 +1,771 @@
+package com.ray.mcu.server;
+
+import com.google.protobuf.ByteString;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The account balances of the clients, authenticated by a Merkle tree.
+ * An account is identified by the fingerprint of the encoded public key of its client (the first 16 bytes of its SHA-256,
+ * as two longs), so neither the key has to be decoded nor kept, and holds a 64 bit balance.
+ * 128 bits keep a collision out of reach of a client generating keys to take over the account of another.
+ * Accounts are partitioned by fingerprint into fanout^depth buckets, each an open addressing table of primitive longs
+ * (about 48 bytes per account including the serialized copy).
+ * The leaves of the tree are the hashes of the serialized buckets and every inner node hashes its fanout children,
+ * leaves and inner nodes hash with different prefixes.
+ * Changes only mark their bucket dirty, the root is updated lazily, so a digest costs the changed buckets and their
+ * paths instead of the whole state.
+ * Not thread safe, only the thread applying the client messages uses it. Other threads may only read balances
+ * optimistically through {@link #readBalances(long[], int, long[])}.
+ */
+public class AccountState
+{
+    /**
+     * The size of a hash in bytes.
+     */
+    public static final int HASH_SIZE = 32;
+
+    /**
+     * The number of longs of a fingerprint, arrays of fingerprints hold them one after the other.
+     */
+    public static final int FINGERPRINT_LONGS = 2;
+
+    /**
+     * The size of a serialized account (fingerprint and balance).
+     */
+    public static final int ACCOUNT_SIZE = Long.BYTES * (FINGERPRINT_LONGS + 1);
+
+    /**
+     * The initial number of slots of a bucket.
+     */
+    private static final int INITIAL_BUCKET_CAPACITY = 8;
+
+    /**
+     * Returned by {@link #readBalances(long[], int, long[])} if changes were applied while reading.
+     */
+    public static final int UNSTABLE_READ = Integer.MIN_VALUE;
+
+    /**
+     * Prefix of the hashed content of a leaf (serialized bucket), so a leaf can't be passed off as an inner node.
+     */
+    private static final byte LEAF_TAG = 0;
+
+    /**
+     * Prefix of the hashed content of an inner node (concatenated child hashes).
+     */
+    private static final byte NODE_TAG = 1;
+
+    /**
+     * The digest computing the fingerprints of each thread.
+     */
+    private static final ThreadLocal<MessageDigest> FINGERPRINT_DIGEST = ThreadLocal.withInitial(AccountState::newDigest);
+
+    /**
+     * The accounts of a bucket, an open addressing table with linear probing.
+     * A fingerprint starting with 0 marks a free slot, it is never returned by {@link #fingerprint}.
+     */
+    private static final class Bucket
+    {
+        /**
+         * The fingerprints of the slots, {@link #FINGERPRINT_LONGS} longs per slot.
+         */
+        private long[] fingerprints;
+
+        /**
+         * The balances of the slots.
+         */
+        private long[] balances;
+
+        /**
+         * The number of accounts.
+         */
+        private int size = 0;
+
+        /**
+         * Create an empty bucket.
+         * @param capacity the initial number of slots, a power of two.
+         */
+        private Bucket(final int capacity)
+        {
+            this.fingerprints = new long[capacity * FINGERPRINT_LONGS];
+            this.balances = new long[capacity];
+        }
+
+        /**
+         * Find the slot of an account.
+         * @param high the first long of the fingerprint of the account.
+         * @param low the second long of the fingerprint.
+         * @return its slot or the free slot to insert it at.
+         */
+        private int slot(final long high, final long low)
+        {
+            final int mask = balances.length - 1;
+            int slot = (int) high & mask;
+            while (fingerprints[slot * FINGERPRINT_LONGS] != 0
+                     && (fingerprints[slot * FINGERPRINT_LONGS] != high || fingerprints[slot * FINGERPRINT_LONGS + 1] != low))
+            {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Get the balance of an account.
+         * @param high the first long of the fingerprint of the account.
+         * @param low the second long of the fingerprint.
+         * @return the balance, 0 if unknown.
+         */
+        private long get(final long high, final long low)
+        {
+            return balances[slot(high, low)];
+        }
+
+        /**
+         * Get the balance of an account while the bucket may be modified, the result is only valid if nothing was.
+         * @param high the first long of the fingerprint of the account.
+         * @param low the second long of the fingerprint.
+         * @return the balance, 0 if unknown or the slots were replaced meanwhile.
+         */
+        private long peek(final long high, final long low)
+        {
+            final long[] currentFingerprints = fingerprints;
+            final long[] currentBalances = balances;
+            if (currentFingerprints.length != currentBalances.length * FINGERPRINT_LONGS)
+            {
+                return 0;
+            }
+
+            final int mask = currentBalances.length - 1;
+            int slot = (int) high & mask;
+            for (int probe = 0; probe < currentBalances.length; probe++)
+            {
+                final long current = currentFingerprints[slot * FINGERPRINT_LONGS];
+                if (current == high && currentFingerprints[slot * FINGERPRINT_LONGS + 1] == low)
+                {
+                    return currentBalances[slot];
+                }
+                if (current == 0)
+                {
+                    return 0;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        /**
+         * Set the balance of an account.
+         * @param high the first long of the fingerprint of the account.
+         * @param low the second long of the fingerprint.
+         * @param balance the new balance.
+         * @return true if the account is new.
+         */
+        private boolean put(final long high, final long low, final long balance)
+        {
+            int slot = slot(high, low);
+            if (fingerprints[slot * FINGERPRINT_LONGS] != 0)
+            {
+                balances[slot] = balance;
+                return false;
+            }
+
+            // Keep the load at most 3/4.
+            if ((size + 1) * 4 > balances.length * 3)
+            {
+                grow();
+                slot = slot(high, low);
+            }
+            fingerprints[slot * FINGERPRINT_LONGS] = high;
+            fingerprints[slot * FINGERPRINT_LONGS + 1] = low;
+            balances[slot] = balance;
+            size++;
+            return true;
+        }
+
+        /**
+         * Double the number of slots.
+         */
+        private void grow()
+        {
+            final long[] oldFingerprints = fingerprints;
+            final long[] oldBalances = balances;
+            fingerprints = new long[oldFingerprints.length * 2];
+            balances = new long[oldBalances.length * 2];
+            for (int i = 0; i < oldBalances.length; i++)
+            {
+                final long high = oldFingerprints[i * FINGERPRINT_LONGS];
+                if (high != 0)
+                {
+                    final long low = oldFingerprints[i * FINGERPRINT_LONGS + 1];
+                    final int slot = slot(high, low);
+                    fingerprints[slot * FINGERPRINT_LONGS] = high;
+                    fingerprints[slot * FINGERPRINT_LONGS + 1] = low;
+                    balances[slot] = oldBalances[i];
+                }
+            }
+        }
+
+        /**
+         * Serialize the bucket, independent of the insertion order.
+         * @return the accounts ordered by fingerprint, each as [long high][long low][long balance].
+         */
+        private byte[] serialize()
+        {
+            final long[] sorted = new long[size];
+            int count = 0;
+            for (int slot = 0; slot < balances.length; slot++)
+            {
+                if (fingerprints[slot * FINGERPRINT_LONGS] != 0)
+                {
+                    sorted[count++] = fingerprints[slot * FINGERPRINT_LONGS];
+                }
+            }
+            Arrays.sort(sorted);
+
+            final ByteBuffer buffer = ByteBuffer.allocate(size * ACCOUNT_SIZE);
+            final int mask = balances.length - 1;
+            long[] lows = new long[1];
+            for (int i = 0; i < sorted.length; )
+            {
+                final long high = sorted[i];
+                int same = 1;
+                while (i + same < sorted.length && sorted[i + same] == high)
+                {
+                    same++;
+                }
+
+                // The accounts starting with the same long all lie on the probe sequence of their common start slot.
+                if (lows.length < same)
+                {
+                    lows = new long[same];
+                }
+                int found = 0;
+                for (int slot = (int) high & mask; found < same; slot = (slot + 1) & mask)
+                {
+                    if (fingerprints[slot * FINGERPRINT_LONGS] == high)
+                    {
+                        lows[found++] = fingerprints[slot * FINGERPRINT_LONGS + 1];
+                    }
+                }
+                Arrays.sort(lows, 0, same);
+
+                for (int k = 0; k < same; k++)
+                {
+                    buffer.putLong(high).putLong(lows[k]).putLong(get(high, lows[k]));
+                }
+                i += same;
+            }
+            return buffer.array();
+        }
+
+        /**
+         * Read a serialized bucket.
+         * @param data the bucket as written by {@link #serialize()}, verified against its hash.
+         * @return the bucket.
+         */
+        private static Bucket deserialize(final byte[] data)
+        {
+            final int count = data.length / ACCOUNT_SIZE;
+            final Bucket bucket = new Bucket(Integer.highestOneBit(Math.max(INITIAL_BUCKET_CAPACITY, count * 2 - 1)) * 2);
+            final ByteBuffer buffer = ByteBuffer.wrap(data);
+            for (int i = 0; i < count; i++)
+            {
+                bucket.put(buffer.getLong(), buffer.getLong(), buffer.getLong());
+            }
+            return bucket;
+        }
+    }
+
+    /**
+     * The number of children of an inner node.
+     */
+    private final int fanout;
+
+    /**
+     * The accounts of each bucket.
+     */
+    private final Bucket[] buckets;
+
+    /**
+     * The serialized buckets, updated together with their hashes.
+     */
+    private final byte[][] serialized;
+
+    /**
+     * The hashes of the tree by level, the root first and the bucket hashes last.
+     */
+    private final byte[][] levels;
+
+    /**
+     * The buckets changed since the last update of the tree.
+     */
+    private final BitSet dirty = new BitSet();
+
+    /**
+     * The number of accounts.
+     */
+    private int size = 0;
+
+    /**
+     * Held while changes are applied, so readers on other threads can detect them.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The sequence number of the last instance applied through {@link #addAll} or {@link #install}, -1 if none.
+     */
+    private volatile int sequence = -1;
+
+    /**
+     * Create an empty state.
+     * @param fanout the number of children of an inner node.
+     * @param depth the number of levels below the root.
+     */
+    public AccountState(final int fanout, final int depth)
+    {
+        this.fanout = Math.max(2, fanout);
+        int count = 1;
+        this.levels = new byte[Math.max(1, depth) + 1][];
+        for (int level = 0; level < levels.length; level++)
+        {
+            levels[level] = new byte[count * HASH_SIZE];
+            count *= this.fanout;
+        }
+
+        final int bucketCount = levels[levels.length - 1].length / HASH_SIZE;
+        this.buckets = new Bucket[bucketCount];
+        this.serialized = new byte[bucketCount][];
+        for (int bucket = 0; bucket < bucketCount; bucket++)
+        {
+            buckets[bucket] = new Bucket(INITIAL_BUCKET_CAPACITY);
+        }
+        dirty.set(0, bucketCount);
+    }
+
+    /**
+     * Get the balance of an account.
+     * @param high the first long of the fingerprint of the account.
+     * @param low the second long of the fingerprint.
+     * @return the balance, 0 if unknown.
+     */
+    public long get(final long high, final long low)
+    {
+        return buckets[bucketOf(high, buckets.length)].get(high, low);
+    }
+
+    /**
+     * Add to the balance of an account, creating it if unknown.
+     * Not visible to readers on other threads, replicas with such readers apply changes through {@link #addAll}.
+     * @param high the first long of the fingerprint of the account.
+     * @param low the second long of the fingerprint.
+     * @param delta the amount to add (negative to debit).
+     * @return the new balance.
+     */
+    public long add(final long high, final long low, final long delta)
+    {
+        final int bucket = bucketOf(high, buckets.length);
+        final long balance = buckets[bucket].get(high, low) + delta;
+        if (buckets[bucket].put(high, low, balance))
+        {
+            size++;
+        }
+        dirty.set(bucket);
+        return balance;
+    }
+
+    /**
+     * Add to the balances of many accounts, the accounts of different buckets in parallel.
+     * Changes are partitioned by bucket, and so by account, and every partition applies its changes in the given order,
+     * so the state is exactly the one of adding them one by one on every replica, independent of the scheduling.
+     * @param fingerprints the fingerprints of the accounts, {@link #FINGERPRINT_LONGS} longs per change.
+     * @param deltas the amounts to add.
+     * @param count the number of changes.
+     * @param pool the pool to apply the partitions on.
+     * @param partitions the number of partitions, 1 to apply the changes on the calling thread.
+     * @param sequence the sequence number of the last instance the changes belong to.
+     */
+    public void addAll(
+      final long[] fingerprints,
+      final long[] deltas,
+      final int count,
+      @NotNull final ForkJoinPool pool,
+      final int partitions,
+      final int sequence)
+    {
+        final long stamp = lock.writeLock();
+        try
+        {
+            if (partitions <= 1 || count < 2)
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    add(fingerprints[i * FINGERPRINT_LONGS], fingerprints[i * FINGERPRINT_LONGS + 1], deltas[i]);
+                }
+            }
+            else
+            {
+                addPartitioned(fingerprints, deltas, count, pool, partitions);
+            }
+            this.sequence = sequence;
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Read the balances of accounts from any thread, without blocking the thread applying changes.
+     * @param fingerprints the fingerprints of the accounts, {@link #FINGERPRINT_LONGS} longs per account.
+     * @param count the number of accounts.
+     * @param balances filled with the balances, 0 for unknown accounts.
+     * @return the sequence number of the last instance applied to the balances read, or UNSTABLE_READ if changes
+     *         were applied meanwhile, the balances are invalid then.
+     */
+    public int readBalances(final long[] fingerprints, final int count, final long[] balances)
+    {
+        final long stamp = lock.tryOptimisticRead();
+        if (stamp == 0)
+        {
+            return UNSTABLE_READ;
+        }
+
+        final int applied = sequence;
+        for (int i = 0; i < count; i++)
+        {
+            final long high = fingerprints[i * FINGERPRINT_LONGS];
+            balances[i] = buckets[bucketOf(high, buckets.length)].peek(high, fingerprints[i * FINGERPRINT_LONGS + 1]);
+        }
+        return lock.validate(stamp) ? applied : UNSTABLE_READ;
+    }
+
+    /**
+     * Apply changes in parallel partitions of the buckets.
+     * @param fingerprints the fingerprints of the accounts, {@link #FINGERPRINT_LONGS} longs per change.
+     * @param deltas the amounts to add.
+     * @param count the number of changes.
+     * @param pool the pool to apply the partitions on.
+     * @param partitions the number of partitions.
+     */
+    private void addPartitioned(final long[] fingerprints, final long[] deltas, final int count, final ForkJoinPool pool, final int partitions)
+    {
+        // Stable counting sort of the changes by partition.
+        final int[] bucketOfChange = new int[count];
+        final int[] starts = new int[partitions + 1];
+        for (int i = 0; i < count; i++)
+        {
+            bucketOfChange[i] = bucketOf(fingerprints[i * FINGERPRINT_LONGS], buckets.length);
+            starts[bucketOfChange[i] % partitions + 1]++;
+        }
+        for (int partition = 0; partition < partitions; partition++)
+        {
+            starts[partition + 1] += starts[partition];
+        }
+        final int[] order = new int[count];
+        final int[] next = Arrays.copyOf(starts, partitions);
+        for (int i = 0; i < count; i++)
+        {
+            order[next[bucketOfChange[i] % partitions]++] = i;
+        }
+
+        final List<ForkJoinTask<Integer>> tasks = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++)
+        {
+            final int from = starts[partition];
+            final int to = starts[partition + 1];
+            if (from == to)
+            {
+                continue;
+            }
+
+            tasks.add(pool.submit(() ->
+            {
+                int created = 0;
+                for (int k = from; k < to; k++)
+                {
+                    final int change = order[k];
+                    final Bucket bucket = buckets[bucketOfChange[change]];
+                    final long high = fingerprints[change * FINGERPRINT_LONGS];
+                    final long low = fingerprints[change * FINGERPRINT_LONGS + 1];
+                    if (bucket.put(high, low, bucket.get(high, low) + deltas[change]))
+                    {
+                        created++;
+                    }
+                }
+                return created;
+            }));
+        }
+
+        for (final ForkJoinTask<Integer> task : tasks)
+        {
+            size += task.join();
+        }
+        for (int i = 0; i < count; i++)
+        {
+            dirty.set(bucketOfChange[i]);
+        }
+    }
+
+    /**
+     * Get the number of accounts.
+     * @return the number.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Get the number of buckets.
+     * @return the number.
+     */
+    public int getBucketCount()
+    {
+        return buckets.length;
+    }
+
+    /**
+     * Get the number of children of an inner node.
+     * @return the fanout.
+     */
+    public int getFanout()
+    {
+        return fanout;
+    }
+
+    /**
+     * Get the root of the tree, the digest of the whole state.
+     * @return the hash.
+     */
+    @NotNull
+    public byte[] getRootHash()
+    {
+        update();
+        return levels[0].clone();
+    }
+
+    /**
+     * Get the hashes of all buckets.
+     * @return a copy of the leaves of the tree.
+     */
+    @NotNull
+    public byte[] getBucketHashes()
+    {
+        update();
+        return levels[levels.length - 1].clone();
+    }
+
+    /**
+     * Get all serialized buckets.
+     * @return a new array of the serialized buckets, which are never modified afterwards.
+     */
+    @NotNull
+    public byte[][] getSerializedBuckets()
+    {
+        update();
+        return serialized.clone();
+    }
+
+    /**
+     * Replace the buckets which differ from a target state.
+     * @param bucketHashes the bucket hashes of the target state.
+     * @param targetBuckets its serialized buckets.
+     * @param sequence the sequence number of the last instance included in the target state.
+     * @return the number of replaced buckets or -1 if the target state has another number of buckets, then nothing is replaced.
+     */
+    public int install(@NotNull final byte[] bucketHashes, @NotNull final byte[][] targetBuckets, final int sequence)
+    {
+        if (bucketHashes.length != buckets.length * HASH_SIZE || targetBuckets.length != buckets.length)
+        {
+            return -1;
+        }
+        for (final byte[] bucket : targetBuckets)
+        {
+            if (bucket == null)
+            {
+                return -1;
+            }
+        }
+
+        final long stamp = lock.writeLock();
+        try
+        {
+            this.sequence = sequence;
+            return replaceDifferingBuckets(bucketHashes, targetBuckets);
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the sequence number of the last instance applied, from any thread.
+     * @return the sequence number, -1 if none.
+     */
+    public int getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Replace the buckets which differ from a target state.
+     * @param bucketHashes the bucket hashes of the target state.
+     * @param targetBuckets its serialized buckets.
+     * @return the number of replaced buckets.
+     */
+    private int replaceDifferingBuckets(final byte[] bucketHashes, final byte[][] targetBuckets)
+    {
+        update();
+        final byte[] leaves = levels[levels.length - 1];
+        int replaced = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++)
+        {
+            final int offset = bucket * HASH_SIZE;
+            if (Arrays.equals(leaves, offset, offset + HASH_SIZE, bucketHashes, offset, offset + HASH_SIZE))
+            {
+                continue;
+            }
+
+            final Bucket restored = Bucket.deserialize(targetBuckets[bucket]);
+            size += restored.size - buckets[bucket].size;
+            buckets[bucket] = restored;
+            dirty.set(bucket);
+            replaced++;
+        }
+        return replaced;
+    }
+
+    /**
+     * Calculate the fingerprint identifying the account of a client.
+     * @param encodedKey the encoded public key of the client.
+     * @param fingerprints the array to write the first 16 bytes of its SHA-256 to, the first long is never 0.
+     * @param index the index of the account in the array, at {@link #FINGERPRINT_LONGS} longs per account.
+     */
+    public static void fingerprint(@NotNull final ByteString encodedKey, @NotNull final long[] fingerprints, final int index)
+    {
+        final MessageDigest digest = FINGERPRINT_DIGEST.get();
+        digest.update(encodedKey.asReadOnlyByteBuffer());
+        final ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        final long high = hash.getLong();
+        fingerprints[index * FINGERPRINT_LONGS] = high == 0 ? 1 : high;
+        fingerprints[index * FINGERPRINT_LONGS + 1] = hash.getLong();
+    }
+
+    /**
+     * Calculate the bucket of an account.
+     * Uses the upper half of the first long of the fingerprint, the slots in a bucket use the lower one.
+     * @param high the first long of the fingerprint of the account.
+     * @param bucketCount the number of buckets.
+     * @return the bucket.
+     */
+    public static int bucketOf(final long high, final int bucketCount)
+    {
+        return (int) ((high >>> 32) % bucketCount);
+    }
+
+    /**
+     * Calculate the root of the tree over bucket hashes.
+     * @param bucketHashes the bucket hashes.
+     * @param fanout the number of children of an inner node.
+     * @return the root hash or null if the number of buckets is no power of the fanout.
+     */
+    public static byte[] computeRoot(@NotNull final byte[] bucketHashes, final int fanout)
+    {
+        final MessageDigest digest = newDigest();
+        byte[] level = bucketHashes;
+        while (level.length > HASH_SIZE)
+        {
+            if (level.length % (fanout * HASH_SIZE) != 0)
+            {
+                return null;
+            }
+
+            final byte[] parents = new byte[level.length / fanout];
+            for (int node = 0; node < parents.length / HASH_SIZE; node++)
+            {
+                digest.update(NODE_TAG);
+                digest.update(level, node * fanout * HASH_SIZE, fanout * HASH_SIZE);
+                System.arraycopy(digest.digest(), 0, parents, node * HASH_SIZE, HASH_SIZE);
+            }
+            level = parents;
+        }
+        return level.length == HASH_SIZE ? level : null;
+    }
+
+    /**
+     * Calculate the hash of a serialized bucket.
+     * @param bucket the serialized bucket.
+     * @return the SHA-256 of the leaf prefix and the bucket.
+     */
+    @NotNull
+    public static byte[] hashBucket(@NotNull final byte[] bucket)
+    {
+        final MessageDigest digest = newDigest();
+        digest.update(LEAF_TAG);
+        return digest.digest(bucket);
+    }
+
+    /**
+     * Serialize the dirty buckets and update their hashes and paths up to the root.
+     */
+    private void update()
+    {
+        if (dirty.isEmpty())
+        {
+            return;
+        }
+
+        final MessageDigest digest = newDigest();
+        final byte[] leaves = levels[levels.length - 1];
+        BitSet changed = new BitSet();
+        for (int bucket = dirty.nextSetBit(0); bucket >= 0; bucket = dirty.nextSetBit(bucket + 1))
+        {
+            serialized[bucket] = buckets[bucket].serialize();
+            digest.update(LEAF_TAG);
+            System.arraycopy(digest.digest(serialized[bucket]), 0, leaves, bucket * HASH_SIZE, HASH_SIZE);
+            changed.set(bucket / fanout);
+        }
+        dirty.clear();
+
+        for (int level = levels.length - 2; level >= 0; level--)
+        {
+            final byte[] children = levels[level + 1];
+            final BitSet parents = new BitSet();
+            for (int node = changed.nextSetBit(0); node >= 0; node = changed.nextSetBit(node + 1))
+            {
+                digest.update(NODE_TAG);
+                digest.update(children, node * fanout * HASH_SIZE, fanout * HASH_SIZE);
+                System.arraycopy(digest.digest(), 0, levels[level], node * HASH_SIZE, HASH_SIZE);
+                parents.set(node / fanout);
+            }
+            changed = parents;
+        }
+    }
+
+    /**
+     * Create a SHA-256 digest.
+     * @return the digest.
+     */
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 not supported by this JDK", e);
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.ray.mcu.server;
 import com.ray.mcu.communication.clientoperations.IClientOperation;
 import com.ray.mcu.communication.wrappers.IMessageWrapper;
 import com.ray.mcu.communication.serveroperations.IOperation;
+import com.ray.mcu.server.server.SessionKeys;
 import com.ray.mcu.views.GlobalView;
 
+import java.util.Collection;
+
 /**
  * Server interface.
  */
@@ -31,16 +34,35 @@ public interface IServer
     public byte[] signMessage(final byte[] message);
 
     /**
-     * Consume a messgage from the output queue.
-     * @return the message.
+     * Decrypt a message which was encrypted with the public key of this server.
+     * @param message the encrypted message.
+     * @return the decrypted message or null on failure.
+     */
+    public byte[] decryptMessage(final byte[] message);
+
+    /**
+     * Get the session keys of the authenticator mode.
+     * @return the session keys.
+     */
+    public SessionKeys getSessionKeys();
+
+    /**
+     * Take the waiting messages from the output queue, waits until there is at least one.
+     * @param target the collection to add them to.
+     * @param max the maximum number of messages to take.
+     * @return the number of messages taken.
+     * @throws InterruptedException if interrupted while waiting.
      */
-    public IOperation consumeMessageFromOutputQueue() throws InterruptedException;
+    public int drainOutputQueue(final Collection<? super IOperation> target, final int max) throws InterruptedException;
 
     /**
-     * Consume a messgage from the output queue.
-     * @return the message.
+     * Take the waiting messages from the client output queue, waits until there is at least one.
+     * @param target the collection to add them to.
+     * @param max the maximum number of messages to take.
+     * @return the number of messages taken.
+     * @throws InterruptedException if interrupted while waiting.
      */
-    public IClientOperation consumeMessageFromClientOutputQueue() throws InterruptedException;
+    public int drainClientOutputQueue(final Collection<? super IClientOperation> target, final int max) throws InterruptedException;
 
     /**
      * Check if the server is still active or shut down already.
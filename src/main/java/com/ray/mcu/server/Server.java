@@ -1,5 +1,8 @@
 package com.ray.mcu.server;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
 import com.ray.mcu.communication.MessageHandlerRegistry;
 import com.ray.mcu.communication.clientoperations.IClientOperation;
 import com.ray.mcu.communication.serveroperations.BroadcastOperation;
@@ -14,20 +17,21 @@ import com.ray.mcu.server.client.ServerClientSender;
 import com.ray.mcu.server.server.ServerMessageHandler;
 import com.ray.mcu.server.server.ServerReceiver;
 import com.ray.mcu.server.server.ServerSender;
+import com.ray.mcu.server.server.SessionKeys;
+import com.ray.mcu.server.server.VerificationStage;
 import com.ray.mcu.communication.serveroperations.IOperation;
 import com.ray.mcu.communication.serveroperations.UnicastOperation;
 import com.ray.mcu.utils.KeyUtilities;
 import com.ray.mcu.utils.Log;
 import com.ray.mcu.views.GlobalView;
 import com.ray.mcu.utils.ViewLoader;
+import com.ray.mcu.pipeline.ReadBackpressure;
+import com.ray.mcu.pipeline.RingBuffer;
+import com.ray.mcu.pipeline.WaitStrategies;
 import com.ray.mcu.utils.Constants;
-import sun.security.rsa.RSAPublicKeyImpl;
 
-import java.security.InvalidKeyException;
 import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.util.HashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Collection;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -48,22 +52,22 @@ public class Server extends Thread implements IServer
     /**
      * Cache which holds the receives messages (Consumed by Server)
      */
-    public final LinkedBlockingQueue<IMessageWrapper> inputQueue = new LinkedBlockingQueue<>();
+    public final RingBuffer<IMessageWrapper> inputQueue = WaitStrategies.newRingBuffer(RingBuffer.ProducerType.MULTI);
 
     /**
      * Cache which holds the receives messages (Consumed by Server)
      */
-    public final LinkedBlockingQueue<IMessageWrapper> clientInputQueue = new LinkedBlockingQueue<>();
+    public final RingBuffer<IMessageWrapper> clientInputQueue = WaitStrategies.newRingBuffer(RingBuffer.ProducerType.MULTI);
 
     /**
      * Cache which holds the messages to send in the future (Produced by Server).
      */
-    public final LinkedBlockingQueue<IOperation> outputQueue = new LinkedBlockingQueue<>();
+    public final RingBuffer<IOperation> outputQueue = WaitStrategies.newRingBuffer(RingBuffer.ProducerType.MULTI);
 
     /**
      * Cache which holds the messages to send in the future (Produced by Server).
      */
-    public final LinkedBlockingQueue<IClientOperation> clientOutputQueue = new LinkedBlockingQueue<>();
+    public final RingBuffer<IClientOperation> clientOutputQueue = WaitStrategies.newRingBuffer(RingBuffer.ProducerType.MULTI);
 
     /**
      * The global view this server uses.
@@ -71,9 +75,30 @@ public class Server extends Thread implements IServer
     public final GlobalView view;
 
     /**
-     * The current state of our servers. Client Public Key to Integer account balance.
+     * The stage verifying the signatures of incoming replica messages before they reach the input queue.
      */
-    public final HashMap<PublicKey, Integer> state = new HashMap<>();
+    public final VerificationStage verificationStage = new VerificationStage(this, Constants.VERIFICATION_THREADS);
+
+    /**
+     * The pairwise session keys of the authenticator mode.
+     */
+    public final SessionKeys sessionKeys = new SessionKeys(this);
+
+    /**
+     * Stops reading from the client channels while too many client requests are waiting.
+     */
+    public final ReadBackpressure clientBackpressure =
+      new ReadBackpressure(this::getPendingClientLoad, Constants.CLIENT_HIGH_WATERMARK, Constants.CLIENT_LOW_WATERMARK);
+
+    /**
+     * The signatures of the client requests forwarded to the coordinator recently, to forward retransmissions only once.
+     */
+    private final Cache<ByteString, Boolean> forwardedClientRequests = Caffeine.newBuilder().maximumSize(Constants.MEMPOOL_DEDUPE_CACHE_SIZE).build();
+
+    /**
+     * The current state of our servers. Client Public Key fingerprint to account balance.
+     */
+    public final AccountState state = new AccountState(Constants.STATE_TREE_FANOUT, Constants.STATE_TREE_DEPTH);
 
     /**
      * Var setting the server to be active.
@@ -185,6 +210,16 @@ public class Server extends Thread implements IServer
         MessageHandlerRegistry.handle(message, this);
     }
 
+    /**
+     * Handle the messages which were held back and can be handled now, called by the message handler after every message.
+     */
+    public void handleReleasedMessages()
+    {
+        /*
+         * Intentionally left empty, nothing is held back without consensus.
+         */
+    }
+
     @Override
     public ServerData getServerData()
     {
@@ -197,6 +232,18 @@ public class Server extends Thread implements IServer
         return KeyUtilities.signMessage(message, this.privateKey);
     }
 
+    @Override
+    public byte[] decryptMessage(final byte[] message)
+    {
+        return KeyUtilities.decryptMessage(message, this.privateKey);
+    }
+
+    @Override
+    public SessionKeys getSessionKeys()
+    {
+        return sessionKeys;
+    }
+
     @Override
     public GlobalView getView()
     {
@@ -204,15 +251,15 @@ public class Server extends Thread implements IServer
     }
 
     @Override
-    public IOperation consumeMessageFromOutputQueue() throws InterruptedException
+    public int drainOutputQueue(final Collection<? super IOperation> target, final int max) throws InterruptedException
     {
-        return outputQueue.take();
+        return outputQueue.drainTo(target, max);
     }
 
     @Override
-    public IClientOperation consumeMessageFromClientOutputQueue() throws InterruptedException
+    public int drainClientOutputQueue(final Collection<? super IClientOperation> target, final int max) throws InterruptedException
     {
-        return clientOutputQueue.take();
+        return clientOutputQueue.drainTo(target, max);
     }
 
     @Override
@@ -247,20 +294,9 @@ public class Server extends Thread implements IServer
      */
     public void persist(final MessageProto.ClientMessage msg)
     {
-        try
-        {
-            final PublicKey key = new RSAPublicKeyImpl(msg.getPkey().toByteArray());
-
-            int tempState = state.getOrDefault(key, 0);
-            tempState += msg.getDif();
-
-            //Log.getLogger().warn("New State: " + tempState);
-            state.put(key, tempState);
-        }
-        catch (InvalidKeyException e)
-        {
-            e.printStackTrace();
-        }
+        final long[] fingerprint = new long[AccountState.FINGERPRINT_LONGS];
+        AccountState.fingerprint(msg.getPkey(), fingerprint, 0);
+        state.add(fingerprint[0], fingerprint[1], msg.getDif());
     }
 
     /**
@@ -272,6 +308,25 @@ public class Server extends Thread implements IServer
         this.outputQueue.add(new BroadcastOperation(new PersistClientMessageWrapper(this, message.getClientMsg(), message.getSig())));
     }
 
+    /**
+     * Remember a client request forwarded to the coordinator.
+     * @param message the request.
+     * @return false if it was forwarded already.
+     */
+    public boolean markForwarded(final MessageProto.Message message)
+    {
+        return forwardedClientRequests.asMap().putIfAbsent(message.getSig(), Boolean.TRUE) == null;
+    }
+
+    /**
+     * Get the number of client requests received but not proposed yet.
+     * @return the number of waiting requests, a snapshot which may be outdated already.
+     */
+    public int getPendingClientLoad()
+    {
+        return clientInputQueue.size();
+    }
+
     /**
      * Add to the existing input queue.
      * @param input the input to add to the queue.
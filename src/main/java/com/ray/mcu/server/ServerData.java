@@ -4,6 +4,7 @@ import com.ray.mcu.utils.KeyUtilities;
 import org.boon.json.annotations.JsonIgnore;
 import org.boon.json.annotations.JsonInclude;
 
+import java.nio.ByteBuffer;
 import java.security.*;
 import java.util.Objects;
 
@@ -147,6 +148,17 @@ public class ServerData
         return KeyUtilities.verifyKey(message, signature, publicKey);
     }
 
+    /**
+     * Verify if this server signed the bytes of a buffer.
+     * @param message the buffer holding the message.
+     * @param signature the signature.
+     * @return true if valid.
+     */
+    public boolean verifyKey(final ByteBuffer message, final byte[] signature)
+    {
+        return KeyUtilities.verifyKey(message, signature, publicKey);
+    }
+
     @Override
     public boolean equals(final Object o)
     {
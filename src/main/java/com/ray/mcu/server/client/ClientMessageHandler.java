@@ -1,6 +1,11 @@
 package com.ray.mcu.server.client;
 
+import com.ray.mcu.communication.wrappers.IMessageWrapper;
 import com.ray.mcu.server.Server;
+import com.ray.mcu.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Thread handling the client Messages.
@@ -25,16 +30,24 @@ public class ClientMessageHandler extends Thread
     @Override
     public void run()
     {
+        final List<IMessageWrapper> batch = new ArrayList<>(Constants.DRAIN_BATCH_SIZE);
         while (server.isActive())
         {
             try
             {
-                server.handleMessage(server.clientInputQueue.take());
+                server.clientInputQueue.drainTo(batch, Constants.DRAIN_BATCH_SIZE);
             }
             catch (InterruptedException e)
             {
                 e.printStackTrace();
             }
+
+            for (final IMessageWrapper message : batch)
+            {
+                server.handleMessage(message);
+            }
+            batch.clear();
+            server.clientBackpressure.onDrain();
         }
     }
 }
@@ -1,22 +1,23 @@
 package com.ray.mcu.server.client;
 
 import com.ray.mcu.client.ClientData;
+import com.ray.mcu.communication.clientoperations.IClientOperation;
 import com.ray.mcu.communication.wrappers.IMessageWrapper;
+import com.ray.mcu.nettyhandlers.NettyTransport;
 import com.ray.mcu.nettyhandlers.SizedMessageDecoder;
 import com.ray.mcu.nettyhandlers.SizedMessageEncoder;
 import com.ray.mcu.server.IServer;
 import com.ray.mcu.server.Server;
+import com.ray.mcu.utils.Constants;
 import com.ray.mcu.utils.Log;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 
 import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -47,27 +48,29 @@ public class ServerClientSender extends Thread
     {
         this.server = server;
 
-        b = new Bootstrap();
-        final EventLoopGroup workerGroup = new NioEventLoopGroup();
-        b.group(workerGroup);
-        b.channel(NioSocketChannel.class);
-        b.option(ChannelOption.SO_KEEPALIVE, true);
-        b.option(ChannelOption.TCP_NODELAY, true);
+        b = NettyTransport.newBootstrap();
     }
 
     @Override
     public void run()
     {
+        final List<IClientOperation> batch = new ArrayList<>(Constants.DRAIN_BATCH_SIZE);
         while (server.isActive())
         {
             try
             {
-                server.consumeMessageFromClientOutputQueue().execute(this);
+                server.drainClientOutputQueue(batch, Constants.DRAIN_BATCH_SIZE);
             }
             catch (InterruptedException e)
             {
                 // Queue got filled.
             }
+
+            for (final IClientOperation operation : batch)
+            {
+                operation.execute(this);
+            }
+            batch.clear();
         }
 
         for (final ServerNettyClientSenderHandler handler : clients.values())
@@ -33,8 +33,9 @@ public class ServerNettyClientReceiverHandler extends SimpleChannelInboundHandle
         try
         {
             //Read input
-            final MessageProto.Message message = MessageProto.Message.parseFrom(msg.buffer);
+            final MessageProto.Message message = msg.parse(MessageProto.Message.parser());
             MessageHandlerRegistry.wrap(message, ctx, server, msg.id);
+            server.clientBackpressure.onRead(ctx.channel());
         }
         catch (final InvalidProtocolBufferException e)
         {
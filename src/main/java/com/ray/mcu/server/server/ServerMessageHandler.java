@@ -1,11 +1,15 @@
 package com.ray.mcu.server.server;
 
+import com.ray.mcu.communication.wrappers.IMessageWrapper;
 import com.ray.mcu.communication.wrappers.TextMessageWrapper;
 import com.ray.mcu.communication.wrappers.UnregisterRequestMessageWrapper;
 import com.ray.mcu.communication.serveroperations.BroadcastOperation;
 import com.ray.mcu.communication.serveroperations.UnicastOperation;
 import com.ray.mcu.server.Server;
-import com.ray.mcu.utils.Log;
+import com.ray.mcu.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Thread handling the Server Messages.
@@ -29,32 +33,40 @@ public class ServerMessageHandler extends Thread
     @Override
     public void run()
     {
+        final List<IMessageWrapper> batch = new ArrayList<>(Constants.DRAIN_BATCH_SIZE);
         int counter = 0;
         while (server.isActive())
         {
-            //todo also remove in future
-            if (++counter%400==0)
+            try
+            {
+                server.inputQueue.drainTo(batch, Constants.DRAIN_BATCH_SIZE);
+            }
+            catch (InterruptedException e)
             {
-                server.outputQueue.add(new BroadcastOperation(new TextMessageWrapper(server, "Heartbeat")));
+                e.printStackTrace();
             }
 
-            if (counter%4000==0)
+            for (final IMessageWrapper message : batch)
             {
-                if ( server.getServerData().getId() == 4)
+                //todo also remove in future
+                if (++counter%400==0)
                 {
-                    server.outputQueue.add(new UnicastOperation(new UnregisterRequestMessageWrapper(server, server.getServerData()), server.view.getCoordinator()));
+                    server.outputQueue.add(new BroadcastOperation(new TextMessageWrapper(server, "Heartbeat")));
                 }
-                counter = 1;
-            }
 
-            try
-            {
-                server.handleMessage(server.inputQueue.take());
-            }
-            catch (InterruptedException e)
-            {
-                e.printStackTrace();
+                if (counter%4000==0)
+                {
+                    if ( server.getServerData().getId() == 4)
+                    {
+                        server.outputQueue.add(new UnicastOperation(new UnregisterRequestMessageWrapper(server, server.getServerData()), server.view.getCoordinator()));
+                    }
+                    counter = 1;
+                }
+
+                server.handleMessage(message);
+                server.handleReleasedMessages();
             }
+            batch.clear();
         }
     }
 }
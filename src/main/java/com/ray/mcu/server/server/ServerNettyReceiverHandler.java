@@ -4,12 +4,12 @@ import com.ray.mcu.communication.MessageHandlerRegistry;
 import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.nettyhandlers.SizedMessage;
 import com.ray.mcu.server.Server;
+import com.ray.mcu.server.ServerData;
 import com.ray.mcu.utils.Log;
-import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
-import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Handles a server-side channel.
@@ -27,6 +27,12 @@ public class ServerNettyReceiverHandler extends SimpleChannelInboundHandler<Size
      */
     private final Server server;
 
+    /**
+     * Completes once the last message of this channel was handed to the input queue.
+     * Keeps the channel order although the signatures are verified in parallel.
+     */
+    private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+
     /**
      * Constructor to create a new NettyReceiverHandler.
      * @param server the server it belongs to.
@@ -39,42 +45,68 @@ public class ServerNettyReceiverHandler extends SimpleChannelInboundHandler<Size
     @Override
     public void channelRead0(final ChannelHandlerContext ctx, final SizedMessage msg)
     {
-        try
+        if (SessionKeys.isHandshake(msg.id))
         {
-            //Read input
-            final MessageProto.Message message = MessageProto.Message.parseFrom(msg.buffer);
-            if (message.hasSig() && server.view.getServer(msg.id) != null)
-            {
-                final byte[] m = MessageHandlerRegistry.getMsg(message);
-                final byte[] s = message.getSig().toByteArray();
-                if (!server.view.getServer(msg.id).verifyKey(m, s))
-                {
-                    Log.getLogger().error("----------------------------------------------------------");
-                    Log.getLogger().error(server.getServerData().getId() + " Received invalid signature supposedly from replica: " + msg.id);
-                    Log.getLogger().error("Discarding Message");
-                    Log.getLogger().error("----------------------------------------------------------");
-                    return;
-                }
-            }
+            acceptHandshake(SessionKeys.fromHandshakeId(msg.id), msg.getBytes());
+            return;
+        }
 
-            if (LATENCY != 0)
+        //Verify on the received bytes, the frame is kept until the message is parsed.
+        msg.retain();
+        final CompletableFuture<MessageProto.Message> verified = server.verificationStage.verify(msg);
+        verified.whenComplete((message, e) -> msg.release());
+
+        last = last.thenCombine(verified, (previous, message) ->
+        {
+            if (message != null)
             {
-                try
-                {
-                    Thread.sleep(LATENCY);
-                }
-                catch (final InterruptedException e)
-                {
-                    e.printStackTrace();
-                }
+                pass(message, ctx, msg.id);
             }
+            return previous;
+        }).exceptionally(e ->
+        {
+            Log.getLogger().error("Failed handing verified message to the server: " + e.getMessage());
+            return null;
+        });
+    }
 
-            MessageHandlerRegistry.wrap(message, ctx, server, msg.id);
+    /**
+     * Store the session key of a replica, before any later message of the channel gets verified.
+     * @param sender the replica which sent the handshake.
+     * @param handshake the handshake.
+     */
+    private void acceptHandshake(final int sender, final byte[] handshake)
+    {
+        final ServerData data = server.view.getServer(sender);
+        if (data == null || !server.sessionKeys.acceptHandshake(data, handshake))
+        {
+            Log.getLogger().error("----------------------------------------------------------");
+            Log.getLogger().error(server.getServerData().getId() + " Received invalid session key handshake supposedly from replica: " + sender);
+            Log.getLogger().error("----------------------------------------------------------");
         }
-        catch (final InvalidProtocolBufferException e)
+    }
+
+    /**
+     * Pass a verified message on to the server.
+     * @param message the message.
+     * @param ctx the channel context.
+     * @param sender the replica which sent it.
+     */
+    private void pass(final MessageProto.Message message, final ChannelHandlerContext ctx, final int sender)
+    {
+        if (LATENCY != 0)
         {
-            e.printStackTrace();
+            try
+            {
+                Thread.sleep(LATENCY);
+            }
+            catch (final InterruptedException e)
+            {
+                e.printStackTrace();
+            }
         }
+
+        MessageHandlerRegistry.wrap(message, ctx, server, sender);
     }
 
     @Override
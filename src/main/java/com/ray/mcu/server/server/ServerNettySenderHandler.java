@@ -1,14 +1,17 @@
 package com.ray.mcu.server.server;
 
-import com.ray.mcu.communication.wrappers.IMessageWrapper;
+import com.ray.mcu.nettyhandlers.SignedFrame;
 import com.ray.mcu.nettyhandlers.SizedMessage;
 import com.ray.mcu.server.IServer;
 import com.ray.mcu.server.ServerData;
+import com.ray.mcu.utils.Constants;
 import com.ray.mcu.utils.Log;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
+import java.util.ArrayDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
@@ -38,9 +41,24 @@ public class ServerNettySenderHandler extends SimpleChannelInboundHandler<SizedM
     private boolean isReconnecting = false;
 
     /**
-     * Cache which holds the messages to send in the future (due to downtime of connection)
+     * Cache which holds the frames to send in the future (due to downtime of connection)
      */
-    public final ConcurrentLinkedQueue<IMessageWrapper> outputQueue = new ConcurrentLinkedQueue<>();
+    public final ConcurrentLinkedQueue<ByteBuf> outputQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Frames held back while the channel is above its write buffer high watermark, guarded by this handler.
+     */
+    private final ArrayDeque<ByteBuf> parked = new ArrayDeque<>();
+
+    /**
+     * The size of the parked frames in bytes.
+     */
+    private long parkedBytes = 0;
+
+    /**
+     * The number of frames dropped because too many were parked.
+     */
+    private long droppedCount = 0;
 
     /**
      * Start the NettySenderHandler with a server instance.
@@ -55,6 +73,15 @@ public class ServerNettySenderHandler extends SimpleChannelInboundHandler<SizedM
     @Override
     public void channelActive(ChannelHandlerContext channelHandlerContext)
     {
+        if (SessionKeys.isEnabled())
+        {
+            // The handshake has to be the first frame on the channel.
+            final byte[] handshake = server.getSessionKeys().createHandshake(serverData);
+            if (handshake != null)
+            {
+                channelHandlerContext.writeAndFlush(new SizedMessage(handshake, SessionKeys.toHandshakeId(server.getServerData().getId())));
+            }
+        }
         ctx = channelHandlerContext;
         isReconnecting = false;
     }
@@ -65,6 +92,17 @@ public class ServerNettySenderHandler extends SimpleChannelInboundHandler<SizedM
         super.channelInactive(ctx);
         this.ctx = null;
         isReconnecting = false;
+        releaseParked();
+    }
+
+    @Override
+    public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception
+    {
+        synchronized (this)
+        {
+            writeParked(ctx);
+        }
+        super.channelWritabilityChanged(ctx);
     }
 
     @Override
@@ -90,13 +128,29 @@ public class ServerNettySenderHandler extends SimpleChannelInboundHandler<SizedM
     }
 
     /**
-     * Write a a IMessageWrapper and send it.
-     * @param msg the msg to send.
+     * Write a signed frame and send it.
+     * The frame is only retained, releasing it stays with the caller.
+     * @param msg the frame to send.
      * @return true if successful.
      */
-    public boolean write(final IMessageWrapper msg)
+    public boolean write(final SignedFrame msg)
     {
-        if (isActive())
+        return write(msg, true);
+    }
+
+    /**
+     * Write a signed frame, flushing it to the socket right away or with the next flush.
+     * The frame is only retained, releasing it stays with the caller.
+     * While the channel is above its write buffer high watermark the frame is parked instead (See {@link #park}),
+     * so a slow replica never stalls the sender and with it the traffic to the others.
+     * @param msg the frame to send.
+     * @param flush if the channel should be flushed after the write.
+     * @return true if successful.
+     */
+    public boolean write(final SignedFrame msg, final boolean flush)
+    {
+        final ChannelHandlerContext context = this.ctx;
+        if (context != null)
         {
             // If there are still pending messages.
             if (!outputQueue.isEmpty())
@@ -105,21 +159,120 @@ public class ServerNettySenderHandler extends SimpleChannelInboundHandler<SizedM
                 while (outputQueue.peek() != null)
                 {
                     Log.getLogger().warn("Sending out queued object!!!!");
-                    this.ctx.writeAndFlush(outputQueue.poll());
+                    context.write(outputQueue.poll());
                 }
             }
 
-            this.ctx.writeAndFlush(msg.writeToSizedMessage(server));
+            synchronized (this)
+            {
+                writeParked(context);
+                if (!parked.isEmpty() || !context.channel().isWritable())
+                {
+                    park(context, msg.retainedBuffer());
+                    return true;
+                }
+            }
+
+            if (flush)
+            {
+                context.writeAndFlush(msg.retainedBuffer());
+            }
+            else
+            {
+                context.write(msg.retainedBuffer());
+            }
             return true;
         }
         else
         {
             Log.getLogger().warn("Queue add");
-            outputQueue.add(msg);
+            outputQueue.add(msg.retainedBuffer());
             return false;
         }
     }
 
+    /**
+     * Park a frame until the channel is writable again, behind the frames parked before it.
+     * Drops it if the parked frames exceed Constants.WRITE_PARK_MAX_BYTES, the replica then has to recover
+     * the missed instances by commit recovery or state transfer.
+     * @param context the context of the channel.
+     * @param buffer the retained frame.
+     */
+    private void park(final ChannelHandlerContext context, final ByteBuf buffer)
+    {
+        if (parkedBytes + buffer.readableBytes() > Constants.WRITE_PARK_MAX_BYTES)
+        {
+            buffer.release();
+            if (droppedCount++ % 1_000 == 0)
+            {
+                Log.getLogger().warn("Replica " + serverData.getId() + " doesn't keep up, dropped " + droppedCount + " frames so far");
+            }
+            return;
+        }
+
+        if (parked.isEmpty())
+        {
+            // Frames written without flush count towards the watermark as well.
+            context.flush();
+        }
+        parked.add(buffer);
+        parkedBytes += buffer.readableBytes();
+    }
+
+    /**
+     * Write the parked frames as long as the channel is writable, must hold the lock of this handler.
+     * @param context the context of the channel.
+     */
+    private void writeParked(final ChannelHandlerContext context)
+    {
+        if (parked.isEmpty())
+        {
+            return;
+        }
+
+        while (!parked.isEmpty() && context.channel().isWritable())
+        {
+            final ByteBuf buffer = parked.poll();
+            parkedBytes -= buffer.readableBytes();
+            context.write(buffer);
+        }
+        context.flush();
+    }
+
+    /**
+     * Release the parked frames of a closed channel.
+     */
+    private synchronized void releaseParked()
+    {
+        for (final ByteBuf buffer : parked)
+        {
+            buffer.release();
+        }
+        parked.clear();
+        parkedBytes = 0;
+    }
+
+    /**
+     * Get the number of frames dropped because the replica didn't keep up.
+     * @return the number of frames.
+     */
+    public synchronized long getDroppedCount()
+    {
+        return droppedCount;
+    }
+
+    /**
+     * Flush the frames written without flush to the socket.
+     */
+    public void flush()
+    {
+        final ChannelHandlerContext context = this.ctx;
+        if (context != null)
+        {
+            context.flush();
+        }
+    }
+
     /**
      * Check if the connection is active.
      * @return true if so.
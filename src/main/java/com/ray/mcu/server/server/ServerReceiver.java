@@ -1,5 +1,6 @@
 package com.ray.mcu.server.server;
 
+import com.ray.mcu.nettyhandlers.NettyTransport;
 import com.ray.mcu.nettyhandlers.SizedMessageDecoder;
 import com.ray.mcu.nettyhandlers.SizedMessageEncoder;
 import com.ray.mcu.server.Server;
@@ -9,12 +10,9 @@ import io.netty.bootstrap.ServerBootstrap;
 
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
 
 /**
  * Netty class to start a receiving server.
@@ -46,15 +44,10 @@ public class ServerReceiver extends Thread
     @Override
     public void run()
     {
-        final NioEventLoopGroup acceptGroup = new NioEventLoopGroup(0, Executors.newCachedThreadPool());
-        final NioEventLoopGroup connectGroup = new NioEventLoopGroup(0, Executors.newCachedThreadPool());
-
         final ServerData serverData = server.getServerData();
         try
         {
-            final ServerBootstrap serverBootstrap = new ServerBootstrap();
-            serverBootstrap.group(acceptGroup, connectGroup);
-            serverBootstrap.channel(NioServerSocketChannel.class);
+            final ServerBootstrap serverBootstrap = NettyTransport.newServerBootstrap();
             serverBootstrap.localAddress(new InetSocketAddress(serverData.getIp(), serverData.getPort()));
 
             serverBootstrap.childHandler(new ChannelInitializer<SocketChannel>()
@@ -79,11 +72,6 @@ public class ServerReceiver extends Thread
         {
             e.printStackTrace();
         }
-        finally
-        {
-            acceptGroup.shutdownGracefully();
-            connectGroup.shutdownGracefully();
-        }
     }
 
     /**
@@ -1,6 +1,8 @@
 package com.ray.mcu.server.server;
 
 import com.ray.mcu.communication.ISender;
+import com.ray.mcu.nettyhandlers.SignedFrame;
+import com.ray.mcu.nettyhandlers.NettyTransport;
 import com.ray.mcu.nettyhandlers.SizedMessageDecoder;
 import com.ray.mcu.nettyhandlers.SizedMessageEncoder;
 import com.ray.mcu.communication.wrappers.IMessageWrapper;
@@ -9,20 +11,17 @@ import com.ray.mcu.communication.recovery.ReconnectThread;
 import com.ray.mcu.server.IServer;
 import com.ray.mcu.server.Server;
 import com.ray.mcu.server.ServerData;
+import com.ray.mcu.utils.Constants;
 import com.ray.mcu.utils.Log;
 import com.ray.mcu.views.GlobalView;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
 
 /**
  * The server sender class.
@@ -59,12 +58,7 @@ public class ServerSender extends Thread implements ISender
         this.view = view;
         this.server = server;
 
-        b = new Bootstrap();
-        final EventLoopGroup workerGroup = new NioEventLoopGroup(0, Executors.newCachedThreadPool());
-        b.group(workerGroup);
-        b.channel(NioSocketChannel.class);
-        b.option(ChannelOption.SO_KEEPALIVE, true);
-        b.option(ChannelOption.TCP_NODELAY, true);
+        b = NettyTransport.newBootstrap();
     }
 
     @Override
@@ -72,16 +66,25 @@ public class ServerSender extends Thread implements ISender
     {
         startUp();
 
+        final List<IOperation> batch = new ArrayList<>(Constants.DRAIN_BATCH_SIZE);
         while (server.isActive())
         {
             try
             {
-                handleMessage(server.consumeMessageFromOutputQueue());
+                server.drainOutputQueue(batch, Constants.DRAIN_BATCH_SIZE);
             }
             catch (final InterruptedException e)
             {
                 // Wake up from consumption.
             }
+
+            // Write the whole batch and flush every connection once at the end.
+            for (final IOperation message : batch)
+            {
+                handleMessage(message);
+            }
+            batch.clear();
+            flush();
         }
 
         for (final ServerNettySenderHandler handler : clients.values())
@@ -100,6 +103,17 @@ public class ServerSender extends Thread implements ISender
         message.executeOP(this);
     }
 
+    /**
+     * Flush the frames written to the connections since the last flush.
+     */
+    private void flush()
+    {
+        for (final ServerNettySenderHandler handler : clients.values())
+        {
+            handler.flush();
+        }
+    }
+
     @Override
     public void startUp()
     {
@@ -212,11 +226,23 @@ public class ServerSender extends Thread implements ISender
 
     @Override
     public void unicast(final IMessageWrapper message, final int id)
+    {
+        final SignedFrame frame = message.writeToSignedFrame(server);
+        send(frame, id);
+        frame.release();
+    }
+
+    /**
+     * Send an already signed frame to a server.
+     * @param frame the frame to send.
+     * @param id the id of the server.
+     */
+    private void send(final SignedFrame frame, final int id)
     {
         if (clients.containsKey(id))
         {
             final ServerNettySenderHandler conn = clients.get(id);
-            if (!conn.write(message))
+            if (!conn.write(frame, false))
             {
                 Log.getLogger().warn("Unable to write");
                 if (!conn.isReconnecting())
@@ -230,18 +256,22 @@ public class ServerSender extends Thread implements ISender
     @Override
     public void multicast(final IMessageWrapper message, final List<Integer> list)
     {
+        final SignedFrame frame = message.writeToSignedFrame(server);
         for (final int id : list)
         {
-            unicast(message, id);
+            send(frame, id);
         }
+        frame.release();
     }
 
     @Override
     public void broadcast(final IMessageWrapper message)
     {
+        final SignedFrame frame = message.writeToSignedFrame(server);
         for (final ServerNettySenderHandler handler : clients.values())
         {
-            unicast(message, handler.getServerData().getId());
+            send(frame, handler.getServerData().getId());
         }
+        frame.release();
     }
 }
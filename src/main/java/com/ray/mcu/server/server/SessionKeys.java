@@ -0,0 +1,332 @@
+package com.ray.mcu.server.server;
+
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.IServer;
+import com.ray.mcu.server.ServerData;
+import com.ray.mcu.utils.Constants;
+import com.ray.mcu.utils.KeyUtilities;
+import com.ray.mcu.utils.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pairwise session keys for the MAC authenticator mode (See Constants.AUTHENTICATOR_MODE).
+ * Every replica picks one key per peer for the messages it sends there and transports it in a handshake frame
+ * when the connection comes up, encrypted with the public key of the peer and signed with its own.
+ * Messages which are not transferable then carry a vector of HMACs (one per peer) instead of a signature.
+ * Until a key was created for every peer they are still signed, receivers accept either.
+ */
+public class SessionKeys
+{
+    /**
+     * The MAC algorithm of the authenticators.
+     */
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * The length of one MAC.
+     */
+    private static final int MAC_LENGTH = 32;
+
+    /**
+     * Length of one entry of the authenticator (peer id and MAC).
+     */
+    private static final int ENTRY_LENGTH = 4 + MAC_LENGTH;
+
+    /**
+     * Messages whose signature is checked by third parties (embedded in commits, recovery or unregisters).
+     * These always keep their signature.
+     */
+    private static final Set<MessageProto.Message.MessagesCase> TRANSFERABLE = EnumSet.of(
+      MessageProto.Message.MessagesCase.PREPREPARE,
+      MessageProto.Message.MessagesCase.PREPARE,
+      MessageProto.Message.MessagesCase.REQUNREGMSG,
+      MessageProto.Message.MessagesCase.UNREGMSG,
+      MessageProto.Message.MessagesCase.CLIENTMSG,
+      MessageProto.Message.MessagesCase.PERSCLIENTMSG,
+      MessageProto.Message.MessagesCase.RESPONSE);
+
+    /**
+     * The Mac instance of each thread.
+     */
+    private static final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() ->
+    {
+        try
+        {
+            return Mac.getInstance(MAC_ALGORITHM);
+        }
+        catch (final NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(MAC_ALGORITHM + " not supported by this JDK", e);
+        }
+    });
+
+    /**
+     * The server the keys belong to.
+     */
+    private final IServer server;
+
+    /**
+     * Keys of the messages this server sends, by peer id.
+     */
+    private final Map<Integer, SecretKey> outbound = new ConcurrentHashMap<>();
+
+    /**
+     * Keys of the messages this server receives, by peer id.
+     */
+    private final Map<Integer, SecretKey> inbound = new ConcurrentHashMap<>();
+
+    /**
+     * Create the session keys of a server.
+     * @param server the server.
+     */
+    public SessionKeys(final IServer server)
+    {
+        this.server = server;
+    }
+
+    /**
+     * Check if the authenticator mode is on.
+     * @return true if so.
+     */
+    public static boolean isEnabled()
+    {
+        return Constants.AUTHENTICATOR_MODE;
+    }
+
+    /**
+     * Check if messages of a type need a signature even in authenticator mode.
+     * @param type the type of message.
+     * @return true if they do.
+     */
+    public static boolean isTransferable(final MessageProto.Message.MessagesCase type)
+    {
+        return TRANSFERABLE.contains(type);
+    }
+
+    /**
+     * Convert the sender id into the id of a handshake frame.
+     * @param id the id of the sender.
+     * @return the negative frame id.
+     */
+    public static int toHandshakeId(final int id)
+    {
+        return -id - 1;
+    }
+
+    /**
+     * Check if a frame is a handshake frame.
+     * @param frameId the id of the frame.
+     * @return true if so.
+     */
+    public static boolean isHandshake(final int frameId)
+    {
+        return frameId < 0;
+    }
+
+    /**
+     * Get the sender of a handshake frame.
+     * @param frameId the id of the frame.
+     * @return the id of the sender.
+     */
+    public static int fromHandshakeId(final int frameId)
+    {
+        return -frameId - 1;
+    }
+
+    /**
+     * Create the handshake transporting the key for a peer, creates the key if not existing yet.
+     * Format: int length of the encrypted key, the encrypted key, the signature over the encrypted key.
+     * @param peer the peer the handshake is for.
+     * @return the handshake or null if the key can't be encrypted for the peer.
+     */
+    @Nullable
+    public byte[] createHandshake(@NotNull final ServerData peer)
+    {
+        final SecretKey key = outbound.computeIfAbsent(peer.getId(), id -> newKey());
+        final byte[] encrypted = peer.getPublicKey() == null ? null : KeyUtilities.encryptMessage(key.getEncoded(), peer.getPublicKey());
+        if (encrypted == null)
+        {
+            Log.getLogger().error("Unable to encrypt session key for replica " + peer.getId() + ", authenticators require RSA keys!");
+            return null;
+        }
+
+        final byte[] signature = server.signMessage(encrypted);
+        return ByteBuffer.allocate(4 + encrypted.length + signature.length).putInt(encrypted.length).put(encrypted).put(signature).array();
+    }
+
+    /**
+     * Accept the handshake of a peer and store its key.
+     * @param peer the peer which sent it.
+     * @param handshake the received handshake.
+     * @return true if it was valid.
+     */
+    public boolean acceptHandshake(@NotNull final ServerData peer, @NotNull final byte[] handshake)
+    {
+        final ByteBuffer buffer = ByteBuffer.wrap(handshake);
+        final int length = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining())
+        {
+            return false;
+        }
+
+        final byte[] encrypted = new byte[length];
+        buffer.get(encrypted);
+        final byte[] signature = new byte[buffer.remaining()];
+        buffer.get(signature);
+
+        if (!peer.verifyKey(encrypted, signature))
+        {
+            return false;
+        }
+
+        final byte[] key = server.decryptMessage(encrypted);
+        if (key == null)
+        {
+            return false;
+        }
+
+        inbound.put(peer.getId(), new SecretKeySpec(key, MAC_ALGORITHM));
+        return true;
+    }
+
+    /**
+     * Check if a key was created for a number of peers, only then authenticators replace the signatures.
+     * @param peers the number of peers messages are sent to.
+     * @return true if so.
+     */
+    public boolean isEstablished(final int peers)
+    {
+        return outbound.size() >= peers;
+    }
+
+    /**
+     * Check a message received from a peer by its authenticator or,
+     * if the peer signed it because the session keys weren't established yet, by its signature.
+     * @param sender the peer which sent it.
+     * @param message the buffer holding the message, consumed by the verification.
+     * @param authenticator the received authenticator or signature.
+     * @return true if either is valid.
+     */
+    public boolean isAuthentic(@NotNull final ServerData sender, @NotNull final ByteBuffer message, @NotNull final byte[] authenticator)
+    {
+        return verify(sender.getId(), message.duplicate(), authenticator) || sender.verifyKey(message, authenticator);
+    }
+
+    /**
+     * Create the authenticator of a message, one MAC for each peer a key was created for.
+     * Format: repeated (int peer id, MAC).
+     * @param message the message to authenticate.
+     * @return the authenticator.
+     */
+    @NotNull
+    public byte[] authenticate(@NotNull final byte[] message)
+    {
+        final Mac mac = macs.get();
+        final ByteBuffer buffer = ByteBuffer.allocate(outbound.size() * ENTRY_LENGTH);
+        for (final Map.Entry<Integer, SecretKey> entry : outbound.entrySet())
+        {
+            if (buffer.remaining() < ENTRY_LENGTH)
+            {
+                // Key of a new peer added in the meantime, it gets its MAC from the next message on.
+                break;
+            }
+            buffer.putInt(entry.getKey()).put(mac(mac, entry.getValue(), ByteBuffer.wrap(message)));
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Verify the authenticator of a message received from a peer.
+     * @param sender the peer which sent it.
+     * @param message the message.
+     * @param authenticator the received authenticator.
+     * @return true if it holds a valid MAC for this server.
+     */
+    public boolean verify(final int sender, @NotNull final byte[] message, @NotNull final byte[] authenticator)
+    {
+        return verify(sender, ByteBuffer.wrap(message), authenticator);
+    }
+
+    /**
+     * Verify the authenticator of a message received from a peer, without copying it out of its buffer.
+     * @param sender the peer which sent it.
+     * @param message the buffer holding the message, consumed by the verification.
+     * @param authenticator the received authenticator.
+     * @return true if it holds a valid MAC for this server.
+     */
+    public boolean verify(final int sender, @NotNull final ByteBuffer message, @NotNull final byte[] authenticator)
+    {
+        final SecretKey key = inbound.get(sender);
+        if (key == null)
+        {
+            return false;
+        }
+
+        final int ownId = server.getServerData().getId();
+        final ByteBuffer buffer = ByteBuffer.wrap(authenticator);
+        while (buffer.remaining() >= ENTRY_LENGTH)
+        {
+            final int id = buffer.getInt();
+            if (id == ownId)
+            {
+                final byte[] received = new byte[MAC_LENGTH];
+                buffer.get(received);
+                return MessageDigest.isEqual(received, mac(macs.get(), key, message));
+            }
+            buffer.position(buffer.position() + MAC_LENGTH);
+        }
+        return false;
+    }
+
+    /**
+     * Calculate the MAC of a message.
+     * @param mac the mac instance to use.
+     * @param key the key.
+     * @param message the buffer holding the message, consumed by the calculation.
+     * @return the MAC.
+     */
+    private static byte[] mac(final Mac mac, final SecretKey key, final ByteBuffer message)
+    {
+        try
+        {
+            mac.init(key);
+            mac.update(message);
+            return mac.doFinal();
+        }
+        catch (final InvalidKeyException e)
+        {
+            throw new IllegalStateException("Invalid session key", e);
+        }
+    }
+
+    /**
+     * Generate a new random session key.
+     * @return the key.
+     */
+    private static SecretKey newKey()
+    {
+        try
+        {
+            return KeyGenerator.getInstance(MAC_ALGORITHM).generateKey();
+        }
+        catch (final NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(MAC_ALGORITHM + " not supported by this JDK", e);
+        }
+    }
+}
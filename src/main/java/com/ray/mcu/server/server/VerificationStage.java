@@ -0,0 +1,131 @@
+package com.ray.mcu.server.server;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.ray.mcu.communication.SignedEnvelope;
+import com.ray.mcu.nettyhandlers.SizedMessage;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.Server;
+import com.ray.mcu.server.ServerData;
+import com.ray.mcu.utils.Log;
+import com.ray.mcu.utils.ValidationUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Verification stage between the netty receivers and the input queue.
+ * Verifies replica signatures and the client signatures of preprepare batches on a worker pool
+ * so that the event loops and the handling thread don't spend their time in signature checks.
+ */
+public class VerificationStage
+{
+    /**
+     * The server the stage verifies messages for.
+     */
+    private final Server server;
+
+    /**
+     * The worker pool running the verifications.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Create the verification stage.
+     * @param server the server it belongs to.
+     * @param threads the number of verification workers.
+     */
+    public VerificationStage(final Server server, final int threads)
+    {
+        this.server = server;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Verify an incoming replica message asynchronously.
+     * The signature is checked over the received bytes of the inner message, which is only parsed if it holds.
+     * @param frame the received frame, retained by the caller until the future completes.
+     * @return a future completing with the parsed message or null if it is invalid.
+     */
+    public CompletableFuture<MessageProto.Message> verify(final SizedMessage frame)
+    {
+        return CompletableFuture.supplyAsync(() -> parseIfValid(frame), pool);
+    }
+
+    /**
+     * Verify all client signatures of a preprepare batch in parallel and wait for the result.
+     * @param prePrepare the preprepare to check.
+     * @return true if all are valid.
+     */
+    public boolean verifyClientSignatures(final MessageProto.PrePrepare prePrepare)
+    {
+        return pool.submit(() -> areClientSignaturesValid(prePrepare)).join();
+    }
+
+    /**
+     * Check the replica signature on the received bytes, then parse the message
+     * and, for preprepares, check the client signatures of the batch.
+     * Runs on a worker of the pool.
+     * @param frame the received frame.
+     * @return the message or null if invalid.
+     */
+    @Nullable
+    private MessageProto.Message parseIfValid(final SizedMessage frame)
+    {
+        final int sender = frame.id;
+        final MessageProto.Message message;
+        try
+        {
+            final SignedEnvelope envelope = SignedEnvelope.read(frame.content().nioBuffer());
+            final ServerData data = server.view.getServer(sender);
+            if (envelope.getSig() != null && data != null && !isAuthentic(envelope, data))
+            {
+                Log.getLogger().error("----------------------------------------------------------");
+                Log.getLogger().error(server.getServerData().getId() + " Received invalid signature supposedly from replica: " + sender);
+                Log.getLogger().error("Discarding Message");
+                Log.getLogger().error("----------------------------------------------------------");
+                return null;
+            }
+            message = frame.parse(MessageProto.Message.parser());
+        }
+        catch (final InvalidProtocolBufferException e)
+        {
+            Log.getLogger().error("Received malformed message from replica: " + sender, e);
+            return null;
+        }
+
+        if (message.hasPrePrepare() && !areClientSignaturesValid(message.getPrePrepare()))
+        {
+            Log.getLogger().warn("----------------------------------------------------------------\n"
+                                   + server.getServerData().getId() + " Received preprepare with invalidly signed client transaction from replica: " + sender
+                                   + "\n----------------------------------------------------------------");
+            return null;
+        }
+        return message;
+    }
+
+    /**
+     * Check the signature or, in authenticator mode, the MAC of a replica message.
+     * @param envelope the signed parts of the message.
+     * @param data the replica which sent it.
+     * @return true if valid.
+     */
+    private boolean isAuthentic(final SignedEnvelope envelope, final ServerData data)
+    {
+        if (SessionKeys.isEnabled() && !SessionKeys.isTransferable(envelope.getType()))
+        {
+            return server.sessionKeys.isAuthentic(data, envelope.getPayload(), envelope.getSig());
+        }
+        return data.verifyKey(envelope.getPayload(), envelope.getSig());
+    }
+
+    /**
+     * Check all client signatures of a batch, forks into the pool when called from one of its workers.
+     * @param prePrepare the preprepare to check.
+     * @return true if all are valid.
+     */
+    private static boolean areClientSignaturesValid(final MessageProto.PrePrepare prePrepare)
+    {
+        return prePrepare.getInputList().parallelStream().allMatch(ValidationUtils::isClientSignatureValid);
+    }
+}
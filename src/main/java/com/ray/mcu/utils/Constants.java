@@ -15,6 +15,235 @@ public final class Constants
      */
     public static String CONFIG_LOCATION = "config/";
 
+    /**
+     * The signature scheme of replicas and clients (RSA, ECDSA or Ed25519), set at launch by -Dsignature.scheme=NAME.
+     * The keys in the config location have to be regenerated after changing it.
+     */
+    public static String SIGNATURE_SCHEME = System.getProperty("signature.scheme", "RSA");
+
+    /**
+     * Authenticate replica to replica messages with pairwise HMACs instead of signatures.
+     * Messages whose signatures are forwarded to other replicas (preprepares, prepares, ...) stay signed.
+     * The session keys are transported encrypted with the public keys, so this requires the RSA scheme.
+     */
+    public static boolean AUTHENTICATOR_MODE = false;
+
+    /**
+     * The maximum number of decoded client public keys to keep in memory.
+     */
+    public static int PUBLIC_KEY_CACHE_SIZE = 100_000;
+
+    /**
+     * The maximum number of client requests remembered as verified.
+     */
+    public static int VERIFIED_SIGNATURE_CACHE_SIZE = 1_000_000;
+
+    /**
+     * Use the native epoll transport if available (Linux), NIO otherwise.
+     */
+    public static boolean USE_EPOLL = true;
+
+    /**
+     * The number of io threads shared by all netty endpoints of the process (0 for twice the number of cores).
+     */
+    public static int IO_THREADS = 0;
+
+    /**
+     * The socket send and receive buffer size in bytes (0 for the OS default).
+     */
+    public static int SOCKET_BUFFER_SIZE = 0;
+
+    /**
+     * Set TCP_QUICKACK on the sockets (epoll only).
+     */
+    public static boolean TCP_QUICKACK = false;
+
+    /**
+     * The busy poll timeout of the sockets in microseconds (epoll only, 0 to disable).
+     */
+    public static int BUSY_POLL_MICROS = 0;
+
+    /**
+     * The number of consensus instances the coordinator may have in flight at the same time (high - low watermark).
+     */
+    public static int PIPELINE_WINDOW = 4;
+
+    /**
+     * The number of pending client messages at which the coordinator proposes a batch right away
+     * (the initial value in adaptive mode).
+     */
+    public static int BATCH_SIZE = 200;
+
+    /**
+     * The smallest batch size adaptive batching shrinks to.
+     */
+    public static int BATCH_MIN_SIZE = 16;
+
+    /**
+     * The maximum number of client messages in one proposal.
+     */
+    public static int BATCH_MAX_SIZE = 5_000;
+
+    /**
+     * The maximum size of the client messages in one proposal in bytes.
+     */
+    public static long BATCH_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * The maximum time in microseconds a client message waits for its batch to fill before it is proposed anyway.
+     */
+    public static long BATCH_LINGER_MICROS = 2_000;
+
+    /**
+     * Grow batches while the pipeline window is full and shrink them when the commit latency exceeds the target.
+     */
+    public static boolean BATCH_ADAPTIVE = true;
+
+    /**
+     * The commit latency in milliseconds above which adaptive batches shrink.
+     */
+    public static long BATCH_TARGET_LATENCY_MILLIS = 50;
+
+    /**
+     * The maximum size of the client requests waiting to be proposed in bytes.
+     * When full the newest requests of the client with the most pending requests are dropped.
+     */
+    public static long MEMPOOL_MAX_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * The number of requests taken from one client per round when filling a batch.
+     */
+    public static int MEMPOOL_CLIENT_QUANTUM = 1;
+
+    /**
+     * The number of proposed (or forwarded) client requests remembered to drop retransmissions.
+     */
+    public static int MEMPOOL_DEDUPE_CACHE_SIZE = 1_000_000;
+
+    /**
+     * The relative location the commit logs of the servers are written to.
+     */
+    public static String COMMIT_LOG_LOCATION = "data/";
+
+    /**
+     * The size in bytes after which the commit log starts a new segment.
+     */
+    public static long COMMIT_LOG_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * The number of committed batches after which the commit log is synced to disk.
+     */
+    public static int COMMIT_LOG_SYNC_BATCHES = 32;
+
+    /**
+     * The maximum time in microseconds a committed batch waits for the commit log sync while more batches keep arriving.
+     */
+    public static long COMMIT_LOG_SYNC_MICROS = 2_000;
+
+    /**
+     * Every how many records the commit log reader indexes the position of a record.
+     */
+    public static int COMMIT_LOG_INDEX_INTERVAL = 64;
+
+    /**
+     * The maximum size in bytes of the committed batches sent in one commit recovery response.
+     */
+    public static long RECOVER_COMMIT_MAX_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Every how many executed instances the replicas exchange the digest of their state.
+     * Consensus state and commit log segments before the stable checkpoint are discarded.
+     */
+    public static int CHECKPOINT_INTERVAL = 128;
+
+    /**
+     * The number of children of an inner node of the Merkle tree over the account state.
+     */
+    public static int STATE_TREE_FANOUT = 16;
+
+    /**
+     * The number of levels below the root of the Merkle tree over the account state.
+     * The accounts are partitioned into fanout^depth buckets, the unit of state transfer.
+     */
+    public static int STATE_TREE_DEPTH = 3;
+
+    /**
+     * The size in bytes of the chunks a state snapshot is transferred in.
+     */
+    public static int STATE_TRANSFER_CHUNK_BYTES = 1024 * 1024;
+
+    /**
+     * The maximum number of consensus messages held back because they arrived before the state they need.
+     */
+    public static int DEFERRED_MESSAGE_LIMIT = 10_000;
+
+    /**
+     * The number of worker threads verifying replica and client signatures.
+     */
+    public static int VERIFICATION_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of threads applying the committed batches to the account state.
+     */
+    public static int EXECUTION_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of client messages below which committed batches are applied on the commit validator alone.
+     */
+    public static int EXECUTION_PARALLEL_THRESHOLD = 512;
+
+    /**
+     * The number of validated batches the commit validator remembers to check the speculations made on their arrival.
+     * Speculations depending on older batches are validated again.
+     */
+    public static int SPECULATION_HISTORY = 4 * PIPELINE_WINDOW + 64;
+
+    /**
+     * The number of slots of the ring buffers between the stages of the server (rounded up to a power of two).
+     */
+    public static int RING_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * How the stages wait on their ring buffers (BLOCKING, YIELDING or BUSY_SPIN).
+     * The spinning strategies need a free core per stage.
+     */
+    public static String WAIT_STRATEGY = "BLOCKING";
+
+    /**
+     * The maximum number of entries a stage takes from its ring buffer at once.
+     */
+    public static int DRAIN_BATCH_SIZE = 256;
+
+    /**
+     * The number of waiting client requests above which the servers stop reading from client channels.
+     */
+    public static int CLIENT_HIGH_WATERMARK = 10_000;
+
+    /**
+     * The number of waiting client requests at which the servers read from client channels again.
+     */
+    public static int CLIENT_LOW_WATERMARK = 5_000;
+
+    /**
+     * The number of pending outbound bytes above which a channel turns unwritable.
+     */
+    public static int WRITE_BUFFER_HIGH_WATERMARK = 2 * 1024 * 1024;
+
+    /**
+     * The number of pending outbound bytes at which an unwritable channel turns writable again.
+     */
+    public static int WRITE_BUFFER_LOW_WATERMARK = 512 * 1024;
+
+    /**
+     * The maximum size in bytes of the frames parked for a replica whose channel is unwritable, further frames are dropped.
+     */
+    public static long WRITE_PARK_MAX_BYTES = 32 * 1024 * 1024;
+
+    /**
+     * The maximum time in milliseconds a client waits for an unwritable channel before dropping the request.
+     */
+    public static long WRITE_STALL_MILLIS = 1000;
+
     /**
      * Private constructor to hide public one.
      */
@@ -1,23 +1,28 @@
 package com.ray.mcu.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
 import com.ray.mcu.server.ServerData;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import sun.security.rsa.RSAKeyPairGenerator;
+import com.ray.mcu.utils.signatures.ECDSASignatureScheme;
+import com.ray.mcu.utils.signatures.Ed25519SignatureScheme;
+import com.ray.mcu.utils.signatures.ISignatureScheme;
+import com.ray.mcu.utils.signatures.RSASignatureScheme;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.*;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Utility class for key generation.
@@ -25,19 +30,84 @@ import java.util.List;
 public final class KeyUtilities
 {
     /**
-     * Key generator object to generate the keys.
+     * The signature scheme configured in the constants.
      */
-    private static final RSAKeyPairGenerator gen = new RSAKeyPairGenerator();
+    private static final ISignatureScheme scheme = createScheme(Constants.SIGNATURE_SCHEME);
 
-    /*
-     * Initiate the key generator with a specific random seed.
-     * To guarantee that we generate the same keys on all servers.
+    /**
+     * Cache of decoded client public keys, keyed by the encoded key as received (ByteStrings are immutable and hash once).
+     */
+    private static final Cache<ByteString, PublicKey> publicKeys = Caffeine.newBuilder().maximumSize(Constants.PUBLIC_KEY_CACHE_SIZE).build();
+
+    /**
+     * Create the signature scheme matching a name.
+     * @param name the name of the scheme (RSA, ECDSA or Ed25519).
+     * @return the scheme, RSA if unknown.
+     */
+    @NotNull
+    public static ISignatureScheme createScheme(@NotNull final String name)
+    {
+        switch (name.toUpperCase(Locale.US))
+        {
+            case "ECDSA":
+                return new ECDSASignatureScheme();
+            case "ED25519":
+                return new Ed25519SignatureScheme();
+            case "RSA":
+                return new RSASignatureScheme();
+            default:
+                Log.getLogger().warn("Unknown signature scheme: " + name + ", falling back to RSA");
+                return new RSASignatureScheme();
+        }
+    }
+
+    /**
+     * Get the signature scheme used by replicas and clients.
+     * @return the configured scheme.
+     */
+    @NotNull
+    public static ISignatureScheme getSignatureScheme()
+    {
+        return scheme;
+    }
+
+    /**
+     * Generate a new key pair of the configured scheme.
+     * @return the key pair.
      */
-    static
+    @NotNull
+    public static KeyPair generateKeyPair()
     {
-        final SecureRandom random = new SecureRandom();
-        random.setSeed(1337);
-        gen.initialize(1024, random);
+        return scheme.generateKeyPair();
+    }
+
+    /**
+     * Decode a X509 encoded public key, like the ones clients send along with their messages.
+     * Decoded keys are cached, so only the first message of a client pays for the decoding.
+     * @param encoded the encoded key.
+     * @return the public key.
+     * @throws InvalidKeyException if it is no valid key of the configured scheme.
+     */
+    @NotNull
+    public static PublicKey decodePublicKey(@NotNull final ByteString encoded) throws InvalidKeyException
+    {
+        final PublicKey key = publicKeys.get(encoded, bytes ->
+        {
+            try
+            {
+                return scheme.decodePublicKey(bytes.toByteArray());
+            }
+            catch (final InvalidKeyException e)
+            {
+                return null;
+            }
+        });
+
+        if (key == null)
+        {
+            throw new InvalidKeyException("Invalid encoded public key");
+        }
+        return key;
     }
 
     /**
@@ -73,7 +143,7 @@ public final class KeyUtilities
         {
             try
             {
-                final KeyPair keyPair = gen.generateKeyPair();
+                final KeyPair keyPair = scheme.generateKeyPair();
 
                 Files.write(privatePath, keyPair.getPrivate().getEncoded());
                 Files.write(publicPath, keyPair.getPublic().getEncoded());
@@ -99,12 +169,9 @@ public final class KeyUtilities
         try
         {
             final byte[] pub = Files.readAllBytes(Paths.get(location + data.getId() + ".pub"));
-
-            final X509EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(pub);
-            final KeyFactory publicKeyFactory = KeyFactory.getInstance("RSA");
-            return publicKeyFactory.generatePublic(publicKeySpec);
+            return scheme.decodePublicKey(pub);
         }
-        catch (final NoSuchAlgorithmException | IOException | InvalidKeySpecException e)
+        catch (final IOException | InvalidKeyException e)
         {
             Log.getLogger().error("Error during key loading process!", e);
         }
@@ -123,12 +190,9 @@ public final class KeyUtilities
         try
         {
             final byte[] priv = Files.readAllBytes(Paths.get(location + data.getId()));
-
-            final PKCS8EncodedKeySpec ks = new PKCS8EncodedKeySpec(priv);
-            final KeyFactory privateKeyFactory = KeyFactory.getInstance("RSA");
-            return privateKeyFactory.generatePrivate(ks);
+            return scheme.decodePrivateKey(priv);
         }
-        catch (final NoSuchAlgorithmException | IOException | InvalidKeySpecException e)
+        catch (final IOException | InvalidKeyException e)
         {
             Log.getLogger().error("Error during key loading process!", e);
         }
@@ -145,18 +209,20 @@ public final class KeyUtilities
      */
     public static boolean verifyKey(@NotNull final byte[] message, @NotNull final byte[] signature, @NotNull final PublicKey publicKey)
     {
-        try
-        {
-            final Signature sig = Signature.getInstance("SHA1withRSA");
-            sig.initVerify(publicKey);
-            sig.update(message);
-            return sig.verify(signature);
-        }
-        catch (final NoSuchAlgorithmException | SignatureException | InvalidKeyException e)
-        {
-            Log.getLogger().error("Issues in the key verification process!", e);
-        }
-        return false;
+        return scheme.verify(message, signature, publicKey);
+    }
+
+    /**
+     * Verify the signature over the bytes of a buffer, without copying them.
+     *
+     * @param message   the buffer holding the signed bytes, consumed by the verification.
+     * @param signature the signature.
+     * @param publicKey the public key.
+     * @return true if valid.
+     */
+    public static boolean verifyKey(@NotNull final ByteBuffer message, @NotNull final byte[] signature, @NotNull final PublicKey publicKey)
+    {
+        return scheme.verify(message, signature, publicKey);
     }
 
     /**
@@ -168,22 +234,12 @@ public final class KeyUtilities
     @Nullable
     public static byte[] signMessage(@NotNull final byte[] message, @NotNull final PrivateKey privateKey)
     {
-        try
-        {
-            final Signature sig = Signature.getInstance("SHA1withRSA");
-            sig.initSign(privateKey);
-            sig.update(message);
-            return sig.sign();
-        }
-        catch (final NoSuchAlgorithmException | SignatureException | InvalidKeyException e)
-        {
-            Log.getLogger().error("Issues in the key verification process!", e);
-        }
-        return null;
+        return scheme.sign(message, privateKey);
     }
 
     /**
      * Encrypt a handlers with a public key.
+     * Only supported by RSA keys.
      *
      * @param message   the handlers.
 =     * @param publicKey the public key.
@@ -1,8 +1,12 @@
 package com.ray.mcu.utils;
 
+import com.google.protobuf.ByteString;
 import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.AccountState;
+import com.ray.pbft.communication.wrappers.PrePrepareWrapper;
 import com.ray.pbft.server.PbftServer;
-import sun.security.rsa.RSAPublicKeyImpl;
+import com.ray.pbft.utils.BatchEffects;
+import com.ray.pbft.utils.DeltaOverlay;
 
 import java.security.InvalidKeyException;
 import java.security.PublicKey;
@@ -14,45 +18,77 @@ import java.util.List;
 public final class ValidationUtils
 {
     /**
-     * Check if the received message log is valid for the current state.
-     * @param message the message to check.
-     * @param server the server to check it for.
+     * Check if the received message log is valid for the state before it.
+     * The client signatures have to be verified already (See VerificationStage).
+     * @param effects the changes of the batch.
+     * @param balances the applied balances of its accounts.
+     * @param pending the changes of the batches before it which aren't applied yet.
      * @return true if valid.
      */
-    public static boolean isMessageLogValid(final MessageProto.PrePrepare message, final PbftServer server)
+    public static boolean isMessageLogValid(final BatchEffects effects, final long[] balances, final DeltaOverlay pending)
     {
-        for (final MessageProto.PersistClientMessage data : message.getInputList())
+        if (!areBalancesSufficient(effects, balances, pending))
         {
-            final MessageProto.ClientMessage msg = data.getMsg();
+            Log.getLogger().warn("----------------------------------------------------------------\n"
+                                   + "Transactions tried to debit invalid quantity!"
+                                   + "\n----------------------------------------------------------------");
+            return false;
+        }
+        return true;
+    }
 
-            try
+    /**
+     * Check that no client message of a batch debits more than the balance of its account before the batch.
+     * @param effects the changes of the batch.
+     * @param balances the applied balances of its accounts.
+     * @param pending the changes of the batches before it which aren't applied yet.
+     * @return true if so.
+     */
+    public static boolean areBalancesSufficient(final BatchEffects effects, final long[] balances, final DeltaOverlay pending)
+    {
+        final long[] fingerprints = effects.getFingerprints();
+        final long[] deltas = effects.getDeltas();
+        for (int i = 0; i < deltas.length; i++)
+        {
+            if (balances[i] + pending.get(fingerprints[i * AccountState.FINGERPRINT_LONGS], fingerprints[i * AccountState.FINGERPRINT_LONGS + 1]) + deltas[i] < 0)
             {
-                final PublicKey key = new RSAPublicKeyImpl(msg.getPkey().toByteArray());
-                if (!KeyUtilities.verifyKey(msg.toByteArray(), data.getSig().toByteArray(), key))
-                {
-                    Log.getLogger().warn("Invalid signature from client!");
-                    return false;
-                }
+                return false;
+            }
+        }
+        return true;
+    }
 
-                int tempState = server.state.getOrDefault(key, 0);
+    /**
+     * Check the signature of a single client transaction.
+     * Requests verified before on this replica are skipped (See VerifiedSignatureCache).
+     * @param data the persisted client message.
+     * @return true if valid.
+     */
+    public static boolean isClientSignatureValid(final MessageProto.PersistClientMessage data)
+    {
+        final ByteString digest = VerifiedSignatureCache.digest(data);
+        if (VerifiedSignatureCache.isVerified(digest))
+        {
+            return true;
+        }
 
-                if (tempState + msg.getDif() < 0)
-                {
-                    Log.getLogger().warn("----------------------------------------------------------------\n"
-                                           + "Transactions tried to debit invalid quantity!"
-                                           + "\n----------------------------------------------------------------");
-                    return false;
-                }
-            }
-            catch (InvalidKeyException e)
+        final MessageProto.ClientMessage msg = data.getMsg();
+        try
+        {
+            final PublicKey key = KeyUtilities.decodePublicKey(msg.getPkey());
+            if (!KeyUtilities.verifyKey(msg.toByteArray(), data.getSig().toByteArray(), key))
             {
-                Log.getLogger().warn("----------------------------------------------------------------\n"
-                                       + "Transactions included invalidly signed client transaction!"
-                                       + "\n----------------------------------------------------------------");
+                Log.getLogger().warn("Invalid signature from client!");
                 return false;
             }
+            VerifiedSignatureCache.markVerified(digest);
+            return true;
+        }
+        catch (final InvalidKeyException e)
+        {
+            Log.getLogger().warn("Invalid key from client!");
+            return false;
         }
-        return true;
     }
 
     /**
@@ -60,14 +96,15 @@ public final class ValidationUtils
      *
      * @param list   the signatures to verify.
      * @param server the server verifying this.
+     * @param prePrepare the preprepare the commit belongs to.
      * @return true if sufficient valid.
      */
-    public static boolean verifyCommit(final List<MessageProto.Signature> list, final PbftServer server)
+    public static boolean verifyCommit(final List<MessageProto.Signature> list, final PbftServer server, final PrePrepareWrapper prePrepare)
     {
         final int threshold = (server.view.getServers().size() / (3 * 2)) + 1;
         final byte[] msg = MessageProto.Prepare.newBuilder()
-                             .setView(server.currentPrePrepare.getSecond().getMessage().getPrePrepare().getView())
-                             .setInputHash(server.currentPrePrepare.getSecond().message.getSig())
+                             .setView(prePrepare.getMessage().getPrePrepare().getView())
+                             .setInputHash(prePrepare.getMessage().getSig())
                              .build()
                              .toByteArray();
 
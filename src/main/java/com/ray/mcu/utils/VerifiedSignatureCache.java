@@ -0,0 +1,132 @@
+package com.ray.mcu.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import org.jetbrains.annotations.NotNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers client requests whose signature was verified on this replica already.
+ * Keyed by the digest of request and signature, so a request is verified once no matter
+ * if it arrives directly, in a preprepare batch or again during recovery.
+ */
+public final class VerifiedSignatureCache
+{
+    /**
+     * The digests of all verified requests.
+     */
+    private static final Cache<ByteString, Boolean> verified = Caffeine.newBuilder().maximumSize(Constants.VERIFIED_SIGNATURE_CACHE_SIZE).build();
+
+    /**
+     * The digest instance of each thread.
+     */
+    private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() ->
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 not supported by this JDK", e);
+        }
+    });
+
+    /**
+     * Number of lookups which found a verified request.
+     */
+    private static final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of lookups which required a verification.
+     */
+    private static final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Private constructor to hide implicit one.
+     */
+    private VerifiedSignatureCache()
+    {
+        /*
+         * Intentionally left empty.
+         */
+    }
+
+    /**
+     * Calculate the digest identifying a signed client request.
+     * The request is prefixed by its length, so no other split of the same bytes into request and signature matches.
+     * @param data the signed request.
+     * @return the digest.
+     */
+    @NotNull
+    public static ByteString digest(@NotNull final MessageProto.PersistClientMessage data)
+    {
+        final MessageDigest digest = digests.get();
+        final byte[] msg = data.getMsg().toByteArray();
+        digest.update((byte) (msg.length >>> 24));
+        digest.update((byte) (msg.length >>> 16));
+        digest.update((byte) (msg.length >>> 8));
+        digest.update((byte) msg.length);
+        digest.update(msg);
+        digest.update(data.getSig().asReadOnlyByteBuffer());
+        return ByteString.copyFrom(digest.digest());
+    }
+
+    /**
+     * Check if a request with this digest was verified already and count the hit or miss.
+     * @param digest the digest of the request.
+     * @return true if verified already.
+     */
+    public static boolean isVerified(@NotNull final ByteString digest)
+    {
+        if (verified.getIfPresent(digest) != null)
+        {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Remember a request with a valid signature.
+     * @param digest the digest of the request.
+     */
+    public static void markVerified(@NotNull final ByteString digest)
+    {
+        verified.put(digest, Boolean.TRUE);
+    }
+
+    /**
+     * Get the number of lookups which skipped a verification.
+     * @return the number of hits.
+     */
+    public static long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups which required a verification.
+     * @return the number of misses.
+     */
+    public static long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Describe the hit and miss counters for the log.
+     * @return the description.
+     */
+    @NotNull
+    public static String getStatistics()
+    {
+        return "VerifiedSignatureCache{hits=" + hits.get() + ", misses=" + misses.get() + '}';
+    }
+}
@@ -0,0 +1,183 @@
+package com.ray.mcu.utils.signatures;
+
+import com.ray.mcu.utils.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.security.*;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Signature scheme backed by the JDK providers, given the key and signature algorithm names.
+ * Signature and KeyFactory instances are kept per thread to avoid the provider lookup on every call.
+ */
+public abstract class AbstractSignatureScheme implements ISignatureScheme
+{
+    /**
+     * The JCA name of the key algorithm.
+     */
+    private final String keyAlgorithm;
+
+    /**
+     * The JCA name of the signature algorithm.
+     */
+    private final String signatureAlgorithm;
+
+    /**
+     * The Signature instance of each thread, initialized again for every sign or verify.
+     */
+    private final ThreadLocal<Signature> signatures;
+
+    /**
+     * The KeyFactory instance of each thread.
+     */
+    private final ThreadLocal<KeyFactory> keyFactories;
+
+    /**
+     * Create the scheme.
+     * @param keyAlgorithm the JCA name of the key algorithm.
+     * @param signatureAlgorithm the JCA name of the signature algorithm.
+     */
+    protected AbstractSignatureScheme(final String keyAlgorithm, final String signatureAlgorithm)
+    {
+        this.keyAlgorithm = keyAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.signatures = ThreadLocal.withInitial(this::newSignature);
+        this.keyFactories = ThreadLocal.withInitial(this::newKeyFactory);
+    }
+
+    /**
+     * Look up a new Signature instance of this scheme.
+     * @return the instance.
+     */
+    private Signature newSignature()
+    {
+        try
+        {
+            return Signature.getInstance(signatureAlgorithm);
+        }
+        catch (final NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("Signature scheme " + signatureAlgorithm + " not supported by this JDK", e);
+        }
+    }
+
+    /**
+     * Look up a new KeyFactory instance of this scheme.
+     * @return the instance.
+     */
+    private KeyFactory newKeyFactory()
+    {
+        try
+        {
+            return KeyFactory.getInstance(keyAlgorithm);
+        }
+        catch (final NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("Signature scheme " + keyAlgorithm + " not supported by this JDK", e);
+        }
+    }
+
+    /**
+     * Initialize the key pair generator of this scheme.
+     * @param generator the generator to initialize.
+     * @throws InvalidAlgorithmParameterException if the parameters are not supported.
+     */
+    protected abstract void initialize(final KeyPairGenerator generator) throws InvalidAlgorithmParameterException;
+
+    @Override
+    public KeyPair generateKeyPair()
+    {
+        try
+        {
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+            initialize(generator);
+            return generator.generateKeyPair();
+        }
+        catch (final NoSuchAlgorithmException | InvalidAlgorithmParameterException e)
+        {
+            throw new IllegalStateException("Signature scheme " + keyAlgorithm + " not supported by this JDK", e);
+        }
+    }
+
+    @Override
+    public PublicKey decodePublicKey(@NotNull final byte[] encoded) throws InvalidKeyException
+    {
+        try
+        {
+            return keyFactories.get().generatePublic(new X509EncodedKeySpec(encoded));
+        }
+        catch (final InvalidKeySpecException e)
+        {
+            throw new InvalidKeyException("Invalid " + keyAlgorithm + " public key", e);
+        }
+    }
+
+    @Override
+    public PrivateKey decodePrivateKey(@NotNull final byte[] encoded) throws InvalidKeyException
+    {
+        try
+        {
+            return keyFactories.get().generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        }
+        catch (final InvalidKeySpecException e)
+        {
+            throw new InvalidKeyException("Invalid " + keyAlgorithm + " private key", e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] sign(@NotNull final byte[] message, @NotNull final PrivateKey privateKey)
+    {
+        try
+        {
+            final Signature sig = signatures.get();
+            sig.initSign(privateKey);
+            sig.update(message);
+            return sig.sign();
+        }
+        catch (final SignatureException | InvalidKeyException e)
+        {
+            Log.getLogger().error("Issues in the signing process!", e);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean verify(@NotNull final byte[] message, @NotNull final byte[] signature, @NotNull final PublicKey publicKey)
+    {
+        try
+        {
+            final Signature sig = signatures.get();
+            sig.initVerify(publicKey);
+            sig.update(message);
+            return sig.verify(signature);
+        }
+        catch (final SignatureException | InvalidKeyException e)
+        {
+            Log.getLogger().error("Issues in the key verification process!", e);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean verify(@NotNull final ByteBuffer message, @NotNull final byte[] signature, @NotNull final PublicKey publicKey)
+    {
+        try
+        {
+            final Signature sig = signatures.get();
+            sig.initVerify(publicKey);
+            sig.update(message);
+            return sig.verify(signature);
+        }
+        catch (final SignatureException | InvalidKeyException e)
+        {
+            Log.getLogger().error("Issues in the key verification process!", e);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ray.mcu.utils.signatures;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * ECDSA over the NIST P-256 curve with SHA256.
+ */
+public class ECDSASignatureScheme extends AbstractSignatureScheme
+{
+    /**
+     * Create the ECDSA scheme.
+     */
+    public ECDSASignatureScheme()
+    {
+        super("EC", "SHA256withECDSA");
+    }
+
+    @Override
+    protected void initialize(final KeyPairGenerator generator) throws InvalidAlgorithmParameterException
+    {
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+    }
+}
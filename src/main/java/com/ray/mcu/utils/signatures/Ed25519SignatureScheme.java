@@ -0,0 +1,25 @@
+package com.ray.mcu.utils.signatures;
+
+import java.security.KeyPairGenerator;
+
+/**
+ * Ed25519 of the JDK provider (Java 15 and later).
+ */
+public class Ed25519SignatureScheme extends AbstractSignatureScheme
+{
+    /**
+     * Create the Ed25519 scheme.
+     */
+    public Ed25519SignatureScheme()
+    {
+        super("Ed25519", "Ed25519");
+    }
+
+    @Override
+    protected void initialize(final KeyPairGenerator generator)
+    {
+        /*
+         * Intentionally empty, the curve defines all parameters.
+         */
+    }
+}
@@ -0,0 +1,65 @@
+package com.ray.mcu.utils.signatures;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * Signature scheme used for replica and client signatures.
+ */
+public interface ISignatureScheme
+{
+    /**
+     * Generate a new key pair of this scheme.
+     * @return the key pair.
+     */
+    KeyPair generateKeyPair();
+
+    /**
+     * Decode a X509 encoded public key of this scheme.
+     * @param encoded the encoded key.
+     * @return the public key.
+     * @throws InvalidKeyException if the bytes are no valid key of this scheme.
+     */
+    PublicKey decodePublicKey(@NotNull final byte[] encoded) throws InvalidKeyException;
+
+    /**
+     * Decode a PKCS8 encoded private key of this scheme.
+     * @param encoded the encoded key.
+     * @return the private key.
+     * @throws InvalidKeyException if the bytes are no valid key of this scheme.
+     */
+    PrivateKey decodePrivateKey(@NotNull final byte[] encoded) throws InvalidKeyException;
+
+    /**
+     * Sign a message with a private key.
+     * @param message the message to sign.
+     * @param privateKey the key to sign it with.
+     * @return the signature or null on failure.
+     */
+    @Nullable
+    byte[] sign(@NotNull final byte[] message, @NotNull final PrivateKey privateKey);
+
+    /**
+     * Verify the signature of a message.
+     * @param message the message.
+     * @param signature the signature.
+     * @param publicKey the public key of the signer.
+     * @return true if valid.
+     */
+    boolean verify(@NotNull final byte[] message, @NotNull final byte[] signature, @NotNull final PublicKey publicKey);
+
+    /**
+     * Verify the signature of a message without copying it out of its buffer.
+     * @param message the message, consumed from its position to its limit.
+     * @param signature the signature.
+     * @param publicKey the public key of the signer.
+     * @return true if valid.
+     */
+    boolean verify(@NotNull final ByteBuffer message, @NotNull final byte[] signature, @NotNull final PublicKey publicKey);
+}
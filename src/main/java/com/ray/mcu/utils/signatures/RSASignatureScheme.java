@@ -0,0 +1,31 @@
+package com.ray.mcu.utils.signatures;
+
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+
+/**
+ * 1024 bit RSA with SHA1, the original scheme of the system.
+ */
+public class RSASignatureScheme extends AbstractSignatureScheme
+{
+    /**
+     * The size of the generated keys.
+     */
+    private static final int KEY_SIZE = 1024;
+
+    /**
+     * Create the RSA scheme.
+     */
+    public RSASignatureScheme()
+    {
+        super("RSA", "SHA1withRSA");
+    }
+
+    @Override
+    protected void initialize(final KeyPairGenerator generator)
+    {
+        final SecureRandom random = new SecureRandom();
+        random.setSeed(1337);
+        generator.initialize(KEY_SIZE, random);
+    }
+}
@@ -96,6 +96,15 @@ public class GlobalView
         this.id++;
     }
 
+    /**
+     * Jump to a view id, when the instances before it were installed by state transfer.
+     * @param id the new view id.
+     */
+    public void setId(final int id)
+    {
+        this.id = id;
+    }
+
     /**
      * Set a new server to be coordinator.
      * @param coordinator the id of the new coordinator.
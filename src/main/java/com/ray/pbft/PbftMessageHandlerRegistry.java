@@ -1,5 +1,6 @@
 package com.ray.pbft;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.GeneratedMessageV3;
 import com.ray.mcu.communication.IMessageHandler;
 import com.ray.mcu.communication.MessageHandlerRegistry;
@@ -8,16 +9,20 @@ import com.ray.mcu.communication.serveroperations.UnicastOperation;
 import com.ray.mcu.communication.wrappers.IMessageWrapper;
 import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.server.Server;
+import com.ray.mcu.utils.Constants;
 import com.ray.mcu.utils.KeyUtilities;
 import com.ray.mcu.utils.Log;
 import com.ray.mcu.utils.ValidationUtils;
 import com.ray.pbft.communication.wrappers.*;
 import com.ray.pbft.server.PbftServer;
-import com.ray.pbft.utils.PBFTState;
+import com.ray.pbft.utils.BatchEffects;
+import com.ray.pbft.utils.ConsensusInstance;
+import com.ray.pbft.utils.StateSnapshot;
+import com.ray.pbft.utils.StateTransfer;
 import io.netty.channel.ChannelHandlerContext;
-import org.boon.Pair;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -33,12 +38,15 @@ public class PbftMessageHandlerRegistry
      */
     static
     {
-        MessageHandlerRegistry.handlers.add(new PrePrepareMessageHandler());
-        MessageHandlerRegistry.handlers.add(new PrepareMessageHandler());
-        MessageHandlerRegistry.handlers.add(new CommitMessageHandler());
-        MessageHandlerRegistry.handlers.add(new RequestRecoverPrePrepareMessageHandler());
-        MessageHandlerRegistry.handlers.add(new RequestRecoverCommitMessageHandler());
-        MessageHandlerRegistry.handlers.add(new RecoverCommitMessageHandler());
+        MessageHandlerRegistry.register(new PrePrepareMessageHandler());
+        MessageHandlerRegistry.register(new PrepareMessageHandler());
+        MessageHandlerRegistry.register(new CommitMessageHandler());
+        MessageHandlerRegistry.register(new RequestRecoverPrePrepareMessageHandler());
+        MessageHandlerRegistry.register(new RequestRecoverCommitMessageHandler());
+        MessageHandlerRegistry.register(new RecoverCommitMessageHandler());
+        MessageHandlerRegistry.register(new CheckpointMessageHandler());
+        MessageHandlerRegistry.register(new RequestStateTransferMessageHandler());
+        MessageHandlerRegistry.register(new StateChunkMessageHandler());
     }
 
     /**
@@ -54,7 +62,11 @@ public class PbftMessageHandlerRegistry
         @Override
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
-            server.addToInputQueue(new PrePrepareWrapper(sender, message.toBuilder()));
+            // Only called after the verification stage checked all client signatures of the batch.
+            final PrePrepareWrapper wrapper = new PrePrepareWrapper(sender, message);
+            wrapper.clientSignaturesVerified = true;
+            wrapper.effects = BatchEffects.of(message.getPrePrepare());
+            server.addToInputQueue(wrapper);
         }
 
         @Override
@@ -72,7 +84,8 @@ public class PbftMessageHandlerRegistry
             final int msgViewId = message.getMessage().getPrePrepare().getView().getId();
 
             // Old preprepare
-            if (pbftServer.currentPrePrepare != null && pbftServer.currentPrePrepare.getFirst() >= msgViewId)
+            final ConsensusInstance existing = pbftServer.instances.get(msgViewId);
+            if (msgViewId < pbftServer.getLowWatermark() || (existing != null && existing.prePrepare != null))
             {
                 Log.getLogger().warn("----------------------------------------------------------------\n"
                                        + server.getServerData().getId() + " Already received preprepare for this view id! (" + message.getSender() + ")"
@@ -80,32 +93,6 @@ public class PbftMessageHandlerRegistry
                 return;
             }
 
-            // Supposedly newer pre-prepare
-            if (pbftServer.getView().getId() < msgViewId)
-            {
-                if (((PrePrepareWrapper) message).retry++ > 3)
-                {
-                    if (!pbftServer.unverifiedPrePrepare.containsKey(msgViewId))
-                    {
-                        pbftServer.unverifiedPrePrepare.put(msgViewId, (PrePrepareWrapper) message);
-                        server.addToOutputQueue(new UnicastOperation(new RequestRecoverCommitWrapper(server, server.getView().getId()), message.getSender()));
-                    }
-                }
-                else
-                {
-                    try
-                    {
-                        Thread.sleep(1);
-                    }
-                    catch (InterruptedException e)
-                    {
-                        e.printStackTrace();
-                    }
-                    server.inputQueue.add(message);
-                }
-                return;
-            }
-
             // If sender is not coordinator of current view.
             if (server.getView().getCoordinator() != message.getSender())
             {
@@ -115,21 +102,40 @@ public class PbftMessageHandlerRegistry
                 return;
             }
 
+            // Supposedly newer pre-prepare (beyond the high watermark), hold it back until the window reaches it.
+            // Further ahead than a checkpoint interval this replica catches up by state transfer instead.
+            if (pbftServer.getHighWatermark() < msgViewId)
+            {
+                if (msgViewId > pbftServer.getHighWatermark() + Constants.CHECKPOINT_INTERVAL)
+                {
+                    Log.getLogger().warn(server.getServerData().getId() + " Dropping preprepare too far ahead: " + msgViewId + " (at " + pbftServer.getLowWatermark() + ")");
+                    return;
+                }
+
+                final boolean first = pbftServer.deferredMessages.count(msgViewId) == 0;
+                if (pbftServer.deferredMessages.defer(msgViewId, message) && first)
+                {
+                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverCommitWrapper(server, server.getView().getId()), message.getSender()));
+                }
+                return;
+            }
+
             // Verify if view is valid.
             if (!pbftServer.getView().validateView(message.getMessage().getPrePrepare().getView(), pbftServer.pendingUnregisters))
             {
                 return;
             }
 
-            pbftServer.currentPrePrepare = new Pair<>(pbftServer.getView().getId(), (PrePrepareWrapper) message);
-            server.addToOutputQueue(new BroadcastOperation(new PrepareWrapper(server, ((PrePrepareWrapper) message).message.build())));
-            pbftServer.updateState();
+            pbftServer.getOrCreateInstance(msgViewId).prePrepare = (PrePrepareWrapper) message;
+            server.addToOutputQueue(new BroadcastOperation(new PrepareWrapper(server, ((PrePrepareWrapper) message).getMessage())));
+            pbftServer.speculate();
+            pbftServer.updateState(msgViewId);
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasPrePrepare();
+            return MessageProto.Message.MessagesCase.PREPREPARE;
         }
 
         @Override
@@ -153,7 +159,7 @@ public class PbftMessageHandlerRegistry
         @Override
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
-            server.addToInputQueue(new PrepareWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new PrepareWrapper(sender, message));
         }
 
         @Override
@@ -175,64 +181,50 @@ public class PbftMessageHandlerRegistry
 
             final PbftServer pbftServer = (PbftServer) server;
 
-            // too new prepare (missing only currentPrePrepare, missing more)
+            // too new prepare (missing only the preprepare of its instance, missing more)
             final int incViewId = message.getMessage().getPrepare().getView().getId();
 
-            // If we don't have a prepare at the moment.
-            if ( pbftServer.currentPrePrepare == null )
+            // If the prepare is beyond the high watermark.
+            if (pbftServer.getHighWatermark() < incViewId)
             {
-                if (((PrepareWrapper)message).retry++ > 5 && server.getView().getCoordinator() != server.getServerData().getId())
-                {
-                    final List<PrepareWrapper> list = pbftServer.unverifiedPrepareSet.getOrDefault(incViewId, new ArrayList<>());
-                    list.add((PrepareWrapper) message);
-                    if (!pbftServer.unverifiedPrepareSet.containsKey(incViewId))
-                    {
-                        server.addToOutputQueue(new UnicastOperation(new RequestRecoverPrePrepareWrapper(server, incViewId),
-                          message.getSender()));
-                    }
-                    pbftServer.unverifiedPrepareSet.put(incViewId, list);
-                }
-                else
+                final List<PrepareWrapper> list = pbftServer.unverifiedPrepareSet.getOrDefault(incViewId, new ArrayList<>());
+                list.add((PrepareWrapper) message);
+                if (!pbftServer.unverifiedPrepareSet.containsKey(incViewId))
                 {
-                    try
-                    {
-                        Thread.sleep(1);
-                    }
-                    catch (InterruptedException e)
-                    {
-                        e.printStackTrace();
-                    }
-                    pbftServer.inputQueue.add(message);
+                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverCommitWrapper(server, pbftServer.getLowWatermark()), message.getMessage().getPrepare().getView().getCoordinator()));
                 }
+                pbftServer.unverifiedPrepareSet.put(incViewId, list);
                 return;
             }
 
-            // If we have a prepare which is older than the incoming view id.
-            if (pbftServer.currentPrePrepare.getFirst() < incViewId)
+            // If we don't have the preprepare of this instance at the moment, hold the prepare back until it arrives.
+            final ConsensusInstance instance = pbftServer.instances.get(incViewId);
+            if (instance == null || instance.prePrepare == null)
             {
-                final List<PrepareWrapper> list = pbftServer.unverifiedPrepareSet.getOrDefault(incViewId, new ArrayList<>());
-                list.add((PrepareWrapper) message);
-                if (!pbftServer.unverifiedPrepareSet.containsKey(incViewId))
+                if (pbftServer.deferredMessages.defer(incViewId, message)
+                      && pbftServer.deferredMessages.count(incViewId) == server.getView().getQuorumSize()
+                      && server.getView().getCoordinator() != server.getServerData().getId())
                 {
-                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverCommitWrapper(server, incViewId), message.getMessage().getPrepare().getView().getCoordinator()));
+                    // A quorum moved on without us, the preprepare probably got lost.
+                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverPrePrepareWrapper(server, incViewId),
+                      message.getSender()));
                 }
-                pbftServer.unverifiedPrepareSet.put(incViewId, list);
                 return;
             }
 
-            if (!pbftServer.validatePrepare(message))
+            if (!pbftServer.validatePrepare(message, instance.prePrepare))
             {
                 return;
             }
 
-            pbftServer.prepareSet.add((PrepareWrapper) message);
-            pbftServer.updateState();
+            instance.prepareSet.add((PrepareWrapper) message);
+            pbftServer.updateState(incViewId);
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasPrepare();
+            return MessageProto.Message.MessagesCase.PREPARE;
         }
 
         @Override
@@ -260,7 +252,7 @@ public class PbftMessageHandlerRegistry
         @Override
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
-            server.addToInputQueue(new CommitWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new CommitWrapper(sender, message));
         }
 
         @Override
@@ -283,33 +275,35 @@ public class PbftMessageHandlerRegistry
             final PbftServer pbftServer = (PbftServer) server;
             final int incViewId = message.getMessage().getCommit().getView().getId();
 
-            // Current preprepare missing -> recover
-            if (pbftServer.currentPrePrepare == null)
+            // Commit beyond the high watermark, recover past commits.
+            if (pbftServer.getHighWatermark() < incViewId)
             {
                 final List<CommitWrapper> list = pbftServer.unverifiedcommitMap.getOrDefault(incViewId, new ArrayList<>());
                 list.add((CommitWrapper) message);
                 if (!pbftServer.unverifiedcommitMap.containsKey(incViewId))
                 {
-                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverPrePrepareWrapper(server, incViewId),
-                      message.getSender()));
+                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverCommitWrapper(server, pbftServer.getLowWatermark()), message.getSender()));
                 }
                 pbftServer.unverifiedcommitMap.put(incViewId, list);
                 return;
             }
 
-            // Current preprepare outdated, recover past commits.
-            if (pbftServer.currentPrePrepare.getFirst() < incViewId)
+            // Preprepare of this instance missing -> recover
+            final ConsensusInstance instance = pbftServer.instances.get(incViewId);
+            if (instance == null || instance.prePrepare == null)
             {
                 final List<CommitWrapper> list = pbftServer.unverifiedcommitMap.getOrDefault(incViewId, new ArrayList<>());
                 list.add((CommitWrapper) message);
                 if (!pbftServer.unverifiedcommitMap.containsKey(incViewId))
                 {
-                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverCommitWrapper(server, incViewId), message.getSender()));
+                    server.addToOutputQueue(new UnicastOperation(new RequestRecoverPrePrepareWrapper(server, incViewId),
+                      message.getSender()));
                 }
                 pbftServer.unverifiedcommitMap.put(incViewId, list);
+                return;
             }
 
-            if (! pbftServer.validateCommit((CommitWrapper) message))
+            if (! pbftServer.validateCommit((CommitWrapper) message, instance.prePrepare))
             {
                 return;
             }
@@ -317,13 +311,13 @@ public class PbftMessageHandlerRegistry
             final List<CommitWrapper> current = pbftServer.commitMap.getOrDefault(incViewId, new ArrayList<>());
             current.add((CommitWrapper) message);
             pbftServer.commitMap.put(incViewId, current);
-            pbftServer.updateState();
+            pbftServer.updateState(incViewId);
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasCommit();
+            return MessageProto.Message.MessagesCase.COMMIT;
         }
 
         @Override
@@ -341,7 +335,7 @@ public class PbftMessageHandlerRegistry
         @Override
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
-            server.addToInputQueue(new RequestRecoverPrePrepareWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new RequestRecoverPrePrepareWrapper(sender, message));
         }
 
         @Override
@@ -350,9 +344,10 @@ public class PbftMessageHandlerRegistry
             Log.getLogger().warn(server.getServerData().getId() + " Received RequestRecoverPrePrepare from: " + message.getSender());
 
             final int requestViewId = message.getMessage().getRequestRecoverPrePrepare().getViewId();
-            if (( ( PbftServer ) server ).currentPrePrepare != null && server.getView().getId() == requestViewId)
+            final ConsensusInstance instance = ( ( PbftServer ) server ).instances.get(requestViewId);
+            if (instance != null && instance.prePrepare != null)
             {
-                server.addToOutputQueue(new UnicastOperation( new PrePrepareWrapper(( ( PbftServer ) server ).currentPrePrepare.getSecond().sender, ( ( PbftServer ) server ).currentPrePrepare.getSecond().getMessage().toBuilder(), true), message.getSender()));
+                server.addToOutputQueue(new UnicastOperation( new PrePrepareWrapper(instance.prePrepare.sender, instance.prePrepare.getMessage(), true), message.getSender()));
             }
             else if (requestViewId > server.getView().getId())
             {
@@ -362,14 +357,14 @@ public class PbftMessageHandlerRegistry
             }
             else if ( (( PbftServer ) server ).pastPrePrepare.containsKey(requestViewId))
             {
-                server.addToOutputQueue(new UnicastOperation( new PrePrepareWrapper(( ( PbftServer ) server ).pastPrePrepare.get(requestViewId).sender, ( ( PbftServer ) server ).pastPrePrepare.get(requestViewId).getMessage().toBuilder(), true), message.getSender()));
+                server.addToOutputQueue(new UnicastOperation( new PrePrepareWrapper(( ( PbftServer ) server ).pastPrePrepare.get(requestViewId).sender, ( ( PbftServer ) server ).pastPrePrepare.get(requestViewId).getMessage(), true), message.getSender()));
             }
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasRequestRecoverPrePrepare();
+            return MessageProto.Message.MessagesCase.REQUESTRECOVERPREPREPARE;
         }
 
         @Override
@@ -387,7 +382,7 @@ public class PbftMessageHandlerRegistry
         @Override
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
-            server.addToInputQueue(new RequestRecoverCommitWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new RequestRecoverCommitWrapper(sender, message));
         }
 
         @Override
@@ -412,7 +407,17 @@ public class PbftMessageHandlerRegistry
                 return;
             }
 
-            final List recoverCommits = pbftServer.commitMap.entrySet().stream().filter(e -> e.getKey() >= requestViewId)
+            // Serve the stored records of the commit log if it has them.
+            final List<MessageProto.CommitStorage> stored = pbftServer.commitLogReader.read(requestViewId, pbftServer.getLowWatermark(), Constants.RECOVER_COMMIT_MAX_BYTES);
+            if (!stored.isEmpty())
+            {
+                server.addToOutputQueue(new UnicastOperation(new RecoverCommitWrapper(server, MessageProto.RecoverCommit.newBuilder().addAllCommits(stored).build()),
+                  message.getSender()));
+                return;
+            }
+
+            // Executed but not written to the log yet.
+            final List recoverCommits = pbftServer.commitMap.entrySet().stream().filter(e -> e.getKey() >= requestViewId && e.getKey() < pbftServer.getLowWatermark())
                                           .map(Map.Entry::getValue).map(l -> l.get(0))
                                           .sorted(Comparator.comparingInt(e -> e.getMessage().getCommit().getView().getId()))
                                           .collect(Collectors.toList());
@@ -423,9 +428,9 @@ public class PbftMessageHandlerRegistry
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasRequestRecoverCommit();
+            return MessageProto.Message.MessagesCase.REQUESTRECOVERCOMMIT;
         }
 
         @Override
@@ -443,7 +448,7 @@ public class PbftMessageHandlerRegistry
         @Override
         public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
         {
-            server.addToInputQueue(new RecoverCommitWrapper(sender, message.toBuilder()));
+            server.addToInputQueue(new RecoverCommitWrapper(sender, message));
         }
 
         @Override
@@ -457,12 +462,21 @@ public class PbftMessageHandlerRegistry
             }
 
             final PbftServer pbftServer = (PbftServer) server;
+            final int lowWatermark = pbftServer.getLowWatermark();
 
             for (final MessageProto.CommitStorage storage : message.getMessage().getRecoverCommit().getCommitsList())
             {
-                if (storage.getView().getId() != pbftServer.getView().getId())
+                // Already executed this instance.
+                if (storage.getView().getId() < pbftServer.getLowWatermark())
+                {
+                    continue;
+                }
+
+                // Instances have to be executed strictly in sequence order.
+                if (storage.getView().getId() != pbftServer.getLowWatermark())
                 {
                     Log.getLogger().warn("First view doesn't correspond with necessary view");
+                    break;
                 }
 
                 if (!pbftServer.getView().validateView(storage.getView(), pbftServer.pendingUnregisters))
@@ -478,29 +492,30 @@ public class PbftMessageHandlerRegistry
                     return;
                 }
 
-                pbftServer.currentPrePrepare = new Pair<>(pbftServer.getView().getId(), PrePrepareWrapper.createPrePrepareWrapper(storage.getView(), 0, storage.getInputList(), storage.getInputHash()) );
-                if (!ValidationUtils.verifyCommit(storage.getSignaturesList(), pbftServer))
+                if (!ValidationUtils.verifyCommit(storage.getSignaturesList(), pbftServer, wrapper))
                 {
                     return;
                 }
 
-                pbftServer.getView().updateView(pbftServer.currentPrePrepare.getSecond().getMessage().getPrePrepare().getView(), server);
-                pbftServer.persistConsensusResult(pbftServer.currentPrePrepare.getSecond());
+                pbftServer.instances.remove(storage.getView().getId());
+                pbftServer.getView().updateView(wrapper.getMessage().getPrePrepare().getView(), server);
+                pbftServer.persistConsensusResult(wrapper, storage.getSignaturesList());
+            }
 
-                if (pbftServer.unverifiedPrePrepare.containsKey(pbftServer.getView().getId()))
-                {
-                    server.inputQueue.add(pbftServer.unverifiedPrePrepare.remove(pbftServer.getView().getId()));
-                }
+            // Instances behind the recovered ones might already be committed.
+            pbftServer.executeCommittedInstances();
 
-                pbftServer.currentPrePrepare = null;
-                pbftServer.status = PBFTState.NULL;
+            // Responses are limited in size, ask for the rest if this one helped and messages are still waiting beyond the window.
+            if (pbftServer.getLowWatermark() != lowWatermark && pbftServer.deferredMessages.getHighestSequence() > pbftServer.getHighWatermark())
+            {
+                server.addToOutputQueue(new UnicastOperation(new RequestRecoverCommitWrapper(server, pbftServer.getLowWatermark()), message.getSender()));
             }
         }
 
         @Override
-        public boolean canHandle(final MessageProto.Message message)
+        public MessageProto.Message.MessagesCase getType()
         {
-            return message.hasRecoverCommit();
+            return MessageProto.Message.MessagesCase.RECOVERCOMMIT;
         }
 
         @Override
@@ -509,4 +524,181 @@ public class PbftMessageHandlerRegistry
             return message.getRecoverCommit();
         }
     }
+
+    /**
+     * Handles the checkpoints of the replicas.
+     *
+     * Once a quorum agrees on the state digest of a checkpoint it turns stable and everything before it is discarded.
+     */
+    private static class CheckpointMessageHandler implements IMessageHandler
+    {
+        @Override
+        public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
+        {
+            server.addToInputQueue(new CheckpointWrapper(sender, message));
+        }
+
+        @Override
+        public void handle(final IMessageWrapper message, final Server server)
+        {
+            if (!(server instanceof PbftServer))
+            {
+                Log.getLogger().warn("Turn on a PBFT Server to validate this message");
+                return;
+            }
+
+            final PbftServer pbftServer = (PbftServer) server;
+            final MessageProto.Checkpoint checkpoint = message.getMessage().getCheckpoint();
+            final boolean own = message.getSender() == server.getServerData().getId();
+            if (own && ((CheckpointWrapper) message).snapshot != null)
+            {
+                pbftServer.ownSnapshots.put(checkpoint.getSequence(), ((CheckpointWrapper) message).snapshot);
+            }
+
+            if (!pbftServer.checkpoints.add(message.getSender(), checkpoint, own, server.getView().getQuorumSize()))
+            {
+                return;
+            }
+
+            if (!pbftServer.checkpoints.stableMatchesOwn())
+            {
+                Log.getLogger().error("----------------------------------------------------------------\n"
+                                        + server.getServerData().getId() + " State diverged from the stable checkpoint at " + checkpoint.getSequence()
+                                        + "\n----------------------------------------------------------------");
+            }
+
+            pbftServer.onStableCheckpoint(message.getSender());
+        }
+
+        @Override
+        public MessageProto.Message.MessagesCase getType()
+        {
+            return MessageProto.Message.MessagesCase.CHECKPOINT;
+        }
+
+        @Override
+        public GeneratedMessageV3 getMessage(final MessageProto.Message message)
+        {
+            return message.getCheckpoint();
+        }
+    }
+
+    /**
+     * Handles requests of lagging replicas for the bucket hashes or some buckets of the snapshot of the stable checkpoint.
+     */
+    private static class RequestStateTransferMessageHandler implements IMessageHandler
+    {
+        @Override
+        public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
+        {
+            server.addToInputQueue(new RequestStateTransferWrapper(sender, message));
+        }
+
+        @Override
+        public void handle(final IMessageWrapper message, final Server server)
+        {
+            if (!(server instanceof PbftServer))
+            {
+                Log.getLogger().warn("Turn on a PBFT Server to validate this message");
+                return;
+            }
+
+            final PbftServer pbftServer = (PbftServer) server;
+            final MessageProto.RequestStateTransfer request = message.getMessage().getRequestStateTransfer();
+            final StateSnapshot snapshot = pbftServer.stableSnapshot;
+            if (snapshot == null || snapshot.getSequence() != request.getSequence())
+            {
+                Log.getLogger().warn("----------------------------------------------------------------\n"
+                                       + "Received a state transfer request for a checkpoint which isn't the stable one! (" + message.getSender() + ") - discarding"
+                                       + "\n----------------------------------------------------------------");
+                return;
+            }
+
+            final List<ByteString> chunks = request.getBuckets().isEmpty()
+                                              ? snapshot.getHashChunks(Constants.STATE_TRANSFER_CHUNK_BYTES)
+                                              : snapshot.getBucketChunks(BitSet.valueOf(request.getBuckets().toByteArray()), Constants.STATE_TRANSFER_CHUNK_BYTES);
+            for (int chunk = 0; chunk < chunks.size(); chunk++)
+            {
+                server.addToOutputQueue(new UnicastOperation(new StateChunkWrapper(server, snapshot.getSequence(), chunk, chunks.size(), chunks.get(chunk)),
+                  message.getSender()));
+            }
+        }
+
+        @Override
+        public MessageProto.Message.MessagesCase getType()
+        {
+            return MessageProto.Message.MessagesCase.REQUESTSTATETRANSFER;
+        }
+
+        @Override
+        public GeneratedMessageV3 getMessage(final MessageProto.Message message)
+        {
+            return message.getRequestStateTransfer();
+        }
+    }
+
+    /**
+     * Handles the chunks of a state transfer.
+     *
+     * Requests the buckets which differ once the bucket hashes match the certified digest, installs the snapshot once they arrived.
+     */
+    private static class StateChunkMessageHandler implements IMessageHandler
+    {
+        @Override
+        public void wrap(final MessageProto.Message message, final ChannelHandlerContext ctx, final Server server, final int sender)
+        {
+            server.addToInputQueue(new StateChunkWrapper(sender, message));
+        }
+
+        @Override
+        public void handle(final IMessageWrapper message, final Server server)
+        {
+            if (!(server instanceof PbftServer))
+            {
+                Log.getLogger().warn("Turn on a PBFT Server to validate this message");
+                return;
+            }
+
+            final PbftServer pbftServer = (PbftServer) server;
+            final StateTransfer transfer = pbftServer.stateTransfer;
+            if (transfer == null)
+            {
+                return;
+            }
+
+            switch (transfer.receive(message.getSender(), message.getMessage().getStateChunk()))
+            {
+                case REQUEST:
+                    Log.getLogger().warn(server.getServerData().getId() + " Fetching " + transfer.getRequestedCount() + " buckets of the state at " + transfer.getSequence());
+                    server.addToOutputQueue(new UnicastOperation(new RequestStateTransferWrapper(server, transfer.getSequence(), transfer.getRequestedBuckets()),
+                      transfer.getProvider()));
+                    break;
+                case COMPLETE:
+                    Log.getLogger().warn(server.getServerData().getId() + " Installing the state at " + transfer.getSequence() + " from " + transfer.getProvider());
+                    pbftServer.stateTransfer = null;
+                    pbftServer.installSnapshot(transfer.getSnapshot(), transfer.getProvider());
+                    break;
+                case INVALID:
+                    Log.getLogger().error("----------------------------------------------------------------\n"
+                                            + "State snapshot doesn't match the stable checkpoint! (" + message.getSender() + ")"
+                                            + "\n----------------------------------------------------------------");
+                    pbftServer.stateTransfer = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public MessageProto.Message.MessagesCase getType()
+        {
+            return MessageProto.Message.MessagesCase.STATECHUNK;
+        }
+
+        @Override
+        public GeneratedMessageV3 getMessage(final MessageProto.Message message)
+        {
+            return message.getStateChunk();
+        }
+    }
 }
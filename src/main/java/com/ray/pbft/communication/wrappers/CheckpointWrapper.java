@@ -0,0 +1,59 @@
+package com.ray.pbft.communication.wrappers;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.GeneratedMessageV3;
+import com.ray.mcu.communication.wrappers.AbstractMessageWrapper;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.IServer;
+import com.ray.pbft.utils.StateSnapshot;
+
+/**
+ * Wrapper for the Checkpoint Message.
+ */
+public class CheckpointWrapper extends AbstractMessageWrapper
+{
+    /**
+     * The snapshot the checkpoint was created from, only set on the own checkpoint and never sent.
+     */
+    public StateSnapshot snapshot = null;
+
+    /**
+     * Wrap an existing checkpoint message.
+     *
+     * @param sender  the sender.
+     * @param message the message.
+     */
+    public CheckpointWrapper(final int sender, final MessageProto.Message message)
+    {
+        super(sender, message);
+    }
+
+    /**
+     * Wrap a checkpoint message.
+     *
+     * @param sender  the sender.
+     * @param message the message.
+     */
+    public CheckpointWrapper(final IServer sender, final MessageProto.Checkpoint message)
+    {
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setCheckpoint(message).buildPartial());
+    }
+
+    /**
+     * Create a new checkpoint from a snapshot of the own state.
+     *
+     * @param sender the sender.
+     * @param snapshot the snapshot after executing the instance of the checkpoint.
+     */
+    public CheckpointWrapper(final IServer sender, final StateSnapshot snapshot)
+    {
+        this(sender, MessageProto.Checkpoint.newBuilder().setSequence(snapshot.getSequence()).setStateDigest(ByteString.copyFrom(snapshot.getDigest())).build());
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public GeneratedMessageV3 getPackagedMessage()
+    {
+        return message.getCheckpoint();
+    }
+}
@@ -18,7 +18,7 @@ public class CommitWrapper extends AbstractMessageWrapper
      * @param sender  the sender.
      * @param message the message.
      */
-    public CommitWrapper(final int sender, final MessageProto.Message.Builder message)
+    public CommitWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -31,7 +31,7 @@ public class CommitWrapper extends AbstractMessageWrapper
      */
     public CommitWrapper(final IServer sender, final MessageProto.Commit message)
     {
-        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setCommit(message));
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setCommit(message).buildPartial());
     }
 
     /**
@@ -49,7 +49,6 @@ public class CommitWrapper extends AbstractMessageWrapper
 
         final MessageProto.Commit.Builder builder = MessageProto.Commit.newBuilder();
         builder.setInputHash(prepare[0].getMessage().getPrepare().getInputHash()).setView(prepare[0].getMessage().getPrepare().getView());
-        builder.setView(sender.getView().processViewToProto());
 
         for (final PrepareWrapper prepareWrapper : prepare)
         {
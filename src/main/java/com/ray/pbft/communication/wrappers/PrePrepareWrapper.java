@@ -7,6 +7,9 @@ import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.server.IServer;
 import com.ray.mcu.server.Server;
 import com.ray.mcu.views.GlobalView;
+import com.ray.pbft.utils.BatchEffects;
+import com.ray.pbft.utils.Speculation;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -15,9 +18,24 @@ import java.util.List;
 public class PrePrepareWrapper extends AbstractMessageWrapper
 {
     /**
-     * Retry of the PrePrepare
+     * If the client signatures of the batch were checked by the verification stage already.
      */
-    public int retry = 0;
+    public boolean clientSignaturesVerified = false;
+
+    /**
+     * The changes the batch makes to the account state, computed when it arrives, null if not yet.
+     */
+    public BatchEffects effects = null;
+
+    /**
+     * The result of validating the batch speculatively before it committed, null if it wasn't.
+     */
+    public Speculation speculation = null;
+
+    /**
+     * The prepare signatures proving the commit of this batch, set once it is committed.
+     */
+    public List<MessageProto.Signature> commitSignatures = Collections.emptyList();
 
     /**
      * Wrap an existing preprepare message.
@@ -25,7 +43,7 @@ public class PrePrepareWrapper extends AbstractMessageWrapper
      * @param sender  the sender.
      * @param message the message.
      */
-    public PrePrepareWrapper(final int sender, final MessageProto.Message.Builder message)
+    public PrePrepareWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -36,7 +54,7 @@ public class PrePrepareWrapper extends AbstractMessageWrapper
      * @param sender  the sender.
      * @param message the message.
      */
-    public PrePrepareWrapper(final int sender, final MessageProto.Message.Builder message, final boolean signedAlready)
+    public PrePrepareWrapper(final int sender, final MessageProto.Message message, final boolean signedAlready)
     {
         super(sender, message);
         this.alreadySigned = signedAlready;
@@ -50,7 +68,7 @@ public class PrePrepareWrapper extends AbstractMessageWrapper
      */
     public PrePrepareWrapper(final IServer sender, final MessageProto.PrePrepare message)
     {
-        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setPrePrepare(message));
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setPrePrepare(message).buildPartial());
     }
 
     /**
@@ -76,7 +94,7 @@ public class PrePrepareWrapper extends AbstractMessageWrapper
             prePrepareBuilder.addInput(message);
         }
 
-        return new PrePrepareWrapper(sender, MessageProto.Message.newBuilder().setPrePrepare(prePrepareBuilder.build()).setSig(inputHash));
+        return new PrePrepareWrapper(sender, MessageProto.Message.newBuilder().setPrePrepare(prePrepareBuilder.build()).setSig(inputHash).build());
     }
 
     /**
@@ -84,14 +102,15 @@ public class PrePrepareWrapper extends AbstractMessageWrapper
      *
      * @param sender the server which will send it.
      * @param data the data to send.
+     * @param sequence the sequence number (view id) assigned to this proposal.
      * @return a filled instance of the PrePrepareWrapper.
      */
-    public static PrePrepareWrapper createPrePrepareWrapper(final Server sender, final List<MessageProto.PersistClientMessage> data)
+    public static PrePrepareWrapper createPrePrepareWrapper(final Server sender, final List<MessageProto.PersistClientMessage> data, final int sequence)
     {
         final MessageProto.PrePrepare.Builder prePrepareBuilder = MessageProto.PrePrepare.newBuilder();
 
         final GlobalView view = sender.getView();
-        prePrepareBuilder.setView(view.processViewToProto());
+        prePrepareBuilder.setView(view.processViewToProto().toBuilder().setId(sequence));
 
         for (final MessageProto.PersistClientMessage message : data)
         {
@@ -101,6 +120,21 @@ public class PrePrepareWrapper extends AbstractMessageWrapper
         return new PrePrepareWrapper(sender, prePrepareBuilder.build());
     }
 
+    /**
+     * Create the commit log record of this committed batch.
+     * @return the record.
+     */
+    public MessageProto.CommitStorage toCommitStorage()
+    {
+        final MessageProto.Message prePrepare = getMessage();
+        return MessageProto.CommitStorage.newBuilder()
+                 .addAllInput(prePrepare.getPrePrepare().getInputList())
+                 .setInputHash(prePrepare.getSig())
+                 .setView(prePrepare.getPrePrepare().getView())
+                 .addAllSignatures(commitSignatures)
+                 .build();
+    }
+
     @Override
     public GeneratedMessageV3 getPackagedMessage()
     {
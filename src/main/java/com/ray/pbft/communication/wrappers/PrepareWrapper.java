@@ -10,18 +10,13 @@ import com.ray.mcu.server.IServer;
  */
 public class PrepareWrapper extends AbstractMessageWrapper
 {
-    /**
-     * Retry of the PrePrepare
-     */
-    public int retry = 0;
-
     /**
      * Wrap an existing prepare message.
      *
      * @param sender  the sender.
      * @param message the message.
      */
-    public PrepareWrapper(final int sender, final MessageProto.Message.Builder message)
+    public PrepareWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -34,7 +29,7 @@ public class PrepareWrapper extends AbstractMessageWrapper
      */
     public PrepareWrapper(final IServer sender, final MessageProto.Prepare message)
     {
-        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setPrepare(message));
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setPrepare(message).buildPartial());
     }
 
     /**
@@ -0,0 +1,67 @@
+package com.ray.pbft.communication.wrappers;
+
+import com.google.protobuf.GeneratedMessageV3;
+import com.ray.mcu.communication.wrappers.IMessageWrapper;
+import com.ray.mcu.nettyhandlers.SignedFrame;
+import com.ray.mcu.nettyhandlers.SizedMessage;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.IServer;
+
+/**
+ * Local marker in the input queue asking the message handler to propose the pending client messages.
+ * Lets the batch timer and the client message handler trigger proposals while only the message handler reads the view.
+ * Never sent to other replicas.
+ */
+public final class ProposeTickWrapper implements IMessageWrapper
+{
+    /**
+     * The only instance.
+     */
+    public static final ProposeTickWrapper INSTANCE = new ProposeTickWrapper();
+
+    /**
+     * Private constructor to hide the implicit one.
+     */
+    private ProposeTickWrapper()
+    {
+        /*
+         * Intentionally left empty.
+         */
+    }
+
+    @Override
+    public SizedMessage writeToSizedMessage(final IServer serverSender)
+    {
+        throw new UnsupportedOperationException("Propose ticks are only handled locally");
+    }
+
+    @Override
+    public SignedFrame writeToSignedFrame(final IServer serverSender)
+    {
+        throw new UnsupportedOperationException("Propose ticks are only handled locally");
+    }
+
+    @Override
+    public MessageProto.Message buildMessage(final IServer serverSender)
+    {
+        throw new UnsupportedOperationException("Propose ticks are only handled locally");
+    }
+
+    @Override
+    public MessageProto.Message getMessage()
+    {
+        return null;
+    }
+
+    @Override
+    public int getSender()
+    {
+        return -1;
+    }
+
+    @Override
+    public GeneratedMessageV3 getPackagedMessage()
+    {
+        return null;
+    }
+}
@@ -20,7 +20,7 @@ public class RecoverCommitWrapper extends AbstractMessageWrapper
      * @param sender  the sender.
      * @param message the message.
      */
-    public RecoverCommitWrapper(final int sender, final MessageProto.Message.Builder message)
+    public RecoverCommitWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -33,7 +33,7 @@ public class RecoverCommitWrapper extends AbstractMessageWrapper
      */
     public RecoverCommitWrapper(final IServer sender, final MessageProto.RecoverCommit message)
     {
-        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRecoverCommit(message));
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRecoverCommit(message).buildPartial());
     }
 
     /**
@@ -54,13 +54,13 @@ public class RecoverCommitWrapper extends AbstractMessageWrapper
         for (CommitWrapper commitWrapper : commit)
         {
             final MessageProto.CommitStorage.Builder storage = MessageProto.CommitStorage.newBuilder();
-            storage.setInputHash(commitWrapper.message.getCommit().getInputHash());
-            storage.setView(commitWrapper.message.getCommit().getView());
-            for (int j = 0; j < commitWrapper.message.getCommit().getSignaturesCount(); j++)
+            storage.setInputHash(commitWrapper.getMessage().getCommit().getInputHash());
+            storage.setView(commitWrapper.getMessage().getCommit().getView());
+            for (int j = 0; j < commitWrapper.getMessage().getCommit().getSignaturesCount(); j++)
             {
-                storage.addSignatures(j, commitWrapper.message.getCommit().getSignatures(j));
+                storage.addSignatures(j, commitWrapper.getMessage().getCommit().getSignatures(j));
             }
-            final PrePrepareWrapper wrapper = ((PbftServer) sender).getPrePrepareForId(commitWrapper.message.getCommit().getView().getId());
+            final PrePrepareWrapper wrapper = ((PbftServer) sender).getPrePrepareForId(commitWrapper.getMessage().getCommit().getView().getId());
 
             if (wrapper == null)
             {
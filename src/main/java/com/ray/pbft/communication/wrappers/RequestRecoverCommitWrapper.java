@@ -17,7 +17,7 @@ public class RequestRecoverCommitWrapper extends AbstractMessageWrapper
      * @param sender  the sender.
      * @param message the message.
      */
-    public RequestRecoverCommitWrapper(final int sender, final MessageProto.Message.Builder message)
+    public RequestRecoverCommitWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -30,7 +30,7 @@ public class RequestRecoverCommitWrapper extends AbstractMessageWrapper
      */
     public RequestRecoverCommitWrapper(final IServer sender, final MessageProto.RequestRecoverCommit message)
     {
-        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRequestRecoverCommit(message));
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRequestRecoverCommit(message).buildPartial());
     }
 
     /**
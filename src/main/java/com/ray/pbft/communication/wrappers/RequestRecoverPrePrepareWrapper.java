@@ -16,7 +16,7 @@ public class RequestRecoverPrePrepareWrapper extends AbstractMessageWrapper
      * @param sender  the sender.
      * @param message the message.
      */
-    public RequestRecoverPrePrepareWrapper(final int sender, final MessageProto.Message.Builder message)
+    public RequestRecoverPrePrepareWrapper(final int sender, final MessageProto.Message message)
     {
         super(sender, message);
     }
@@ -29,7 +29,7 @@ public class RequestRecoverPrePrepareWrapper extends AbstractMessageWrapper
      */
     public RequestRecoverPrePrepareWrapper(final IServer sender, final MessageProto.RequestRecoverPrePrepare message)
     {
-        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRequestRecoverPrePrepare(message));
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRequestRecoverPrePrepare(message).buildPartial());
     }
 
     /**
@@ -0,0 +1,53 @@
+package com.ray.pbft.communication.wrappers;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.GeneratedMessageV3;
+import com.ray.mcu.communication.wrappers.AbstractMessageWrapper;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.IServer;
+
+/**
+ * Wrapper for the Request State Transfer Message.
+ */
+public class RequestStateTransferWrapper extends AbstractMessageWrapper
+{
+    /**
+     * Wrap an existing Request State Transfer message.
+     *
+     * @param sender  the sender.
+     * @param message the message.
+     */
+    public RequestStateTransferWrapper(final int sender, final MessageProto.Message message)
+    {
+        super(sender, message);
+    }
+
+    /**
+     * Wrap an existing Request State Transfer message.
+     *
+     * @param sender  the sender.
+     * @param message the message.
+     */
+    public RequestStateTransferWrapper(final IServer sender, final MessageProto.RequestStateTransfer message)
+    {
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setRequestStateTransfer(message).buildPartial());
+    }
+
+    /**
+     * Create a new Request State Transfer.
+     *
+     * @param sender the sender.
+     * @param sequence the sequence number of the stable checkpoint.
+     * @param buckets the bitmap of the requested buckets, empty for the bucket hashes.
+     */
+    public RequestStateTransferWrapper(final IServer sender, final int sequence, final byte[] buckets)
+    {
+        this(sender, MessageProto.RequestStateTransfer.newBuilder().setSequence(sequence).setBuckets(ByteString.copyFrom(buckets)).build());
+    }
+
+    @Override
+    public GeneratedMessageV3 getPackagedMessage()
+    {
+        return message.getRequestStateTransfer();
+    }
+}
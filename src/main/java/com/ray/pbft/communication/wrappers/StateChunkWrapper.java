@@ -0,0 +1,60 @@
+package com.ray.pbft.communication.wrappers;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.GeneratedMessageV3;
+import com.ray.mcu.communication.wrappers.AbstractMessageWrapper;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.IServer;
+
+/**
+ * Wrapper for the State Chunk Message.
+ */
+public class StateChunkWrapper extends AbstractMessageWrapper
+{
+    /**
+     * Wrap an existing state chunk message.
+     *
+     * @param sender  the sender.
+     * @param message the message.
+     */
+    public StateChunkWrapper(final int sender, final MessageProto.Message message)
+    {
+        super(sender, message);
+    }
+
+    /**
+     * Wrap a state chunk message.
+     *
+     * @param sender  the sender.
+     * @param message the message.
+     */
+    public StateChunkWrapper(final IServer sender, final MessageProto.StateChunk message)
+    {
+        this(sender.getServerData().getId(), MessageProto.Message.newBuilder().setStateChunk(message).buildPartial());
+    }
+
+    /**
+     * Create a new chunk of a state transfer response.
+     *
+     * @param sender the sender.
+     * @param sequence the sequence number of the checkpoint.
+     * @param chunk the number of the chunk.
+     * @param chunkCount the number of chunks of the response.
+     * @param data the content of the chunk.
+     */
+    public StateChunkWrapper(final IServer sender, final int sequence, final int chunk, final int chunkCount, final ByteString data)
+    {
+        this(sender, MessageProto.StateChunk.newBuilder()
+                       .setSequence(sequence)
+                       .setChunk(chunk)
+                       .setChunkCount(chunkCount)
+                       .setData(data)
+                       .build());
+    }
+
+    @Override
+    public GeneratedMessageV3 getPackagedMessage()
+    {
+        return message.getStateChunk();
+    }
+}
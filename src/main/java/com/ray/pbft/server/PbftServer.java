@@ -1,54 +1,79 @@
 package com.ray.pbft.server;
 
+import com.google.protobuf.ByteString;
 import com.ray.mcu.communication.serveroperations.BroadcastOperation;
+import com.ray.mcu.communication.serveroperations.UnicastOperation;
 import com.ray.mcu.communication.wrappers.IMessageWrapper;
 import com.ray.mcu.communication.wrappers.PersistClientMessageWrapper;
+import com.ray.mcu.pipeline.RingBuffer;
+import com.ray.mcu.pipeline.WaitStrategies;
 import com.ray.mcu.proto.MessageProto;
 import com.ray.mcu.server.Server;
 import com.ray.mcu.server.ServerData;
+import com.ray.mcu.utils.Constants;
 import com.ray.mcu.utils.Log;
 import com.ray.mcu.utils.ValidationUtils;
+import com.ray.mcu.utils.VerifiedSignatureCache;
 import com.ray.pbft.PbftMessageHandlerRegistry;
+import com.ray.pbft.communication.wrappers.CheckpointWrapper;
 import com.ray.pbft.communication.wrappers.CommitWrapper;
 import com.ray.pbft.communication.wrappers.PrePrepareWrapper;
+import com.ray.pbft.communication.wrappers.ProposeTickWrapper;
 import com.ray.pbft.communication.wrappers.PrepareWrapper;
+import com.ray.pbft.communication.wrappers.RequestRecoverCommitWrapper;
+import com.ray.pbft.communication.wrappers.RequestStateTransferWrapper;
+import com.ray.pbft.storage.CommitLog;
+import com.ray.pbft.storage.CommitLogReader;
+import com.ray.pbft.utils.BatchEffects;
+import com.ray.pbft.utils.BatchExecutor;
+import com.ray.pbft.utils.BatchPolicy;
+import com.ray.pbft.utils.CheckpointTracker;
+import com.ray.pbft.utils.ConsensusInstance;
+import com.ray.pbft.utils.DeltaOverlay;
+import com.ray.pbft.utils.DeferredMessageBuffer;
+import com.ray.pbft.utils.Mempool;
 import com.ray.pbft.utils.PBFTState;
-import org.boon.Pair;
+import com.ray.pbft.utils.Speculation;
+import com.ray.pbft.utils.SpeculativeValidator;
+import com.ray.pbft.utils.StateSnapshot;
+import com.ray.pbft.utils.StateTransfer;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
 public class PbftServer extends Server
 {
     /**
-     * Contains current preprepare (Assumed for current view id)
+     * Contains the consensus instances between the low and high watermark, by sequence number (view id).
      */
-    public Pair<Integer, PrePrepareWrapper> currentPrePrepare = null;
+    public Map<Integer, ConsensusInstance> instances = new HashMap<>();
 
     /**
-     * Contains unverified preprepares. Always discard all older prepares.
+     * Messages which arrived before the state they need, released when the window moves or their instance gets its preprepare.
      */
-    public Map<Integer, PrePrepareWrapper> unverifiedPrePrepare = new HashMap<>();
+    public final DeferredMessageBuffer deferredMessages = new DeferredMessageBuffer(Constants.DEFERRED_MESSAGE_LIMIT);
 
     /**
-     * Contains past preprepares //todo guava cache, delete after x
+     * Contains the executed preprepares, discarded once a later checkpoint is stable.
      */
     public Map<Integer, PrePrepareWrapper> pastPrePrepare = new HashMap<>();
 
-    /**
-     * Contains all prepares (Assumed for view id + 1).
-     */
-    public Set<PrepareWrapper> prepareSet = new HashSet<>();
-
     /**
      * The prepares which are still missing a preprepare.
      */
     public Map<Integer, List<PrepareWrapper>> unverifiedPrepareSet = new HashMap<>();
 
     /**
-     * Contains all commits, store past commits to let others recover.
+     * Contains all commits, store past commits to let others recover until a later checkpoint is stable.
      */
     public Map<Integer, List<CommitWrapper>> commitMap = new HashMap<>();
 
@@ -58,14 +83,34 @@ public class PbftServer extends Server
     public Map<Integer, List<CommitWrapper>> unverifiedcommitMap = new HashMap<>();
 
     /**
-     * Pending unregisters.
+     * Collects the checkpoints of the replicas.
      */
-    public Set<Integer> pendingUnregisters = new HashSet<>();
+    public final CheckpointTracker checkpoints = new CheckpointTracker();
+
+    /**
+     * The snapshots of the own checkpoints which aren't stable yet, by sequence number.
+     */
+    public final TreeMap<Integer, StateSnapshot> ownSnapshots = new TreeMap<>();
+
+    /**
+     * The snapshot of the stable checkpoint served to lagging replicas, null if this replica has none.
+     */
+    public StateSnapshot stableSnapshot = null;
+
+    /**
+     * The state transfer in progress, null if none.
+     */
+    public StateTransfer stateTransfer = null;
+
+    /**
+     * A fetched snapshot the commit validator has to install before applying further batches.
+     */
+    private final AtomicReference<StateSnapshot> snapshotToInstall = new AtomicReference<>();
 
     /**
-     * The current pbft state the replica is in.
+     * Pending unregisters.
      */
-    public PBFTState status = PBFTState.NULL;
+    public Set<Integer> pendingUnregisters = new HashSet<>();
 
     /**
      * Commit counter to monitor performance.
@@ -73,14 +118,67 @@ public class PbftServer extends Server
     public int counter = 0;
 
     /**
-     * Cache which holds the messages to send in the future (Produced by Server).
+     * Own checkpoints the commit validator couldn't add to the full input queue, drained by the message handler.
+     * The message handler may wait for room in the persistence queue, so the commit validator must never wait for it.
+     */
+    private final Queue<CheckpointWrapper> localCheckpoints = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Committed preprepares waiting to be persisted (Produced by the message handler only).
+     */
+    public final RingBuffer<PrePrepareWrapper> persistenceQueue = WaitStrategies.newRingBuffer(RingBuffer.ProducerType.SINGLE);
+
+    /**
+     * The durable log of the committed batches, written by the commit validator.
+     */
+    public final CommitLog commitLog;
+
+    /**
+     * Reads the commit log to serve commit recovery requests, used by the message handler.
      */
-    public final LinkedBlockingQueue<PrePrepareWrapper> persistenceQueue = new LinkedBlockingQueue<>();
+    public final CommitLogReader commitLogReader;
 
     /**
-     * List of pending client messages to be proposed.
+     * The client requests waiting to be proposed.
      */
-    private List<MessageProto.PersistClientMessage> pendingClientLog = new ArrayList<>();
+    private final Mempool mempool = new Mempool(Constants.MEMPOOL_MAX_BYTES, Constants.MEMPOOL_CLIENT_QUANTUM, Constants.MEMPOOL_DEDUPE_CACHE_SIZE);
+
+    /**
+     * The number of waiting client requests, readable without the lock.
+     */
+    private volatile int pendingClientCount = 0;
+
+    /**
+     * If a propose tick is waiting in the input queue already.
+     */
+    private final AtomicBoolean proposalScheduled = new AtomicBoolean(false);
+
+    /**
+     * Decides when and how much of the pending client log is proposed.
+     */
+    public final BatchPolicy batchPolicy = new BatchPolicy(
+      Constants.BATCH_SIZE,
+      Constants.BATCH_MIN_SIZE,
+      Constants.BATCH_MAX_SIZE,
+      Constants.BATCH_MAX_BYTES,
+      TimeUnit.MICROSECONDS.toNanos(Constants.BATCH_LINGER_MICROS),
+      Constants.BATCH_ADAPTIVE,
+      TimeUnit.MILLISECONDS.toNanos(Constants.BATCH_TARGET_LATENCY_MILLIS));
+
+    /**
+     * Applies the committed batches to the state, used by the commit validator.
+     */
+    public final BatchExecutor batchExecutor = new BatchExecutor(Constants.EXECUTION_THREADS, Constants.EXECUTION_PARALLEL_THRESHOLD);
+
+    /**
+     * Validates the balances of the batches on arrival of their preprepares, used by the message handler.
+     */
+    public final SpeculativeValidator speculativeValidator = new SpeculativeValidator();
+
+    /**
+     * The next sequence number the coordinator assigns to a proposal.
+     */
+    private int nextSequence = 0;
 
     /*
      * Loader for the Message handler.
@@ -101,7 +199,10 @@ public class PbftServer extends Server
     public PbftServer(final int id, final String ip, final int port)
     {
         super(id, ip, port);
+        this.commitLog = openCommitLog();
+        this.commitLogReader = new CommitLogReader(commitLog.getDirectory(), Constants.COMMIT_LOG_INDEX_INTERVAL);
         new CommitValidator(this).start();
+        new BatchTimer(this).start();
     }
 
     /**
@@ -112,11 +213,32 @@ public class PbftServer extends Server
     public PbftServer(final int id)
     {
         super(id);
+        this.commitLog = openCommitLog();
+        this.commitLogReader = new CommitLogReader(commitLog.getDirectory(), Constants.COMMIT_LOG_INDEX_INTERVAL);
         new CommitValidator(this).start();
+        new BatchTimer(this).start();
+    }
+
+    /**
+     * Open the commit log of this server.
+     * @return the log.
+     */
+    private CommitLog openCommitLog()
+    {
+        final Path directory = Paths.get(Constants.COMMIT_LOG_LOCATION, "server-" + getServerData().getId());
+        try
+        {
+            return new CommitLog(directory, Constants.COMMIT_LOG_SEGMENT_BYTES, Constants.COMMIT_LOG_SYNC_BATCHES, TimeUnit.MICROSECONDS.toNanos(Constants.COMMIT_LOG_SYNC_MICROS));
+        }
+        catch (final IOException e)
+        {
+            throw new IllegalStateException("Unable to open the commit log at " + directory, e);
+        }
     }
 
     /**
      * The commit validator thread.
+     * Validates the committed batches, appends them to the commit log and applies them once they are synced.
      */
     public class CommitValidator extends Thread
     {
@@ -137,43 +259,301 @@ public class PbftServer extends Server
         @Override
         public void run()
         {
+            final List<PrePrepareWrapper> batch = new ArrayList<>(Constants.DRAIN_BATCH_SIZE);
+            final List<PrePrepareWrapper> unsynced = new ArrayList<>();
+            final List<BatchEffects> group = new ArrayList<>();
+            final DeltaOverlay pending = new DeltaOverlay();
+            final TreeMap<Integer, ByteString> validated = new TreeMap<>();
+            long[] balances = new long[0];
+            long reusedCount = 0;
+            int installedSequence = -1;
             while ( true )
             {
                 try
                 {
-                    final PrePrepareWrapper prep = server.persistenceQueue.take();
+                    server.persistenceQueue.drainTo(batch, Constants.DRAIN_BATCH_SIZE);
+                }
+                catch (InterruptedException e)
+                {
+                    // Waking up.
+                    continue;
+                }
+
+                // A fetched snapshot replaces everything up to its checkpoint, it was handed over before the batches after it.
+                final StateSnapshot snapshot = server.snapshotToInstall.getAndSet(null);
+                if (snapshot != null)
+                {
+                    final int replaced = server.state.install(snapshot.getBucketHashes(), snapshot.getBuckets(), snapshot.getSequence());
+                    if (replaced < 0)
+                    {
+                        Log.getLogger().error("Unable to install the state at " + snapshot.getSequence() + ", it has another number of buckets");
+                    }
+                    else
+                    {
+                        Log.getLogger().warn("Replaced " + replaced + " buckets by the state at " + snapshot.getSequence());
+                        installedSequence = snapshot.getSequence();
+                        unsynced.clear();
+                        pending.clear();
+                        validated.clear();
+                    }
+                }
+
+                for (final PrePrepareWrapper prep : batch)
+                {
+                    if (prep.getMessage().getPrePrepare().getView().getId() <= installedSequence)
+                    {
+                        continue;
+                    }
 
                     // Verify is message log is valid.
-                    if (!ValidationUtils.isMessageLogValid(prep.message.getPrePrepare(), server))
+                    if (!prep.clientSignaturesVerified && !server.verificationStage.verifyClientSignatures(prep.getMessage().getPrePrepare()))
                     {
+                        Log.getLogger().warn("Invalid signature from client!");
                         return;
                     }
 
-                    prep.getMessage().getPrePrepare().getInputList().forEach(
-                      m -> {
-                          server.persist(m.getMsg());
-                          server.counter++;
-                      });
+                    // Validated against the applied state plus the batches before it which aren't applied yet,
+                    // unless the speculation from its arrival was made against exactly these batches.
+                    if (prep.effects == null)
+                    {
+                        prep.effects = BatchEffects.of(prep.getMessage().getPrePrepare());
+                    }
 
-                    Log.getLogger().warn(server.counter);
-                    //state.forEach((key, value) -> Log.getLogger().warn("New State for client: " + key.getEncoded()[0] + ": " + value));
+                    final int sequence = prep.getMessage().getPrePrepare().getView().getId();
+                    if (SpeculativeValidator.holds(prep.speculation, validated))
+                    {
+                        reusedCount++;
+                        if (prep.speculation.getVerdict() != Speculation.Verdict.VALID)
+                        {
+                            Log.getLogger().warn("----------------------------------------------------------------\n"
+                                                   + "Transactions tried to debit invalid quantity! (speculated)"
+                                                   + "\n----------------------------------------------------------------");
+                            return;
+                        }
+                    }
+                    else
+                    {
+                        if (balances.length < prep.effects.size())
+                        {
+                            balances = new long[prep.effects.size()];
+                        }
+                        server.state.readBalances(prep.effects.getFingerprints(), prep.effects.size(), balances);
+                        if (!ValidationUtils.isMessageLogValid(prep.effects, balances, pending))
+                        {
+                            return;
+                        }
+                    }
+                    pending.add(prep.effects);
+                    validated.put(sequence, prep.getMessage().getSig());
+                    while (validated.size() > Constants.SPECULATION_HISTORY)
+                    {
+                        validated.pollFirstEntry();
+                    }
+
+                    try
+                    {
+                        server.commitLog.append(prep.toCommitStorage());
+                    }
+                    catch (final IOException e)
+                    {
+                        Log.getLogger().error("Unable to append to the commit log, stopping to apply commits", e);
+                        return;
+                    }
+                    unsynced.add(prep);
                 }
-                catch (InterruptedException e)
+                batch.clear();
+
+                // Sync once for the whole group, batches are only applied when they are durable.
+                if (!server.commitLog.isSyncDue(server.persistenceQueue.isEmpty()))
                 {
-                    // Waking up.
+                    continue;
+                }
+
+                try
+                {
+                    server.commitLog.sync();
+                }
+                catch (final IOException e)
+                {
+                    Log.getLogger().error("Unable to sync the commit log, stopping to apply commits", e);
+                    return;
                 }
+
+                // Apply the batches together, only a checkpoint needs the state right after its instance.
+                for (final PrePrepareWrapper prep : unsynced)
+                {
+                    group.add(prep.effects);
+                    final int sequence = prep.getMessage().getPrePrepare().getView().getId();
+                    if ((sequence + 1) % Constants.CHECKPOINT_INTERVAL == 0)
+                    {
+                        server.counter += server.batchExecutor.execute(group, server.state);
+                        group.clear();
+                        server.checkpoint(sequence);
+                    }
+                }
+                server.counter += server.batchExecutor.execute(group, server.state);
+                group.clear();
+                unsynced.clear();
+                pending.clear();
+
+                Log.getLogger().warn(server.counter + " (" + reusedCount + " speculatively validated)");
+                //state.forEach((key, value) -> Log.getLogger().warn("New State for client: " + key.getEncoded()[0] + ": " + value));
             }
         }
     }
+
+    /**
+     * Makes the message handler propose batches whose oldest message waited for the linger time, even if no further client message arrives.
+     */
+    public static class BatchTimer extends Thread
+    {
+        /**
+         * The server this belongs to.
+         */
+        private final PbftServer server;
+
+        /**
+         * Create the timer of a server.
+         * @param server the server to propose for.
+         */
+        public BatchTimer(final PbftServer server)
+        {
+            super("BatchTimer");
+            this.server = server;
+            this.setDaemon(true);
+        }
+
+        @Override
+        public void run()
+        {
+            final long linger = server.batchPolicy.getLingerNanos();
+            while (true)
+            {
+                LockSupport.parkNanos(Math.max(linger / 2, 1));
+                if (server.pendingClientCount > 0)
+                {
+                    server.scheduleProposal();
+                }
+            }
+        }
+    }
+
     /**
      * Persist the current consensus result.
      * @param prep the prepare to commit.
+     * @param signatures the prepare signatures proving the commit.
      */
-    public void persistConsensusResult(final PrePrepareWrapper prep)
+    public void persistConsensusResult(final PrePrepareWrapper prep, final List<MessageProto.Signature> signatures)
     {
+       prep.commitSignatures = signatures;
        persistenceQueue.add(prep);
     }
 
+    /**
+     * Send the checkpoint of the state after executing an instance to all replicas and count it locally.
+     * Called by the commit validator right after applying the instance.
+     * @param sequence the sequence number of the instance.
+     */
+    public void checkpoint(final int sequence)
+    {
+        final CheckpointWrapper checkpoint = new CheckpointWrapper(this, StateSnapshot.capture(sequence, state));
+        this.outputQueue.add(new BroadcastOperation(checkpoint));
+
+        // Behind earlier ones which didn't fit, so the message handler counts them in order. The handler drains them after
+        // its next input at the latest, the checkpoints of the other replicas for the same sequence are on the way.
+        if (!localCheckpoints.isEmpty() || !inputQueue.offer(checkpoint))
+        {
+            localCheckpoints.add(checkpoint);
+        }
+    }
+
+    /**
+     * Called by the message handler when a checkpoint turned stable.
+     * Keeps the own snapshot of it to serve state transfers, discards what it made obsolete and
+     * fetches the buckets of its snapshot which differ from the latest own one if this replica is more than a checkpoint interval behind.
+     * @param provider a replica which certified the checkpoint.
+     */
+    public void onStableCheckpoint(final int provider)
+    {
+        final int stable = checkpoints.getStableSequence();
+        final StateSnapshot own = ownSnapshots.get(stable);
+        final Map.Entry<Integer, StateSnapshot> latestOwn = ownSnapshots.floorEntry(stable);
+        final StateSnapshot base = latestOwn == null ? stableSnapshot : latestOwn.getValue();
+        if (own != null && checkpoints.stableMatchesOwn())
+        {
+            stableSnapshot = own;
+        }
+        ownSnapshots.headMap(stable, true).clear();
+        collectGarbage();
+        logStatistics(stable);
+
+        if (stable >= getLowWatermark() + Constants.CHECKPOINT_INTERVAL
+              && provider != getServerData().getId()
+              && (stateTransfer == null || stateTransfer.getSequence() < stable))
+        {
+            Log.getLogger().warn(getServerData().getId() + " Fetching the state at " + stable + " from " + provider + " (at " + getLowWatermark() + ")");
+            stateTransfer = new StateTransfer(stable, checkpoints.getStableDigest(), provider, Constants.STATE_TREE_FANOUT, state.getBucketCount(), base);
+            this.outputQueue.add(new UnicastOperation(new RequestStateTransferWrapper(this, stable, new byte[0]), provider));
+        }
+    }
+
+    /**
+     * Log the counters of the stages once per stable checkpoint.
+     * @param stable the stable checkpoint.
+     */
+    private void logStatistics(final int stable)
+    {
+        final String mempoolStatistics;
+        synchronized (mempool)
+        {
+            mempoolStatistics = mempool.toString();
+        }
+        Log.getLogger().warn(getServerData().getId() + " Stable checkpoint at " + stable + ": " + VerifiedSignatureCache.getStatistics() + ", " + deferredMessages + ", " + mempoolStatistics);
+    }
+
+    /**
+     * Continue after a snapshot fetched by state transfer, the instances up to its checkpoint aren't executed one by one.
+     * The commit validator installs it before the next batch, the commits after it are recovered from the provider.
+     * @param snapshot the verified snapshot.
+     * @param provider the replica it was fetched from.
+     */
+    public void installSnapshot(final StateSnapshot snapshot, final int provider)
+    {
+        // Caught up by commit recovery meanwhile.
+        if (snapshot.getSequence() < getLowWatermark())
+        {
+            return;
+        }
+
+        this.snapshotToInstall.set(snapshot);
+        this.speculativeValidator.discard(snapshot.getSequence());
+        this.getView().setId(snapshot.getSequence() + 1);
+        this.stableSnapshot = snapshot;
+        collectGarbage();
+        executeCommittedInstances();
+        this.outputQueue.add(new UnicastOperation(new RequestRecoverCommitWrapper(this, getLowWatermark()), provider));
+    }
+
+    /**
+     * Discard the consensus state the stable checkpoint made obsolete.
+     * Executed instances up to the stable checkpoint are dropped from memory, the commit log keeps the records
+     * from the previous stable checkpoint on, so replicas which are slightly behind can still recover by commits.
+     */
+    public void collectGarbage()
+    {
+        final int executed = Math.min(checkpoints.getStableSequence(), getLowWatermark() - 1);
+        this.pastPrePrepare.keySet().removeIf(id -> id <= executed);
+        this.commitMap.keySet().removeIf(id -> id <= executed);
+        this.unverifiedcommitMap.keySet().removeIf(id -> id <= executed);
+        this.unverifiedPrepareSet.keySet().removeIf(id -> id <= executed);
+
+        final int deleted = this.commitLogReader.truncateBefore(Math.min(checkpoints.getPreviousStableSequence(), executed) + 1);
+        if (deleted > 0)
+        {
+            Log.getLogger().warn("Deleted " + deleted + " commit log segments before " + checkpoints.getPreviousStableSequence());
+        }
+    }
+
     /**
      * Start an instance of a server
      * @param args the arguments of the server (id, ip, host)
@@ -203,62 +583,149 @@ public class PbftServer extends Server
     }
 
     /**
-     * Update the state of the current server.
+     * Get the low watermark, the lowest sequence number which is not executed yet.
+     * @return the low watermark.
+     */
+    public int getLowWatermark()
+    {
+        return this.view.getId();
+    }
+
+    /**
+     * Validate the batches whose preprepares arrived speculatively, before they commit.
+     * The commit validator reuses the verdicts which still hold when it reaches them.
      */
-    public void updateState()
+    public void speculate()
     {
-        if (this.status == PBFTState.NULL)
+        speculativeValidator.speculate(sequence ->
+        {
+            final ConsensusInstance instance = this.instances.get(sequence);
+            return instance == null ? this.pastPrePrepare.get(sequence) : instance.prePrepare;
+        }, getLowWatermark(), state);
+    }
+
+    /**
+     * Get the high watermark, the highest sequence number which may currently be in flight.
+     * @return the high watermark.
+     */
+    public int getHighWatermark()
+    {
+        return this.view.getId() + Constants.PIPELINE_WINDOW - 1;
+    }
+
+    /**
+     * Get the consensus instance for a sequence number and create it if missing.
+     * @param sequence the sequence number.
+     * @return the instance.
+     */
+    public ConsensusInstance getOrCreateInstance(final int sequence)
+    {
+        return this.instances.computeIfAbsent(sequence, ConsensusInstance::new);
+    }
+
+    /**
+     * Update the state of a consensus instance of the current server.
+     * @param sequence the sequence number of the instance.
+     */
+    public void updateState(final int sequence)
+    {
+        final ConsensusInstance instance = this.instances.get(sequence);
+        if (instance == null || instance.prePrepare == null)
+        {
+            return;
+        }
+
+        if (instance.status == PBFTState.NULL)
         {
-            this.status = PBFTState.PREPARE;
+            instance.status = PBFTState.PREPARE;
         }
-        final int msgViewId = currentPrePrepare.getFirst();
+
+        // Prepares which arrived before the preprepare can be handled now.
+        this.deferredMessages.release(sequence);
 
         // Check if we have univerified prepares.
-        if (!this.unverifiedPrepareSet.getOrDefault(msgViewId, new ArrayList<>()).isEmpty())
+        final List<PrepareWrapper> unverifiedPrepares = this.unverifiedPrepareSet.remove(sequence);
+        if (unverifiedPrepares != null)
         {
-            this.prepareSet.addAll(this.unverifiedPrepareSet.getOrDefault(msgViewId, new ArrayList<>()).stream().filter(this::validatePrepare).collect(Collectors.toList()));
-            this.unverifiedPrepareSet.remove(msgViewId);
+            instance.prepareSet.addAll(unverifiedPrepares.stream().filter(prepare -> validatePrepare(prepare, instance.prePrepare)).collect(Collectors.toList()));
         }
 
         // Check if we have enough verified prepares to advance state.
-        if (this.prepareSet.size() >= this.view.getQuorumSize() && this.status == PBFTState.PREPARE)
+        if (instance.prepareSet.size() >= this.view.getQuorumSize() && instance.status == PBFTState.PREPARE)
         {
-            //Log.getLogger().warn("Broadcasting commit on: " + this.getServerData().getId() + " at view: " + this.view.getId());
-            this.outputQueue.add(new BroadcastOperation(CommitWrapper.createCommitWrapper(this, this.prepareSet.toArray(new PrepareWrapper[0]))));
-            this.status = PBFTState.COMMIT;
+            //Log.getLogger().warn("Broadcasting commit on: " + this.getServerData().getId() + " at view: " + sequence);
+            this.outputQueue.add(new BroadcastOperation(CommitWrapper.createCommitWrapper(this, instance.prepareSet.toArray(new PrepareWrapper[0]))));
+            instance.status = PBFTState.COMMIT;
         }
 
         // Check if we have unverified commits.
-        if (!this.unverifiedcommitMap.getOrDefault(msgViewId, new ArrayList<>()).isEmpty())
+        final List<CommitWrapper> unverifiedCommits = this.unverifiedcommitMap.remove(sequence);
+        if (unverifiedCommits != null)
         {
-            final List<CommitWrapper> list = this.unverifiedcommitMap.remove(msgViewId);
-            list.removeIf(item -> !validateCommit(item));
-
-            this.commitMap.put(msgViewId, list);
+            unverifiedCommits.removeIf(item -> !validateCommit(item, instance.prePrepare));
+            this.commitMap.computeIfAbsent(sequence, id -> new ArrayList<>()).addAll(unverifiedCommits);
         }
 
         // Check if we have enough verified commits to advance state.
-        if (this.commitMap.getOrDefault(msgViewId, new ArrayList<>()).size() >= this.view.getQuorumSize())
+        if (this.commitMap.getOrDefault(sequence, new ArrayList<>()).size() >= this.view.getQuorumSize())
         {
-            this.getView().updateView(this.currentPrePrepare.getSecond().getMessage().getPrePrepare().getView(), this);
-            this.pastPrePrepare.put(currentPrePrepare.getFirst(), currentPrePrepare.getSecond());
-            final Pair<Integer, PrePrepareWrapper> prep = this.currentPrePrepare;
-            this.persistConsensusResult(prep.getSecond());
-            this.currentPrePrepare = null;
-            this.prepareSet.clear();
-            this.status = PBFTState.NULL;
+            instance.status = PBFTState.COMMITTED;
+        }
+
+        executeCommittedInstances();
+    }
+
+    /**
+     * Execute all committed instances starting at the low watermark, strictly in sequence order.
+     * Stops at the first instance which is not committed yet.
+     */
+    public void executeCommittedInstances()
+    {
+        final int lowWatermark = getLowWatermark();
+        final int coordinator = this.getView().getCoordinator();
+        ConsensusInstance next = this.instances.get(lowWatermark);
+        while (next != null && next.isCommitted())
+        {
+            this.instances.remove(next.sequence);
+            this.getView().updateView(next.prePrepare.getMessage().getPrePrepare().getView(), this);
+            this.pastPrePrepare.put(next.sequence, next.prePrepare);
+            final List<CommitWrapper> commits = this.commitMap.get(next.sequence);
+            this.persistConsensusResult(next.prePrepare, commits == null || commits.isEmpty()
+                                                           ? Collections.emptyList() : commits.get(0).getMessage().getCommit().getSignaturesList());
+            this.batchPolicy.onExecuted(next.sequence, System.nanoTime());
+            next = this.instances.get(getLowWatermark());
+        }
+
+        // Instances which were overtaken (e.g. by recovery) can't be executed anymore.
+        this.instances.keySet().removeIf(id -> id < getLowWatermark());
+
+        // Batches speculated on under another coordinator may be replaced.
+        if (this.getView().getCoordinator() != coordinator)
+        {
+            this.speculativeValidator.discard(getLowWatermark() - 1);
+        }
+
+        // Messages beyond the old window can be handled now.
+        this.deferredMessages.discardBelow(getLowWatermark());
+        this.deferredMessages.releaseUpTo(getHighWatermark());
+
+        // The window moved, client messages held back by it can be proposed now.
+        if (getLowWatermark() != lowWatermark)
+        {
+            proposePending();
         }
     }
 
     /**
      * Validate if the commit message is valid (hash matches preprepare)
      * @param message the message to check.
+     * @param prePrepare the preprepare of the instance the commit belongs to.
      * @return true if so.
      */
-    public boolean validateCommit(final CommitWrapper message)
+    public boolean validateCommit(final CommitWrapper message, final PrePrepareWrapper prePrepare)
     {
         // Check if commit hash matches preprepare hash.
-        if (!Arrays.equals(message.getMessage().getCommit().getInputHash().toByteArray(), this.currentPrePrepare.getSecond().message.getSig().toByteArray()))
+        if (!Arrays.equals(message.getMessage().getCommit().getInputHash().toByteArray(), prePrepare.getMessage().getSig().toByteArray()))
         {
             Log.getLogger().warn("----------------------------------------------------------------\n"
                                    + "Commit doesn't match Preprepare! (" + message.getSender() + ")"
@@ -276,7 +743,7 @@ public class PbftServer extends Server
         }
 
         // Check if commit has enough valid signatures in general.
-        if (!ValidationUtils.verifyCommit(message.getMessage().getCommit().getSignaturesList(), this))
+        if (!ValidationUtils.verifyCommit(message.getMessage().getCommit().getSignaturesList(), this, prePrepare))
         {
             Log.getLogger().warn("----------------------------------------------------------------\n"
                                    + "Commit doesn't have enough valid signatures! (" + message.getSender() + ")"
@@ -290,11 +757,12 @@ public class PbftServer extends Server
     /**
      * Validate if the prepare message is valid (hash matches preprepare)
      * @param message the message to check.
+     * @param prePrepare the preprepare of the instance the prepare belongs to.
      * @return true if so.
      */
-    public boolean validatePrepare(final IMessageWrapper message)
+    public boolean validatePrepare(final IMessageWrapper message, final PrePrepareWrapper prePrepare)
     {
-        if (!Arrays.equals(message.getMessage().getPrepare().getInputHash().toByteArray(), this.currentPrePrepare.getSecond().message.getSig().toByteArray()))
+        if (!Arrays.equals(message.getMessage().getPrepare().getInputHash().toByteArray(), prePrepare.getMessage().getSig().toByteArray()))
         {
             Log.getLogger().warn("----------------------------------------------------------------\n"
                                    + "Prepare doesn't match Preprepare! (" + message.getSender() + ")"
@@ -313,9 +781,10 @@ public class PbftServer extends Server
     @Nullable
     public PrePrepareWrapper getPrePrepareForId(final int id)
     {
-        if (currentPrePrepare != null && currentPrePrepare.getFirst() == id)
+        final ConsensusInstance instance = instances.get(id);
+        if (instance != null && instance.prePrepare != null)
         {
-            return currentPrePrepare.getSecond();
+            return instance.prePrepare;
         }
         return pastPrePrepare.getOrDefault(id, null);
     }
@@ -323,14 +792,93 @@ public class PbftServer extends Server
     @Override
     public void handleClientMessage(final MessageProto.Message message)
     {
-        pendingClientLog.add(new PersistClientMessageWrapper(this, message.getClientMsg(), message.getSig()).message.getPersClientMsg());
-        if ( pendingClientLog.size() > 200 && getView().getCoordinator() == getServerData().getId() && status == PBFTState.NULL)
+        final MessageProto.PersistClientMessage persistMessage
+          = new PersistClientMessageWrapper(this, message.getClientMsg(), message.getSig()).getMessage().getPersClientMsg();
+        synchronized (mempool)
+        {
+            if (mempool.add(persistMessage, System.nanoTime()) != Mempool.AddResult.ADDED)
+            {
+                return;
+            }
+            pendingClientCount = mempool.size();
+        }
+        scheduleProposal();
+    }
+
+    /**
+     * Ask the message handler to propose the pending client messages, unless it was asked already.
+     * Called by the client message handler and the batch timer, which must not read the view themselves.
+     */
+    public void scheduleProposal()
+    {
+        if (proposalScheduled.compareAndSet(false, true))
+        {
+            addToInputQueue(ProposeTickWrapper.INSTANCE);
+        }
+    }
+
+    @Override
+    public void handleMessage(final IMessageWrapper message)
+    {
+        if (message == ProposeTickWrapper.INSTANCE)
         {
-            Log.getLogger().warn(pendingClientLog.size());
-            this.outputQueue.add(new BroadcastOperation(PrePrepareWrapper.createPrePrepareWrapper(this, pendingClientLog)));
-            pendingClientLog.clear();
-            status = PBFTState.PREPARE;
+            proposalScheduled.set(false);
+            proposePending();
+            return;
         }
+        super.handleMessage(message);
+    }
+
+    /**
+     * Propose the pending client messages as long as the batch policy wants a batch and the window has room for another instance.
+     * Called by the message handler for propose ticks (new client messages and the batch timer)
+     * and whenever executed instances moved the window.
+     */
+    public void proposePending()
+    {
+        synchronized (mempool)
+        {
+            if (getView().getCoordinator() != getServerData().getId())
+            {
+                return;
+            }
+
+            final long now = System.nanoTime();
+            int sequence = Math.max(nextSequence, getLowWatermark());
+            while (sequence <= getHighWatermark() && batchPolicy.isReady(mempool.size(), mempool.getBytes(), mempool.getOldestNanos(), now))
+            {
+                final List<MessageProto.PersistClientMessage> batch = mempool.drain(batchPolicy.cut(mempool.peek(batchPolicy.getMaxSize())));
+                this.outputQueue.add(new BroadcastOperation(PrePrepareWrapper.createPrePrepareWrapper(this, batch, sequence)));
+                pendingClientCount = mempool.size();
+                batchPolicy.onProposed(sequence, now, sequence == getHighWatermark());
+                nextSequence = ++sequence;
+                clientBackpressure.onDrain();
+            }
+        }
+    }
+
+    @Override
+    public void handleReleasedMessages()
+    {
+        CheckpointWrapper checkpoint = localCheckpoints.poll();
+        while (checkpoint != null)
+        {
+            handleMessage(checkpoint);
+            checkpoint = localCheckpoints.poll();
+        }
+
+        IMessageWrapper released = deferredMessages.pollReleased();
+        while (released != null)
+        {
+            handleMessage(released);
+            released = deferredMessages.pollReleased();
+        }
+    }
+
+    @Override
+    public int getPendingClientLoad()
+    {
+        return super.getPendingClientLoad() + pendingClientCount;
     }
 
     @Override
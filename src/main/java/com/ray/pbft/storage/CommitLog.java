@@ -0,0 +1,377 @@
+package com.ray.pbft.storage;
+
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.utils.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append only log of the committed batches, split into segments of a maximum size.
+ * Every record is a CommitStorage framed by its length and CRC32C: [int length][int crc][bytes].
+ * Segments are numbered in the order they were started.
+ * Appends are only written to the file, sync forces them to disk once for a whole group of batches.
+ * Not thread safe, only the commit validator writes to it.
+ */
+public class CommitLog
+{
+    /**
+     * The size of the record header (length and crc).
+     */
+    public static final int HEADER_SIZE = 8;
+
+    /**
+     * The file extension of the segments.
+     */
+    public static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * The directory of the segments.
+     */
+    private final Path directory;
+
+    /**
+     * The size after which a new segment is started.
+     */
+    private final long segmentBytes;
+
+    /**
+     * The number of unsynced batches after which sync is due.
+     */
+    private final int syncBatches;
+
+    /**
+     * The time in nanoseconds after which unsynced batches are due.
+     */
+    private final long syncNanos;
+
+    /**
+     * The checksum of the records.
+     */
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * The header of the record being written.
+     */
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+    /**
+     * The segment appended to.
+     */
+    private FileChannel segment;
+
+    /**
+     * The number of the segment appended to (-1 before the first).
+     */
+    private long segmentIndex = -1;
+
+    /**
+     * The write position in the segment.
+     */
+    private long position;
+
+    /**
+     * The number of batches appended since the last sync.
+     */
+    private int unsynced = 0;
+
+    /**
+     * The time the oldest unsynced batch was appended, in nanoseconds.
+     */
+    private long firstUnsyncedNanos = 0;
+
+    /**
+     * The number of batches appended so far.
+     */
+    private long appendCount = 0;
+
+    /**
+     * The number of syncs so far.
+     */
+    private long syncCount = 0;
+
+    /**
+     * Open the log in a directory, continuing after the last valid record.
+     * @param directory the directory of the segments, created if missing.
+     * @param segmentBytes the size after which a new segment is started.
+     * @param syncBatches the number of unsynced batches after which sync is due.
+     * @param syncNanos the time in nanoseconds after which unsynced batches are due.
+     * @throws IOException if the directory or the last segment can't be opened.
+     */
+    public CommitLog(@NotNull final Path directory, final long segmentBytes, final int syncBatches, final long syncNanos) throws IOException
+    {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncBatches = Math.max(1, syncBatches);
+        this.syncNanos = syncNanos;
+
+        Files.createDirectories(directory);
+        final List<Path> segments = listSegments(directory);
+        if (!segments.isEmpty())
+        {
+            final Path last = segments.get(segments.size() - 1);
+            segmentIndex = segmentIndex(last);
+            openLastSegment(last);
+        }
+    }
+
+    /**
+     * Append a committed batch, it is durable after the next sync.
+     * @param storage the batch.
+     * @throws IOException if writing fails.
+     */
+    public void append(@NotNull final MessageProto.CommitStorage storage) throws IOException
+    {
+        final byte[] payload = storage.toByteArray();
+        if (segment == null || (position > 0 && position + HEADER_SIZE + payload.length > segmentBytes))
+        {
+            roll();
+        }
+
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        header.clear();
+        header.putInt(payload.length).putInt((int) crc.getValue()).flip();
+
+        final ByteBuffer[] record = {header, ByteBuffer.wrap(payload)};
+        long remaining = HEADER_SIZE + payload.length;
+        while (remaining > 0)
+        {
+            remaining -= segment.write(record);
+        }
+        position += HEADER_SIZE + payload.length;
+
+        if (unsynced++ == 0)
+        {
+            firstUnsyncedNanos = System.nanoTime();
+        }
+        appendCount++;
+    }
+
+    /**
+     * Check if the appended batches should be synced now.
+     * @param idle true if no further batch is waiting to be appended, then waiting for more would only add latency.
+     * @return true if so.
+     */
+    public boolean isSyncDue(final boolean idle)
+    {
+        return unsynced > 0 && (idle || unsynced >= syncBatches || System.nanoTime() - firstUnsyncedNanos >= syncNanos);
+    }
+
+    /**
+     * Force the appended batches to disk.
+     * @throws IOException if syncing fails.
+     */
+    public void sync() throws IOException
+    {
+        if (unsynced == 0)
+        {
+            return;
+        }
+        segment.force(false);
+        unsynced = 0;
+        syncCount++;
+    }
+
+    /**
+     * Sync and close the current segment.
+     * @throws IOException if syncing or closing fails.
+     */
+    public void close() throws IOException
+    {
+        if (segment != null)
+        {
+            sync();
+            segment.close();
+            segment = null;
+        }
+    }
+
+    /**
+     * Get the number of batches appended so far.
+     * @return the number.
+     */
+    public long getAppendCount()
+    {
+        return appendCount;
+    }
+
+    /**
+     * Get the number of syncs so far.
+     * @return the number.
+     */
+    public long getSyncCount()
+    {
+        return syncCount;
+    }
+
+    /**
+     * Get the directory of the segments.
+     * @return the directory.
+     */
+    @NotNull
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * List the segments of a log in log order.
+     * @param directory the directory of the log.
+     * @return the segment files.
+     * @throws IOException if the directory can't be read.
+     */
+    @NotNull
+    public static List<Path> listSegments(@NotNull final Path directory) throws IOException
+    {
+        if (!Files.isDirectory(directory))
+        {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.filter(file -> file.getFileName().toString().matches("\\d+\\" + SEGMENT_SUFFIX)).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Get the file name of a segment.
+     * @param index the number of the segment.
+     * @return the file name.
+     */
+    @NotNull
+    public static String segmentName(final long index)
+    {
+        return String.format("%010d%s", index, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Get the number of a segment from its file name.
+     * @param file the segment.
+     * @return the number.
+     */
+    public static long segmentIndex(@NotNull final Path file)
+    {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Read the record at a position of a segment.
+     * @param buffer the segment content, positioned at the record and advanced past it if valid.
+     * @return the record or null if the end of the valid records is reached (end of file, torn or corrupt record).
+     */
+    @Nullable
+    public static MessageProto.CommitStorage readRecord(@NotNull final ByteBuffer buffer)
+    {
+        final int start = buffer.position();
+        final ByteBuffer payload = nextPayload(buffer);
+        if (payload == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return MessageProto.CommitStorage.parseFrom(payload);
+        }
+        catch (final IOException e)
+        {
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    /**
+     * Locate the payload of the record at a position of a segment and check its CRC.
+     * @param buffer the segment content, positioned at the record and advanced past it if valid.
+     * @return a slice of the serialized CommitStorage sharing the memory of the buffer,
+     *         or null if the end of the valid records is reached (end of file, torn or corrupt record).
+     */
+    @Nullable
+    public static ByteBuffer nextPayload(@NotNull final ByteBuffer buffer)
+    {
+        if (buffer.remaining() < HEADER_SIZE)
+        {
+            return null;
+        }
+
+        final int start = buffer.position();
+        final int length = buffer.getInt(start);
+        final int expected = buffer.getInt(start + 4);
+        if (length < 0 || length > buffer.remaining() - HEADER_SIZE)
+        {
+            return null;
+        }
+
+        final ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + length);
+        final CRC32C check = new CRC32C();
+        check.update(payload.duplicate());
+        if ((int) check.getValue() != expected)
+        {
+            return null;
+        }
+
+        buffer.position(start + HEADER_SIZE + length);
+        return payload.slice();
+    }
+
+    /**
+     * Continue appending to the last segment, cutting off a torn record at its end.
+     * @param file the last segment.
+     * @throws IOException if it can't be read.
+     */
+    private void openLastSegment(final Path file) throws IOException
+    {
+        segment = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final ByteBuffer content = ByteBuffer.allocate((int) segment.size());
+        while (content.hasRemaining() && segment.read(content) >= 0)
+        {
+            /*
+             * Read until full.
+             */
+        }
+        content.flip();
+
+        while (nextPayload(content) != null)
+        {
+            /*
+             * Skip the valid records.
+             */
+        }
+
+        position = content.position();
+        if (position < segment.size())
+        {
+            Log.getLogger().warn("Truncating torn commit log record at " + position + " of " + file);
+            segment.truncate(position);
+            segment.force(true);
+        }
+        segment.position(position);
+    }
+
+    /**
+     * Close the current segment and start the next one.
+     * @throws IOException if the segments can't be synced or created.
+     */
+    private void roll() throws IOException
+    {
+        close();
+        segment = FileChannel.open(directory.resolve(segmentName(++segmentIndex)), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        position = 0;
+    }
+}
@@ -0,0 +1,416 @@
+package com.ray.pbft.storage;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.utils.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the commit log, the closed segments through memory mappings at their final size and the tail of the segment
+ * the log appends to through its channel, so a growing segment is never remapped.
+ * Keeps a sparse index from sequence number (view id) to record position, with the first record of every segment
+ * and every n-th record, and walks the few records from the closest indexed one to the requested sequence.
+ * Records are returned parsed with aliasing, their bytes fields share the mapped (or read) memory instead of being copied.
+ * New records are indexed lazily before every lookup. Not thread safe, only the message handler reads.
+ * Segments made obsolete by a stable checkpoint are deleted through the reader, never the one the log appends to.
+ */
+public class CommitLogReader
+{
+    /**
+     * Number of the view field in a CommitStorage.
+     */
+    private static final int VIEW_FIELD = 3;
+
+    /**
+     * Number of the id field in a View.
+     */
+    private static final int VIEW_ID_FIELD = 1;
+
+    /**
+     * Position of a record in the log.
+     */
+    private static final class Position
+    {
+        /**
+         * The number of the segment.
+         */
+        private final long segment;
+
+        /**
+         * The offset of the record header in the segment.
+         */
+        private final int offset;
+
+        /**
+         * Create a position.
+         * @param segment the number of the segment.
+         * @param offset the offset of the record header.
+         */
+        private Position(final long segment, final int offset)
+        {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * The directory of the log.
+     */
+    private final Path directory;
+
+    /**
+     * Every how many records a position is indexed.
+     */
+    private final int indexInterval;
+
+    /**
+     * The indexed positions by sequence number.
+     */
+    private final TreeMap<Integer, Position> index = new TreeMap<>();
+
+    /**
+     * The mapped closed segments by number.
+     */
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+
+    /**
+     * The segment the log appends to, the last one, -1 if none.
+     */
+    private long activeSegment = -1;
+
+    /**
+     * The segment up to which records are indexed.
+     */
+    private long indexedSegment = -1;
+
+    /**
+     * The offset in the indexed segment up to which records are indexed.
+     */
+    private int indexedOffset = 0;
+
+    /**
+     * The number of records indexed so far.
+     */
+    private long indexedRecords = 0;
+
+    /**
+     * Create a reader of a log.
+     * @param directory the directory of the log.
+     * @param indexInterval every how many records a position is indexed.
+     */
+    public CommitLogReader(@NotNull final Path directory, final int indexInterval)
+    {
+        this.directory = directory;
+        this.indexInterval = Math.max(1, indexInterval);
+    }
+
+    /**
+     * Read the committed batches starting at a sequence number.
+     * @param from the first sequence number.
+     * @param to the sequence number to stop at (exclusive).
+     * @param maxBytes the maximum size of the records read (at least one is read if available).
+     * @return the batches in sequence order, empty if the log doesn't contain the first one.
+     */
+    @NotNull
+    public List<MessageProto.CommitStorage> read(final int from, final int to, final long maxBytes)
+    {
+        final List<MessageProto.CommitStorage> result = new ArrayList<>();
+        try
+        {
+            refresh();
+        }
+        catch (final IOException e)
+        {
+            Log.getLogger().error("Unable to read the commit log at " + directory, e);
+            return result;
+        }
+
+        final Map.Entry<Integer, Position> start = index.floorEntry(from);
+        if (start == null)
+        {
+            return result;
+        }
+
+        final Position first = start.getValue();
+        final List<Long> numbers = new ArrayList<>(segments.tailMap(first.segment, true).keySet());
+        if (activeSegment >= first.segment)
+        {
+            numbers.add(activeSegment);
+        }
+
+        long bytes = 0;
+        int expected = from;
+        for (final long number : numbers)
+        {
+            final ByteBuffer buffer;
+            try
+            {
+                buffer = segmentFrom(number, number == first.segment ? first.offset : 0, to);
+            }
+            catch (final IOException e)
+            {
+                Log.getLogger().error("Unable to read the commit log at " + directory, e);
+                return result;
+            }
+
+            ByteBuffer payload = CommitLog.nextPayload(buffer);
+            while (payload != null)
+            {
+                final int sequence = viewId(payload);
+                if (sequence >= to || (!result.isEmpty() && bytes + payload.remaining() > maxBytes))
+                {
+                    return result;
+                }
+
+                if (sequence == expected)
+                {
+                    final MessageProto.CommitStorage storage = parse(payload);
+                    if (storage == null)
+                    {
+                        return result;
+                    }
+                    result.add(storage);
+                    bytes += payload.remaining();
+                    expected++;
+                }
+                else if (sequence > expected)
+                {
+                    // A gap, the missing batches aren't in the log.
+                    return result;
+                }
+                payload = CommitLog.nextPayload(buffer);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Delete the segments which only hold records before a sequence number, the segment holding it is kept.
+     * @param sequence the first sequence number to keep.
+     * @return the number of deleted segments.
+     */
+    public int truncateBefore(final int sequence)
+    {
+        int deleted = 0;
+        try
+        {
+            refresh();
+            final Map.Entry<Integer, Position> keep = index.floorEntry(sequence);
+            if (keep == null)
+            {
+                return 0;
+            }
+
+            final long first = keep.getValue().segment;
+            for (final Path file : CommitLog.listSegments(directory))
+            {
+                final long number = CommitLog.segmentIndex(file);
+                if (number >= first)
+                {
+                    break;
+                }
+                Files.deleteIfExists(file);
+                segments.remove(number);
+                deleted++;
+            }
+            index.values().removeIf(position -> position.segment < first);
+        }
+        catch (final IOException e)
+        {
+            Log.getLogger().error("Unable to truncate the commit log at " + directory, e);
+        }
+        return deleted;
+    }
+
+    /**
+     * Get the number of records indexed so far.
+     * @return the number.
+     */
+    public long getIndexedRecords()
+    {
+        return indexedRecords;
+    }
+
+    /**
+     * Map the segments closed since the last call, read the tail appended to the active one
+     * and index the records appended since the last call.
+     * @throws IOException if a segment can't be mapped or read.
+     */
+    private void refresh() throws IOException
+    {
+        final List<Path> files = CommitLog.listSegments(directory);
+        for (int i = 0; i < files.size(); i++)
+        {
+            final Path file = files.get(i);
+            final long number = CommitLog.segmentIndex(file);
+            if (number < indexedSegment)
+            {
+                continue;
+            }
+
+            if (number > indexedSegment)
+            {
+                indexedSegment = number;
+                indexedOffset = 0;
+            }
+
+            // A segment followed by another one is closed and doesn't change anymore.
+            final int base;
+            final ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+            {
+                if (i < files.size() - 1)
+                {
+                    final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    segments.put(number, mapped);
+                    base = 0;
+                    buffer = mapped.duplicate();
+                    buffer.position(indexedOffset);
+                }
+                else
+                {
+                    activeSegment = number;
+                    base = indexedOffset;
+                    buffer = readRange(channel, indexedOffset, channel.size());
+                }
+            }
+
+            int offset = indexedOffset;
+            ByteBuffer payload = CommitLog.nextPayload(buffer);
+            while (payload != null)
+            {
+                if (offset == 0 || indexedRecords % indexInterval == 0)
+                {
+                    index.put(viewId(payload), new Position(number, offset));
+                }
+                indexedRecords++;
+                offset = base + buffer.position();
+                payload = CommitLog.nextPayload(buffer);
+            }
+            indexedOffset = offset;
+        }
+    }
+
+    /**
+     * Get the records of a segment from an offset.
+     * Of the active segment only the indexed records up to the first indexed one at or after a sequence number are read.
+     * @param number the number of the segment.
+     * @param offset the offset of the first record.
+     * @param to the sequence number to stop at.
+     * @return the records from the offset.
+     * @throws IOException if the active segment can't be read.
+     */
+    @NotNull
+    private ByteBuffer segmentFrom(final long number, final int offset, final int to) throws IOException
+    {
+        final MappedByteBuffer mapped = segments.get(number);
+        if (mapped != null)
+        {
+            final ByteBuffer buffer = mapped.duplicate();
+            buffer.position(offset);
+            return buffer;
+        }
+
+        final Map.Entry<Integer, Position> after = index.ceilingEntry(to);
+        final int end = after != null && after.getValue().segment == number ? after.getValue().offset : indexedOffset;
+        try (FileChannel channel = FileChannel.open(directory.resolve(CommitLog.segmentName(number)), StandardOpenOption.READ))
+        {
+            return readRange(channel, offset, end);
+        }
+    }
+
+    /**
+     * Read a range of a segment into memory.
+     * @param channel the channel of the segment.
+     * @param offset the first byte.
+     * @param end the end of the range (exclusive).
+     * @return the bytes read, less if the segment ends before.
+     * @throws IOException if reading fails.
+     */
+    @NotNull
+    private static ByteBuffer readRange(final FileChannel channel, final int offset, final long end) throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, end - offset));
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, offset + buffer.position()) < 0)
+            {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Parse a record, aliasing the mapped memory.
+     * @param payload the serialized CommitStorage.
+     * @return the record or null if it is invalid.
+     */
+    @Nullable
+    private static MessageProto.CommitStorage parse(final ByteBuffer payload)
+    {
+        try
+        {
+            final CodedInputStream in = CodedInputStream.newInstance(payload.duplicate());
+            in.enableAliasing(true);
+            return MessageProto.CommitStorage.parseFrom(in);
+        }
+        catch (final IOException e)
+        {
+            Log.getLogger().error("Invalid record in the commit log", e);
+            return null;
+        }
+    }
+
+    /**
+     * Read the view id of a record without parsing it.
+     * @param payload the serialized CommitStorage.
+     * @return the view id or -1 if it has none.
+     */
+    private static int viewId(final ByteBuffer payload)
+    {
+        try
+        {
+            final CodedInputStream in = CodedInputStream.newInstance(payload.duplicate());
+            for (int tag = in.readTag(); tag != 0; tag = in.readTag())
+            {
+                if (WireFormat.getTagFieldNumber(tag) != VIEW_FIELD)
+                {
+                    in.skipField(tag);
+                    continue;
+                }
+
+                final int limit = in.pushLimit(in.readRawVarint32());
+                for (int viewTag = in.readTag(); viewTag != 0; viewTag = in.readTag())
+                {
+                    if (WireFormat.getTagFieldNumber(viewTag) == VIEW_ID_FIELD)
+                    {
+                        return in.readInt32();
+                    }
+                    in.skipField(viewTag);
+                }
+                in.popLimit(limit);
+            }
+        }
+        catch (final IOException e)
+        {
+            Log.getLogger().error("Invalid record in the commit log", e);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ray.pbft.utils;
+
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.AccountState;
+import com.ray.mcu.utils.Constants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The changes a batch makes to the account state, the account fingerprint and balance change of every client message.
+ * Computed once when the preprepare arrives, then used for speculative validation, validation and execution.
+ */
+public class BatchEffects
+{
+    /**
+     * The sequence number of the batch.
+     */
+    private final int sequence;
+
+    /**
+     * The fingerprints of the accounts, in batch order, {@link AccountState#FINGERPRINT_LONGS} longs per client message.
+     */
+    private final long[] fingerprints;
+
+    /**
+     * The balance changes, in batch order.
+     */
+    private final long[] deltas;
+
+    /**
+     * Create the effects of a batch.
+     * @param sequence the sequence number of the batch.
+     * @param fingerprints the fingerprints of the accounts, {@link AccountState#FINGERPRINT_LONGS} longs per change.
+     * @param deltas the balance changes.
+     */
+    public BatchEffects(final int sequence, @NotNull final long[] fingerprints, @NotNull final long[] deltas)
+    {
+        this.sequence = sequence;
+        this.fingerprints = fingerprints;
+        this.deltas = deltas;
+    }
+
+    /**
+     * Calculate the effects of a preprepare, large batches are fingerprinted in parallel.
+     * @param prePrepare the preprepare.
+     * @return the effects.
+     */
+    @NotNull
+    public static BatchEffects of(@NotNull final MessageProto.PrePrepare prePrepare)
+    {
+        final List<MessageProto.PersistClientMessage> inputs = prePrepare.getInputList();
+        final long[] fingerprints = new long[inputs.size() * AccountState.FINGERPRINT_LONGS];
+        final long[] deltas = new long[inputs.size()];
+        final IntStream indices = IntStream.range(0, inputs.size());
+        (inputs.size() >= Constants.EXECUTION_PARALLEL_THRESHOLD ? indices.parallel() : indices).forEach(i ->
+        {
+            final MessageProto.ClientMessage msg = inputs.get(i).getMsg();
+            AccountState.fingerprint(msg.getPkey(), fingerprints, i);
+            deltas[i] = msg.getDif();
+        });
+        return new BatchEffects(prePrepare.getView().getId(), fingerprints, deltas);
+    }
+
+    /**
+     * Get the sequence number of the batch.
+     * @return the sequence number.
+     */
+    public int getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Get the number of client messages.
+     * @return the number.
+     */
+    public int size()
+    {
+        return deltas.length;
+    }
+
+    /**
+     * Get the fingerprints of the accounts.
+     * @return the fingerprints, {@link AccountState#FINGERPRINT_LONGS} longs per client message, not to be modified.
+     */
+    @NotNull
+    public long[] getFingerprints()
+    {
+        return fingerprints;
+    }
+
+    /**
+     * Get the balance changes.
+     * @return the changes, not to be modified.
+     */
+    @NotNull
+    public long[] getDeltas()
+    {
+        return deltas;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ray.pbft.utils;
+
+import com.ray.mcu.server.AccountState;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Applies committed batches to the account state on a fork join pool.
+ * The changes of consecutive batches are applied in parallel partitions of the account buckets
+ * (See {@link AccountState#addAll}), which keeps the order of the changes of every account and so yields the same
+ * state on every replica. Small groups are applied on the calling thread.
+ * Not thread safe, only the commit validator uses it.
+ */
+public class BatchExecutor
+{
+    /**
+     * The pool the work is split on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of parallel partitions.
+     */
+    private final int parallelism;
+
+    /**
+     * The number of client messages below which a group is applied on the calling thread.
+     */
+    private final int threshold;
+
+    /**
+     * The fingerprints of the accounts of the current group.
+     */
+    private long[] fingerprints = new long[0];
+
+    /**
+     * The changes of the balances of the current group.
+     */
+    private long[] deltas = new long[0];
+
+    /**
+     * Create an executor.
+     * @param parallelism the number of threads.
+     * @param threshold the number of client messages below which a group is applied on the calling thread.
+     */
+    public BatchExecutor(final int parallelism, final int threshold)
+    {
+        this.parallelism = Math.max(1, parallelism);
+        this.threshold = threshold;
+        this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    /**
+     * Apply the changes of consecutive committed batches in order.
+     * @param batches the effects of the batches in sequence order.
+     * @param state the state to apply them to.
+     * @return the number of applied client messages.
+     */
+    public int execute(@NotNull final List<BatchEffects> batches, @NotNull final AccountState state)
+    {
+        if (batches.isEmpty())
+        {
+            return 0;
+        }
+
+        int count = 0;
+        for (final BatchEffects batch : batches)
+        {
+            count += batch.size();
+        }
+        if (fingerprints.length < count)
+        {
+            fingerprints = new long[count * AccountState.FINGERPRINT_LONGS];
+            deltas = new long[count];
+        }
+
+        int offset = 0;
+        for (final BatchEffects batch : batches)
+        {
+            System.arraycopy(batch.getFingerprints(), 0, fingerprints, offset * AccountState.FINGERPRINT_LONGS, batch.size() * AccountState.FINGERPRINT_LONGS);
+            System.arraycopy(batch.getDeltas(), 0, deltas, offset, batch.size());
+            offset += batch.size();
+        }
+
+        final int partitions = parallelism > 1 && count >= threshold ? parallelism : 1;
+        state.addAll(fingerprints, deltas, count, pool, partitions, batches.get(batches.size() - 1).getSequence());
+        return count;
+    }
+}
@@ -0,0 +1,208 @@
+package com.ray.pbft.utils;
+
+import com.google.protobuf.MessageLite;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Decides when the coordinator proposes the pending client messages and how many go into one preprepare.
+ * A batch is proposed once it reached the target size (in messages or bytes) or its oldest message waited for the linger time.
+ * In adaptive mode the target size grows while the pipeline window is full and shrinks when the commit latency
+ * exceeds the target latency, so low load gets small, fast batches and high load gets large ones.
+ */
+public class BatchPolicy
+{
+    /**
+     * The smallest target size in messages.
+     */
+    private final int minSize;
+
+    /**
+     * The largest batch in messages.
+     */
+    private final int maxSize;
+
+    /**
+     * The largest batch in bytes (a single bigger message is still proposed alone).
+     */
+    private final long maxBytes;
+
+    /**
+     * The maximum time the oldest pending message waits for the batch to fill, in nanoseconds.
+     */
+    private final long lingerNanos;
+
+    /**
+     * If the target size adapts to load and latency.
+     */
+    private final boolean adaptive;
+
+    /**
+     * The commit latency above which adaptive batches shrink, in nanoseconds.
+     */
+    private final long targetLatencyNanos;
+
+    /**
+     * The number of messages at which a batch is proposed right away.
+     */
+    private int targetSize;
+
+    /**
+     * The smoothed latency from proposal to execution, in nanoseconds.
+     */
+    private long averageLatencyNanos = 0;
+
+    /**
+     * The proposal time of the instances in flight, by sequence number.
+     */
+    private final TreeMap<Integer, Long> proposedAt = new TreeMap<>();
+
+    /**
+     * Create a batch policy.
+     * @param targetSize the initial (or fixed if not adaptive) number of messages at which a batch is proposed.
+     * @param minSize the smallest target size in messages.
+     * @param maxSize the largest batch in messages.
+     * @param maxBytes the largest batch in bytes.
+     * @param lingerNanos the maximum time the oldest pending message waits, in nanoseconds.
+     * @param adaptive if the target size adapts to load and latency.
+     * @param targetLatencyNanos the commit latency above which adaptive batches shrink, in nanoseconds.
+     */
+    public BatchPolicy(
+      final int targetSize,
+      final int minSize,
+      final int maxSize,
+      final long maxBytes,
+      final long lingerNanos,
+      final boolean adaptive,
+      final long targetLatencyNanos)
+    {
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(1, Math.min(minSize, this.maxSize));
+        this.targetSize = Math.max(this.minSize, Math.min(targetSize, this.maxSize));
+        this.maxBytes = maxBytes;
+        this.lingerNanos = lingerNanos;
+        this.adaptive = adaptive;
+        this.targetLatencyNanos = targetLatencyNanos;
+    }
+
+    /**
+     * Check if the pending messages should be proposed now.
+     * @param count the number of pending messages.
+     * @param bytes the size of the pending messages in bytes.
+     * @param oldestNanos the arrival time of the oldest pending message.
+     * @param now the current time in nanoseconds.
+     * @return true if so.
+     */
+    public synchronized boolean isReady(final int count, final long bytes, final long oldestNanos, final long now)
+    {
+        if (count <= 0)
+        {
+            return false;
+        }
+        return count >= targetSize || bytes >= maxBytes || now - oldestNanos >= lingerNanos;
+    }
+
+    /**
+     * Get how many of the pending messages go into the next batch.
+     * @param pending the pending messages, oldest first.
+     * @return the number of messages to take (at least one if any are pending).
+     */
+    public int cut(@NotNull final List<? extends MessageLite> pending)
+    {
+        final int limit = Math.min(pending.size(), maxSize);
+        long bytes = 0;
+        for (int i = 0; i < limit; i++)
+        {
+            bytes += pending.get(i).getSerializedSize();
+            if (bytes > maxBytes)
+            {
+                return Math.max(1, i);
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Called after a batch was proposed.
+     * @param sequence the sequence number it was proposed for.
+     * @param now the current time in nanoseconds.
+     * @param saturated true if the pipeline window is full with this proposal.
+     */
+    public synchronized void onProposed(final int sequence, final long now, final boolean saturated)
+    {
+        proposedAt.put(sequence, now);
+        if (adaptive && saturated && averageLatencyNanos <= targetLatencyNanos)
+        {
+            targetSize = Math.min(maxSize, targetSize + Math.max(1, targetSize / 4));
+        }
+    }
+
+    /**
+     * Called after an instance was executed.
+     * @param sequence the sequence number of the instance.
+     * @param now the current time in nanoseconds.
+     */
+    public synchronized void onExecuted(final int sequence, final long now)
+    {
+        final Long proposed = proposedAt.remove(sequence);
+
+        // Instances which got overtaken (e.g. by recovery) won't be executed here anymore.
+        proposedAt.headMap(sequence).clear();
+
+        if (proposed == null)
+        {
+            return;
+        }
+
+        final long latency = now - proposed;
+        averageLatencyNanos = averageLatencyNanos == 0 ? latency : averageLatencyNanos + (latency - averageLatencyNanos) / 8;
+        if (adaptive && averageLatencyNanos > targetLatencyNanos)
+        {
+            targetSize = Math.max(minSize, targetSize / 2);
+        }
+    }
+
+    /**
+     * Get the number of messages at which a batch is proposed right away.
+     * @return the target size.
+     */
+    public synchronized int getTargetSize()
+    {
+        return targetSize;
+    }
+
+    /**
+     * Get the smoothed latency from proposal to execution.
+     * @return the latency in nanoseconds.
+     */
+    public synchronized long getAverageLatencyNanos()
+    {
+        return averageLatencyNanos;
+    }
+
+    /**
+     * Get the largest batch in messages.
+     * @return the number of messages.
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Get the maximum time the oldest pending message waits.
+     * @return the linger time in nanoseconds.
+     */
+    public long getLingerNanos()
+    {
+        return lingerNanos;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "BatchPolicy{target=" + targetSize + ", latency=" + averageLatencyNanos / 1_000 + "us}";
+    }
+}
@@ -0,0 +1,144 @@
+package com.ray.pbft.utils;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the checkpoints of the replicas and certifies the stable checkpoint.
+ * A checkpoint turns stable once a quorum of replicas sent the same digest for its sequence number,
+ * only the newest checkpoint of every replica is kept, so a faulty replica can't fill the memory.
+ * Not thread safe, only the message handler uses it.
+ */
+public class CheckpointTracker
+{
+    /**
+     * The newest checkpoint of each replica above the stable one, by replica id.
+     */
+    private final Map<Integer, MessageProto.Checkpoint> votes = new HashMap<>();
+
+    /**
+     * The digests of the own checkpoints above the stable one, by sequence number.
+     */
+    private final TreeMap<Integer, ByteString> ownDigests = new TreeMap<>();
+
+    /**
+     * The sequence number of the stable checkpoint (-1 before the first).
+     */
+    private int stableSequence = -1;
+
+    /**
+     * The sequence number of the stable checkpoint before the current one (-1 before the second).
+     */
+    private int previousStableSequence = -1;
+
+    /**
+     * The certified digest of the stable checkpoint.
+     */
+    private ByteString stableDigest = ByteString.EMPTY;
+
+    /**
+     * If the own digest of the stable checkpoint matched the certified one (true if there was none).
+     */
+    private boolean stableMatchesOwn = true;
+
+    /**
+     * Add the checkpoint of a replica.
+     * @param sender the id of the replica.
+     * @param checkpoint its checkpoint.
+     * @param own true if it is the checkpoint of this replica.
+     * @param quorumSize the number of matching checkpoints which certify one.
+     * @return true if the checkpoint turned stable with it.
+     */
+    public boolean add(final int sender, @NotNull final MessageProto.Checkpoint checkpoint, final boolean own, final int quorumSize)
+    {
+        final int sequence = checkpoint.getSequence();
+        if (sequence <= stableSequence)
+        {
+            return false;
+        }
+
+        final MessageProto.Checkpoint previous = votes.get(sender);
+        if (previous != null && previous.getSequence() >= sequence)
+        {
+            return false;
+        }
+
+        votes.put(sender, checkpoint);
+        if (own)
+        {
+            ownDigests.put(sequence, checkpoint.getStateDigest());
+        }
+
+        int matching = 0;
+        for (final MessageProto.Checkpoint vote : votes.values())
+        {
+            if (vote.getSequence() == sequence && vote.getStateDigest().equals(checkpoint.getStateDigest()))
+            {
+                matching++;
+            }
+        }
+
+        if (matching < quorumSize)
+        {
+            return false;
+        }
+
+        previousStableSequence = stableSequence;
+        stableSequence = sequence;
+        stableDigest = checkpoint.getStateDigest();
+
+        final ByteString ownDigest = ownDigests.get(sequence);
+        stableMatchesOwn = ownDigest == null || ownDigest.equals(stableDigest);
+        ownDigests.headMap(sequence, true).clear();
+        votes.values().removeIf(vote -> vote.getSequence() <= sequence);
+        return true;
+    }
+
+    /**
+     * Get the sequence number of the stable checkpoint.
+     * @return the sequence number or -1 if there is none yet.
+     */
+    public int getStableSequence()
+    {
+        return stableSequence;
+    }
+
+    /**
+     * Get the sequence number of the stable checkpoint before the current one.
+     * @return the sequence number or -1 if there is none.
+     */
+    public int getPreviousStableSequence()
+    {
+        return previousStableSequence;
+    }
+
+    /**
+     * Get the certified digest of the stable checkpoint.
+     * @return the digest, empty if there is none yet.
+     */
+    @NotNull
+    public ByteString getStableDigest()
+    {
+        return stableDigest;
+    }
+
+    /**
+     * Check if the own state matched the stable checkpoint.
+     * @return false if this replica computed a different digest for it.
+     */
+    public boolean stableMatchesOwn()
+    {
+        return stableMatchesOwn;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CheckpointTracker{stable=" + stableSequence + ", votes=" + votes.size() + '}';
+    }
+}
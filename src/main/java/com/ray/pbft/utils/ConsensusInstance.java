@@ -0,0 +1,51 @@
+package com.ray.pbft.utils;
+
+import com.ray.pbft.communication.wrappers.PrePrepareWrapper;
+import com.ray.pbft.communication.wrappers.PrepareWrapper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * State of a single consensus instance (one sequence number between the low and high watermark).
+ */
+public class ConsensusInstance
+{
+    /**
+     * The sequence number (view id) of this instance.
+     */
+    public final int sequence;
+
+    /**
+     * The preprepare of this instance, null as long as it didn't arrive yet.
+     */
+    public PrePrepareWrapper prePrepare = null;
+
+    /**
+     * Contains all verified prepares of this instance.
+     */
+    public final Set<PrepareWrapper> prepareSet = new HashSet<>();
+
+    /**
+     * The pbft state this instance is in.
+     */
+    public PBFTState status = PBFTState.NULL;
+
+    /**
+     * Create a new consensus instance.
+     * @param sequence the sequence number of it.
+     */
+    public ConsensusInstance(final int sequence)
+    {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Check if this instance gathered enough commits and only waits for execution.
+     * @return true if so.
+     */
+    public boolean isCommitted()
+    {
+        return status == PBFTState.COMMITTED;
+    }
+}
@@ -0,0 +1,210 @@
+package com.ray.pbft.utils;
+
+import com.ray.mcu.communication.wrappers.IMessageWrapper;
+import com.ray.mcu.utils.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Holds messages which arrived too early, by the sequence number (view id) they belong to.
+ * They are released when the state they wait for is reached (the window moved or the instance got its preprepare)
+ * and are handled again by the message handler. Only used by the message handler thread.
+ */
+public class DeferredMessageBuffer
+{
+    /**
+     * The waiting messages by sequence number.
+     */
+    private final TreeMap<Integer, List<IMessageWrapper>> deferred = new TreeMap<>();
+
+    /**
+     * The released messages, in the order they were released.
+     */
+    private final ArrayDeque<IMessageWrapper> released = new ArrayDeque<>();
+
+    /**
+     * The maximum number of waiting messages.
+     */
+    private final int limit;
+
+    /**
+     * The number of waiting messages.
+     */
+    private int size = 0;
+
+    /**
+     * The number of messages deferred so far.
+     */
+    private long deferredCount = 0;
+
+    /**
+     * The number of messages released so far.
+     */
+    private long releasedCount = 0;
+
+    /**
+     * The number of messages dropped so far, because the buffer was full or they got outdated.
+     */
+    private long droppedCount = 0;
+
+    /**
+     * Create a new buffer.
+     * @param limit the maximum number of waiting messages.
+     */
+    public DeferredMessageBuffer(final int limit)
+    {
+        this.limit = limit;
+    }
+
+    /**
+     * Hold a message back until its sequence number is released.
+     * @param sequence the sequence number it waits for.
+     * @param message the message.
+     * @return false if the buffer is full and the message was dropped.
+     */
+    public boolean defer(final int sequence, final IMessageWrapper message)
+    {
+        if (size >= limit)
+        {
+            droppedCount++;
+            Log.getLogger().warn("Deferred message buffer full, dropping message for sequence: " + sequence);
+            return false;
+        }
+
+        deferred.computeIfAbsent(sequence, id -> new ArrayList<>()).add(message);
+        size++;
+        deferredCount++;
+        return true;
+    }
+
+    /**
+     * Get the number of messages waiting for a sequence number.
+     * @param sequence the sequence number.
+     * @return the number of messages.
+     */
+    public int count(final int sequence)
+    {
+        final List<IMessageWrapper> messages = deferred.get(sequence);
+        return messages == null ? 0 : messages.size();
+    }
+
+    /**
+     * Release the messages waiting for a sequence number.
+     * @param sequence the sequence number.
+     */
+    public void release(final int sequence)
+    {
+        final List<IMessageWrapper> messages = deferred.remove(sequence);
+        if (messages != null)
+        {
+            moveToReleased(messages);
+        }
+    }
+
+    /**
+     * Release the messages waiting for any sequence number up to the given one.
+     * @param sequence the highest sequence number to release (inclusive).
+     */
+    public void releaseUpTo(final int sequence)
+    {
+        final Iterator<List<IMessageWrapper>> iterator = deferred.headMap(sequence, true).values().iterator();
+        while (iterator.hasNext())
+        {
+            moveToReleased(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drop the messages waiting for sequence numbers which can't be reached anymore.
+     * @param sequence the lowest sequence number to keep.
+     */
+    public void discardBelow(final int sequence)
+    {
+        final Iterator<List<IMessageWrapper>> iterator = deferred.headMap(sequence, false).values().iterator();
+        while (iterator.hasNext())
+        {
+            final int dropped = iterator.next().size();
+            size -= dropped;
+            droppedCount += dropped;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Take the next released message.
+     * @return the message or null if none was released.
+     */
+    @Nullable
+    public IMessageWrapper pollReleased()
+    {
+        return released.poll();
+    }
+
+    /**
+     * Get the highest sequence number messages are waiting for.
+     * @return the sequence number or -1 if none are waiting.
+     */
+    public int getHighestSequence()
+    {
+        return deferred.isEmpty() ? -1 : deferred.lastKey();
+    }
+
+    /**
+     * Get the number of waiting messages.
+     * @return the number.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Get the number of messages deferred so far.
+     * @return the number.
+     */
+    public long getDeferredCount()
+    {
+        return deferredCount;
+    }
+
+    /**
+     * Get the number of messages released so far.
+     * @return the number.
+     */
+    public long getReleasedCount()
+    {
+        return releasedCount;
+    }
+
+    /**
+     * Get the number of messages dropped so far.
+     * @return the number.
+     */
+    public long getDroppedCount()
+    {
+        return droppedCount;
+    }
+
+    /**
+     * Move released messages to the released queue.
+     * @param messages the messages.
+     */
+    private void moveToReleased(final List<IMessageWrapper> messages)
+    {
+        released.addAll(messages);
+        size -= messages.size();
+        releasedCount += messages.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DeferredMessageBuffer{waiting=" + size + ", deferred=" + deferredCount + ", released=" + releasedCount + ", dropped=" + droppedCount + '}';
+    }
+}
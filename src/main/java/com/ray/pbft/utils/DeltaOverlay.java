@@ -0,0 +1,135 @@
+package com.ray.pbft.utils;
+
+import com.ray.mcu.server.AccountState;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The summed balance changes of batches which are validated but not applied to the account state yet.
+ * The balance a batch is validated against is the applied balance plus this overlay.
+ * Not thread safe.
+ */
+public class DeltaOverlay
+{
+    /**
+     * The fingerprint of an account as map key.
+     */
+    private static final class Account
+    {
+        /**
+         * The first long of the fingerprint.
+         */
+        private final long high;
+
+        /**
+         * The second long of the fingerprint.
+         */
+        private final long low;
+
+        /**
+         * Create the key of an account.
+         * @param high the first long of the fingerprint.
+         * @param low the second long of the fingerprint.
+         */
+        private Account(final long high, final long low)
+        {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+            final Account that = (Account) o;
+            return high == that.high && low == that.low;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Long.hashCode(high);
+        }
+    }
+
+    /**
+     * The pending change by account fingerprint, accounts without a change are removed.
+     */
+    private final Map<Account, Long> deltas = new HashMap<>();
+
+    /**
+     * Add the changes of a batch.
+     * @param effects the effects of the batch.
+     */
+    public void add(@NotNull final BatchEffects effects)
+    {
+        apply(effects, 1);
+    }
+
+    /**
+     * Remove the changes of a batch again, once it is applied.
+     * @param effects the effects of the batch.
+     */
+    public void subtract(@NotNull final BatchEffects effects)
+    {
+        apply(effects, -1);
+    }
+
+    /**
+     * Get the pending change of an account.
+     * @param high the first long of the fingerprint of the account.
+     * @param low the second long of the fingerprint.
+     * @return the summed change, 0 if none.
+     */
+    public long get(final long high, final long low)
+    {
+        return deltas.getOrDefault(new Account(high, low), 0L);
+    }
+
+    /**
+     * Check if no change is pending.
+     * @return true if the changes of every account summed up to 0.
+     */
+    public boolean isEmpty()
+    {
+        return deltas.isEmpty();
+    }
+
+    /**
+     * Forget all pending changes.
+     */
+    public void clear()
+    {
+        deltas.clear();
+    }
+
+    /**
+     * Add or subtract the changes of a batch.
+     * @param effects the effects of the batch.
+     * @param sign 1 to add, -1 to subtract.
+     */
+    private void apply(final BatchEffects effects, final int sign)
+    {
+        final long[] fingerprints = effects.getFingerprints();
+        final long[] changes = effects.getDeltas();
+        for (int i = 0; i < changes.length; i++)
+        {
+            final long delta = sign * changes[i];
+            final Account account = new Account(fingerprints[i * AccountState.FINGERPRINT_LONGS], fingerprints[i * AccountState.FINGERPRINT_LONGS + 1]);
+            deltas.compute(account, (key, value) ->
+            {
+                final long sum = (value == null ? 0 : value) + delta;
+                return sum == 0 ? null : sum;
+            });
+        }
+    }
+}
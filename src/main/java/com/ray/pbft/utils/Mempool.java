@@ -0,0 +1,381 @@
+package com.ray.pbft.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.utils.VerifiedSignatureCache;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The client requests waiting to be proposed by the coordinator.
+ * Requests are deduplicated by their digest (pending and recently proposed ones), queued per client
+ * (by public key) and drained round robin, so a single client can't fill every batch.
+ * The pending bytes are bounded, when full the newest request of the longest queue is evicted.
+ * Not thread safe, the owner synchronizes on it.
+ */
+public class Mempool
+{
+    /**
+     * Result of adding a request.
+     */
+    public enum AddResult
+    {
+        /**
+         * The request is pending now.
+         */
+        ADDED,
+
+        /**
+         * The request is pending or was proposed already.
+         */
+        DUPLICATE,
+
+        /**
+         * The mempool is full and the client has the longest queue.
+         */
+        REJECTED
+    }
+
+    /**
+     * A pending request.
+     */
+    private static final class Entry
+    {
+        /**
+         * The request.
+         */
+        private final MessageProto.PersistClientMessage message;
+
+        /**
+         * The digest of the request.
+         */
+        private final ByteString digest;
+
+        /**
+         * The serialized size of the request.
+         */
+        private final int size;
+
+        /**
+         * The arrival time in nanoseconds.
+         */
+        private final long arrivalNanos;
+
+        /**
+         * If the request left the mempool (proposed or evicted).
+         */
+        private boolean removed = false;
+
+        /**
+         * Create an entry.
+         * @param message the request.
+         * @param digest its digest.
+         * @param arrivalNanos its arrival time.
+         */
+        private Entry(final MessageProto.PersistClientMessage message, final ByteString digest, final long arrivalNanos)
+        {
+            this.message = message;
+            this.digest = digest;
+            this.size = message.getSerializedSize();
+            this.arrivalNanos = arrivalNanos;
+        }
+    }
+
+    /**
+     * The queue of each client with pending requests, by public key.
+     */
+    private final Map<ByteString, ArrayDeque<Entry>> queues = new HashMap<>();
+
+    /**
+     * The clients with pending requests in drain order.
+     */
+    private final ArrayDeque<ByteString> rotation = new ArrayDeque<>();
+
+    /**
+     * All pending requests in arrival order, proposed and evicted ones are skipped lazily.
+     */
+    private final ArrayDeque<Entry> arrivals = new ArrayDeque<>();
+
+    /**
+     * The digests of the pending requests.
+     */
+    private final Set<ByteString> pending = new HashSet<>();
+
+    /**
+     * The digests of recently proposed requests.
+     */
+    private final Cache<ByteString, Boolean> proposed;
+
+    /**
+     * The maximum number of pending bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * The number of requests taken from a client per turn.
+     */
+    private final int quantum;
+
+    /**
+     * The number of pending bytes.
+     */
+    private long bytes = 0;
+
+    /**
+     * The number of duplicates dropped so far.
+     */
+    private long duplicateCount = 0;
+
+    /**
+     * The number of requests rejected or evicted because the mempool was full.
+     */
+    private long droppedCount = 0;
+
+    /**
+     * Create a mempool.
+     * @param maxBytes the maximum number of pending bytes.
+     * @param quantum the number of requests taken from a client per turn.
+     * @param proposedCacheSize the number of proposed digests remembered to drop retransmissions.
+     */
+    public Mempool(final long maxBytes, final int quantum, final int proposedCacheSize)
+    {
+        this.maxBytes = maxBytes;
+        this.quantum = Math.max(1, quantum);
+        this.proposed = Caffeine.newBuilder().maximumSize(proposedCacheSize).build();
+    }
+
+    /**
+     * Add a client request.
+     * @param message the request.
+     * @param now the current time in nanoseconds.
+     * @return if it was added, a duplicate or rejected.
+     */
+    @NotNull
+    public AddResult add(@NotNull final MessageProto.PersistClientMessage message, final long now)
+    {
+        final ByteString digest = VerifiedSignatureCache.digest(message);
+        if (pending.contains(digest) || proposed.getIfPresent(digest) != null)
+        {
+            duplicateCount++;
+            return AddResult.DUPLICATE;
+        }
+
+        final ByteString client = message.getMsg().getPkey();
+        final Entry entry = new Entry(message, digest, now);
+        while (bytes + entry.size > maxBytes && !pending.isEmpty())
+        {
+            if (!evictFromLongestQueue(client))
+            {
+                droppedCount++;
+                return AddResult.REJECTED;
+            }
+        }
+
+        ArrayDeque<Entry> queue = queues.get(client);
+        if (queue == null)
+        {
+            queue = new ArrayDeque<>();
+            queues.put(client, queue);
+            rotation.add(client);
+        }
+        queue.add(entry);
+        arrivals.add(entry);
+        pending.add(digest);
+        bytes += entry.size;
+        return AddResult.ADDED;
+    }
+
+    /**
+     * Get the next requests in drain order without taking them, round robin over the clients.
+     * @param maxCount the maximum number of requests.
+     * @return the requests, empty if none are pending.
+     */
+    @NotNull
+    public List<MessageProto.PersistClientMessage> peek(final int maxCount)
+    {
+        final List<MessageProto.PersistClientMessage> next = new ArrayList<>(Math.min(maxCount, pending.size()));
+        final ArrayDeque<Iterator<Entry>> turns = new ArrayDeque<>(rotation.size());
+        for (final ByteString client : rotation)
+        {
+            turns.add(queues.get(client).iterator());
+        }
+
+        while (next.size() < maxCount && !turns.isEmpty())
+        {
+            final Iterator<Entry> queue = turns.poll();
+            for (int i = 0; i < quantum && next.size() < maxCount && queue.hasNext(); i++)
+            {
+                next.add(queue.next().message);
+            }
+
+            if (queue.hasNext())
+            {
+                turns.add(queue);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Take the next requests in the order of {@link #peek(int)} and remember them as proposed.
+     * @param count the number of requests.
+     * @return the requests, fewer if fewer are pending.
+     */
+    @NotNull
+    public List<MessageProto.PersistClientMessage> drain(final int count)
+    {
+        final List<MessageProto.PersistClientMessage> batch = new ArrayList<>(Math.min(count, pending.size()));
+        while (batch.size() < count && !rotation.isEmpty())
+        {
+            final ByteString client = rotation.poll();
+            final ArrayDeque<Entry> queue = queues.get(client);
+            int taken = 0;
+            while (taken < quantum && batch.size() < count && !queue.isEmpty())
+            {
+                final Entry entry = queue.poll();
+                remove(entry);
+                proposed.put(entry.digest, Boolean.TRUE);
+                batch.add(entry.message);
+                taken++;
+            }
+
+            if (queue.isEmpty())
+            {
+                queues.remove(client);
+            }
+            else if (taken < quantum)
+            {
+                // Cut off during its turn, this client goes first next time.
+                rotation.addFirst(client);
+            }
+            else
+            {
+                rotation.add(client);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Get the arrival time of the oldest pending request.
+     * @return the time in nanoseconds or 0 if none is pending.
+     */
+    public long getOldestNanos()
+    {
+        Entry oldest = arrivals.peek();
+        while (oldest != null && oldest.removed)
+        {
+            arrivals.poll();
+            oldest = arrivals.peek();
+        }
+        return oldest == null ? 0 : oldest.arrivalNanos;
+    }
+
+    /**
+     * Get the number of pending requests.
+     * @return the number.
+     */
+    public int size()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Get the number of pending bytes.
+     * @return the number.
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Get the number of clients with pending requests.
+     * @return the number.
+     */
+    public int getClientCount()
+    {
+        return queues.size();
+    }
+
+    /**
+     * Get the number of duplicates dropped so far.
+     * @return the number.
+     */
+    public long getDuplicateCount()
+    {
+        return duplicateCount;
+    }
+
+    /**
+     * Get the number of requests rejected or evicted because the mempool was full.
+     * @return the number.
+     */
+    public long getDroppedCount()
+    {
+        return droppedCount;
+    }
+
+    /**
+     * Evict the newest request of the longest client queue to make room for a request.
+     * @param client the client which wants to add a request.
+     * @return false if the client has the longest queue itself, then nothing was evicted.
+     */
+    private boolean evictFromLongestQueue(final ByteString client)
+    {
+        final ArrayDeque<Entry> own = queues.get(client);
+        ByteString longest = null;
+        int longestSize = own == null ? 0 : own.size();
+        for (final Map.Entry<ByteString, ArrayDeque<Entry>> queue : queues.entrySet())
+        {
+            if (queue.getValue().size() > longestSize)
+            {
+                longest = queue.getKey();
+                longestSize = queue.getValue().size();
+            }
+        }
+
+        if (longest == null)
+        {
+            return false;
+        }
+
+        final ArrayDeque<Entry> queue = queues.get(longest);
+        remove(queue.pollLast());
+        droppedCount++;
+        if (queue.isEmpty())
+        {
+            queues.remove(longest);
+            rotation.remove(longest);
+        }
+        return true;
+    }
+
+    /**
+     * Account for a request which left its client queue.
+     * @param entry the request.
+     */
+    private void remove(final Entry entry)
+    {
+        entry.removed = true;
+        pending.remove(entry.digest);
+        bytes -= entry.size;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Mempool{pending=" + pending.size() + ", bytes=" + bytes + ", clients=" + queues.size()
+                 + ", duplicates=" + duplicateCount + ", dropped=" + droppedCount + '}';
+    }
+}
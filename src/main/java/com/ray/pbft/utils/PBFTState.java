@@ -7,5 +7,6 @@ public enum PBFTState
 {
     NULL,
     PREPARE,
-    COMMIT
+    COMMIT,
+    COMMITTED
 }
@@ -0,0 +1,108 @@
+package com.ray.pbft.utils;
+
+import com.google.protobuf.ByteString;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * The result of validating a batch speculatively, as soon as its preprepare arrived.
+ * It was checked against the applied state after the base instance plus the changes of the batches in between,
+ * so it only holds if exactly these batches (identified by the coordinator signature) are executed before it.
+ */
+public class Speculation
+{
+    /**
+     * The outcome of the speculative validation.
+     */
+    public enum Verdict
+    {
+        /**
+         * All client messages keep their balances non negative.
+         */
+        VALID,
+
+        /**
+         * A client message debits more than the balance.
+         */
+        INVALID,
+
+        /**
+         * The state changed while it was read, the batch has to be validated at execution.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * The sequence number of the batch.
+     */
+    private final int sequence;
+
+    /**
+     * The sequence number of the last instance applied to the state it was validated against.
+     */
+    private final int base;
+
+    /**
+     * The signatures of the batches between the base and this batch, in sequence order.
+     */
+    private final List<ByteString> dependencies;
+
+    /**
+     * The outcome.
+     */
+    private final Verdict verdict;
+
+    /**
+     * Create a speculation.
+     * @param sequence the sequence number of the batch.
+     * @param base the sequence number of the last instance applied to the state it was validated against.
+     * @param dependencies the signatures of the batches between the base and this batch.
+     * @param verdict the outcome.
+     */
+    public Speculation(final int sequence, final int base, @NotNull final List<ByteString> dependencies, @NotNull final Verdict verdict)
+    {
+        this.sequence = sequence;
+        this.base = base;
+        this.dependencies = dependencies;
+        this.verdict = verdict;
+    }
+
+    /**
+     * Get the sequence number of the batch.
+     * @return the sequence number.
+     */
+    public int getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Get the sequence number of the last instance applied to the state it was validated against.
+     * @return the sequence number.
+     */
+    public int getBase()
+    {
+        return base;
+    }
+
+    /**
+     * Get the signatures of the batches between the base and this batch.
+     * @return the signatures in sequence order.
+     */
+    @NotNull
+    public List<ByteString> getDependencies()
+    {
+        return dependencies;
+    }
+
+    /**
+     * Get the outcome.
+     * @return the verdict.
+     */
+    @NotNull
+    public Verdict getVerdict()
+    {
+        return verdict;
+    }
+}
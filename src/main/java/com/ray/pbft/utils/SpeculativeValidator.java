@@ -0,0 +1,177 @@
+package com.ray.pbft.utils;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.server.AccountState;
+import com.ray.mcu.utils.ValidationUtils;
+import com.ray.pbft.communication.wrappers.PrePrepareWrapper;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Validates the balances of batches as soon as their preprepares arrive, while the prepare and commit rounds run.
+ * Batches are validated in sequence order against the applied state, read without blocking the commit validator,
+ * plus an overlay of the changes of the batches which are accepted but not applied yet.
+ * The commit validator reuses a speculation if the batches it depended on are the ones executed (See {@link #holds}).
+ * Not thread safe, only the message handler uses it.
+ */
+public class SpeculativeValidator
+{
+    /**
+     * The batches accepted but not applied yet which are part of the overlay, by sequence number.
+     */
+    private final TreeMap<Integer, PrePrepareWrapper> pending = new TreeMap<>();
+
+    /**
+     * The summed changes of the pending batches.
+     */
+    private final DeltaOverlay overlay = new DeltaOverlay();
+
+    /**
+     * The balances read for the batch being validated.
+     */
+    private long[] balances = new long[0];
+
+    /**
+     * The sequence number of the last applied instance known.
+     */
+    private int applied = -1;
+
+    /**
+     * The number of speculations so far.
+     */
+    private long speculationCount = 0;
+
+    /**
+     * Validate the batches following the pending ones, as long as their preprepares are known.
+     * @param prePrepares looks up the preprepare of a sequence number, null if unknown.
+     * @param lowWatermark the first sequence number not handed to the commit validator yet, only those get a speculation.
+     * @param state the account state.
+     */
+    public void speculate(@NotNull final IntFunction<PrePrepareWrapper> prePrepares, final int lowWatermark, @NotNull final AccountState state)
+    {
+        if (state.getSequence() > applied)
+        {
+            dropApplied(state.getSequence());
+        }
+
+        int next = pending.isEmpty() ? applied + 1 : pending.lastKey() + 1;
+        PrePrepareWrapper prePrepare = prePrepares.apply(next);
+        while (prePrepare != null && prePrepare.effects != null)
+        {
+            final BatchEffects effects = prePrepare.effects;
+            if (balances.length < effects.size())
+            {
+                balances = new long[effects.size()];
+            }
+
+            final int read = state.readBalances(effects.getFingerprints(), effects.size(), balances);
+            if (read != AccountState.UNSTABLE_READ && read > applied)
+            {
+                dropApplied(read);
+                if (next <= read)
+                {
+                    // The commit validator overtook the speculation.
+                    next = read + 1;
+                    prePrepare = prePrepares.apply(next);
+                    continue;
+                }
+            }
+
+            if (next >= lowWatermark && prePrepare.speculation == null)
+            {
+                final List<ByteString> dependencies = new ArrayList<>(pending.size());
+                for (final PrePrepareWrapper dependency : pending.values())
+                {
+                    dependencies.add(dependency.getMessage().getSig());
+                }
+
+                final Speculation.Verdict verdict;
+                if (read == AccountState.UNSTABLE_READ || read != applied)
+                {
+                    verdict = Speculation.Verdict.UNKNOWN;
+                }
+                else
+                {
+                    verdict = ValidationUtils.areBalancesSufficient(effects, balances, overlay) ? Speculation.Verdict.VALID : Speculation.Verdict.INVALID;
+                }
+                prePrepare.speculation = new Speculation(next, applied, dependencies, verdict);
+                speculationCount++;
+            }
+
+            pending.put(next, prePrepare);
+            overlay.add(effects);
+            next++;
+            prePrepare = prePrepares.apply(next);
+        }
+    }
+
+    /**
+     * Discard all pending speculation, after the state was replaced or the coordinator changed.
+     * @param applied the sequence number of the last instance applied or about to be applied.
+     */
+    public void discard(final int applied)
+    {
+        pending.clear();
+        overlay.clear();
+        this.applied = applied;
+    }
+
+    /**
+     * Check if a speculation holds at execution.
+     * @param speculation the speculation of the batch, may be null.
+     * @param validated the signatures of the batches validated by the commit validator before it, by sequence number.
+     * @return true if it has a verdict and exactly the batches it depended on were validated before it.
+     */
+    public static boolean holds(final Speculation speculation, @NotNull final NavigableMap<Integer, ByteString> validated)
+    {
+        if (speculation == null || speculation.getVerdict() == Speculation.Verdict.UNKNOWN)
+        {
+            return false;
+        }
+
+        final List<ByteString> dependencies = speculation.getDependencies();
+        if (speculation.getBase() + dependencies.size() + 1 != speculation.getSequence())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < dependencies.size(); i++)
+        {
+            if (!dependencies.get(i).equals(validated.get(speculation.getBase() + 1 + i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of speculations so far.
+     * @return the number.
+     */
+    public long getSpeculationCount()
+    {
+        return speculationCount;
+    }
+
+    /**
+     * Remove the batches which are applied now from the overlay.
+     * @param sequence the sequence number of the last applied instance.
+     */
+    private void dropApplied(final int sequence)
+    {
+        applied = sequence;
+        final Map<Integer, PrePrepareWrapper> done = pending.headMap(sequence, true);
+        for (final PrePrepareWrapper prePrepare : done.values())
+        {
+            overlay.subtract(prePrepare.effects);
+        }
+        done.clear();
+    }
+}
@@ -0,0 +1,161 @@
+package com.ray.pbft.utils;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.server.AccountState;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The account state of a replica after executing the instance of a checkpoint, as serialized buckets.
+ * The digest of the checkpoint is the root of the Merkle tree over the bucket hashes, so a lagging replica
+ * can verify the bucket hashes against the certified digest and then fetch only the buckets which differ from its own.
+ * Capturing it only copies the bucket references, the serialized buckets are never modified.
+ */
+public class StateSnapshot
+{
+    /**
+     * The size of the header of a transferred bucket (bucket and length).
+     */
+    public static final int BUCKET_HEADER_SIZE = Integer.BYTES * 2;
+
+    /**
+     * The sequence number of the last instance included.
+     */
+    private final int sequence;
+
+    /**
+     * The hashes of the buckets.
+     */
+    private final byte[] bucketHashes;
+
+    /**
+     * The serialized buckets.
+     */
+    private final byte[][] buckets;
+
+    /**
+     * The root of the tree over the bucket hashes.
+     */
+    private final byte[] digest;
+
+    /**
+     * Create a snapshot.
+     * @param sequence the sequence number of the last instance included.
+     * @param bucketHashes the hashes of the buckets.
+     * @param buckets the serialized buckets.
+     * @param digest the root of the tree over the bucket hashes.
+     */
+    public StateSnapshot(final int sequence, @NotNull final byte[] bucketHashes, @NotNull final byte[][] buckets, @NotNull final byte[] digest)
+    {
+        this.sequence = sequence;
+        this.bucketHashes = bucketHashes;
+        this.buckets = buckets;
+        this.digest = digest;
+    }
+
+    /**
+     * Capture the current account state.
+     * Only consistent when called by the thread applying the client messages.
+     * @param sequence the sequence number of the last instance applied.
+     * @param state the account state.
+     * @return the snapshot.
+     */
+    @NotNull
+    public static StateSnapshot capture(final int sequence, @NotNull final AccountState state)
+    {
+        return new StateSnapshot(sequence, state.getBucketHashes(), state.getSerializedBuckets(), state.getRootHash());
+    }
+
+    /**
+     * Split the bucket hashes into chunks.
+     * @param chunkBytes the maximum size of a chunk.
+     * @return the chunks, at least one.
+     */
+    @NotNull
+    public List<ByteString> getHashChunks(final int chunkBytes)
+    {
+        final int size = Math.max(AccountState.HASH_SIZE, chunkBytes - chunkBytes % AccountState.HASH_SIZE);
+        final List<ByteString> chunks = new ArrayList<>();
+        int offset = 0;
+        do
+        {
+            chunks.add(ByteString.copyFrom(bucketHashes, offset, Math.min(size, bucketHashes.length - offset)));
+            offset += size;
+        }
+        while (offset < bucketHashes.length);
+        return chunks;
+    }
+
+    /**
+     * Frame requested buckets as [int bucket][int length][bucket] and group them into chunks.
+     * @param requested the requested buckets.
+     * @param chunkBytes the size after which a chunk is full (a single bigger bucket is still sent alone).
+     * @return the chunks, at least one.
+     */
+    @NotNull
+    public List<ByteString> getBucketChunks(@NotNull final BitSet requested, final int chunkBytes)
+    {
+        final List<ByteString> chunks = new ArrayList<>();
+        final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        final ByteBuffer header = ByteBuffer.allocate(BUCKET_HEADER_SIZE);
+        for (int bucket = requested.nextSetBit(0); bucket >= 0 && bucket < buckets.length; bucket = requested.nextSetBit(bucket + 1))
+        {
+            final byte[] data = buckets[bucket];
+            if (chunk.size() > 0 && chunk.size() + BUCKET_HEADER_SIZE + data.length > chunkBytes)
+            {
+                chunks.add(ByteString.copyFrom(chunk.toByteArray()));
+                chunk.reset();
+            }
+            header.clear();
+            header.putInt(bucket).putInt(data.length);
+            chunk.write(header.array(), 0, BUCKET_HEADER_SIZE);
+            chunk.write(data, 0, data.length);
+        }
+        chunks.add(ByteString.copyFrom(chunk.toByteArray()));
+        return chunks;
+    }
+
+    /**
+     * Get the sequence number of the last instance included.
+     * @return the sequence number.
+     */
+    public int getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Get the hashes of the buckets.
+     * @return the bytes, not to be modified.
+     */
+    @NotNull
+    public byte[] getBucketHashes()
+    {
+        return bucketHashes;
+    }
+
+    /**
+     * Get the serialized buckets.
+     * @return the buckets, not to be modified.
+     */
+    @NotNull
+    public byte[][] getBuckets()
+    {
+        return buckets;
+    }
+
+    /**
+     * Get the root of the tree over the bucket hashes.
+     * @return the digest, not to be modified.
+     */
+    @NotNull
+    public byte[] getDigest()
+    {
+        return digest;
+    }
+}
@@ -0,0 +1,302 @@
+package com.ray.pbft.utils;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.AccountState;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Fetches the state snapshot of a stable checkpoint from another replica in two rounds.
+ * First the bucket hashes, which are accepted if their Merkle root matches the certified digest of the checkpoint,
+ * then only the buckets whose hash differs from a base snapshot this replica has already, each verified against its hash.
+ * The chunks of a response arrive in order. Not thread safe, only the message handler uses it.
+ */
+public class StateTransfer
+{
+    /**
+     * Result of receiving a chunk.
+     */
+    public enum Result
+    {
+        /**
+         * Not a chunk of the response which is expected.
+         */
+        IGNORED,
+
+        /**
+         * Added, more chunks of the response follow.
+         */
+        MORE,
+
+        /**
+         * The bucket hashes are verified, the differing buckets have to be requested.
+         */
+        REQUEST,
+
+        /**
+         * The snapshot is complete and verified.
+         */
+        COMPLETE,
+
+        /**
+         * The response doesn't match the digest.
+         */
+        INVALID
+    }
+
+    /**
+     * The sequence number of the checkpoint.
+     */
+    private final int sequence;
+
+    /**
+     * The certified digest of the checkpoint.
+     */
+    private final ByteString digest;
+
+    /**
+     * The replica the chunks are fetched from.
+     */
+    private final int provider;
+
+    /**
+     * The number of children of an inner node of the tree.
+     */
+    private final int fanout;
+
+    /**
+     * The number of buckets of the local state, a snapshot of another shape is invalid.
+     */
+    private final int bucketCount;
+
+    /**
+     * The snapshot the unchanged buckets are taken from, null to start from an empty state.
+     */
+    private final StateSnapshot base;
+
+    /**
+     * The chunks of the bucket hashes received so far.
+     */
+    private final ByteArrayOutputStream receivedHashes = new ByteArrayOutputStream();
+
+    /**
+     * The verified bucket hashes, null while they are fetched.
+     */
+    private byte[] bucketHashes = null;
+
+    /**
+     * The buckets of the snapshot, fetched or taken from the base.
+     */
+    private byte[][] buckets = null;
+
+    /**
+     * The buckets which differ from the base and weren't received yet.
+     */
+    private final BitSet missing = new BitSet();
+
+    /**
+     * The bitmap of the requested buckets.
+     */
+    private byte[] requested = new byte[0];
+
+    /**
+     * The number of the next chunk of the current response.
+     */
+    private int nextChunk = 0;
+
+    /**
+     * The assembled snapshot once complete.
+     */
+    private StateSnapshot snapshot = null;
+
+    /**
+     * Start a transfer.
+     * @param sequence the sequence number of the stable checkpoint.
+     * @param digest its certified digest.
+     * @param provider the replica to fetch the chunks from.
+     * @param fanout the number of children of an inner node of the tree.
+     * @param bucketCount the number of buckets of the local state.
+     * @param base the snapshot to take the unchanged buckets from, null to fetch all non empty buckets.
+     */
+    public StateTransfer(final int sequence, @NotNull final ByteString digest, final int provider, final int fanout, final int bucketCount, @Nullable final StateSnapshot base)
+    {
+        this.sequence = sequence;
+        this.digest = digest;
+        this.provider = provider;
+        this.fanout = fanout;
+        this.bucketCount = bucketCount;
+        this.base = base;
+    }
+
+    /**
+     * Add a received chunk.
+     * @param sender the replica which sent it.
+     * @param chunk the chunk.
+     * @return if the chunk was ignored, more chunks follow, the buckets have to be requested or the snapshot is complete.
+     */
+    @NotNull
+    public Result receive(final int sender, @NotNull final MessageProto.StateChunk chunk)
+    {
+        if (sender != provider || chunk.getSequence() != sequence || chunk.getChunk() != nextChunk || snapshot != null)
+        {
+            return Result.IGNORED;
+        }
+
+        final boolean last = ++nextChunk >= chunk.getChunkCount();
+        if (bucketHashes == null)
+        {
+            final byte[] data = chunk.getData().toByteArray();
+            receivedHashes.write(data, 0, data.length);
+            return last ? verifyHashes() : Result.MORE;
+        }
+
+        if (!receiveBuckets(chunk.getData().toByteArray()))
+        {
+            return Result.INVALID;
+        }
+        if (!last)
+        {
+            return Result.MORE;
+        }
+        return missing.isEmpty() ? complete() : Result.INVALID;
+    }
+
+    /**
+     * Check the received bucket hashes against the digest and find the buckets which differ from the base.
+     * @return REQUEST or COMPLETE if no bucket differs, INVALID if the hashes don't match the digest or the number of buckets.
+     */
+    private Result verifyHashes()
+    {
+        final byte[] hashes = receivedHashes.toByteArray();
+        if (hashes.length != bucketCount * AccountState.HASH_SIZE)
+        {
+            return Result.INVALID;
+        }
+
+        final byte[] root = AccountState.computeRoot(hashes, fanout);
+        if (root == null || !Arrays.equals(root, digest.toByteArray()))
+        {
+            return Result.INVALID;
+        }
+
+        final byte[] emptyHash = AccountState.hashBucket(new byte[0]);
+        final boolean useBase = base != null && base.getBuckets().length == bucketCount;
+        bucketHashes = hashes;
+        buckets = new byte[bucketCount][];
+        for (int bucket = 0; bucket < bucketCount; bucket++)
+        {
+            final int offset = bucket * AccountState.HASH_SIZE;
+            final byte[] known = useBase ? base.getBucketHashes() : emptyHash;
+            final int knownOffset = useBase ? offset : 0;
+            if (Arrays.equals(hashes, offset, offset + AccountState.HASH_SIZE, known, knownOffset, knownOffset + AccountState.HASH_SIZE))
+            {
+                buckets[bucket] = useBase ? base.getBuckets()[bucket] : new byte[0];
+            }
+            else
+            {
+                missing.set(bucket);
+            }
+        }
+
+        nextChunk = 0;
+        requested = missing.toByteArray();
+        return missing.isEmpty() ? complete() : Result.REQUEST;
+    }
+
+    /**
+     * Read the framed buckets of a chunk and check each against its hash.
+     * @param data the buckets as [int bucket][int length][bucket].
+     * @return false if a bucket wasn't requested or doesn't match its hash.
+     */
+    private boolean receiveBuckets(final byte[] data)
+    {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining())
+        {
+            if (buffer.remaining() < StateSnapshot.BUCKET_HEADER_SIZE)
+            {
+                return false;
+            }
+            final int bucket = buffer.getInt();
+            final int length = buffer.getInt();
+            if (bucket < 0 || !missing.get(bucket) || length < 0 || length > buffer.remaining())
+            {
+                return false;
+            }
+
+            final byte[] content = Arrays.copyOfRange(data, buffer.position(), buffer.position() + length);
+            buffer.position(buffer.position() + length);
+            final int offset = bucket * AccountState.HASH_SIZE;
+            if (!Arrays.equals(AccountState.hashBucket(content), 0, AccountState.HASH_SIZE, bucketHashes, offset, offset + AccountState.HASH_SIZE))
+            {
+                return false;
+            }
+            buckets[bucket] = content;
+            missing.clear(bucket);
+        }
+        return true;
+    }
+
+    /**
+     * Assemble the snapshot.
+     * @return COMPLETE.
+     */
+    private Result complete()
+    {
+        snapshot = new StateSnapshot(sequence, bucketHashes, buckets, digest.toByteArray());
+        return Result.COMPLETE;
+    }
+
+    /**
+     * Get the sequence number of the checkpoint.
+     * @return the sequence number.
+     */
+    public int getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Get the replica the chunks are fetched from.
+     * @return its id.
+     */
+    public int getProvider()
+    {
+        return provider;
+    }
+
+    /**
+     * Get the bitmap of the buckets to request after the hashes were verified.
+     * @return the bitmap as written by {@link BitSet#toByteArray()}.
+     */
+    @NotNull
+    public byte[] getRequestedBuckets()
+    {
+        return requested;
+    }
+
+    /**
+     * Get the number of buckets to fetch.
+     * @return the number of buckets which differ from the base.
+     */
+    public int getRequestedCount()
+    {
+        return BitSet.valueOf(requested).cardinality();
+    }
+
+    /**
+     * Get the verified snapshot.
+     * @return the snapshot or null if not complete yet.
+     */
+    @Nullable
+    public StateSnapshot getSnapshot()
+    {
+        return snapshot;
+    }
+}
@@ -0,0 +1,234 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.server.AccountState;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to authenticate the account state by its Merkle tree.
+ */
+public class AccountStateTest
+{
+    @Test
+    public void incrementalRootMatchesFullRecomputation()
+    {
+        final long[] accounts = generateFingerprints(20);
+        final AccountState state = new AccountState(4, 2);
+        assertArrayEquals(AccountState.computeRoot(state.getBucketHashes(), 4), state.getRootHash());
+
+        for (int i = 0; i < 20; i++)
+        {
+            state.add(accounts[i * 2], accounts[i * 2 + 1], i);
+            assertArrayEquals(AccountState.computeRoot(state.getBucketHashes(), 4), state.getRootHash());
+        }
+        assertEquals(20, state.size());
+        assertEquals(7, state.get(accounts[14], accounts[15]));
+        assertEquals(0, state.get(42, 42));
+    }
+
+    @Test
+    public void rootIndependentOfInsertionOrder()
+    {
+        final long[] accounts = generateFingerprints(10);
+        final AccountState forward = new AccountState(4, 2);
+        final AccountState backward = new AccountState(4, 2);
+        for (int i = 0; i < 10; i++)
+        {
+            forward.add(accounts[i * 2], accounts[i * 2 + 1], i);
+            backward.add(accounts[(9 - i) * 2], accounts[(9 - i) * 2 + 1], 9 - i);
+        }
+        assertArrayEquals(forward.getRootHash(), backward.getRootHash());
+    }
+
+    @Test
+    public void changeOnlyTouchesItsBucket()
+    {
+        final long[] accounts = generateFingerprints(10);
+        final AccountState state = new AccountState(4, 2);
+        for (int i = 0; i < 10; i++)
+        {
+            state.add(accounts[i * 2], accounts[i * 2 + 1], 1);
+        }
+        final byte[] root = state.getRootHash();
+        final byte[] hashes = state.getBucketHashes();
+
+        assertEquals(2, state.add(accounts[6], accounts[7], 1));
+        assertFalse(Arrays.equals(root, state.getRootHash()));
+
+        final int bucket = AccountState.bucketOf(accounts[6], state.getBucketCount());
+        final byte[] changed = state.getBucketHashes();
+        for (int i = 0; i < state.getBucketCount(); i++)
+        {
+            final int offset = i * AccountState.HASH_SIZE;
+            final boolean equal = Arrays.equals(hashes, offset, offset + AccountState.HASH_SIZE, changed, offset, offset + AccountState.HASH_SIZE);
+            assertEquals(i != bucket, equal);
+        }
+
+        assertEquals(1, state.add(accounts[6], accounts[7], -1));
+        assertArrayEquals(root, state.getRootHash());
+    }
+
+    @Test
+    public void installDifferingBuckets()
+    {
+        final long[] accounts = generateFingerprints(10_000);
+        final AccountState source = new AccountState(16, 2);
+        final AccountState target = new AccountState(16, 2);
+        for (int i = 0; i < 10_000; i++)
+        {
+            source.add(accounts[i * 2], accounts[i * 2 + 1], Long.MAX_VALUE - i);
+            if (i % 2 == 0)
+            {
+                target.add(accounts[i * 2], accounts[i * 2 + 1], Long.MAX_VALUE - i);
+            }
+        }
+        assertEquals(10_000, source.size());
+
+        target.install(source.getBucketHashes(), source.getSerializedBuckets(), 0);
+        assertArrayEquals(source.getRootHash(), target.getRootHash());
+        assertEquals(10_000, target.size());
+        assertEquals(Long.MAX_VALUE - 9_999, target.get(accounts[19_998], accounts[19_999]));
+    }
+
+    @Test
+    public void rejectInstallOfOtherShape()
+    {
+        final long[] accounts = generateFingerprints(100);
+        final AccountState source = new AccountState(16, 2);
+        final AccountState target = new AccountState(4, 2);
+        for (int i = 0; i < 100; i++)
+        {
+            source.add(accounts[i * 2], accounts[i * 2 + 1], 1);
+        }
+        final byte[] root = target.getRootHash();
+
+        assertEquals(-1, target.install(source.getBucketHashes(), source.getSerializedBuckets(), 3));
+        assertEquals(-1, target.install(Arrays.copyOf(source.getBucketHashes(), 16 * AccountState.HASH_SIZE), source.getSerializedBuckets(), 3));
+        assertEquals(-1, target.install(Arrays.copyOf(source.getBucketHashes(), 16 * AccountState.HASH_SIZE), new byte[16][], 3));
+        assertArrayEquals(root, target.getRootHash());
+        assertEquals(0, target.size());
+        assertEquals(-1, target.getSequence());
+    }
+
+    @Test
+    public void separateLeafAndNodeHashes()
+    {
+        final AccountState state = new AccountState(4, 1);
+        final long[] account = generateFingerprints(1);
+        state.add(account[0], account[1], 1);
+
+        // A bucket serialized like the children of the root doesn't hash to the root.
+        final byte[] children = state.getBucketHashes();
+        assertArrayEquals(AccountState.computeRoot(children, 4), state.getRootHash());
+        assertFalse(Arrays.equals(AccountState.hashBucket(children), state.getRootHash()));
+    }
+
+    @Test
+    public void parallelAddMatchesSequential()
+    {
+        final long[] accounts = generateFingerprints(500);
+        final Random random = new Random(3);
+        final long[] deltas = new long[20_000];
+        final long[] fingerprints = new long[deltas.length * 2];
+        for (int i = 0; i < deltas.length; i++)
+        {
+            final int account = random.nextInt(500);
+            fingerprints[i * 2] = accounts[account * 2];
+            fingerprints[i * 2 + 1] = accounts[account * 2 + 1];
+            deltas[i] = random.nextInt(1_000) - 400;
+        }
+
+        final AccountState sequential = new AccountState(16, 2);
+        for (int i = 0; i < deltas.length; i++)
+        {
+            sequential.add(fingerprints[i * 2], fingerprints[i * 2 + 1], deltas[i]);
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final AccountState parallel = new AccountState(16, 2);
+        parallel.addAll(fingerprints, deltas, deltas.length, pool, 4, 0);
+        pool.shutdown();
+
+        assertEquals(sequential.size(), parallel.size());
+        assertArrayEquals(sequential.getRootHash(), parallel.getRootHash());
+        for (int i = 0; i < 500; i++)
+        {
+            assertEquals(sequential.get(accounts[i * 2], accounts[i * 2 + 1]), parallel.get(accounts[i * 2], accounts[i * 2 + 1]));
+        }
+    }
+
+    @Test
+    public void readBalancesReportsAppliedSequence()
+    {
+        final long[] accounts = generateFingerprints(3);
+        final AccountState state = new AccountState(16, 2);
+        final long[] balances = new long[3];
+        assertEquals(-1, state.readBalances(accounts, 3, balances));
+
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        state.addAll(accounts, new long[] {5, 0, -3}, 3, pool, 2, 7);
+        pool.shutdown();
+
+        assertEquals(7, state.readBalances(accounts, 3, balances));
+        assertEquals(5, balances[0]);
+        assertEquals(0, balances[1]);
+        assertEquals(-3, balances[2]);
+    }
+
+    @Test
+    public void distinguishAccountsByWholeFingerprint()
+    {
+        // Two accounts which only differ in the second long of their fingerprints, a collision of a 64 bit fingerprint.
+        final long[] accounts = {5, 1, 5, 2};
+        final AccountState state = new AccountState(4, 2);
+        assertEquals(10, state.add(5, 1, 10));
+        assertEquals(-3, state.add(5, 2, -3));
+        assertEquals(2, state.size());
+        assertEquals(10, state.get(5, 1));
+
+        final long[] balances = new long[2];
+        state.readBalances(accounts, 2, balances);
+        assertArrayEquals(new long[] {10, -3}, balances);
+
+        final AccountState target = new AccountState(4, 2);
+        target.install(state.getBucketHashes(), state.getSerializedBuckets(), 0);
+        assertEquals(2, target.size());
+        assertEquals(-3, target.get(5, 2));
+        assertArrayEquals(state.getRootHash(), target.getRootHash());
+
+        final AccountState reordered = new AccountState(4, 2);
+        reordered.add(5, 2, -3);
+        reordered.add(5, 1, 10);
+        assertArrayEquals(state.getRootHash(), reordered.getRootHash());
+    }
+
+    @Test
+    public void fingerprintFromKeyHash()
+    {
+        final long[] fingerprints = new long[AccountState.FINGERPRINT_LONGS * 2];
+        AccountState.fingerprint(ByteString.copyFrom(new byte[] {1, 2, 3}), fingerprints, 0);
+        AccountState.fingerprint(ByteString.copyFrom(new byte[] {1, 2, 4}), fingerprints, 1);
+        assertTrue(fingerprints[0] != 0 && fingerprints[2] != 0);
+        assertTrue(fingerprints[0] != fingerprints[2] && fingerprints[1] != fingerprints[3]);
+
+        final long[] again = new long[AccountState.FINGERPRINT_LONGS];
+        AccountState.fingerprint(ByteString.copyFrom(new byte[] {1, 2, 4}), again, 0);
+        assertArrayEquals(Arrays.copyOfRange(fingerprints, 2, 4), again);
+    }
+
+    /**
+     * Generate distinct account fingerprints.
+     * @param count the number of fingerprints.
+     * @return the fingerprints, two longs each.
+     */
+    private static long[] generateFingerprints(final int count)
+    {
+        return new Random(7).longs().filter(fingerprint -> fingerprint != 0).distinct().limit(count * 2L).toArray();
+    }
+}
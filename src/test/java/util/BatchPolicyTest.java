@@ -0,0 +1,63 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.pbft.utils.BatchPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to decide on the batches of the coordinator.
+ */
+public class BatchPolicyTest
+{
+    @Test
+    public void proposeOnSizeOrLinger()
+    {
+        final BatchPolicy policy = new BatchPolicy(10, 1, 100, 1_000, 1_000, false, 1_000);
+        assertFalse(policy.isReady(0, 0, 0, 5_000));
+        assertFalse(policy.isReady(9, 90, 0, 999));
+        assertTrue(policy.isReady(10, 100, 0, 0));
+        assertTrue(policy.isReady(1, 1_000, 0, 0));
+        assertTrue(policy.isReady(1, 10, 0, 1_000));
+    }
+
+    @Test
+    public void cutAtMaxBytes()
+    {
+        final BatchPolicy policy = new BatchPolicy(10, 1, 3, 250, 1_000, false, 1_000);
+        final List<MessageProto.PersistClientMessage> pending = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            pending.add(MessageProto.PersistClientMessage.newBuilder().setSig(ByteString.copyFrom(new byte[100])).buildPartial());
+        }
+        assertEquals(2, policy.cut(pending));
+
+        final BatchPolicy large = new BatchPolicy(10, 1, 3, 10, 1_000, false, 1_000);
+        assertEquals(1, large.cut(pending));
+        assertEquals(0, large.cut(new ArrayList<>()));
+    }
+
+    @Test
+    public void adaptToSaturationAndLatency()
+    {
+        final BatchPolicy policy = new BatchPolicy(8, 4, 16, 1_000, 1_000, true, 100);
+        policy.onProposed(0, 0, true);
+        assertEquals(10, policy.getTargetSize());
+        policy.onExecuted(0, 50);
+        assertEquals(10, policy.getTargetSize());
+
+        policy.onProposed(1, 100, false);
+        assertEquals(10, policy.getTargetSize());
+        policy.onExecuted(1, 10_000);
+        assertEquals(5, policy.getTargetSize());
+        policy.onProposed(2, 10_000, true);
+        assertEquals(5, policy.getTargetSize());
+        policy.onExecuted(2, 100_000);
+        assertEquals(4, policy.getTargetSize());
+    }
+}
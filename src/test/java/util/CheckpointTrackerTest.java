@@ -0,0 +1,140 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.pbft.utils.CheckpointTracker;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to certify stable checkpoints from the checkpoints of the replicas.
+ */
+public class CheckpointTrackerTest
+{
+    /**
+     * The number of matching checkpoints which certify one.
+     */
+    private static final int QUORUM = 3;
+
+    @Test
+    public void certifyAtQuorum()
+    {
+        final CheckpointTracker tracker = new CheckpointTracker();
+        assertEquals(-1, tracker.getStableSequence());
+        assertEquals(ByteString.EMPTY, tracker.getStableDigest());
+
+        assertFalse(tracker.add(0, checkpoint(10, 1), true, QUORUM));
+        assertFalse(tracker.add(1, checkpoint(10, 1), false, QUORUM));
+        assertEquals(-1, tracker.getStableSequence());
+        assertTrue(tracker.add(2, checkpoint(10, 1), false, QUORUM));
+
+        assertEquals(10, tracker.getStableSequence());
+        assertEquals(-1, tracker.getPreviousStableSequence());
+        assertEquals(digest(1), tracker.getStableDigest());
+        assertTrue(tracker.stableMatchesOwn());
+
+        assertFalse(tracker.add(0, checkpoint(20, 2), true, QUORUM));
+        assertFalse(tracker.add(1, checkpoint(20, 2), false, QUORUM));
+        assertTrue(tracker.add(3, checkpoint(20, 2), false, QUORUM));
+        assertEquals(20, tracker.getStableSequence());
+        assertEquals(10, tracker.getPreviousStableSequence());
+    }
+
+    @Test
+    public void ignoreStaleAndDuplicateCheckpoints()
+    {
+        final CheckpointTracker tracker = new CheckpointTracker();
+        for (int sender = 0; sender < QUORUM; sender++)
+        {
+            tracker.add(sender, checkpoint(10, 1), false, QUORUM);
+        }
+        assertEquals(10, tracker.getStableSequence());
+
+        // At or below the stable checkpoint.
+        assertFalse(tracker.add(3, checkpoint(10, 1), false, QUORUM));
+        assertFalse(tracker.add(3, checkpoint(5, 1), false, QUORUM));
+
+        // The same checkpoint again doesn't count twice.
+        assertFalse(tracker.add(0, checkpoint(20, 1), false, QUORUM));
+        assertFalse(tracker.add(0, checkpoint(20, 1), false, QUORUM));
+        assertFalse(tracker.add(1, checkpoint(20, 1), false, QUORUM));
+        assertFalse(tracker.add(1, checkpoint(20, 1), false, QUORUM));
+        assertEquals(10, tracker.getStableSequence());
+
+        assertTrue(tracker.add(2, checkpoint(20, 1), false, QUORUM));
+        assertEquals(20, tracker.getStableSequence());
+    }
+
+    @Test
+    public void requireMatchingDigests()
+    {
+        final CheckpointTracker tracker = new CheckpointTracker();
+        assertFalse(tracker.add(0, checkpoint(10, 1), true, QUORUM));
+        assertFalse(tracker.add(1, checkpoint(10, 2), false, QUORUM));
+        assertFalse(tracker.add(2, checkpoint(10, 2), false, QUORUM));
+        assertEquals(-1, tracker.getStableSequence());
+
+        // Certified without the own digest.
+        assertTrue(tracker.add(3, checkpoint(10, 2), false, QUORUM));
+        assertEquals(10, tracker.getStableSequence());
+        assertEquals(digest(2), tracker.getStableDigest());
+        assertFalse(tracker.stableMatchesOwn());
+
+        assertFalse(tracker.add(0, checkpoint(20, 3), true, QUORUM));
+        assertFalse(tracker.add(1, checkpoint(20, 3), false, QUORUM));
+        assertTrue(tracker.add(2, checkpoint(20, 3), false, QUORUM));
+        assertTrue(tracker.stableMatchesOwn());
+
+        // Certified by the others before the own checkpoint.
+        for (int sender = 1; sender <= QUORUM; sender++)
+        {
+            tracker.add(sender, checkpoint(30, 4), false, QUORUM);
+        }
+        assertEquals(30, tracker.getStableSequence());
+        assertTrue(tracker.stableMatchesOwn());
+    }
+
+    @Test
+    public void keepNewestCheckpointOfSender()
+    {
+        final CheckpointTracker tracker = new CheckpointTracker();
+        assertFalse(tracker.add(0, checkpoint(10, 1), false, QUORUM));
+
+        // Sender 0 moves ahead, its vote for 10 is replaced.
+        assertFalse(tracker.add(0, checkpoint(20, 2), false, QUORUM));
+        assertFalse(tracker.add(0, checkpoint(10, 1), false, QUORUM));
+        assertFalse(tracker.add(1, checkpoint(10, 1), false, QUORUM));
+        assertFalse(tracker.add(2, checkpoint(10, 1), false, QUORUM));
+        assertEquals(-1, tracker.getStableSequence());
+
+        assertFalse(tracker.add(1, checkpoint(20, 2), false, QUORUM));
+        assertTrue(tracker.add(2, checkpoint(20, 2), false, QUORUM));
+        assertEquals(20, tracker.getStableSequence());
+        assertEquals(-1, tracker.getPreviousStableSequence());
+
+        // The votes up to the stable checkpoint are discarded.
+        assertEquals("CheckpointTracker{stable=20, votes=0}", tracker.toString());
+    }
+
+    /**
+     * Create a checkpoint.
+     * @param sequence its sequence number.
+     * @param state the state it digests.
+     * @return the checkpoint.
+     */
+    private static MessageProto.Checkpoint checkpoint(final int sequence, final int state)
+    {
+        return MessageProto.Checkpoint.newBuilder().setSequence(sequence).setStateDigest(digest(state)).build();
+    }
+
+    /**
+     * Create the digest of a state.
+     * @param state the state.
+     * @return the digest.
+     */
+    private static ByteString digest(final int state)
+    {
+        return ByteString.copyFrom(new byte[] {(byte) state, 0, 0, 0});
+    }
+}
@@ -0,0 +1,277 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.pbft.storage.CommitLog;
+import com.ray.pbft.storage.CommitLogReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to look up committed batches through the commit log reader.
+ */
+public class CommitLogReaderTest
+{
+    /**
+     * The size of a framed record.
+     */
+    private static final int RECORD_SIZE = CommitLog.HEADER_SIZE + record(1).getSerializedSize();
+
+    @Test
+    public void lookUpBetweenIndexedRecords() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            write(directory, Long.MAX_VALUE, range(1, 20));
+            final CommitLogReader reader = new CommitLogReader(directory, 4);
+            assertEquals(range(6, 8), viewIds(reader.read(6, 9, Long.MAX_VALUE)));
+            assertEquals(20, reader.getIndexedRecords());
+            assertEquals(range(20, 20), viewIds(reader.read(20, 100, Long.MAX_VALUE)));
+            assertTrue(reader.read(21, 100, Long.MAX_VALUE).isEmpty());
+            assertTrue(reader.read(0, 100, Long.MAX_VALUE).isEmpty());
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void readAcrossSegments() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            write(directory, 3L * RECORD_SIZE, range(1, 10));
+            assertEquals(4, CommitLog.listSegments(directory).size());
+
+            final CommitLogReader reader = new CommitLogReader(directory, 100);
+            assertEquals(range(2, 10), viewIds(reader.read(2, 100, Long.MAX_VALUE)));
+            assertEquals(range(3, 7), viewIds(reader.read(3, 8, Long.MAX_VALUE)));
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void stopAtMaxBytes() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            write(directory, Long.MAX_VALUE, range(1, 5));
+            final CommitLogReader reader = new CommitLogReader(directory, 1);
+            final long payloadSize = RECORD_SIZE - CommitLog.HEADER_SIZE;
+            assertEquals(range(1, 2), viewIds(reader.read(1, 100, 2 * payloadSize)));
+            assertEquals(range(1, 2), viewIds(reader.read(1, 100, 3 * payloadSize - 1)));
+
+            // At least one batch even if it is bigger.
+            assertEquals(range(4, 4), viewIds(reader.read(4, 100, 0)));
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void stopAtGap() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            write(directory, Long.MAX_VALUE, Arrays.asList(1, 2, 3, 5, 6));
+            final CommitLogReader reader = new CommitLogReader(directory, 1);
+            assertEquals(range(1, 3), viewIds(reader.read(1, 100, Long.MAX_VALUE)));
+            assertTrue(reader.read(4, 100, Long.MAX_VALUE).isEmpty());
+            assertEquals(range(5, 6), viewIds(reader.read(5, 100, Long.MAX_VALUE)));
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void readGrowingSegment() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            final CommitLogReader reader = new CommitLogReader(directory, 2);
+            assertTrue(reader.read(1, 100, Long.MAX_VALUE).isEmpty());
+
+            final CommitLog log = new CommitLog(directory, Long.MAX_VALUE, 1, 0);
+            for (final int viewId : range(1, 3))
+            {
+                log.append(record(viewId));
+            }
+            assertEquals(range(1, 3), viewIds(reader.read(1, 100, Long.MAX_VALUE)));
+
+            for (final int viewId : range(4, 6))
+            {
+                log.append(record(viewId));
+            }
+            log.close();
+            assertEquals(range(2, 6), viewIds(reader.read(2, 100, Long.MAX_VALUE)));
+            assertEquals(6, reader.getIndexedRecords());
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void readActiveSegmentAcrossRoll() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            final CommitLogReader reader = new CommitLogReader(directory, 2);
+            final CommitLog log = new CommitLog(directory, 3L * RECORD_SIZE, 1, 0);
+            for (final int viewId : range(1, 4))
+            {
+                log.append(record(viewId));
+            }
+            assertEquals(range(1, 4), viewIds(reader.read(1, 100, Long.MAX_VALUE)));
+
+            // The active segment is closed by the roll and mapped, the records after it are read from the new one.
+            for (final int viewId : range(5, 7))
+            {
+                log.append(record(viewId));
+            }
+            assertEquals(3, CommitLog.listSegments(directory).size());
+            assertEquals(range(3, 7), viewIds(reader.read(3, 100, Long.MAX_VALUE)));
+            assertEquals(range(5, 6), viewIds(reader.read(5, 7, Long.MAX_VALUE)));
+            assertEquals(range(7, 7), viewIds(reader.read(7, 8, Long.MAX_VALUE)));
+
+            log.append(record(8));
+            log.close();
+            assertEquals(range(6, 8), viewIds(reader.read(6, 100, Long.MAX_VALUE)));
+            assertEquals(8, reader.getIndexedRecords());
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void truncateKeepsSegmentOfSequence() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            write(directory, 3L * RECORD_SIZE, range(1, 9));
+            final CommitLogReader reader = new CommitLogReader(directory, 100);
+            assertEquals(0, reader.truncateBefore(3));
+
+            assertEquals(1, reader.truncateBefore(5));
+            final List<Path> segments = CommitLog.listSegments(directory);
+            assertEquals(2, segments.size());
+            assertEquals(1, CommitLog.segmentIndex(segments.get(0)));
+
+            assertEquals(range(4, 9), viewIds(reader.read(4, 100, Long.MAX_VALUE)));
+            assertTrue(reader.read(2, 100, Long.MAX_VALUE).isEmpty());
+            assertEquals(0, reader.truncateBefore(5));
+
+            assertEquals(1, reader.truncateBefore(100));
+            assertEquals(range(7, 9), viewIds(reader.read(7, 100, Long.MAX_VALUE)));
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Create a committed batch.
+     * @param viewId the view id (sequence number) of the batch.
+     * @return the batch.
+     */
+    private static MessageProto.CommitStorage record(final int viewId)
+    {
+        return MessageProto.CommitStorage.newBuilder()
+                 .setInputHash(ByteString.copyFrom(new byte[] {(byte) viewId, 1, 2, 3}))
+                 .setView(MessageProto.View.newBuilder().setId(viewId).setCoordinator(0))
+                 .build();
+    }
+
+    /**
+     * Get the numbers from first to last.
+     * @param first the first number.
+     * @param last the last number (inclusive).
+     * @return the numbers.
+     */
+    private static List<Integer> range(final int first, final int last)
+    {
+        final List<Integer> numbers = new ArrayList<>();
+        for (int i = first; i <= last; i++)
+        {
+            numbers.add(i);
+        }
+        return numbers;
+    }
+
+    /**
+     * Get the view ids of batches.
+     * @param batches the batches.
+     * @return the view ids in order.
+     */
+    private static List<Integer> viewIds(final List<MessageProto.CommitStorage> batches)
+    {
+        final List<Integer> viewIds = new ArrayList<>();
+        for (final MessageProto.CommitStorage batch : batches)
+        {
+            viewIds.add(batch.getView().getId());
+        }
+        return viewIds;
+    }
+
+    /**
+     * Write batches to a new log.
+     * @param directory the directory of the log.
+     * @param segmentBytes the size after which a new segment is started.
+     * @param viewIds the view ids of the batches.
+     * @throws IOException if writing fails.
+     */
+    private static void write(final Path directory, final long segmentBytes, final List<Integer> viewIds) throws IOException
+    {
+        final CommitLog log = new CommitLog(directory, segmentBytes, 1, 0);
+        for (final int viewId : viewIds)
+        {
+            log.append(record(viewId));
+        }
+        log.close();
+    }
+
+    /**
+     * Delete a directory with its content.
+     * @param directory the directory.
+     * @throws IOException if deleting fails.
+     */
+    private static void delete(final Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            for (final Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+            {
+                Files.delete(file);
+            }
+        }
+    }
+}
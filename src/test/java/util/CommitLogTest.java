@@ -0,0 +1,231 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.pbft.storage.CommitLog;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to write, frame and recover the commit log.
+ */
+public class CommitLogTest
+{
+    @Test
+    public void rejectCorruptFrames()
+    {
+        final byte[] first = record(1).toByteArray();
+        final byte[] second = record(2).toByteArray();
+        final ByteBuffer buffer = ByteBuffer.allocate(2 * CommitLog.HEADER_SIZE + first.length + second.length);
+        buffer.put(frame(first)).put(frame(second)).flip();
+
+        final ByteBuffer payload = CommitLog.nextPayload(buffer);
+        assertNotNull(payload);
+        assertEquals(ByteBuffer.wrap(first), payload);
+        assertEquals(CommitLog.HEADER_SIZE + first.length, buffer.position());
+        final int start = buffer.position();
+
+        // Length beyond the end of the segment.
+        buffer.putInt(start, second.length + 1);
+        assertNull(CommitLog.nextPayload(buffer));
+        assertEquals(start, buffer.position());
+
+        buffer.putInt(start, -1);
+        assertNull(CommitLog.nextPayload(buffer));
+        assertEquals(start, buffer.position());
+
+        // Shorter length, the crc doesn't match anymore.
+        buffer.putInt(start, second.length - 1);
+        assertNull(CommitLog.nextPayload(buffer));
+        assertEquals(start, buffer.position());
+
+        buffer.putInt(start, second.length);
+        final int last = start + CommitLog.HEADER_SIZE + second.length - 1;
+        buffer.put(last, (byte) (buffer.get(last) ^ 1));
+        assertNull(CommitLog.nextPayload(buffer));
+        assertNull(CommitLog.readRecord(buffer));
+        assertEquals(start, buffer.position());
+
+        buffer.put(last, (byte) (buffer.get(last) ^ 1));
+        assertEquals(2, CommitLog.readRecord(buffer).getView().getId());
+        assertFalse(buffer.hasRemaining());
+        assertNull(CommitLog.nextPayload(buffer));
+    }
+
+    @Test
+    public void truncateTornTail() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            final CommitLog log = new CommitLog(directory, 1024 * 1024, 1, 0);
+            for (int i = 1; i <= 3; i++)
+            {
+                log.append(record(i));
+            }
+            log.close();
+
+            final Path segment = CommitLog.listSegments(directory).get(0);
+            final long size = Files.size(segment);
+            final byte[] torn = frame(record(4).toByteArray());
+            Files.write(segment, Arrays.copyOf(torn, torn.length / 2), StandardOpenOption.APPEND);
+
+            final CommitLog reopened = new CommitLog(directory, 1024 * 1024, 1, 0);
+            assertEquals(size, Files.size(segment));
+            reopened.append(record(4));
+            reopened.close();
+
+            assertEquals(Arrays.asList(1, 2, 3, 4), readViewIds(directory));
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void rollAtSegmentBytes() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            final int recordSize = CommitLog.HEADER_SIZE + record(1).getSerializedSize();
+            final CommitLog log = new CommitLog(directory, 2L * recordSize + 1, 1, 0);
+            for (int i = 1; i <= 5; i++)
+            {
+                log.append(record(i));
+            }
+            log.close();
+
+            final List<Path> segments = CommitLog.listSegments(directory);
+            assertEquals(3, segments.size());
+            for (int i = 0; i < segments.size(); i++)
+            {
+                assertEquals(i, CommitLog.segmentIndex(segments.get(i)));
+                assertEquals(CommitLog.segmentName(i), segments.get(i).getFileName().toString());
+            }
+            assertEquals(2L * recordSize, Files.size(segments.get(0)));
+            assertEquals(recordSize, Files.size(segments.get(2)));
+            assertEquals(Arrays.asList(1, 2, 3, 4, 5), readViewIds(directory));
+
+            // A record above the limit still goes into a segment of its own.
+            final CommitLog small = new CommitLog(directory, 1, 1, 0);
+            small.append(record(6));
+            small.append(record(7));
+            small.close();
+            assertEquals(5, CommitLog.listSegments(directory).size());
+            assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), readViewIds(directory));
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void continueAfterRestart() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("commitlog");
+        try
+        {
+            final CommitLog log = new CommitLog(directory, 1024 * 1024, 2, Long.MAX_VALUE);
+            log.append(record(1));
+            assertFalse(log.isSyncDue(false));
+            assertTrue(log.isSyncDue(true));
+            log.append(record(2));
+            assertTrue(log.isSyncDue(false));
+            log.sync();
+            assertFalse(log.isSyncDue(true));
+            assertEquals(1, log.getSyncCount());
+            log.close();
+
+            final CommitLog reopened = new CommitLog(directory, 1024 * 1024, 2, Long.MAX_VALUE);
+            reopened.append(record(3));
+            reopened.append(record(4));
+            reopened.close();
+
+            assertEquals(2, reopened.getAppendCount());
+            assertEquals(1, CommitLog.listSegments(directory).size());
+            assertEquals(Arrays.asList(1, 2, 3, 4), readViewIds(directory));
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Create a committed batch.
+     * @param viewId the view id (sequence number) of the batch.
+     * @return the batch.
+     */
+    private static MessageProto.CommitStorage record(final int viewId)
+    {
+        return MessageProto.CommitStorage.newBuilder()
+                 .setInputHash(ByteString.copyFrom(new byte[] {(byte) viewId, 1, 2, 3}))
+                 .setView(MessageProto.View.newBuilder().setId(viewId).setCoordinator(0))
+                 .build();
+    }
+
+    /**
+     * Frame a payload like the commit log does.
+     * @param payload the payload.
+     * @return the record.
+     */
+    private static byte[] frame(final byte[] payload)
+    {
+        final CRC32C crc = new CRC32C();
+        crc.update(payload, 0, payload.length);
+        return ByteBuffer.allocate(CommitLog.HEADER_SIZE + payload.length).putInt(payload.length).putInt((int) crc.getValue()).put(payload).array();
+    }
+
+    /**
+     * Read the view ids of all valid records of a log.
+     * @param directory the directory of the log.
+     * @return the view ids in log order.
+     * @throws IOException if the segments can't be read.
+     */
+    private static List<Integer> readViewIds(final Path directory) throws IOException
+    {
+        final List<Integer> viewIds = new ArrayList<>();
+        for (final Path segment : CommitLog.listSegments(directory))
+        {
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+            for (MessageProto.CommitStorage storage = CommitLog.readRecord(buffer); storage != null; storage = CommitLog.readRecord(buffer))
+            {
+                viewIds.add(storage.getView().getId());
+            }
+            assertFalse(buffer.hasRemaining());
+        }
+        return viewIds;
+    }
+
+    /**
+     * Delete a directory with its content.
+     * @param directory the directory.
+     * @throws IOException if deleting fails.
+     */
+    private static void delete(final Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            for (final Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+            {
+                Files.delete(file);
+            }
+        }
+    }
+}
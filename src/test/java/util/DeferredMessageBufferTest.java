@@ -0,0 +1,105 @@
+package util;
+
+import com.ray.mcu.communication.wrappers.IMessageWrapper;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.pbft.communication.wrappers.PrepareWrapper;
+import com.ray.pbft.utils.DeferredMessageBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to hold back and release early consensus messages.
+ */
+public class DeferredMessageBufferTest
+{
+    @Test
+    public void deferAndRelease()
+    {
+        final DeferredMessageBuffer buffer = new DeferredMessageBuffer(10);
+        final IMessageWrapper first = message(0);
+        final IMessageWrapper second = message(1);
+        assertTrue(buffer.defer(5, first));
+        assertTrue(buffer.defer(5, second));
+        assertTrue(buffer.defer(6, message(2)));
+        assertEquals(2, buffer.count(5));
+        assertEquals(3, buffer.size());
+        assertEquals(6, buffer.getHighestSequence());
+        assertNull(buffer.pollReleased());
+
+        buffer.release(5);
+        assertSame(first, buffer.pollReleased());
+        assertSame(second, buffer.pollReleased());
+        assertNull(buffer.pollReleased());
+        assertEquals(0, buffer.count(5));
+        assertEquals(1, buffer.size());
+        assertEquals(2, buffer.getReleasedCount());
+
+        buffer.release(5);
+        assertNull(buffer.pollReleased());
+    }
+
+    @Test
+    public void releaseUpToInSequenceOrder()
+    {
+        final DeferredMessageBuffer buffer = new DeferredMessageBuffer(10);
+        final IMessageWrapper late = message(0);
+        final IMessageWrapper early = message(1);
+        buffer.defer(8, late);
+        buffer.defer(7, early);
+        buffer.defer(9, message(2));
+
+        buffer.releaseUpTo(8);
+        assertSame(early, buffer.pollReleased());
+        assertSame(late, buffer.pollReleased());
+        assertNull(buffer.pollReleased());
+        assertEquals(1, buffer.size());
+        assertEquals(9, buffer.getHighestSequence());
+    }
+
+    @Test
+    public void discardBelow()
+    {
+        final DeferredMessageBuffer buffer = new DeferredMessageBuffer(10);
+        buffer.defer(3, message(0));
+        buffer.defer(4, message(1));
+        buffer.defer(5, message(2));
+
+        buffer.discardBelow(5);
+        assertEquals(1, buffer.size());
+        assertEquals(2, buffer.getDroppedCount());
+        assertEquals(0, buffer.count(4));
+        assertNull(buffer.pollReleased());
+
+        buffer.releaseUpTo(5);
+        assertNotNull(buffer.pollReleased());
+        assertEquals(-1, buffer.getHighestSequence());
+    }
+
+    @Test
+    public void dropBeyondLimit()
+    {
+        final DeferredMessageBuffer buffer = new DeferredMessageBuffer(2);
+        assertTrue(buffer.defer(1, message(0)));
+        assertTrue(buffer.defer(2, message(1)));
+        assertFalse(buffer.defer(3, message(2)));
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.getDeferredCount());
+        assertEquals(1, buffer.getDroppedCount());
+        assertEquals(0, buffer.count(3));
+
+        // Room again once released.
+        buffer.release(1);
+        assertTrue(buffer.defer(3, message(2)));
+    }
+
+    /**
+     * Create a message of a sender.
+     * @param sender the sender.
+     * @return the message.
+     */
+    private static IMessageWrapper message(final int sender)
+    {
+        return new PrepareWrapper(sender, MessageProto.Message.getDefaultInstance());
+    }
+}
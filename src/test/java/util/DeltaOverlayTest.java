@@ -0,0 +1,41 @@
+package util;
+
+import com.ray.pbft.utils.BatchEffects;
+import com.ray.pbft.utils.DeltaOverlay;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to sum the changes of batches which aren't applied yet.
+ */
+public class DeltaOverlayTest
+{
+    @Test
+    public void addAndSubtract()
+    {
+        final DeltaOverlay overlay = new DeltaOverlay();
+        assertTrue(overlay.isEmpty());
+
+        final BatchEffects first = new BatchEffects(1, new long[] {1, 1, 2, 1, 1, 1}, new long[] {-5, 3, 2});
+        final BatchEffects second = new BatchEffects(2, new long[] {2, 1, 1, 2}, new long[] {-3, 7});
+        overlay.add(first);
+        overlay.add(second);
+        assertEquals(-3, overlay.get(1, 1));
+        assertEquals(0, overlay.get(2, 1));
+        assertEquals(7, overlay.get(1, 2));
+        assertEquals(0, overlay.get(4, 1));
+        assertFalse(overlay.isEmpty());
+
+        overlay.subtract(first);
+        assertEquals(0, overlay.get(1, 1));
+        assertEquals(-3, overlay.get(2, 1));
+        overlay.subtract(second);
+        assertTrue(overlay.isEmpty());
+
+        overlay.add(first);
+        overlay.clear();
+        assertTrue(overlay.isEmpty());
+        assertEquals(0, overlay.get(1, 1));
+    }
+}
@@ -2,11 +2,14 @@ package util;
 
 import com.ray.mcu.server.ServerData;
 import com.ray.mcu.utils.KeyUtilities;
+import com.ray.mcu.utils.signatures.ISignatureScheme;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.Random;
@@ -112,6 +115,28 @@ public class KeyUtilitiesTest
         }
     }
 
+    @Test
+    public void signAndVerifyAllSchemes() throws InvalidKeyException
+    {
+        final byte[] message = new byte[20];
+        new Random().nextBytes(message);
+
+        for (final String name : new String[] {"RSA", "ECDSA", "Ed25519"})
+        {
+            final ISignatureScheme scheme = KeyUtilities.createScheme(name);
+            final KeyPair keyPair = scheme.generateKeyPair();
+
+            final PublicKey publicKey = scheme.decodePublicKey(keyPair.getPublic().getEncoded());
+            final PrivateKey privateKey = scheme.decodePrivateKey(keyPair.getPrivate().getEncoded());
+
+            final byte[] signature = scheme.sign(message, privateKey);
+            assertNotNull(signature);
+
+            assertTrue(scheme.verify(message, signature, publicKey));
+            assertFalse(scheme.verify(new byte[20], signature, publicKey));
+        }
+    }
+
     @Test
     public void encryptDecrypt()
     {
@@ -0,0 +1,111 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.pbft.utils.Mempool;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to queue, deduplicate and evict the client requests of the coordinator.
+ */
+public class MempoolTest
+{
+    @Test
+    public void dropDuplicates()
+    {
+        final Mempool mempool = new Mempool(1_000_000, 1, 100);
+        final MessageProto.PersistClientMessage request = request(0, 1);
+        assertEquals(Mempool.AddResult.ADDED, mempool.add(request, 1));
+        assertEquals(Mempool.AddResult.DUPLICATE, mempool.add(request, 2));
+        assertEquals(Mempool.AddResult.ADDED, mempool.add(request(0, 2), 3));
+        assertEquals(2, mempool.size());
+        assertEquals(1, mempool.getClientCount());
+
+        assertEquals(Arrays.asList(request), mempool.drain(1));
+        assertEquals(3, mempool.getOldestNanos());
+
+        // Proposed already.
+        assertEquals(Mempool.AddResult.DUPLICATE, mempool.add(request, 4));
+        assertEquals(1, mempool.size());
+        assertEquals(2, mempool.getDuplicateCount());
+        assertEquals(0, mempool.getDroppedCount());
+    }
+
+    @Test
+    public void drainRoundRobinByQuantum()
+    {
+        final Mempool mempool = new Mempool(1_000_000, 2, 100);
+        for (int i = 0; i < 5; i++)
+        {
+            mempool.add(request(0, i), i);
+        }
+        mempool.add(request(1, 0), 10);
+        mempool.add(request(1, 1), 11);
+        mempool.add(request(2, 0), 12);
+        assertEquals(3, mempool.getClientCount());
+
+        final List<MessageProto.PersistClientMessage> expected = Arrays.asList(
+          request(0, 0), request(0, 1), request(1, 0), request(1, 1), request(2, 0), request(0, 2), request(0, 3), request(0, 4));
+        assertEquals(expected, mempool.peek(10));
+        assertEquals(expected.subList(0, 3), mempool.peek(3));
+        assertEquals(8, mempool.size());
+
+        assertEquals(expected.subList(0, 3), mempool.drain(3));
+        assertEquals(5, mempool.size());
+
+        // Client 1 was cut off during its turn and goes first.
+        assertEquals(Arrays.asList(request(1, 1), request(2, 0), request(0, 2), request(0, 3), request(0, 4)), mempool.peek(10));
+        assertEquals(mempool.peek(10), mempool.drain(10));
+        assertEquals(0, mempool.size());
+        assertEquals(0, mempool.getBytes());
+        assertEquals(0, mempool.getClientCount());
+        assertEquals(0, mempool.getOldestNanos());
+        assertTrue(mempool.drain(10).isEmpty());
+    }
+
+    @Test
+    public void evictFromLongestQueue()
+    {
+        final int size = request(0, 0).getSerializedSize();
+        final Mempool mempool = new Mempool(3 * size, 1, 100);
+        assertEquals(Mempool.AddResult.ADDED, mempool.add(request(0, 0), 0));
+        assertEquals(Mempool.AddResult.ADDED, mempool.add(request(0, 1), 1));
+        assertEquals(Mempool.AddResult.ADDED, mempool.add(request(1, 0), 2));
+        assertEquals(3 * size, mempool.getBytes());
+
+        // Evicts the newest request of client 0.
+        assertEquals(Mempool.AddResult.ADDED, mempool.add(request(1, 1), 3));
+        assertEquals(1, mempool.getDroppedCount());
+
+        // Evicts the newest request of client 1.
+        assertEquals(Mempool.AddResult.ADDED, mempool.add(request(0, 2), 4));
+        assertEquals(2, mempool.getDroppedCount());
+
+        // Client 0 has the longest queue itself.
+        assertEquals(Mempool.AddResult.REJECTED, mempool.add(request(0, 3), 5));
+        assertEquals(3, mempool.getDroppedCount());
+
+        assertEquals(3 * size, mempool.getBytes());
+        assertEquals(Arrays.asList(request(0, 0), request(1, 0), request(0, 2)), mempool.peek(10));
+    }
+
+    /**
+     * Create a client request.
+     * @param client the client.
+     * @param number the number of the request of the client.
+     * @return the request.
+     */
+    private static MessageProto.PersistClientMessage request(final int client, final int number)
+    {
+        final MessageProto.ClientMessage message = MessageProto.ClientMessage.newBuilder()
+                                                     .setDif(number)
+                                                     .setPkey(ByteString.copyFrom(new byte[] {(byte) client, 1, 2, 3}))
+                                                     .build();
+        return MessageProto.PersistClientMessage.newBuilder().setMsg(message).setSig(ByteString.copyFrom(new byte[] {(byte) client, (byte) number})).build();
+    }
+}
@@ -0,0 +1,114 @@
+package util;
+
+import com.ray.mcu.pipeline.BlockingWaitStrategy;
+import com.ray.mcu.pipeline.RingBuffer;
+import com.ray.mcu.pipeline.YieldingWaitStrategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to run the ring buffer between the stages.
+ */
+public class RingBufferTest
+{
+    /**
+     * The number of entries each producer publishes.
+     */
+    private static final int ENTRIES = 10_000;
+
+    @Test
+    public void takeInOrder() throws InterruptedException
+    {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(5, RingBuffer.ProducerType.SINGLE, new BlockingWaitStrategy());
+        assertEquals(8, buffer.capacity());
+        assertTrue(buffer.isEmpty());
+
+        for (int i = 0; i < 20; i++)
+        {
+            buffer.put(i);
+            buffer.put(i + 100);
+            assertEquals(2, buffer.size());
+            assertEquals(i, (int) buffer.take());
+            assertEquals(i + 100, (int) buffer.take());
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void offerOnlyIntoFreeSlots() throws InterruptedException
+    {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(4, RingBuffer.ProducerType.MULTI, new BlockingWaitStrategy());
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, (int) buffer.take());
+        assertTrue(buffer.offer(5));
+        assertFalse(buffer.offer(6));
+
+        final List<Integer> entries = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(entries, 16));
+        assertEquals(Arrays.asList(1, 2, 3, 5), entries);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void drainMultipleProducers() throws InterruptedException
+    {
+        drainMultipleProducers(new RingBuffer<>(64, RingBuffer.ProducerType.MULTI, new BlockingWaitStrategy()));
+        drainMultipleProducers(new RingBuffer<>(64, RingBuffer.ProducerType.MULTI, new YieldingWaitStrategy()));
+    }
+
+    /**
+     * Publish from several threads into a small buffer and check that every entry arrives once and in producer order.
+     * @param buffer the buffer to test.
+     * @throws InterruptedException if interrupted.
+     */
+    private static void drainMultipleProducers(final RingBuffer<int[]> buffer) throws InterruptedException
+    {
+        final int producers = 4;
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            final Thread thread = new Thread(() ->
+            {
+                for (int i = 0; i < ENTRIES; i++)
+                {
+                    assertTrue(buffer.add(new int[] {producer, i}));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        final int[] next = new int[producers];
+        final List<int[]> batch = new ArrayList<>();
+        int received = 0;
+        while (received < producers * ENTRIES)
+        {
+            final int drained = buffer.drainTo(batch, 16);
+            assertTrue(drained > 0 && drained <= 16);
+            for (final int[] entry : batch)
+            {
+                assertEquals(next[entry[0]]++, entry[1]);
+            }
+            received += drained;
+            batch.clear();
+        }
+
+        for (final Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,205 @@
+package util;
+
+import com.ray.mcu.communication.clientoperations.IClientOperation;
+import com.ray.mcu.communication.serveroperations.IOperation;
+import com.ray.mcu.communication.wrappers.IMessageWrapper;
+import com.ray.mcu.server.IServer;
+import com.ray.mcu.server.ServerData;
+import com.ray.mcu.server.server.SessionKeys;
+import com.ray.mcu.utils.KeyUtilities;
+import com.ray.mcu.views.GlobalView;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to run the session key handshake and the authenticators.
+ */
+public class SessionKeysTest
+{
+    @Test
+    public void macRoundTrip()
+    {
+        final TestReplica sender = new TestReplica(0);
+        final TestReplica receiver = new TestReplica(1);
+        assertTrue(receiver.keys.acceptHandshake(sender.data, sender.keys.createHandshake(receiver.data)));
+
+        final byte[] message = randomMessage();
+        final byte[] authenticator = sender.keys.authenticate(message);
+        assertTrue(receiver.keys.verify(0, message, authenticator));
+        assertTrue(receiver.keys.isAuthentic(sender.data, ByteBuffer.wrap(message), authenticator));
+
+        message[0] ^= 1;
+        assertFalse(receiver.keys.verify(0, message, authenticator));
+    }
+
+    @Test
+    public void rejectMacOfWrongKey()
+    {
+        final TestReplica sender = new TestReplica(0);
+        final TestReplica receiver = new TestReplica(1);
+        assertTrue(receiver.keys.acceptHandshake(sender.data, sender.keys.createHandshake(receiver.data)));
+
+        // Same id, but a key the receiver never got.
+        final TestReplica impostor = new TestReplica(0);
+        impostor.keys.createHandshake(receiver.data);
+
+        final byte[] message = randomMessage();
+        final byte[] authenticator = impostor.keys.authenticate(message);
+        assertFalse(receiver.keys.verify(0, message, authenticator));
+        assertFalse(receiver.keys.verify(2, message, sender.keys.authenticate(message)));
+    }
+
+    @Test
+    public void handshakeDecryption()
+    {
+        final TestReplica sender = new TestReplica(0);
+        final TestReplica receiver = new TestReplica(1);
+        final TestReplica other = new TestReplica(2);
+
+        // Encrypted for another replica.
+        final byte[] foreign = sender.keys.createHandshake(other.data);
+        assertFalse(receiver.keys.acceptHandshake(sender.data, foreign));
+
+        // Signed by another replica than the claimed sender.
+        assertFalse(receiver.keys.acceptHandshake(other.data, sender.keys.createHandshake(receiver.data)));
+
+        // Tampered with.
+        final byte[] tampered = sender.keys.createHandshake(receiver.data);
+        tampered[8] ^= 1;
+        assertFalse(receiver.keys.acceptHandshake(sender.data, tampered));
+
+        // Invalid length.
+        assertFalse(receiver.keys.acceptHandshake(sender.data, ByteBuffer.allocate(8).putInt(100).array()));
+
+        assertTrue(receiver.keys.acceptHandshake(sender.data, sender.keys.createHandshake(receiver.data)));
+    }
+
+    @Test
+    public void fallBackToSignaturesBeforeHandshake()
+    {
+        final TestReplica sender = new TestReplica(0);
+        final TestReplica receiver = new TestReplica(1);
+        final byte[] message = randomMessage();
+
+        assertFalse(sender.keys.isEstablished(1));
+        assertEquals(0, sender.keys.authenticate(message).length);
+
+        final byte[] signature = sender.signMessage(message);
+        assertFalse(receiver.keys.verify(0, message, signature));
+        assertTrue(receiver.keys.isAuthentic(sender.data, ByteBuffer.wrap(message), signature));
+        assertFalse(receiver.keys.isAuthentic(sender.data, ByteBuffer.wrap(message), new byte[signature.length]));
+
+        final byte[] handshake = sender.keys.createHandshake(receiver.data);
+        assertTrue(sender.keys.isEstablished(1));
+        assertFalse(sender.keys.isEstablished(2));
+        assertTrue(receiver.keys.acceptHandshake(sender.data, handshake));
+
+        // Signed messages still pass once the keys are established.
+        assertTrue(receiver.keys.isAuthentic(sender.data, ByteBuffer.wrap(message), signature));
+        assertTrue(receiver.keys.isAuthentic(sender.data, ByteBuffer.wrap(message), sender.keys.authenticate(message)));
+    }
+
+    /**
+     * Create a random message.
+     * @return the message.
+     */
+    private static byte[] randomMessage()
+    {
+        final byte[] message = new byte[64];
+        new Random().nextBytes(message);
+        return message;
+    }
+
+    /**
+     * A replica with its own key pair, without any networking.
+     */
+    private static class TestReplica implements IServer
+    {
+        /**
+         * The key pair of the replica.
+         */
+        private final KeyPair keyPair = KeyUtilities.generateKeyPair();
+
+        /**
+         * The data of the replica, holding its public key.
+         */
+        private final ServerData data;
+
+        /**
+         * The session keys of the replica.
+         */
+        private final SessionKeys keys = new SessionKeys(this);
+
+        /**
+         * Create a replica.
+         * @param id the id of the replica.
+         */
+        private TestReplica(final int id)
+        {
+            this.data = new ServerData(id, "127.0.0.1", 7000 + id);
+            this.data.setPublicKey(keyPair.getPublic());
+        }
+
+        @Override
+        public void handleMessage(final IMessageWrapper message)
+        {
+            /*
+             * Intentionally empty.
+             */
+        }
+
+        @Override
+        public ServerData getServerData()
+        {
+            return data;
+        }
+
+        @Override
+        public byte[] signMessage(final byte[] message)
+        {
+            return KeyUtilities.signMessage(message, keyPair.getPrivate());
+        }
+
+        @Override
+        public byte[] decryptMessage(final byte[] message)
+        {
+            return KeyUtilities.decryptMessage(message, keyPair.getPrivate());
+        }
+
+        @Override
+        public SessionKeys getSessionKeys()
+        {
+            return keys;
+        }
+
+        @Override
+        public int drainOutputQueue(final Collection<? super IOperation> target, final int max)
+        {
+            return 0;
+        }
+
+        @Override
+        public int drainClientOutputQueue(final Collection<? super IClientOperation> target, final int max)
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean isActive()
+        {
+            return true;
+        }
+
+        @Override
+        public GlobalView getView()
+        {
+            return null;
+        }
+    }
+}
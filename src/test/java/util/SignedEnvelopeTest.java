@@ -0,0 +1,127 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import com.ray.mcu.communication.SignedEnvelope;
+import com.ray.mcu.proto.MessageProto;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to locate the signed parts of a received message.
+ */
+public class SignedEnvelopeTest
+{
+    @Test
+    public void readSignedPayload() throws IOException
+    {
+        final MessageProto.PrePrepare prePrepare = prePrepare(1);
+        final byte[] frame = frame(field(MessageProto.Message.PREPREPARE_FIELD_NUMBER, prePrepare.toByteArray()), field(MessageProto.Message.SIG_FIELD_NUMBER, new byte[] {7, 7}));
+
+        final SignedEnvelope envelope = SignedEnvelope.read(ByteBuffer.wrap(frame));
+        assertEquals(MessageProto.Message.MessagesCase.PREPREPARE, envelope.getType());
+        assertEquals(ByteBuffer.wrap(prePrepare.toByteArray()), envelope.getPayload());
+        assertArrayEquals(new byte[] {7, 7}, envelope.getSig());
+        assertEquals(prePrepare, MessageProto.Message.parseFrom(frame).getPrePrepare());
+    }
+
+    @Test
+    public void rejectSecondPayload() throws IOException
+    {
+        // The signature covers the second preprepare only, parsing the frame would merge the first into it.
+        final byte[] frame = frame(
+          field(MessageProto.Message.PREPREPARE_FIELD_NUMBER, prePrepare(2).toByteArray()),
+          field(MessageProto.Message.PREPREPARE_FIELD_NUMBER, prePrepare(1).toByteArray()),
+          field(MessageProto.Message.SIG_FIELD_NUMBER, new byte[] {7, 7}));
+        assertRejected(frame);
+
+        assertRejected(frame(
+          field(MessageProto.Message.COMMIT_FIELD_NUMBER, new byte[0]),
+          field(MessageProto.Message.PREPREPARE_FIELD_NUMBER, prePrepare(1).toByteArray())));
+    }
+
+    @Test
+    public void rejectSecondSignatureAndUnknownFields() throws IOException
+    {
+        final byte[] payload = field(MessageProto.Message.PREPREPARE_FIELD_NUMBER, prePrepare(1).toByteArray());
+        assertRejected(frame(payload, field(MessageProto.Message.SIG_FIELD_NUMBER, new byte[] {7}), field(MessageProto.Message.SIG_FIELD_NUMBER, new byte[] {8})));
+        assertRejected(frame(field(30, new byte[] {1, 2}), payload));
+
+        final ByteArrayOutputStream varint = new ByteArrayOutputStream();
+        final CodedOutputStream out = CodedOutputStream.newInstance(varint);
+        out.writeInt32(MessageProto.Message.PREPREPARE_FIELD_NUMBER, 5);
+        out.flush();
+        assertRejected(frame(varint.toByteArray(), payload));
+    }
+
+    /**
+     * Check that reading a frame fails.
+     * @param frame the frame.
+     */
+    private static void assertRejected(final byte[] frame)
+    {
+        try
+        {
+            SignedEnvelope.read(ByteBuffer.wrap(frame));
+            fail("Accepted an ambiguous frame");
+        }
+        catch (final InvalidProtocolBufferException e)
+        {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    /**
+     * Create a preprepare.
+     * @param viewId its view id.
+     * @return the preprepare.
+     */
+    private static MessageProto.PrePrepare prePrepare(final int viewId)
+    {
+        final MessageProto.PersistClientMessage input = MessageProto.PersistClientMessage.newBuilder()
+                                                          .setMsg(MessageProto.ClientMessage.newBuilder().setDif(viewId).setPkey(ByteString.copyFrom(new byte[] {1})))
+                                                          .setSig(ByteString.copyFrom(new byte[] {(byte) viewId}))
+                                                          .build();
+        return MessageProto.PrePrepare.newBuilder().addInput(input).setView(MessageProto.View.newBuilder().setId(viewId).setCoordinator(0)).build();
+    }
+
+    /**
+     * Serialize a length delimited field.
+     * @param number the field number.
+     * @param content the content.
+     * @return the field on the wire.
+     * @throws IOException if writing fails.
+     */
+    private static byte[] field(final int number, final byte[] content) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeTag(number, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(content.length);
+        out.writeRawBytes(content);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Concatenate fields to a frame.
+     * @param fields the serialized fields.
+     * @return the frame.
+     */
+    private static byte[] frame(final byte[]... fields)
+    {
+        final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        for (final byte[] field : fields)
+        {
+            frame.write(field, 0, field.length);
+        }
+        return frame.toByteArray();
+    }
+}
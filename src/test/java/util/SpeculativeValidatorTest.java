@@ -0,0 +1,170 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.AccountState;
+import com.ray.pbft.communication.wrappers.PrePrepareWrapper;
+import com.ray.pbft.utils.BatchEffects;
+import com.ray.pbft.utils.Speculation;
+import com.ray.pbft.utils.SpeculativeValidator;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to validate batches speculatively and to check the speculations at execution.
+ */
+public class SpeculativeValidatorTest
+{
+    /**
+     * The fingerprint of the account the batches debit.
+     */
+    private static final long[] ACCOUNT = {42, 43};
+
+    @Test
+    public void holdOnlyForSameBaseAndDependencies()
+    {
+        final TreeMap<Integer, ByteString> validated = new TreeMap<>();
+        validated.put(3, signature(3));
+        validated.put(4, signature(4));
+        final Speculation speculation = new Speculation(5, 2, Arrays.asList(signature(3), signature(4)), Speculation.Verdict.VALID);
+        assertTrue(SpeculativeValidator.holds(speculation, validated));
+        assertTrue(SpeculativeValidator.holds(new Speculation(5, 2, Arrays.asList(signature(3), signature(4)), Speculation.Verdict.INVALID), validated));
+        assertTrue(SpeculativeValidator.holds(new Speculation(5, 4, Collections.emptyList(), Speculation.Verdict.VALID), validated));
+
+        // Validated against an older state.
+        assertFalse(SpeculativeValidator.holds(new Speculation(5, 1, Arrays.asList(signature(3), signature(4)), Speculation.Verdict.VALID), validated));
+        assertFalse(SpeculativeValidator.holds(new Speculation(5, 1, Arrays.asList(signature(2), signature(3), signature(4)), Speculation.Verdict.VALID), validated));
+
+        // Another batch was executed before it.
+        validated.put(4, signature(14));
+        assertFalse(SpeculativeValidator.holds(speculation, validated));
+        validated.remove(4);
+        assertFalse(SpeculativeValidator.holds(speculation, validated));
+
+        assertFalse(SpeculativeValidator.holds(null, validated));
+        assertFalse(SpeculativeValidator.holds(new Speculation(5, 4, Collections.emptyList(), Speculation.Verdict.UNKNOWN), validated));
+    }
+
+    @Test
+    public void validateAgainstPendingBatches()
+    {
+        final AccountState state = new AccountState(4, 2);
+        apply(state, 10, 0);
+        final Map<Integer, PrePrepareWrapper> prePrepares = new HashMap<>();
+        prePrepares.put(1, prePrepare(1, -6));
+        prePrepares.put(2, prePrepare(2, -6));
+
+        final SpeculativeValidator validator = new SpeculativeValidator();
+        validator.speculate(prePrepares::get, 1, state);
+        assertEquals(2, validator.getSpeculationCount());
+
+        final Speculation first = prePrepares.get(1).speculation;
+        assertEquals(Speculation.Verdict.VALID, first.getVerdict());
+        assertEquals(0, first.getBase());
+        assertTrue(first.getDependencies().isEmpty());
+
+        final Speculation second = prePrepares.get(2).speculation;
+        assertEquals(Speculation.Verdict.INVALID, second.getVerdict());
+        assertEquals(0, second.getBase());
+        assertEquals(Collections.singletonList(signature(1)), second.getDependencies());
+
+        // Nothing new to validate.
+        validator.speculate(prePrepares::get, 1, state);
+        assertEquals(2, validator.getSpeculationCount());
+    }
+
+    @Test
+    public void dropAppliedBatchesFromOverlay()
+    {
+        final AccountState state = new AccountState(4, 2);
+        apply(state, 10, 0);
+        final Map<Integer, PrePrepareWrapper> prePrepares = new HashMap<>();
+        prePrepares.put(1, prePrepare(1, -4));
+        prePrepares.put(2, prePrepare(2, -4));
+
+        final SpeculativeValidator validator = new SpeculativeValidator();
+        validator.speculate(prePrepares::get, 1, state);
+        assertEquals(Speculation.Verdict.VALID, prePrepares.get(2).speculation.getVerdict());
+
+        // Applied by the commit validator, its changes leave the overlay.
+        apply(state, -8, 2);
+        prePrepares.put(3, prePrepare(3, -2));
+        validator.speculate(prePrepares::get, 1, state);
+
+        final Speculation third = prePrepares.get(3).speculation;
+        assertEquals(Speculation.Verdict.VALID, third.getVerdict());
+        assertEquals(2, third.getBase());
+        assertTrue(third.getDependencies().isEmpty());
+
+        prePrepares.put(4, prePrepare(4, -1));
+        validator.speculate(prePrepares::get, 1, state);
+        assertEquals(Speculation.Verdict.INVALID, prePrepares.get(4).speculation.getVerdict());
+        assertEquals(Collections.singletonList(signature(3)), prePrepares.get(4).speculation.getDependencies());
+    }
+
+    @Test
+    public void unstableReadIsUnknown()
+    {
+        final AccountState state = new AccountState(4, 2)
+        {
+            @Override
+            public int readBalances(final long[] fingerprints, final int count, final long[] balances)
+            {
+                return UNSTABLE_READ;
+            }
+        };
+        final Map<Integer, PrePrepareWrapper> prePrepares = new HashMap<>();
+        prePrepares.put(0, prePrepare(0, 1));
+        prePrepares.put(1, prePrepare(1, 1));
+
+        final SpeculativeValidator validator = new SpeculativeValidator();
+        validator.speculate(prePrepares::get, 0, state);
+        for (final PrePrepareWrapper prePrepare : prePrepares.values())
+        {
+            assertEquals(Speculation.Verdict.UNKNOWN, prePrepare.speculation.getVerdict());
+            assertFalse(SpeculativeValidator.holds(prePrepare.speculation, new TreeMap<>()));
+        }
+    }
+
+    /**
+     * Apply a change to the account.
+     * @param state the account state.
+     * @param delta the change.
+     * @param sequence the sequence number of the last instance applied with it.
+     */
+    private static void apply(final AccountState state, final long delta, final int sequence)
+    {
+        state.addAll(ACCOUNT, new long[] {delta}, 1, ForkJoinPool.commonPool(), 1, sequence);
+    }
+
+    /**
+     * Create a preprepare with a single change of the account.
+     * @param sequence the sequence number of the batch.
+     * @param delta the change.
+     * @return the preprepare with its effects.
+     */
+    private static PrePrepareWrapper prePrepare(final int sequence, final long delta)
+    {
+        final PrePrepareWrapper prePrepare = new PrePrepareWrapper(0, MessageProto.Message.newBuilder().setSig(signature(sequence)).buildPartial());
+        prePrepare.effects = new BatchEffects(sequence, ACCOUNT, new long[] {delta});
+        return prePrepare;
+    }
+
+    /**
+     * Create the coordinator signature of a batch.
+     * @param sequence the sequence number of the batch.
+     * @return the signature.
+     */
+    private static ByteString signature(final int sequence)
+    {
+        return ByteString.copyFrom(new byte[] {(byte) sequence, 1});
+    }
+}
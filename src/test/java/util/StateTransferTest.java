@@ -0,0 +1,181 @@
+package util;
+
+import com.google.protobuf.ByteString;
+import com.ray.mcu.proto.MessageProto;
+import com.ray.mcu.server.AccountState;
+import com.ray.pbft.utils.StateSnapshot;
+import com.ray.pbft.utils.StateTransfer;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test to fetch and verify a state snapshot from another replica.
+ */
+public class StateTransferTest
+{
+    /**
+     * The replica the snapshot is fetched from.
+     */
+    private static final int PROVIDER = 1;
+
+    /**
+     * The size of the transferred chunks.
+     */
+    private static final int CHUNK_BYTES = 5 * AccountState.HASH_SIZE;
+
+    @Test
+    public void fetchAllBuckets()
+    {
+        final AccountState source = createState(500);
+        final StateSnapshot snapshot = StateSnapshot.capture(10, source);
+        final StateTransfer transfer = new StateTransfer(10, ByteString.copyFrom(snapshot.getDigest()), PROVIDER, 4, source.getBucketCount(), null);
+
+        assertEquals(StateTransfer.Result.REQUEST, receiveAll(transfer, snapshot.getHashChunks(CHUNK_BYTES)));
+        assertEquals(source.getBucketCount(), transfer.getRequestedCount());
+
+        final List<ByteString> buckets = snapshot.getBucketChunks(BitSet.valueOf(transfer.getRequestedBuckets()), CHUNK_BYTES);
+        assertTrue(buckets.size() > 1);
+
+        // Only in order and from the provider.
+        assertEquals(StateTransfer.Result.IGNORED, transfer.receive(2, chunk(10, 0, buckets.size(), buckets.get(0))));
+        assertEquals(StateTransfer.Result.IGNORED, transfer.receive(PROVIDER, chunk(11, 0, buckets.size(), buckets.get(0))));
+        assertEquals(StateTransfer.Result.IGNORED, transfer.receive(PROVIDER, chunk(10, 1, buckets.size(), buckets.get(1))));
+
+        assertEquals(StateTransfer.Result.COMPLETE, receiveAll(transfer, buckets));
+        final StateSnapshot fetched = transfer.getSnapshot();
+        assertNotNull(fetched);
+
+        final AccountState target = new AccountState(4, 2);
+        target.install(fetched.getBucketHashes(), fetched.getBuckets(), fetched.getSequence());
+        assertArrayEquals(source.getRootHash(), target.getRootHash());
+        assertEquals(source.size(), target.size());
+    }
+
+    @Test
+    public void rejectWrongBucketCount()
+    {
+        final AccountState source = createState(100);
+        final StateSnapshot snapshot = StateSnapshot.capture(10, source);
+
+        // The hashes match the digest, but not the shape of the local state.
+        final StateTransfer larger = new StateTransfer(10, ByteString.copyFrom(snapshot.getDigest()), PROVIDER, 4, 64, null);
+        assertEquals(StateTransfer.Result.INVALID, receiveAll(larger, snapshot.getHashChunks(CHUNK_BYTES)));
+
+        final StateTransfer smaller = new StateTransfer(10, ByteString.copyFrom(snapshot.getDigest()), PROVIDER, 4, 4, null);
+        assertEquals(StateTransfer.Result.INVALID, receiveAll(smaller, snapshot.getHashChunks(CHUNK_BYTES)));
+        assertNull(smaller.getSnapshot());
+    }
+
+    @Test
+    public void rejectBadChunks()
+    {
+        final AccountState source = createState(100);
+        final StateSnapshot snapshot = StateSnapshot.capture(10, source);
+
+        final StateTransfer wrongDigest = new StateTransfer(10, ByteString.copyFrom(new byte[AccountState.HASH_SIZE]), PROVIDER, 4, source.getBucketCount(), null);
+        assertEquals(StateTransfer.Result.INVALID, receiveAll(wrongDigest, snapshot.getHashChunks(CHUNK_BYTES)));
+
+        final StateTransfer transfer = new StateTransfer(10, ByteString.copyFrom(snapshot.getDigest()), PROVIDER, 4, source.getBucketCount(), null);
+        assertEquals(StateTransfer.Result.REQUEST, receiveAll(transfer, snapshot.getHashChunks(CHUNK_BYTES)));
+        final byte[] buckets = snapshot.getBucketChunks(BitSet.valueOf(transfer.getRequestedBuckets()), Integer.MAX_VALUE).get(0).toByteArray();
+        buckets[buckets.length - 1] ^= 1;
+        assertEquals(StateTransfer.Result.INVALID, transfer.receive(PROVIDER, chunk(10, 0, 1, ByteString.copyFrom(buckets))));
+        assertNull(transfer.getSnapshot());
+    }
+
+    @Test
+    public void resumeFromBase()
+    {
+        final long[] accounts = generateFingerprints(500);
+        final AccountState source = new AccountState(4, 2);
+        for (int i = 0; i < 500; i++)
+        {
+            source.add(accounts[i * 2], accounts[i * 2 + 1], 10);
+        }
+        final StateSnapshot base = StateSnapshot.capture(5, source);
+
+        // Nothing changed since the base.
+        final StateTransfer unchanged = new StateTransfer(5, ByteString.copyFrom(base.getDigest()), PROVIDER, 4, source.getBucketCount(), base);
+        assertEquals(StateTransfer.Result.COMPLETE, receiveAll(unchanged, base.getHashChunks(CHUNK_BYTES)));
+        assertEquals(0, unchanged.getRequestedCount());
+
+        source.add(accounts[0], accounts[1], 1);
+        source.add(accounts[2], accounts[3], 1);
+        final StateSnapshot snapshot = StateSnapshot.capture(10, source);
+        final StateTransfer transfer = new StateTransfer(10, ByteString.copyFrom(snapshot.getDigest()), PROVIDER, 4, source.getBucketCount(), base);
+        assertEquals(StateTransfer.Result.REQUEST, receiveAll(transfer, snapshot.getHashChunks(CHUNK_BYTES)));
+
+        final BitSet requested = BitSet.valueOf(transfer.getRequestedBuckets());
+        final BitSet changed = new BitSet();
+        changed.set(AccountState.bucketOf(accounts[0], source.getBucketCount()));
+        changed.set(AccountState.bucketOf(accounts[2], source.getBucketCount()));
+        assertEquals(changed, requested);
+
+        assertEquals(StateTransfer.Result.COMPLETE, receiveAll(transfer, snapshot.getBucketChunks(requested, CHUNK_BYTES)));
+        final StateSnapshot fetched = transfer.getSnapshot();
+        assertArrayEquals(snapshot.getDigest(), fetched.getDigest());
+        for (int bucket = 0; bucket < source.getBucketCount(); bucket++)
+        {
+            assertArrayEquals(snapshot.getBuckets()[bucket], fetched.getBuckets()[bucket]);
+        }
+    }
+
+    /**
+     * Pass the chunks of a response to a transfer.
+     * @param transfer the transfer.
+     * @param chunks the chunks in order.
+     * @return the result of the last chunk, MORE for all chunks before it.
+     */
+    private static StateTransfer.Result receiveAll(final StateTransfer transfer, final List<ByteString> chunks)
+    {
+        for (int i = 0; i < chunks.size() - 1; i++)
+        {
+            assertEquals(StateTransfer.Result.MORE, transfer.receive(PROVIDER, chunk(transfer.getSequence(), i, chunks.size(), chunks.get(i))));
+        }
+        return transfer.receive(PROVIDER, chunk(transfer.getSequence(), chunks.size() - 1, chunks.size(), chunks.get(chunks.size() - 1)));
+    }
+
+    /**
+     * Create a chunk.
+     * @param sequence the sequence number of the checkpoint.
+     * @param chunk the number of the chunk.
+     * @param chunkCount the number of chunks of the response.
+     * @param data the content.
+     * @return the chunk.
+     */
+    private static MessageProto.StateChunk chunk(final int sequence, final int chunk, final int chunkCount, final ByteString data)
+    {
+        return MessageProto.StateChunk.newBuilder().setSequence(sequence).setChunk(chunk).setChunkCount(chunkCount).setData(data).build();
+    }
+
+    /**
+     * Create a state of 16 buckets with accounts.
+     * @param accounts the number of accounts.
+     * @return the state.
+     */
+    private static AccountState createState(final int accounts)
+    {
+        final AccountState state = new AccountState(4, 2);
+        final long[] fingerprints = generateFingerprints(accounts);
+        for (int i = 0; i < accounts; i++)
+        {
+            state.add(fingerprints[i * 2], fingerprints[i * 2 + 1], 10);
+        }
+        return state;
+    }
+
+    /**
+     * Generate distinct account fingerprints.
+     * @param count the number of fingerprints.
+     * @return the fingerprints, two longs each.
+     */
+    private static long[] generateFingerprints(final int count)
+    {
+        return new Random(7).longs().filter(fingerprint -> fingerprint != 0).distinct().limit(count * 2L).toArray();
+    }
+}